@@ -0,0 +1,89 @@
+package com.hospomate.service;
+
+import com.hospomate.model.HourlyCategoryRollup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Training demand forecasts from scratch for 20 stores over a year of hourly
+ * category rollups (four categories per open hour), read in the same 28-day
+ * chunks as DemandForecastService. Rows are built up front, so this is the
+ * fitting cost on one core without the database. The target is seconds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DemandForecastBenchmark {
+
+    private static final int STORES = 20;
+    private static final int DAYS = 364;
+    private static final int CHUNK_DAYS = 28;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 3, 4);
+    private static final SeasonalSmoothing.Parameters PARAMETERS = new SeasonalSmoothing.Parameters(0.05, 0.001,
+            0.3, 0.98);
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    // Store -> chunk -> rows
+    private final List<List<List<HourlyCategoryRollup>>> rows = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        for (int store = 0; store < STORES; store++) {
+            Random random = new Random(store);
+            List<List<HourlyCategoryRollup>> chunks = new ArrayList<>();
+            for (int chunk = 0; chunk < DAYS / CHUNK_DAYS; chunk++) {
+                List<HourlyCategoryRollup> chunkRows = new ArrayList<>();
+                for (int day = 0; day < CHUNK_DAYS; day++) {
+                    LocalDate date = FIRST_DAY.plusDays((long) chunk * CHUNK_DAYS + day);
+                    for (int hour = 7; hour < 21; hour++) {
+                        Instant hourStart = date.atTime(hour, 0).atZone(zone).toInstant();
+                        for (int category = 0; category < 4; category++) {
+                            HourlyCategoryRollup row = new HourlyCategoryRollup(SyntheticSquareData.LOCATION_ID,
+                                    hourStart, "Category " + category);
+                            row.setRevenueCents(5000 + random.nextInt(20000));
+                            row.setItemCount(5 + random.nextInt(20));
+                            chunkRows.add(row);
+                        }
+                    }
+                }
+                chunks.add(chunkRows);
+            }
+            rows.add(chunks);
+        }
+    }
+
+    @Benchmark
+    public List<DemandForecastService.Fitter> trainYearForAllStores() {
+        List<DemandForecastService.Fitter> fitters = new ArrayList<>(STORES);
+        for (List<List<HourlyCategoryRollup>> chunks : rows) {
+            DemandForecastService.Fitter fitter = new DemandForecastService.Fitter(PARAMETERS, null, null);
+            for (int chunk = 0; chunk < chunks.size(); chunk++) {
+                LocalDateTime start = FIRST_DAY.plusDays((long) chunk * CHUNK_DAYS).atStartOfDay();
+                fitter.addHours(start.atZone(zone).toInstant(), start.plusDays(CHUNK_DAYS).atZone(zone).toInstant(),
+                        zone, chunks.get(chunk));
+            }
+            fitters.add(fitter);
+        }
+        return fitters;
+    }
+}
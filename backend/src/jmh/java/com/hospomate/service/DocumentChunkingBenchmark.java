@@ -0,0 +1,63 @@
+package com.hospomate.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splitting extracted PDF pages into overlapping chunks, for manuals of a
+ * few to a few hundred pages of about 3,000 characters each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentChunkingBenchmark {
+
+    private static final String[] WORDS = { "clean", "the", "coffee", "machine", "group", "head", "after", "each",
+            "service", "and", "check", "fridge", "temperature", "log", "before", "opening", "allergen", "labels" };
+
+    @Param({ "10", "100", "400" })
+    public int pages;
+
+    private List<Document> documents;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        documents = new ArrayList<>(pages);
+        for (int page = 1; page <= pages; page++) {
+            StringBuilder text = new StringBuilder(3200);
+            while (text.length() < 3000) {
+                text.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(12) == 0 ? ".\n" : " ");
+            }
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("page_number", page);
+            metadata.put("file_name", "procedures.pdf");
+            documents.add(new Document(text.toString(), metadata));
+        }
+    }
+
+    @Benchmark
+    public List<Document> splitIntoChunks() {
+        return DocumentService.splitIntoChunks(documents);
+    }
+}
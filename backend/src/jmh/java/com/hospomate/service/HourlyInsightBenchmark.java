@@ -0,0 +1,134 @@
+package com.hospomate.service;
+
+import com.hospomate.dto.HourlyInsightDTO;
+import com.hospomate.model.JobRoleContribution;
+import com.hospomate.model.Staff;
+import com.hospomate.model.Store;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One busy hour of the dashboard aggregation, before and after summing money
+ * in long cents. Each invocation aggregates {@value #ORDERS} orders, so the
+ * {@code gc.alloc.rate.norm} column reads as bytes allocated per order.
+ *
+ * <pre>
+ * mvn -P benchmarks test-compile exec:exec -Djmh.args="HourlyInsightBenchmark"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(HourlyInsightBenchmark.ORDERS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HourlyInsightBenchmark {
+
+    static final int ORDERS = 1000;
+    private static final int CATEGORIES = 12;
+    private static final int VARIATIONS = 150;
+    private static final int STAFF = 20;
+    private static final LocalDateTime HOUR = LocalDateTime.of(2025, 3, 7, 12, 0);
+    private static final String[] ROLES = { "Barista", "Chef", "Waiter", "Manager" };
+
+    private final RevenueIntelligenceService service = new RevenueIntelligenceService(null, null, null, null,
+            null, null);
+
+    private List<ParsedOrder> orders;
+    private List<ParsedShift> shifts;
+    private RevenueIntelligenceService.InsightContext context;
+    private LegacyHourlyInsight legacy;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+
+        Map<String, String> variationToCategory = new HashMap<>();
+        for (int v = 0; v < VARIATIONS; v++) {
+            variationToCategory.put("VAR-" + v, "Category " + (v % CATEGORIES));
+        }
+
+        List<Staff> staff = new ArrayList<>();
+        Map<String, String> squareStaffNames = new HashMap<>();
+        Map<String, Staff> staffByTeamMember = new HashMap<>();
+        shifts = new ArrayList<>();
+        for (int s = 0; s < STAFF; s++) {
+            Staff member = new Staff();
+            member.setName("Staff " + s);
+            member.setJobTitle(ROLES[s % ROLES.length]);
+            staff.add(member);
+            staffByTeamMember.put("TM-" + s, member);
+            squareStaffNames.put("TM-" + s, "Staff " + s + " Surname");
+            shifts.add(new ParsedShift("TM-" + s, HOUR.minusHours(2), HOUR.plusHours(3)));
+        }
+
+        List<JobRoleContribution> contributions = new ArrayList<>();
+        for (int c = 0; c < CATEGORIES; c++) {
+            contributions.add(contribution("Category " + c, ROLES[c % ROLES.length], "70"));
+            contributions.add(contribution("Category " + c, ROLES[(c + 1) % ROLES.length], "30"));
+        }
+
+        // Mostly itemised orders of 1-4 lines, some with a surcharge, a few custom amounts
+        orders = new ArrayList<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            LocalDateTime closedAt = HOUR.plusSeconds(random.nextInt(3600));
+            if (random.nextInt(20) == 0) {
+                orders.add(new ParsedOrder("o" + i, closedAt, List.of(), List.of(), 500L + random.nextInt(5000),
+                        (long) random.nextInt(200)));
+                continue;
+            }
+            List<ParsedOrder.LineItem> lineItems = new ArrayList<>();
+            for (int l = 1 + random.nextInt(4); l > 0; l--) {
+                long quantity = 1 + random.nextInt(3);
+                lineItems.add(new ParsedOrder.LineItem("VAR-" + random.nextInt(VARIATIONS + 10), quantity,
+                        quantity * (350 + random.nextInt(2000))));
+            }
+            List<Long> serviceCharges = random.nextInt(10) == 0 ? List.of(150L) : List.of();
+            orders.add(new ParsedOrder("o" + i, closedAt, lineItems, serviceCharges, null, null));
+        }
+
+        Store store = new Store();
+        store.setRevenuePerLabourHourThreshold(new BigDecimal("50.00"));
+        context = new RevenueIntelligenceService.InsightContext(store, contributions, staff, staffByTeamMember,
+                squareStaffNames, variationToCategory);
+        legacy = new LegacyHourlyInsight(store.getRevenuePerLabourHourThreshold(), contributions, staff,
+                squareStaffNames, variationToCategory);
+    }
+
+    @Benchmark
+    public HourlyInsightDTO bigDecimalMaps() {
+        return legacy.calculate(HOUR, HOUR.plusHours(1), orders, shifts);
+    }
+
+    @Benchmark
+    public HourlyInsightDTO longCents() {
+        return service.calculateHourlyInsight(HOUR, HOUR.plusHours(1), orders, shifts, context);
+    }
+
+    private static JobRoleContribution contribution(String category, String jobTitle, String percentage) {
+        JobRoleContribution contribution = new JobRoleContribution();
+        contribution.setCategoryName(category);
+        contribution.setJobTitle(jobTitle);
+        contribution.setContributionPercentage(new BigDecimal(percentage));
+        return contribution;
+    }
+}
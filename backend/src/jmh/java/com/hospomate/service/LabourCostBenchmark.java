@@ -0,0 +1,146 @@
+package com.hospomate.service;
+
+import com.hospomate.dto.LabourCostDTO;
+import com.hospomate.model.HourlyCategoryRollup;
+import com.hospomate.model.HourlyTeamMemberRollup;
+import com.hospomate.model.SquareOrder;
+import com.hospomate.model.Staff;
+import com.hospomate.model.Store;
+import com.hospomate.repository.HourlyCategoryRollupRepository;
+import com.hospomate.repository.HourlyTeamMemberRollupRepository;
+import com.hospomate.repository.StaffRepository;
+import com.hospomate.repository.StoreRepository;
+import com.squareup.square.types.Shift;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static com.hospomate.service.RevenueDashboardBenchmark.repository;
+
+/**
+ * A week of labour cost from in-memory rollups, as the roster view requests
+ * it: linking team members, pricing every shift minute and flagging each
+ * hour. Rollups are built from the synthetic orders and shifts the same way
+ * RevenueRollupService splits them by hour. The target is well under 100 ms
+ * for 200 staff.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LabourCostBenchmark {
+
+    private static final Long STORE_ID = 1L;
+    private static final LocalDate WEEK_START = LocalDate.of(2025, 3, 3);
+
+    @Param({ "50", "200" })
+    public int staff;
+
+    private LabourCostService service;
+
+    @Setup
+    public void setUp() {
+        SyntheticSquareData data = new SyntheticSquareData(WEEK_START, 50000, staff, 42);
+        for (Staff member : data.staff) {
+            member.setHourlyRate(BigDecimal.valueOf(2500 + member.getId() % 20 * 75, 2));
+        }
+
+        Store store = new Store();
+        store.setId(STORE_ID);
+        store.setRevenuePerLabourHourThreshold(new BigDecimal("50.00"));
+
+        SquareService squareService = new SquareService(null, null, null, Runnable::run, 60, 10, 200) {
+            @Override
+            public String getLocationId(Long storeId) {
+                return SyntheticSquareData.LOCATION_ID;
+            }
+
+            @Override
+            public Map<String, String> fetchTeamMemberNames(String locationId) {
+                return data.teamMemberNames;
+            }
+        };
+
+        service = new LabourCostService(
+                repository(StoreRepository.class, "findById", Optional.of(store)),
+                repository(StaffRepository.class, "findByStoreId", data.staff),
+                new StaffIdentityService(null, null) {
+                    @Override
+                    public Map<String, Staff> staffByTeamMember(Long storeId, List<Staff> localStaff,
+                            Map<String, String> squareStaffNames) {
+                        return data.staffByTeamMember;
+                    }
+                },
+                repository(HourlyCategoryRollupRepository.class, "findInRange", categoryRollups(data)),
+                repository(HourlyTeamMemberRollupRepository.class, "findInRange", teamMemberRollups(data)),
+                new RevenueRollupService(null, null, null, null, null, null, null, 35, 48) {
+                    @Override
+                    public Instant teamMemberHoursFrom(String locationId) {
+                        return Instant.EPOCH;
+                    }
+                },
+                squareService,
+                new BigDecimal("2.0"));
+    }
+
+    @Benchmark
+    public LabourCostDTO labourCostWeek() {
+        return service.getWeek(STORE_ID, WEEK_START);
+    }
+
+    private static List<HourlyCategoryRollup> categoryRollups(SyntheticSquareData data) {
+        Map<Instant, HourlyCategoryRollup> byHour = new HashMap<>();
+        for (SquareOrder order : data.orders) {
+            Instant hour = order.getClosedAt().truncatedTo(ChronoUnit.HOURS);
+            HourlyCategoryRollup rollup = byHour.computeIfAbsent(hour,
+                    h -> new HourlyCategoryRollup(SyntheticSquareData.LOCATION_ID, h, "All"));
+            rollup.setRevenueCents(rollup.getRevenueCents() + order.getTotalCents());
+        }
+        return new ArrayList<>(byHour.values());
+    }
+
+    private static List<HourlyTeamMemberRollup> teamMemberRollups(SyntheticSquareData data) {
+        LocalDateTime now = data.weekStartTime().plusWeeks(1);
+        List<HourlyTeamMemberRollup> rollups = new ArrayList<>();
+        for (Shift shift : data.shifts) {
+            ParsedShift parsed = ParsedShift.from(shift, now);
+            if (parsed == null || parsed.end() == null) {
+                continue;
+            }
+            for (LocalDateTime hour = parsed.start().truncatedTo(ChronoUnit.HOURS); hour.isBefore(parsed.end());
+                    hour = hour.plusHours(1)) {
+                LocalDateTime from = parsed.start().isAfter(hour) ? parsed.start() : hour;
+                LocalDateTime to = parsed.end().isBefore(hour.plusHours(1)) ? parsed.end() : hour.plusHours(1);
+                HourlyTeamMemberRollup rollup = new HourlyTeamMemberRollup(SyntheticSquareData.LOCATION_ID,
+                        hour.atZone(data.zone).toInstant(), parsed.teamMemberId());
+                rollup.setShiftMinutes(Duration.between(from, to).toMinutes());
+                rollup.setShiftCount(1);
+                rollups.add(rollup);
+            }
+        }
+        return rollups;
+    }
+}
@@ -0,0 +1,155 @@
+package com.hospomate.service;
+
+import com.hospomate.dto.HourlyInsightDTO;
+import com.hospomate.model.JobRoleContribution;
+import com.hospomate.model.Staff;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The hourly aggregation as it was before money was summed in long cents:
+ * every amount goes through double and BigDecimal.valueOf into String-keyed
+ * maps. Kept only as the baseline for {@link HourlyInsightBenchmark}.
+ */
+final class LegacyHourlyInsight {
+
+    private final BigDecimal threshold;
+    private final List<Staff> localStaffList;
+    private final Map<String, String> squareStaffNames;
+    private final Map<String, String> variationToCategoryMap;
+    private final Map<String, Map<String, BigDecimal>> categoryRolePercentages = new HashMap<>();
+    private final Map<String, String> roleBySquareName = new HashMap<>();
+
+    LegacyHourlyInsight(BigDecimal threshold, List<JobRoleContribution> contributions, List<Staff> localStaffList,
+            Map<String, String> squareStaffNames, Map<String, String> variationToCategoryMap) {
+        this.threshold = threshold;
+        this.localStaffList = localStaffList;
+        this.squareStaffNames = squareStaffNames;
+        this.variationToCategoryMap = variationToCategoryMap;
+        for (JobRoleContribution contrib : contributions) {
+            categoryRolePercentages.computeIfAbsent(contrib.getCategoryName(), c -> new HashMap<>())
+                    .put(contrib.getJobTitle(),
+                            contrib.getContributionPercentage().divide(new BigDecimal("100"), 4,
+                                    RoundingMode.HALF_UP));
+        }
+    }
+
+    private String resolveRole(String squareName) {
+        return roleBySquareName.computeIfAbsent(squareName, name -> {
+            for (Staff localStaff : localStaffList) {
+                if (localStaff.getName() != null
+                        && name.toLowerCase().contains(localStaff.getName().toLowerCase().trim())) {
+                    return localStaff.getJobTitle() != null ? localStaff.getJobTitle() : "Unassigned";
+                }
+            }
+            return "Unassigned";
+        });
+    }
+
+    HourlyInsightDTO calculate(LocalDateTime start, LocalDateTime end, List<ParsedOrder> bucketOrders,
+            List<ParsedShift> activeShifts) {
+        HourlyInsightDTO dto = new HourlyInsightDTO();
+        dto.setStartTime(start);
+        dto.setEndTime(end);
+
+        BigDecimal totalRevenue = BigDecimal.ZERO;
+        long totalItemsSold = 0;
+        Map<String, BigDecimal> revenueByCategory = new HashMap<>();
+
+        for (ParsedOrder order : bucketOrders) {
+            if (!order.lineItems().isEmpty()) {
+                for (ParsedOrder.LineItem item : order.lineItems()) {
+                    totalItemsSold += item.quantity();
+
+                    String categoryName = "Uncategorized";
+                    if (item.catalogObjectId() != null
+                            && variationToCategoryMap.containsKey(item.catalogObjectId())) {
+                        categoryName = variationToCategoryMap.get(item.catalogObjectId());
+                    }
+
+                    double itemTotal = item.amountCents() / 100.0;
+                    totalRevenue = totalRevenue.add(BigDecimal.valueOf(itemTotal));
+                    revenueByCategory.put(categoryName,
+                            revenueByCategory.getOrDefault(categoryName, BigDecimal.ZERO)
+                                    .add(BigDecimal.valueOf(itemTotal)));
+                }
+
+                for (long scCents : order.serviceChargeCents()) {
+                    double scAmount = scCents / 100.0;
+                    totalRevenue = totalRevenue.add(BigDecimal.valueOf(scAmount));
+                    revenueByCategory.put("Surcharges", revenueByCategory
+                            .getOrDefault("Surcharges", BigDecimal.ZERO).add(BigDecimal.valueOf(scAmount)));
+                }
+            } else if (order.totalCents() != null) {
+                double customAmount = order.totalCents() / 100.0;
+                if (order.tipCents() != null) {
+                    customAmount -= order.tipCents() / 100.0;
+                }
+                totalRevenue = totalRevenue.add(BigDecimal.valueOf(customAmount));
+                totalItemsSold += 1;
+                revenueByCategory.put("Custom Amount", revenueByCategory
+                        .getOrDefault("Custom Amount", BigDecimal.ZERO).add(BigDecimal.valueOf(customAmount)));
+            }
+        }
+
+        dto.setTotalRevenue(totalRevenue);
+        dto.setTotalItemsSold(totalItemsSold);
+        dto.setRevenueByCategory(revenueByCategory);
+
+        int activeStaffCount = activeShifts.size();
+        dto.setActiveStaffCount(activeStaffCount);
+        if (activeStaffCount > 0) {
+            BigDecimal revenuePerStaff = totalRevenue.divide(BigDecimal.valueOf(activeStaffCount), 2,
+                    RoundingMode.HALF_UP);
+            dto.setRevenuePerStaffMember(revenuePerStaff);
+            dto.setUnderutilised(revenuePerStaff.compareTo(threshold) < 0);
+        } else {
+            dto.setUnderutilised(false);
+            dto.setRevenuePerStaffMember(BigDecimal.ZERO);
+        }
+
+        Map<String, BigDecimal> revenueByJobTitle = new HashMap<>();
+        Map<String, BigDecimal> revenueByStaffName = new HashMap<>();
+        Map<String, Integer> staffCountByRole = new HashMap<>();
+
+        for (ParsedShift s : activeShifts) {
+            String squareName = squareStaffNames.getOrDefault(s.teamMemberId(), "Unknown Square Staff");
+            String role = resolveRole(squareName);
+            staffCountByRole.put(role, staffCountByRole.getOrDefault(role, 0) + 1);
+        }
+
+        for (Map.Entry<String, BigDecimal> catEntry : revenueByCategory.entrySet()) {
+            Map<String, BigDecimal> rolePercentages = categoryRolePercentages.getOrDefault(catEntry.getKey(),
+                    Map.of());
+            for (Map.Entry<String, BigDecimal> roleEntry : rolePercentages.entrySet()) {
+                String role = roleEntry.getKey();
+                if (staffCountByRole.containsKey(role)) {
+                    BigDecimal roleRevenueShare = catEntry.getValue().multiply(roleEntry.getValue());
+                    revenueByJobTitle.put(role,
+                            revenueByJobTitle.getOrDefault(role, BigDecimal.ZERO).add(roleRevenueShare));
+                }
+            }
+        }
+        dto.setRevenueByJobTitle(revenueByJobTitle);
+
+        for (ParsedShift s : activeShifts) {
+            String tmId = s.teamMemberId();
+            String squareName = squareStaffNames.getOrDefault(tmId, "Square User " + tmId);
+            String role = resolveRole(squareName);
+
+            int count = staffCountByRole.getOrDefault(role, 1);
+            BigDecimal totalRoleRev = revenueByJobTitle.getOrDefault(role, BigDecimal.ZERO);
+            BigDecimal staffShare = totalRoleRev.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
+            revenueByStaffName.put(squareName,
+                    revenueByStaffName.getOrDefault(squareName, BigDecimal.ZERO).add(staffShare));
+        }
+        dto.setRevenueByStaffName(revenueByStaffName);
+
+        return dto;
+    }
+}
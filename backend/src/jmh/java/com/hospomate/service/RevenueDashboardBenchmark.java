@@ -0,0 +1,121 @@
+package com.hospomate.service;
+
+import com.hospomate.dto.WeeklyDashboardDTO;
+import com.hospomate.model.Staff;
+import com.hospomate.model.Store;
+import com.hospomate.repository.JobRoleContributionRepository;
+import com.hospomate.repository.StaffRepository;
+import com.hospomate.repository.StoreRepository;
+import com.squareup.square.types.Shift;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.support.NoOpCacheManager;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A cold weekly dashboard: every hour is computed (no hourly cache) from an
+ * in-memory order window, shifts and catalog, so the numbers cover parsing,
+ * bucketing, the hourly aggregation and the weekly roll-up but no I/O.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RevenueDashboardBenchmark {
+
+    private static final Long STORE_ID = 1L;
+    private static final LocalDate WEEK_START = LocalDate.of(2025, 3, 3);
+
+    @Param({ "1000", "10000", "50000" })
+    public int ordersPerWeek;
+
+    @Param({ "10", "50", "200" })
+    public int staff;
+
+    private RevenueIntelligenceService service;
+
+    @Setup
+    public void setUp() {
+        SyntheticSquareData data = new SyntheticSquareData(WEEK_START, ordersPerWeek, staff, 42);
+
+        Store store = new Store();
+        store.setId(STORE_ID);
+        store.setRevenuePerLabourHourThreshold(new BigDecimal("50.00"));
+
+        SquareService squareService = new SquareService(null, null, null, Runnable::run, 60, 10, 200) {
+            @Override
+            public String getLocationId(Long storeId) {
+                return "LOC1";
+            }
+
+            @Override
+            public Map<String, String> fetchTeamMemberNames(String locationId) {
+                return data.teamMemberNames;
+            }
+
+            @Override
+            public List<Shift> fetchSquareShifts(String locationId, LocalDateTime start, LocalDateTime end) {
+                return data.shifts;
+            }
+
+            @Override
+            public Map<String, String> fetchVariationToCategoryMap(String locationId) {
+                return data.variationToCategory;
+            }
+
+            @Override
+            public OrderWindow fetchOrderWindow(Long storeId, LocalDateTime start, LocalDateTime end) {
+                return data.orderWindow(start, end);
+            }
+        };
+
+        service = new RevenueIntelligenceService(
+                repository(JobRoleContributionRepository.class, "findByStoreId", data.contributions),
+                repository(StoreRepository.class, "findById", Optional.of(store)),
+                repository(StaffRepository.class, "findByStoreId", data.staff),
+                new StaffIdentityService(null, null) {
+                    @Override
+                    public Map<String, Staff> staffByTeamMember(Long storeId, List<Staff> localStaff,
+                            Map<String, String> squareStaffNames) {
+                        return data.staffByTeamMember;
+                    }
+                },
+                squareService,
+                new NoOpCacheManager());
+    }
+
+    @Benchmark
+    public WeeklyDashboardDTO weeklyDashboard() {
+        return service.getWeeklyDashboard(STORE_ID, WEEK_START);
+    }
+
+    /** A repository stub answering one query method with a fixed result. */
+    @SuppressWarnings("unchecked")
+    static <T> T repository(Class<T> type, String method, Object result) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, m, args) -> {
+            if (m.getName().equals(method)) {
+                return result;
+            }
+            throw new UnsupportedOperationException(m.getName());
+        });
+    }
+}
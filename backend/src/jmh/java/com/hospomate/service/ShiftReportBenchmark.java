@@ -0,0 +1,46 @@
+package com.hospomate.service;
+
+import com.hospomate.dto.ShiftReportDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merging a week of rostered shifts and timecards into the shift report rows,
+ * after the Square fetches have completed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShiftReportBenchmark {
+
+    @Param({ "10", "50", "200" })
+    public int staff;
+
+    private SyntheticSquareData data;
+
+    @Setup
+    public void setUp() {
+        data = new SyntheticSquareData(LocalDate.of(2025, 3, 3), 0, staff, 42);
+    }
+
+    @Benchmark
+    public List<ShiftReportDTO> mergeShiftReport() {
+        return SquareService.mergeShiftReport(data.scheduledShifts, data.shifts, data.teamMemberNames);
+    }
+}
@@ -0,0 +1,212 @@
+package com.hospomate.service;
+
+import com.hospomate.model.JobRoleContribution;
+import com.hospomate.model.SquareOrder;
+import com.hospomate.model.SquareOrderLineItem;
+import com.hospomate.model.SquareOrderServiceCharge;
+import com.hospomate.model.Staff;
+import com.squareup.square.types.ScheduledShift;
+import com.squareup.square.types.ScheduledShiftDetails;
+import com.squareup.square.types.Shift;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic Square-shaped data for one trading week of a venue, sized by
+ * orders per week and staff headcount. Orders follow a cafe/restaurant day
+ * (breakfast, lunch and dinner peaks), staff work about five shifts a week
+ * with a published roster and clock in and out a few minutes either side.
+ */
+final class SyntheticSquareData {
+
+    static final String LOCATION_ID = "BENCH-LOC";
+    static final String[] ROLES = { "Barista", "Chef", "Kitchen Hand", "Waiter", "Bartender", "Manager" };
+
+    private static final int CATEGORIES = 12;
+    private static final int VARIATIONS = 240;
+    // Relative trade per hour of the day, 06:00 to 22:00
+    private static final int[] HOURLY_WEIGHT = { 0, 0, 0, 0, 0, 0, 2, 6, 9, 7, 5, 6, 10, 9, 5, 3, 3, 4, 8, 9, 7, 4,
+            1, 0 };
+
+    final LocalDate weekStart;
+    final ZoneId zone = ZoneId.systemDefault();
+    final Map<String, String> variationToCategory = new HashMap<>();
+    final Map<String, String> teamMemberNames = new LinkedHashMap<>();
+    final Map<String, Staff> staffByTeamMember = new HashMap<>();
+    final List<Staff> staff = new ArrayList<>();
+    final List<JobRoleContribution> contributions = new ArrayList<>();
+    final List<SquareOrder> orders;
+    final List<Shift> shifts = new ArrayList<>();
+    final List<ScheduledShift> scheduledShifts = new ArrayList<>();
+
+    private final Random random;
+
+    SyntheticSquareData(LocalDate weekStart, int ordersPerWeek, int staffCount, long seed) {
+        this.weekStart = weekStart;
+        this.random = new Random(seed);
+
+        for (int v = 0; v < VARIATIONS; v++) {
+            variationToCategory.put("VAR-" + v, "Category " + (v % CATEGORIES));
+        }
+        for (int c = 0; c < CATEGORIES; c++) {
+            contributions.add(contribution("Category " + c, ROLES[c % ROLES.length], "70"));
+            contributions.add(contribution("Category " + c, ROLES[(c + 1) % ROLES.length], "30"));
+        }
+        for (int s = 0; s < staffCount; s++) {
+            Staff member = new Staff();
+            member.setId((long) s);
+            member.setName("Staff" + s);
+            member.setJobTitle(ROLES[s % ROLES.length]);
+            staff.add(member);
+            teamMemberNames.put("TM-" + s, "Staff" + s + " Surname");
+            staffByTeamMember.put("TM-" + s, member);
+        }
+
+        this.orders = generateOrders(ordersPerWeek);
+        generateShifts(staffCount);
+    }
+
+    LocalDateTime weekStartTime() {
+        return weekStart.atStartOfDay();
+    }
+
+    /** Orders parsed as the dashboard reads them out of the order window. */
+    List<ParsedOrder> parsedOrders() {
+        List<ParsedOrder> parsed = new ArrayList<>(orders.size());
+        for (SquareOrder order : orders) {
+            parsed.add(ParsedOrder.from(order));
+        }
+        return parsed;
+    }
+
+    OrderWindow orderWindow(LocalDateTime start, LocalDateTime end) {
+        OrderWindow.Builder builder = new OrderWindow.Builder(LOCATION_ID, start, end, zone);
+        Instant from = start.atZone(zone).toInstant();
+        Instant to = end.atZone(zone).toInstant();
+        for (SquareOrder order : orders) {
+            if (!order.getClosedAt().isBefore(from) && order.getClosedAt().isBefore(to)) {
+                builder.add(order);
+            }
+        }
+        return builder.build();
+    }
+
+    private List<SquareOrder> generateOrders(int count) {
+        int totalWeight = 0;
+        for (int weight : HOURLY_WEIGHT) {
+            totalWeight += weight;
+        }
+
+        List<SquareOrder> generated = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int pick = random.nextInt(totalWeight * 7);
+            int day = pick / totalWeight;
+            int hour = 0;
+            for (int remaining = pick % totalWeight; remaining >= HOURLY_WEIGHT[hour]; hour++) {
+                remaining -= HOURLY_WEIGHT[hour];
+            }
+            ZonedDateTime closedAt = weekStart.plusDays(day).atTime(hour, 0).plusSeconds(random.nextInt(3600))
+                    .atZone(zone);
+
+            SquareOrder order = new SquareOrder();
+            order.setSquareOrderId("ORDER-" + i);
+            order.setLocationId(LOCATION_ID);
+            order.setState(OrderWarehouseService.COMPLETED);
+            order.setClosedAt(closedAt.toInstant());
+            order.setUpdatedAt(closedAt.toInstant());
+            order.setVersion(1);
+
+            long total = 0;
+            if (random.nextInt(20) == 0) {
+                // Custom amount keyed in at the register, no line items
+                total = 500 + random.nextInt(5000);
+            } else {
+                for (int lines = 1 + random.nextInt(4); lines > 0; lines--) {
+                    long quantity = 1 + random.nextInt(3);
+                    long cents = quantity * (350 + random.nextInt(2000));
+                    SquareOrderLineItem item = new SquareOrderLineItem();
+                    item.setOrder(order);
+                    // A few variations are missing from the catalog map
+                    item.setCatalogObjectId("VAR-" + random.nextInt(VARIATIONS + 10));
+                    item.setQuantity(String.valueOf(quantity));
+                    item.setGrossSalesCents(cents);
+                    item.setTotalCents(cents);
+                    order.getLineItems().add(item);
+                    total += cents;
+                }
+                if (random.nextInt(10) == 0) {
+                    SquareOrderServiceCharge charge = new SquareOrderServiceCharge();
+                    charge.setOrder(order);
+                    charge.setAmountCents(150L);
+                    order.getServiceCharges().add(charge);
+                    total += 150;
+                }
+            }
+            long tip = random.nextInt(4) == 0 ? random.nextInt(300) : 0;
+            order.setTipCents(tip > 0 ? tip : null);
+            order.setTotalCents(total + tip);
+            generated.add(order);
+        }
+        return generated;
+    }
+
+    private void generateShifts(int staffCount) {
+        int shiftId = 0;
+        for (int s = 0; s < staffCount; s++) {
+            String teamMemberId = "TM-" + s;
+            int firstDay = random.nextInt(7);
+            for (int n = 0; n < 5; n++) {
+                LocalDate day = weekStart.plusDays((firstDay + n) % 7);
+                LocalDateTime scheduledStart = day.atTime(6 + random.nextInt(10), random.nextBoolean() ? 0 : 30);
+                LocalDateTime scheduledEnd = scheduledStart.plusMinutes(240 + 30 * random.nextInt(11));
+                String id = "SHIFT-" + shiftId++;
+
+                scheduledShifts.add(ScheduledShift.builder()
+                        .id(id)
+                        .publishedShiftDetails(ScheduledShiftDetails.builder()
+                                .teamMemberId(teamMemberId)
+                                .startAt(iso(scheduledStart))
+                                .endAt(iso(scheduledEnd))
+                                .build())
+                        .build());
+
+                // Roughly one in ten rostered shifts is not worked
+                if (random.nextInt(10) == 0) {
+                    continue;
+                }
+                LocalDateTime clockIn = scheduledStart.plusMinutes(random.nextInt(16) - 10);
+                LocalDateTime clockOut = scheduledEnd.plusMinutes(random.nextInt(31) - 10);
+                shifts.add(Shift.builder()
+                        .locationId(LOCATION_ID)
+                        .startAt(iso(clockIn))
+                        .id(id)
+                        .teamMemberId(teamMemberId)
+                        .endAt(iso(clockOut))
+                        .build());
+            }
+        }
+    }
+
+    private String iso(LocalDateTime time) {
+        return time.atZone(zone).toOffsetDateTime().toString();
+    }
+
+    private static JobRoleContribution contribution(String category, String jobTitle, String percentage) {
+        JobRoleContribution contribution = new JobRoleContribution();
+        contribution.setCategoryName(category);
+        contribution.setJobTitle(jobTitle);
+        contribution.setContributionPercentage(new BigDecimal(percentage));
+        return contribution;
+    }
+}
@@ -0,0 +1,98 @@
+package com.hospomate.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hospomate.service.DashboardSnapshotService;
+import com.hospomate.service.HourlyInsightCachePolicy;
+import com.hospomate.service.RevenueIntelligenceService;
+import com.hospomate.service.RosterSimulationService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Configuration
+public class CacheConfig {
+
+    /**
+     * Bounded Caffeine caches instead of Spring's default unbounded map. The
+     * hourly insights cache is bounded by weight (breakdown rows) and expires
+     * hours of the current week much sooner than hours of closed weeks; any
+     * other cache gets a plain size and time bound.
+     */
+    @Bean
+    public InstrumentedCacheManager cacheManager(
+            @Value("${insights.hourly-cache.max-weight:500000}") long hourlyMaxWeight,
+            @Value("${insights.hourly-cache.current-week-ttl-minutes:5}") long currentWeekTtlMinutes,
+            @Value("${insights.hourly-cache.closed-week-ttl-hours:24}") long closedWeekTtlHours,
+            @Value("${insights.hourly-cache.closed-week-grace-hours:6}") long closedWeekGraceHours,
+            @Value("${insights.dashboard-snapshots.max-entries:500}") long snapshotMaxEntries,
+            @Value("${insights.dashboard-snapshots.ttl-days:8}") long snapshotTtlDays,
+            @Value("${insights.demand-profile.max-entries:500}") long profileMaxEntries,
+            @Value("${insights.demand-profile.ttl-hours:6}") long profileTtlHours,
+            @Value("${cache.default.max-size:1000}") long defaultMaxSize,
+            @Value("${cache.default.ttl-minutes:10}") long defaultTtlMinutes) {
+        InstrumentedCacheManager manager = new InstrumentedCacheManager(() -> Caffeine.newBuilder()
+                .maximumSize(defaultMaxSize)
+                .expireAfterWrite(Duration.ofMinutes(defaultTtlMinutes)));
+
+        HourlyInsightCachePolicy hourlyPolicy = new HourlyInsightCachePolicy(
+                Duration.ofMinutes(currentWeekTtlMinutes), Duration.ofHours(closedWeekTtlHours),
+                Duration.ofHours(closedWeekGraceHours), LocalDateTime::now);
+        manager.registerCustomCache(RevenueIntelligenceService.HOURLY_CACHE,
+                manager.instrument(RevenueIntelligenceService.HOURLY_CACHE, Caffeine.newBuilder()
+                        .maximumWeight(hourlyMaxWeight)
+                        .weigher(HourlyInsightCachePolicy::weigh)
+                        .expireAfter(hourlyPolicy))
+                        .build());
+        // Served stale and refreshed in the background, so kept far longer than the hours
+        manager.registerCustomCache(DashboardSnapshotService.SNAPSHOT_CACHE,
+                manager.instrument(DashboardSnapshotService.SNAPSHOT_CACHE, Caffeine.newBuilder()
+                        .maximumSize(snapshotMaxEntries)
+                        .expireAfterWrite(Duration.ofDays(snapshotTtlDays)))
+                        .build());
+        // Built from closed weeks only, so a few hours stale costs the simulator nothing
+        manager.registerCustomCache(RosterSimulationService.PROFILE_CACHE,
+                manager.instrument(RosterSimulationService.PROFILE_CACHE, Caffeine.newBuilder()
+                        .maximumSize(profileMaxEntries)
+                        .expireAfterWrite(Duration.ofHours(profileTtlHours)))
+                        .build());
+        return manager;
+    }
+
+    /**
+     * Background dashboard refreshes (stale-while-revalidate and the after-close
+     * precompute). Kept apart from the Square fetch pool because a refresh
+     * waits on fetches running there.
+     */
+    @Bean(name = "dashboardRefreshExecutor")
+    public ThreadPoolTaskExecutor dashboardRefreshExecutor(
+            @Value("${insights.refresh.max-concurrency:2}") int maxConcurrency) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrency);
+        executor.setMaxPoolSize(maxConcurrency);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("dashboard-refresh-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Per-store dashboard computations for the portfolio view, bounded so an
+     * owner with many venues does not flood the Square fetch pool. Like the
+     * refresh pool, it waits on fetches running there.
+     */
+    @Bean(name = "portfolioExecutor")
+    public ThreadPoolTaskExecutor portfolioExecutor(
+            @Value("${insights.portfolio.max-concurrency:4}") int maxConcurrency) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrency);
+        executor.setMaxPoolSize(maxConcurrency);
+        executor.setQueueCapacity(200);
+        executor.setThreadNamePrefix("portfolio-");
+        executor.initialize();
+        return executor;
+    }
+}
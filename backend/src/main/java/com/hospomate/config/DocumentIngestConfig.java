@@ -0,0 +1,48 @@
+package com.hospomate.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class DocumentIngestConfig {
+
+    /**
+     * Workers parsing and embedding uploaded documents. Embedding is CPU bound
+     * on the local transformer model, so there are few workers; the queue is
+     * bounded so a burst of uploads is refused (and retried by the client)
+     * instead of piling up spooled files.
+     */
+    @Bean(name = "documentIngestExecutor")
+    public ThreadPoolTaskExecutor documentIngestExecutor(
+            @Value("${documents.ingest.workers:2}") int workers,
+            @Value("${documents.ingest.queue-capacity:20}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("document-ingest-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * The parse and write stages running alongside each ingest worker, two per
+     * worker. A stage that has just finished may not be back waiting for work
+     * when its worker starts the next document's stages, so those queue behind
+     * it; at most two stages per worker are ever outstanding, which bounds the
+     * queue.
+     */
+    @Bean(name = "documentPipelineExecutor")
+    public ThreadPoolTaskExecutor documentPipelineExecutor(
+            @Value("${documents.ingest.workers:2}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers * 2);
+        executor.setMaxPoolSize(workers * 2);
+        executor.setQueueCapacity(workers * 2);
+        executor.setThreadNamePrefix("document-pipeline-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,96 @@
+package com.hospomate.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.RemovalListener;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caffeine cache manager whose caches all record statistics and count
+ * removals by cause, so each cache reports its hits, misses and evictions
+ * (size, expiry and explicit invalidation) separately.
+ *
+ * Caches registered with {@link #registerCustomCache} should be built with
+ * {@link #instrument}; caches created on demand get a fresh builder from the
+ * default spec.
+ */
+public class InstrumentedCacheManager extends CaffeineCacheManager {
+
+    private final Supplier<Caffeine<Object, Object>> defaultSpec;
+    private final Map<String, Map<RemovalCause, LongAdder>> removals = new ConcurrentHashMap<>();
+
+    public InstrumentedCacheManager(Supplier<Caffeine<Object, Object>> defaultSpec) {
+        this.defaultSpec = defaultSpec;
+        setAllowNullValues(false);
+    }
+
+    /** Adds statistics and removal counting for the named cache to a Caffeine builder. */
+    public Caffeine<Object, Object> instrument(String name, Caffeine<Object, Object> builder) {
+        return builder.recordStats().removalListener(removalListener(name));
+    }
+
+    @Override
+    protected com.github.benmanes.caffeine.cache.Cache<Object, Object> createNativeCaffeineCache(String name) {
+        return instrument(name, defaultSpec.get()).build();
+    }
+
+    private RemovalListener<Object, Object> removalListener(String name) {
+        Map<RemovalCause, LongAdder> counts = removals.computeIfAbsent(name, n -> {
+            Map<RemovalCause, LongAdder> byCause = new EnumMap<>(RemovalCause.class);
+            for (RemovalCause cause : RemovalCause.values()) {
+                byCause.put(cause, new LongAdder());
+            }
+            return byCause;
+        });
+        return (key, value, cause) -> counts.get(cause).increment();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (String name : getCacheNames()) {
+            Cache cache = getCache(name);
+            if (cache != null
+                    && cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+                result.put(name, stats(name, caffeine));
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Object> stats(String name, com.github.benmanes.caffeine.cache.Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        Map<RemovalCause, LongAdder> counts = removals.getOrDefault(name, Map.of());
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("entries", cache.estimatedSize());
+        cache.policy().eviction().ifPresent(eviction -> {
+            if (eviction.isWeighted()) {
+                result.put("weight", eviction.weightedSize().orElse(0));
+                result.put("maximumWeight", eviction.getMaximum());
+            } else {
+                result.put("maximumSize", eviction.getMaximum());
+            }
+        });
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictedBySize", count(counts, RemovalCause.SIZE));
+        result.put("expired", count(counts, RemovalCause.EXPIRED));
+        result.put("invalidated", count(counts, RemovalCause.EXPLICIT));
+        result.put("replaced", count(counts, RemovalCause.REPLACED));
+        return result;
+    }
+
+    private static long count(Map<RemovalCause, LongAdder> counts, RemovalCause cause) {
+        LongAdder adder = counts.get(cause);
+        return adder != null ? adder.sum() : 0;
+    }
+}
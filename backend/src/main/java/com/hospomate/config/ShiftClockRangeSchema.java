@@ -0,0 +1,67 @@
+package com.hospomate.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds the PostgreSQL-only {@code shifts.clock_range} column and its GiST
+ * index, which Hibernate's schema update cannot express.
+ *
+ * The column is generated from the clock-in and clock-out times. Open shifts
+ * get an unbounded upper end. A clock-out at or before the clock-in is widened
+ * to a closed range ending at the clock-in, so the range is never invalid and
+ * always covers every window the plain overlap predicate would match; indexed
+ * queries still recheck that predicate. Clock times are {@code timestamp}
+ * columns (LocalDateTime), hence {@code tsrange} rather than {@code tstzrange}.
+ */
+@Component
+public class ShiftClockRangeSchema {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShiftClockRangeSchema.class);
+
+    private static final String ADD_COLUMN = """
+            ALTER TABLE shifts ADD COLUMN IF NOT EXISTS clock_range tsrange GENERATED ALWAYS AS (
+                CASE
+                    WHEN clock_in_time IS NULL THEN NULL
+                    WHEN clock_out_time IS NULL THEN tsrange(clock_in_time, NULL, '[)')
+                    ELSE tsrange(clock_in_time, GREATEST(clock_out_time, clock_in_time), '[]')
+                END) STORED""";
+
+    private static final String CREATE_INDEX = "CREATE INDEX IF NOT EXISTS idx_shifts_clock_range"
+            + " ON shifts USING gist (clock_range)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile boolean available;
+
+    public ShiftClockRangeSchema(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void install() {
+        try {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            if (!"PostgreSQL".equalsIgnoreCase(product)) {
+                logger.info("Shift clock_range index skipped on {}", product);
+                return;
+            }
+            jdbcTemplate.execute(ADD_COLUMN);
+            jdbcTemplate.execute(CREATE_INDEX);
+            available = true;
+        } catch (DataAccessException e) {
+            logger.warn("Could not create shift clock_range index, using the unindexed query", e);
+        }
+    }
+
+    /** True once the column and index exist and the native range query can be used. */
+    public boolean isAvailable() {
+        return available;
+    }
+}
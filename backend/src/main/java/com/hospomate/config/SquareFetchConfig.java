@@ -0,0 +1,42 @@
+package com.hospomate.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class SquareFetchConfig {
+
+    /**
+     * Pool for concurrent Square API calls. Only leaf fetches (a single cursor
+     * chain) run here; callers combine the futures on their own thread, so a
+     * task never blocks waiting on another task in the same pool.
+     */
+    @Bean(name = "squareFetchExecutor")
+    public ThreadPoolTaskExecutor squareFetchExecutor(
+            @Value("${square.fetch.max-concurrency:8}") int maxConcurrency) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrency);
+        executor.setMaxPoolSize(maxConcurrency);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("square-fetch-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Single worker applying Square webhook events, so events for the same
+     * order or shift are applied in the order they arrived.
+     */
+    @Bean(name = "squareWebhookExecutor")
+    public ThreadPoolTaskExecutor squareWebhookExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10000);
+        executor.setThreadNamePrefix("square-webhook-");
+        executor.initialize();
+        return executor;
+    }
+}
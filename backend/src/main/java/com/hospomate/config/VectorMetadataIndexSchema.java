@@ -0,0 +1,49 @@
+package com.hospomate.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds a GIN index over the vector table's metadata, which PgVectorStore
+ * does not create. Filtered searches add {@code metadata::jsonb @@ jsonpath}
+ * to the query; the index is on that exact expression with
+ * {@code jsonb_path_ops}, so PostgreSQL can find one store's rows without
+ * walking every store's, and for a store with few chunks rank just those.
+ */
+@Component
+public class VectorMetadataIndexSchema {
+
+    private static final Logger logger = LoggerFactory.getLogger(VectorMetadataIndexSchema.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String createIndex;
+
+    public VectorMetadataIndexSchema(JdbcTemplate jdbcTemplate,
+            @Value("${documents.ingest.vector-table:vector_store}") String table) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.createIndex = "CREATE INDEX IF NOT EXISTS idx_" + table + "_metadata"
+                + " ON " + table + " USING gin ((metadata::jsonb) jsonb_path_ops)";
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void install() {
+        try {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            if (!"PostgreSQL".equalsIgnoreCase(product)) {
+                logger.info("Vector metadata index skipped on {}", product);
+                return;
+            }
+            jdbcTemplate.execute(createIndex);
+        } catch (DataAccessException e) {
+            logger.warn("Could not create vector metadata index, filtered searches will scan", e);
+        }
+    }
+}
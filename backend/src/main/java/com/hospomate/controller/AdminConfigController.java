@@ -1,9 +1,12 @@
 package com.hospomate.controller;
 
+import com.hospomate.config.InstrumentedCacheManager;
 import com.hospomate.model.JobRoleContribution;
 import com.hospomate.model.Store;
 import com.hospomate.repository.JobRoleContributionRepository;
 import com.hospomate.repository.StoreRepository;
+import com.hospomate.service.InsightSettingsChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -16,24 +19,59 @@ public class AdminConfigController {
     private final JobRoleContributionRepository contributionRepository;
     private final StoreRepository storeRepository;
     private final com.hospomate.service.SquareService squareService;
+    private final InstrumentedCacheManager cacheManager;
+    private final ApplicationEventPublisher eventPublisher;
 
     public AdminConfigController(
             JobRoleContributionRepository contributionRepository,
             StoreRepository storeRepository,
-            com.hospomate.service.SquareService squareService) {
+            com.hospomate.service.SquareService squareService,
+            InstrumentedCacheManager cacheManager,
+            ApplicationEventPublisher eventPublisher) {
         this.contributionRepository = contributionRepository;
         this.storeRepository = storeRepository;
         this.squareService = squareService;
+        this.cacheManager = cacheManager;
+        this.eventPublisher = eventPublisher;
     }
 
     @GetMapping("/square-categories")
     public ResponseEntity<List<String>> getSquareCategories() {
-        return ResponseEntity.ok(squareService.fetchSquareCategoryNames());
+        try {
+            return ResponseEntity.ok(squareService.fetchSquareCategoryNames());
+        } catch (com.hospomate.service.SquareUnavailableException e) {
+            return ResponseEntity.status(503)
+                    .header("Retry-After", String.valueOf(e.getRetryAfter().toSeconds()))
+                    .build();
+        }
     }
 
     @GetMapping("/job-roles/{storeId}")
     public ResponseEntity<List<String>> getJobRoles(@PathVariable Long storeId) {
-        return ResponseEntity.ok(squareService.fetchSquareJobTitles());
+        try {
+            return ResponseEntity.ok(squareService.fetchSquareJobTitles());
+        } catch (com.hospomate.service.SquareUnavailableException e) {
+            return ResponseEntity.status(503)
+                    .header("Retry-After", String.valueOf(e.getRetryAfter().toSeconds()))
+                    .build();
+        }
+    }
+
+    @GetMapping("/reference-cache")
+    public ResponseEntity<java.util.Map<String, Object>> getReferenceCacheStats() {
+        return ResponseEntity.ok(squareService.getReferenceDataStats());
+    }
+
+    @DeleteMapping("/reference-cache/{storeId}")
+    public ResponseEntity<Void> invalidateReferenceCache(@PathVariable Long storeId) {
+        squareService.invalidateReferenceData(storeId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /** Size, hit/miss and eviction counts of each application cache. */
+    @GetMapping("/caches")
+    public ResponseEntity<java.util.Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(cacheManager.stats());
     }
 
     @GetMapping("/contributions/{storeId}")
@@ -48,13 +86,20 @@ public class AdminConfigController {
         Store store = storeRepository.findById(storeId).orElseThrow();
         contribution.setStore(store);
         java.util.Objects.requireNonNull(contribution.getCategoryName(), "Category name must not be null");
-        return ResponseEntity.ok(contributionRepository.save(contribution));
+        JobRoleContribution saved = contributionRepository.save(contribution);
+        eventPublisher.publishEvent(new InsightSettingsChangedEvent(storeId));
+        return ResponseEntity.ok(saved);
     }
 
     @DeleteMapping("/contributions/{id}")
     public ResponseEntity<Void> deleteContribution(@PathVariable Long id) {
         java.util.Objects.requireNonNull(id, "ID must not be null");
-        contributionRepository.deleteById(id);
+        contributionRepository.findById(id).ifPresent(contribution -> {
+            contributionRepository.delete(contribution);
+            if (contribution.getStore() != null) {
+                eventPublisher.publishEvent(new InsightSettingsChangedEvent(contribution.getStore().getId()));
+            }
+        });
         return ResponseEntity.noContent().build();
     }
 }
@@ -1,9 +1,8 @@
 package com.hospomate.controller;
 
+import com.hospomate.service.KnowledgeSearchService;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.document.Document;
-import org.springframework.ai.vectorstore.SearchRequest;
-import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -18,40 +17,24 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/chat")
 public class ChatController {
 
-    private final VectorStore vectorStore;
+    private final KnowledgeSearchService knowledgeSearchService;
     private final ChatModel chatModel;
 
     @Autowired
-    public ChatController(VectorStore vectorStore, ChatModel chatModel) {
-        this.vectorStore = vectorStore;
+    public ChatController(KnowledgeSearchService knowledgeSearchService, ChatModel chatModel) {
+        this.knowledgeSearchService = knowledgeSearchService;
         this.chatModel = chatModel;
-        System.out.println("ChatController initialized with vectorStore: " + vectorStore.getClass().getName());
     }
 
     @GetMapping
     public Map<String, String> chat(@RequestParam String message, @RequestParam(required = false) Long storeId) {
         System.out.println("Chat request received: " + message + ", storeId: " + storeId);
         try {
-            // 1. Retrieve similar documents
-            // Note: In 1.0.0-M1, check if filter expression is supported directly or use
-            // post-filter
-            List<Document> similarDocuments = vectorStore.similaritySearch(message);
+            // 1. Retrieve similar documents, filtered to the store inside the vector search
+            List<Document> similarDocuments = knowledgeSearchService.search(message, storeId);
             System.out.println("Found " + similarDocuments.size() + " similar documents");
 
             String context = similarDocuments.stream()
-                    .filter(doc -> {
-                        if (storeId == null)
-                            return true;
-                        // Basic in-memory filtering if metadata is present
-                        Object docStoreId = doc.getMetadata().get("storeId");
-                        // Handle potential type mismatch (String vs Long)
-                        String docStoreIdStr = String.valueOf(docStoreId);
-                        boolean match = docStoreId != null && docStoreIdStr.equals(storeId.toString());
-                        if (!match) {
-                            System.out.println("Skipping doc with storeId: " + docStoreIdStr);
-                        }
-                        return match;
-                    })
                     .map(Document::getContent)
                     .collect(Collectors.joining("\n\n"));
 
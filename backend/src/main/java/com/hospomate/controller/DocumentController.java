@@ -2,22 +2,32 @@ package com.hospomate.controller;
 
 import com.hospomate.model.KnowledgeDoc;
 import com.hospomate.service.DocumentService;
+import com.hospomate.service.EmbeddingCacheService;
+import com.hospomate.service.IngestPipelineStats;
+import com.hospomate.service.IngestQueueFullException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.net.URI;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/documents")
 public class DocumentController {
 
     private final DocumentService documentService;
+    private final IngestPipelineStats pipelineStats;
+    private final EmbeddingCacheService embeddingCache;
 
     @Autowired
-    public DocumentController(DocumentService documentService) {
+    public DocumentController(DocumentService documentService, IngestPipelineStats pipelineStats,
+            EmbeddingCacheService embeddingCache) {
         this.documentService = documentService;
+        this.pipelineStats = pipelineStats;
+        this.embeddingCache = embeddingCache;
     }
 
     @GetMapping
@@ -28,14 +38,43 @@ public class DocumentController {
         return documentService.getAllDocuments();
     }
 
+    /**
+     * Queues a PDF for ingestion and answers 202 with its PENDING row; poll
+     * {@code GET /api/documents/{id}} for progress. A file the store already
+     * has indexed answers 200 with the existing row. 503 with Retry-After when
+     * the ingest queue is full.
+     */
     @PostMapping
-    public ResponseEntity<KnowledgeDoc> uploadDocument(@RequestParam("file") MultipartFile file,
+    public ResponseEntity<?> uploadDocument(@RequestParam("file") MultipartFile file,
             @RequestParam("storeId") Long storeId) {
         try {
-            KnowledgeDoc doc = documentService.ingestDocument(file, storeId);
-            return ResponseEntity.ok(doc);
+            KnowledgeDoc doc = documentService.submitDocument(file, storeId);
+            if (doc.getStatus() == KnowledgeDoc.Status.INDEXED) {
+                return ResponseEntity.ok(doc);
+            }
+            return ResponseEntity.accepted().location(URI.create("/api/documents/" + doc.getId())).body(doc);
+        } catch (IngestQueueFullException e) {
+            return ResponseEntity.status(503)
+                    .header("Retry-After", String.valueOf(e.getRetryAfter().toSeconds()))
+                    .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    /** Items handled and busy time of each ingestion stage, and embedding cache hits, since startup. */
+    @GetMapping("/pipeline-stats")
+    public ResponseEntity<Map<String, Object>> getPipelineStats() {
+        Map<String, Object> stats = new java.util.LinkedHashMap<>(pipelineStats.stats());
+        stats.put("embeddingCache", embeddingCache.stats());
+        return ResponseEntity.ok(stats);
+    }
+
+    /** Status and progress of one document's ingestion. */
+    @GetMapping("/{id}")
+    public ResponseEntity<KnowledgeDoc> getDocument(@PathVariable Long id) {
+        return documentService.getDocument(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
 }
@@ -1,28 +1,239 @@
 package com.hospomate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospomate.dto.LabourCostDTO;
+import com.hospomate.dto.PortfolioDTO;
+import com.hospomate.dto.RangeInsightsDTO;
 import com.hospomate.dto.WeeklyDashboardDTO;
+import com.hospomate.service.DashboardSnapshotService;
+import com.hospomate.service.DemandForecastService;
+import com.hospomate.service.LabourCostService;
+import com.hospomate.service.PortfolioInsightService;
+import com.hospomate.service.RangeInsightService;
 import com.hospomate.service.RevenueIntelligenceService;
+import com.hospomate.service.RevenueRollupService;
+import com.hospomate.service.SquareService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/insights")
 public class IntelligenceController {
 
     private final RevenueIntelligenceService intelligenceService;
+    private final RevenueRollupService rollupService;
+    private final SquareService squareService;
+    private final DashboardSnapshotService snapshotService;
+    private final RangeInsightService rangeInsightService;
+    private final PortfolioInsightService portfolioInsightService;
+    private final LabourCostService labourCostService;
+    private final DemandForecastService forecastService;
+    private final ObjectMapper objectMapper;
+    private final Duration dashboardMaxAge;
 
-    public IntelligenceController(RevenueIntelligenceService intelligenceService) {
+    public IntelligenceController(RevenueIntelligenceService intelligenceService,
+            RevenueRollupService rollupService,
+            SquareService squareService,
+            DashboardSnapshotService snapshotService,
+            RangeInsightService rangeInsightService,
+            PortfolioInsightService portfolioInsightService,
+            LabourCostService labourCostService,
+            DemandForecastService forecastService,
+            ObjectMapper objectMapper,
+            @Value("${insights.dashboard.max-age-seconds:300}") long dashboardMaxAgeSeconds) {
         this.intelligenceService = intelligenceService;
+        this.rollupService = rollupService;
+        this.squareService = squareService;
+        this.snapshotService = snapshotService;
+        this.rangeInsightService = rangeInsightService;
+        this.portfolioInsightService = portfolioInsightService;
+        this.labourCostService = labourCostService;
+        this.forecastService = forecastService;
+        this.objectMapper = objectMapper;
+        this.dashboardMaxAge = Duration.ofSeconds(dashboardMaxAgeSeconds);
     }
 
+    /**
+     * The weekly dashboard. With {@code allowStale=true} the last computed
+     * dashboard is returned straight away (see {@code computedAt}) and, if it
+     * is older than the configured max age, refreshed in the background; the
+     * {@code Age} header gives its age in seconds and
+     * {@code X-Dashboard-Revalidating} whether a refresh was started.
+     */
     @GetMapping("/weekly/{storeId}")
     public ResponseEntity<WeeklyDashboardDTO> getWeeklyDashboard(
             @PathVariable Long storeId,
+            @RequestParam("weekStart") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate weekStart,
+            @RequestParam(value = "allowStale", defaultValue = "false") boolean allowStale) {
+        if (!allowStale) {
+            WeeklyDashboardDTO dashboard = intelligenceService.getWeeklyDashboard(storeId, weekStart);
+            return ResponseEntity.ok(dashboard);
+        }
+        DashboardSnapshotService.Read read = snapshotService.get(storeId, weekStart, dashboardMaxAge);
+        long ageSeconds = Duration.between(read.dashboard().getComputedAt(), Instant.now()).toSeconds();
+        return ResponseEntity.ok()
+                .header("Age", String.valueOf(Math.max(0, ageSeconds)))
+                .header("X-Dashboard-Revalidating", String.valueOf(read.revalidating()))
+                .body(read.dashboard());
+    }
+
+    /**
+     * The weekly dashboard as newline-delimited JSON: one {@code {"hour":...}}
+     * line per hour in order, written a day at a time as the hours are read or
+     * computed, then a {@code {"summary":...}} line with the week's totals and
+     * no hourly insights. Always computed fresh, like the default JSON read.
+     */
+    @GetMapping(value = "/weekly/{storeId}", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamWeeklyDashboard(
+            @PathVariable Long storeId,
+            @RequestParam("weekStart") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate weekStart) {
+        StreamingResponseBody body = out -> {
+            WeeklyDashboardDTO summary = intelligenceService.streamWeeklyDashboard(storeId, weekStart,
+                    hour -> writeLine(out, Map.of("hour", hour)));
+            writeLine(out, Map.of("summary", summary));
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
+    /**
+     * Labour cost against revenue for the week, per hour: every minute on shift
+     * priced at the staff member's hourly rate, with labour cost %, revenue per
+     * labour hour and over/understaffed flags. Read from the local rollups.
+     */
+    @GetMapping("/labour/{storeId}")
+    public ResponseEntity<LabourCostDTO> getLabourCost(
+            @PathVariable Long storeId,
+            @RequestParam("weekStart") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate weekStart) {
+        return ResponseEntity.ok(labourCostService.getWeek(storeId, weekStart));
+    }
+
+    /**
+     * Hourly revenue and items sold forecast with prediction intervals for a
+     * week after the last closed day, next week by default. 404 until the
+     * store has a full week of history.
+     */
+    @GetMapping("/forecast/{storeId}")
+    public ResponseEntity<?> getForecast(
+            @PathVariable Long storeId,
+            @RequestParam(value = "weekStart", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate weekStart) {
+        LocalDate week = weekStart != null ? weekStart
+                : LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+        try {
+            return forecastService.getWeek(storeId, week)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * The week across all of an owner's stores: merged totals and each store
+     * ranked by revenue per labour hour. Stores that fail or take longer than
+     * the configured timeout are listed with their status instead of delaying
+     * the rest.
+     */
+    @GetMapping("/portfolio/{ownerId}")
+    public ResponseEntity<PortfolioDTO> getPortfolio(
+            @PathVariable Long ownerId,
             @RequestParam("weekStart") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate weekStart) {
-        WeeklyDashboardDTO dashboard = intelligenceService.getWeeklyDashboard(storeId, weekStart);
-        return ResponseEntity.ok(dashboard);
+        return ResponseEntity.ok(portfolioInsightService.getPortfolio(ownerId, weekStart));
+    }
+
+    /**
+     * Revenue totals for any date range (to is exclusive), summed from the
+     * hourly rollups, for monthly and year-on-year views.
+     */
+    @GetMapping("/summary/{storeId}")
+    public ResponseEntity<RevenueRollupService.Summary> getSummary(
+            @PathVariable Long storeId,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        ZoneId zone = ZoneId.systemDefault();
+        return ResponseEntity.ok(rollupService.summarize(squareService.getLocationId(storeId),
+                from.atStartOfDay(zone).toInstant(), to.atStartOfDay(zone).toInstant()));
+    }
+
+    /**
+     * Revenue and labour insights for any date range (to is exclusive) in
+     * hour, day, week or month buckets. Without a granularity (or with
+     * {@code auto}) the finest one that keeps the bucket count within the
+     * configured limit is used; an explicit one over the limit is rejected.
+     */
+    @GetMapping("/range/{storeId}")
+    public ResponseEntity<?> getRange(
+            @PathVariable Long storeId,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "granularity", required = false) String granularity) {
+        try {
+            RangeInsightService.Granularity resolved = rangeInsightService.resolveGranularity(from, to,
+                    parseGranularity(granularity));
+            return ResponseEntity.ok(rangeInsightService.getRange(storeId, from, to, resolved));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * The same range as newline-delimited JSON: one {@code {"bucket":...}} line
+     * per bucket, written as it is computed, then a {@code {"summary":...}}
+     * line with the totals. For long ranges at fine granularity.
+     */
+    @GetMapping(value = "/range/{storeId}", produces = "application/x-ndjson")
+    public ResponseEntity<?> streamRange(
+            @PathVariable Long storeId,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "granularity", required = false) String granularity) {
+        RangeInsightService.Granularity resolved;
+        try {
+            resolved = rangeInsightService.resolveGranularity(from, to, parseGranularity(granularity));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of("error", e.getMessage()));
+        }
+        StreamingResponseBody body = out -> {
+            RangeInsightsDTO summary = rangeInsightService.stream(storeId, from, to, resolved,
+                    bucket -> writeLine(out, Map.of("bucket", bucket)));
+            writeLine(out, Map.of("summary", summary));
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
+    private void writeLine(OutputStream out, Object value) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static RangeInsightService.Granularity parseGranularity(String granularity) {
+        if (granularity == null || granularity.isBlank() || granularity.equalsIgnoreCase("auto")) {
+            return null;
+        }
+        try {
+            return RangeInsightService.Granularity.valueOf(granularity.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown granularity: " + granularity);
+        }
     }
 }
@@ -0,0 +1,49 @@
+package com.hospomate.controller;
+
+import com.hospomate.service.RevenueRollupService;
+import com.hospomate.service.SquareService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Map;
+
+/**
+ * Maintenance of the hourly revenue rollups. Dates are whole days in the
+ * server's time zone; {@code to} is exclusive.
+ */
+@RestController
+@RequestMapping("/api/admin/rollups")
+public class RollupAdminController {
+
+    private final RevenueRollupService rollupService;
+    private final SquareService squareService;
+
+    public RollupAdminController(RevenueRollupService rollupService, SquareService squareService) {
+        this.rollupService = rollupService;
+        this.squareService = squareService;
+    }
+
+    @PostMapping("/{storeId}/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuild(@PathVariable Long storeId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        int rows = rollupService.rebuild(squareService.getLocationId(storeId), startOf(from), startOf(to));
+        return ResponseEntity.ok(Map.of("rowsWritten", rows));
+    }
+
+    @GetMapping("/{storeId}/check")
+    public ResponseEntity<RevenueRollupService.CheckResult> check(@PathVariable Long storeId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(rollupService.check(squareService.getLocationId(storeId), startOf(from),
+                startOf(to)));
+    }
+
+    private static Instant startOf(LocalDate date) {
+        return date.atStartOfDay(ZoneId.systemDefault()).toInstant();
+    }
+}
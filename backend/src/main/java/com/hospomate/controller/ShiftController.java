@@ -3,12 +3,15 @@ package com.hospomate.controller;
 import com.hospomate.model.Shift;
 import com.hospomate.dto.ShiftComparisonDTO;
 import com.hospomate.repository.ShiftRepository;
+import com.hospomate.service.RosterSimulationService;
+import com.hospomate.service.ShiftOverlapService;
 import com.hospomate.service.SquareService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.format.annotation.DateTimeFormat;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -23,6 +26,12 @@ public class ShiftController {
     @Autowired
     private SquareService squareService;
 
+    @Autowired
+    private ShiftOverlapService shiftOverlapService;
+
+    @Autowired
+    private RosterSimulationService rosterSimulationService;
+
     @GetMapping("/staff/{staffId}")
     public List<Shift> getStaffShifts(@PathVariable long staffId) {
         return shiftRepository.findByStaffId(staffId);
@@ -50,6 +59,41 @@ public class ShiftController {
         return shiftRepository.findByStaff_Store_Id(storeId);
     }
 
+    @GetMapping("/store/{storeId}/active")
+    public ResponseEntity<?> getActiveShifts(@PathVariable long storeId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        try {
+            return ResponseEntity.ok(shiftOverlapService.findActiveShifts(storeId, start, end));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /** Replays a proposed roster for the week against the store's usual demand. Nothing is saved. */
+    @PostMapping("/store/{storeId}/simulate")
+    public ResponseEntity<?> simulateRoster(@PathVariable long storeId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate weekStart,
+            @RequestBody List<Shift> roster) {
+        try {
+            return ResponseEntity.ok(rosterSimulationService.simulate(storeId, weekStart, roster));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/store/{storeId}/headcount")
+    public ResponseEntity<?> getHourlyHeadcount(@PathVariable long storeId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        try {
+            return ResponseEntity.ok(shiftOverlapService.headcountPerSlot(storeId, start, end,
+                    java.time.Duration.ofHours(1)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @PostMapping("/{id}/clock-out")
     public ResponseEntity<Shift> clockOut(@PathVariable long id) {
         Shift shift = shiftRepository.findById(id).orElseThrow();
@@ -93,11 +137,30 @@ public class ShiftController {
     }
 
     @GetMapping("/report/{storeId}")
-    public Map<String, Object> getShiftReport(@PathVariable long storeId,
+    public ResponseEntity<Map<String, Object>> getShiftReport(@PathVariable long storeId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
 
         // Fetch completely Square-driven report
-        return squareService.getSquareShiftReport(storeId, start, end);
+        Map<String, Object> report;
+        try {
+            report = squareService.getSquareShiftReport(storeId, start, end);
+        } catch (com.hospomate.service.SquareUnavailableException e) {
+            return ResponseEntity.status(503)
+                    .header("Retry-After", String.valueOf(e.getRetryAfter().toSeconds()))
+                    .body(Map.of("error", e.getMessage()));
+        }
+
+        // Expose the per-phase latency breakdown to browser dev tools
+        StringBuilder serverTiming = new StringBuilder();
+        if (report.get("timings") instanceof Map<?, ?> timings) {
+            timings.forEach((phase, millis) -> {
+                if (serverTiming.length() > 0) {
+                    serverTiming.append(", ");
+                }
+                serverTiming.append(phase).append(";dur=").append(millis);
+            });
+        }
+        return ResponseEntity.ok().header("Server-Timing", serverTiming.toString()).body(report);
     }
 }
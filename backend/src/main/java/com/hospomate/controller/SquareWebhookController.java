@@ -0,0 +1,36 @@
+package com.hospomate.controller;
+
+import com.hospomate.service.SquareWebhookService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/webhooks/square")
+public class SquareWebhookController {
+
+    private final SquareWebhookService webhookService;
+
+    public SquareWebhookController(SquareWebhookService webhookService) {
+        this.webhookService = webhookService;
+    }
+
+    /**
+     * Square notification endpoint. Answers as soon as the event is recorded;
+     * it is applied in the background so Square does not time out and retry.
+     */
+    @PostMapping
+    public ResponseEntity<Void> receive(@RequestBody byte[] body,
+            @RequestHeader(value = "x-square-hmacsha256-signature", required = false) String signature) {
+        if (!webhookService.isValidSignature(body, signature)) {
+            return ResponseEntity.status(401).build();
+        }
+        try {
+            webhookService.receive(body);
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok().build();
+    }
+}
@@ -1,13 +1,21 @@
 package com.hospomate.controller;
 
+import com.hospomate.model.SquareStaffLink;
 import com.hospomate.model.Staff;
 import com.hospomate.repository.JobAreaRepository;
 import com.hospomate.repository.StaffRepository;
 import com.hospomate.repository.StoreRepository;
+import com.hospomate.service.InsightSettingsChangedEvent;
+import com.hospomate.service.SquareService;
+import com.hospomate.service.SquareUnavailableException;
+import com.hospomate.service.StaffIdentityService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/staff")
@@ -22,6 +30,15 @@ public class StaffController {
     @Autowired
     private StoreRepository storeRepository;
 
+    @Autowired
+    private StaffIdentityService staffIdentityService;
+
+    @Autowired
+    private SquareService squareService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @GetMapping("/store/{storeId}")
     public List<Staff> getStoreStaff(@PathVariable long storeId) {
         return staffRepository.findByStoreId(storeId);
@@ -35,7 +52,9 @@ public class StaffController {
         if (staff.getJobArea() != null && staff.getJobArea().getId() != null) {
             staff.setJobArea(jobAreaRepository.findById(staff.getJobArea().getId()).orElse(null));
         }
-        return staffRepository.save(staff);
+        Staff saved = staffRepository.save(staff);
+        staffChanged(saved);
+        return saved;
     }
 
     @PutMapping("/{id}")
@@ -53,11 +72,55 @@ public class StaffController {
             staff.setJobArea(null);
         }
 
-        return staffRepository.save(staff);
+        Staff saved = staffRepository.save(staff);
+        staffChanged(saved);
+        return saved;
+    }
+
+    /**
+     * Links between Square team members and this store's staff, including
+     * suggestions for team members not seen before, for the owner to review.
+     */
+    @GetMapping("/store/{storeId}/square-links")
+    public ResponseEntity<?> getSquareLinks(@PathVariable long storeId) {
+        try {
+            return ResponseEntity.ok(staffIdentityService.getLinks(storeId,
+                    squareService.fetchTeamMemberNames(squareService.getLocationId(storeId))));
+        } catch (SquareUnavailableException e) {
+            return ResponseEntity.status(503)
+                    .header("Retry-After", String.valueOf(e.getRetryAfter().toSeconds()))
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Confirms which staff member a Square team member is. A null staffId
+     * records that they have no staff row in this store.
+     */
+    @PutMapping("/store/{storeId}/square-links/{teamMemberId}")
+    public ResponseEntity<?> confirmSquareLink(@PathVariable long storeId, @PathVariable String teamMemberId,
+            @RequestBody Map<String, Long> body) {
+        try {
+            SquareStaffLink link = staffIdentityService.confirm(storeId, teamMemberId, body.get("staffId"));
+            eventPublisher.publishEvent(new InsightSettingsChangedEvent(storeId));
+            return ResponseEntity.ok(link);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     @DeleteMapping("/{id}")
     public void deleteStaff(@PathVariable long id) {
-        staffRepository.deleteById(id);
+        staffRepository.findById(id).ifPresent(staff -> {
+            staffRepository.delete(staff);
+            staffChanged(staff);
+        });
     } // No changes needed here, just context matching coverage
+
+    /** Job titles decide role attribution, so cached insights for the store are stale. */
+    private void staffChanged(Staff staff) {
+        if (staff.getStore() != null) {
+            eventPublisher.publishEvent(new InsightSettingsChangedEvent(staff.getStore().getId()));
+        }
+    }
 }
@@ -0,0 +1,64 @@
+package com.hospomate.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public class DemandForecastDTO {
+    private LocalDate weekStart;
+
+    // Last closed day the models have seen, and how much history they were fitted on
+    private LocalDate fittedThrough;
+    private int weeksOfHistory;
+    private BigDecimal projectedRevenue = BigDecimal.ZERO;
+    private BigDecimal projectedItems = BigDecimal.ZERO;
+    private List<ForecastHourDTO> hours;
+
+    public LocalDate getWeekStart() {
+        return weekStart;
+    }
+
+    public void setWeekStart(LocalDate weekStart) {
+        this.weekStart = weekStart;
+    }
+
+    public LocalDate getFittedThrough() {
+        return fittedThrough;
+    }
+
+    public void setFittedThrough(LocalDate fittedThrough) {
+        this.fittedThrough = fittedThrough;
+    }
+
+    public int getWeeksOfHistory() {
+        return weeksOfHistory;
+    }
+
+    public void setWeeksOfHistory(int weeksOfHistory) {
+        this.weeksOfHistory = weeksOfHistory;
+    }
+
+    public BigDecimal getProjectedRevenue() {
+        return projectedRevenue;
+    }
+
+    public void setProjectedRevenue(BigDecimal projectedRevenue) {
+        this.projectedRevenue = projectedRevenue;
+    }
+
+    public BigDecimal getProjectedItems() {
+        return projectedItems;
+    }
+
+    public void setProjectedItems(BigDecimal projectedItems) {
+        this.projectedItems = projectedItems;
+    }
+
+    public List<ForecastHourDTO> getHours() {
+        return hours;
+    }
+
+    public void setHours(List<ForecastHourDTO> hours) {
+        this.hours = hours;
+    }
+}
@@ -0,0 +1,72 @@
+package com.hospomate.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public class ForecastHourDTO {
+    private LocalDateTime startTime;
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    // Prediction interval, never below zero
+    private BigDecimal revenueLow = BigDecimal.ZERO;
+    private BigDecimal revenueHigh = BigDecimal.ZERO;
+    private BigDecimal items = BigDecimal.ZERO;
+    private BigDecimal itemsLow = BigDecimal.ZERO;
+    private BigDecimal itemsHigh = BigDecimal.ZERO;
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+
+    public BigDecimal getRevenueLow() {
+        return revenueLow;
+    }
+
+    public void setRevenueLow(BigDecimal revenueLow) {
+        this.revenueLow = revenueLow;
+    }
+
+    public BigDecimal getRevenueHigh() {
+        return revenueHigh;
+    }
+
+    public void setRevenueHigh(BigDecimal revenueHigh) {
+        this.revenueHigh = revenueHigh;
+    }
+
+    public BigDecimal getItems() {
+        return items;
+    }
+
+    public void setItems(BigDecimal items) {
+        this.items = items;
+    }
+
+    public BigDecimal getItemsLow() {
+        return itemsLow;
+    }
+
+    public void setItemsLow(BigDecimal itemsLow) {
+        this.itemsLow = itemsLow;
+    }
+
+    public BigDecimal getItemsHigh() {
+        return itemsHigh;
+    }
+
+    public void setItemsHigh(BigDecimal itemsHigh) {
+        this.itemsHigh = itemsHigh;
+    }
+}
@@ -0,0 +1,111 @@
+package com.hospomate.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public class LabourCostDTO {
+    private LocalDate weekStart;
+    private BigDecimal totalRevenue = BigDecimal.ZERO;
+    private BigDecimal labourHours = BigDecimal.ZERO;
+    private BigDecimal labourCost = BigDecimal.ZERO;
+    private BigDecimal labourCostPercent;
+    private BigDecimal revenuePerLabourHour = BigDecimal.ZERO;
+
+    // Hours worked by team members without a linked staff member or hourly rate, not in labourCost
+    private BigDecimal unpricedLabourHours = BigDecimal.ZERO;
+    private int overstaffedHours;
+    private int understaffedHours;
+    private List<LabourHourDTO> hours;
+
+    // False when Square team members could not be loaded to match new staff
+    private boolean complete = true;
+
+    public LocalDate getWeekStart() {
+        return weekStart;
+    }
+
+    public void setWeekStart(LocalDate weekStart) {
+        this.weekStart = weekStart;
+    }
+
+    public BigDecimal getTotalRevenue() {
+        return totalRevenue;
+    }
+
+    public void setTotalRevenue(BigDecimal totalRevenue) {
+        this.totalRevenue = totalRevenue;
+    }
+
+    public BigDecimal getLabourHours() {
+        return labourHours;
+    }
+
+    public void setLabourHours(BigDecimal labourHours) {
+        this.labourHours = labourHours;
+    }
+
+    public BigDecimal getLabourCost() {
+        return labourCost;
+    }
+
+    public void setLabourCost(BigDecimal labourCost) {
+        this.labourCost = labourCost;
+    }
+
+    public BigDecimal getLabourCostPercent() {
+        return labourCostPercent;
+    }
+
+    public void setLabourCostPercent(BigDecimal labourCostPercent) {
+        this.labourCostPercent = labourCostPercent;
+    }
+
+    public BigDecimal getRevenuePerLabourHour() {
+        return revenuePerLabourHour;
+    }
+
+    public void setRevenuePerLabourHour(BigDecimal revenuePerLabourHour) {
+        this.revenuePerLabourHour = revenuePerLabourHour;
+    }
+
+    public BigDecimal getUnpricedLabourHours() {
+        return unpricedLabourHours;
+    }
+
+    public void setUnpricedLabourHours(BigDecimal unpricedLabourHours) {
+        this.unpricedLabourHours = unpricedLabourHours;
+    }
+
+    public int getOverstaffedHours() {
+        return overstaffedHours;
+    }
+
+    public void setOverstaffedHours(int overstaffedHours) {
+        this.overstaffedHours = overstaffedHours;
+    }
+
+    public int getUnderstaffedHours() {
+        return understaffedHours;
+    }
+
+    public void setUnderstaffedHours(int understaffedHours) {
+        this.understaffedHours = understaffedHours;
+    }
+
+    public List<LabourHourDTO> getHours() {
+        return hours;
+    }
+
+    public void setHours(List<LabourHourDTO> hours) {
+        this.hours = hours;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+}
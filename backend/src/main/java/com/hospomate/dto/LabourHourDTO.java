@@ -0,0 +1,94 @@
+package com.hospomate.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public class LabourHourDTO {
+    private LocalDateTime startTime;
+    private BigDecimal revenue = BigDecimal.ZERO;
+    private int staffCount;
+    private BigDecimal labourHours = BigDecimal.ZERO;
+    private BigDecimal labourCost = BigDecimal.ZERO;
+
+    // Null when there was no revenue
+    private BigDecimal labourCostPercent;
+    private BigDecimal revenuePerLabourHour = BigDecimal.ZERO;
+
+    // Revenue per labour hour below the store threshold
+    private boolean overstaffed;
+
+    // Revenue with nobody on, or per labour hour well above the threshold
+    private boolean understaffed;
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+
+    public int getStaffCount() {
+        return staffCount;
+    }
+
+    public void setStaffCount(int staffCount) {
+        this.staffCount = staffCount;
+    }
+
+    public BigDecimal getLabourHours() {
+        return labourHours;
+    }
+
+    public void setLabourHours(BigDecimal labourHours) {
+        this.labourHours = labourHours;
+    }
+
+    public BigDecimal getLabourCost() {
+        return labourCost;
+    }
+
+    public void setLabourCost(BigDecimal labourCost) {
+        this.labourCost = labourCost;
+    }
+
+    public BigDecimal getLabourCostPercent() {
+        return labourCostPercent;
+    }
+
+    public void setLabourCostPercent(BigDecimal labourCostPercent) {
+        this.labourCostPercent = labourCostPercent;
+    }
+
+    public BigDecimal getRevenuePerLabourHour() {
+        return revenuePerLabourHour;
+    }
+
+    public void setRevenuePerLabourHour(BigDecimal revenuePerLabourHour) {
+        this.revenuePerLabourHour = revenuePerLabourHour;
+    }
+
+    public boolean isOverstaffed() {
+        return overstaffed;
+    }
+
+    public void setOverstaffed(boolean overstaffed) {
+        this.overstaffed = overstaffed;
+    }
+
+    public boolean isUnderstaffed() {
+        return understaffed;
+    }
+
+    public void setUnderstaffed(boolean understaffed) {
+        this.understaffed = understaffed;
+    }
+}
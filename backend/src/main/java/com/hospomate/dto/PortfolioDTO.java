@@ -0,0 +1,85 @@
+package com.hospomate.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+public class PortfolioDTO {
+    private Long ownerId;
+    private LocalDate weekStart;
+    private BigDecimal totalRevenue = BigDecimal.ZERO;
+    private BigDecimal labourHours = BigDecimal.ZERO;
+    private BigDecimal revenuePerLabourHour = BigDecimal.ZERO;
+    private Map<String, BigDecimal> revenueByCategory;
+
+    // Stores ranked by revenue per labour hour, then those without a result
+    private List<PortfolioStoreDTO> stores;
+
+    // False when any store timed out, failed or was incomplete; totals cover the rest
+    private boolean complete = true;
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(Long ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public LocalDate getWeekStart() {
+        return weekStart;
+    }
+
+    public void setWeekStart(LocalDate weekStart) {
+        this.weekStart = weekStart;
+    }
+
+    public BigDecimal getTotalRevenue() {
+        return totalRevenue;
+    }
+
+    public void setTotalRevenue(BigDecimal totalRevenue) {
+        this.totalRevenue = totalRevenue;
+    }
+
+    public BigDecimal getLabourHours() {
+        return labourHours;
+    }
+
+    public void setLabourHours(BigDecimal labourHours) {
+        this.labourHours = labourHours;
+    }
+
+    public BigDecimal getRevenuePerLabourHour() {
+        return revenuePerLabourHour;
+    }
+
+    public void setRevenuePerLabourHour(BigDecimal revenuePerLabourHour) {
+        this.revenuePerLabourHour = revenuePerLabourHour;
+    }
+
+    public Map<String, BigDecimal> getRevenueByCategory() {
+        return revenueByCategory;
+    }
+
+    public void setRevenueByCategory(Map<String, BigDecimal> revenueByCategory) {
+        this.revenueByCategory = revenueByCategory;
+    }
+
+    public List<PortfolioStoreDTO> getStores() {
+        return stores;
+    }
+
+    public void setStores(List<PortfolioStoreDTO> stores) {
+        this.stores = stores;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+}
@@ -0,0 +1,82 @@
+package com.hospomate.dto;
+
+import java.math.BigDecimal;
+
+public class PortfolioStoreDTO {
+    private Long storeId;
+    private String storeName;
+
+    // OK, INCOMPLETE (Square partly unavailable), TIMED_OUT or FAILED
+    private String status;
+    private String error;
+    private BigDecimal totalRevenue;
+    private BigDecimal labourHours;
+    private BigDecimal revenuePerLabourHour;
+
+    // 1 for the highest revenue per labour hour; null without a result or labour
+    private Integer rank;
+
+    public Long getStoreId() {
+        return storeId;
+    }
+
+    public void setStoreId(Long storeId) {
+        this.storeId = storeId;
+    }
+
+    public String getStoreName() {
+        return storeName;
+    }
+
+    public void setStoreName(String storeName) {
+        this.storeName = storeName;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public BigDecimal getTotalRevenue() {
+        return totalRevenue;
+    }
+
+    public void setTotalRevenue(BigDecimal totalRevenue) {
+        this.totalRevenue = totalRevenue;
+    }
+
+    public BigDecimal getLabourHours() {
+        return labourHours;
+    }
+
+    public void setLabourHours(BigDecimal labourHours) {
+        this.labourHours = labourHours;
+    }
+
+    public BigDecimal getRevenuePerLabourHour() {
+        return revenuePerLabourHour;
+    }
+
+    public void setRevenuePerLabourHour(BigDecimal revenuePerLabourHour) {
+        this.revenuePerLabourHour = revenuePerLabourHour;
+    }
+
+    public Integer getRank() {
+        return rank;
+    }
+
+    public void setRank(Integer rank) {
+        this.rank = rank;
+    }
+}
@@ -0,0 +1,115 @@
+package com.hospomate.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+public class RangeBucketDTO {
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private BigDecimal totalRevenue = BigDecimal.ZERO;
+    private long totalItemsSold;
+
+    // Distinct Square team members on shift, and hours on shift from timecards
+    private int staffCount;
+    private BigDecimal labourHours = BigDecimal.ZERO;
+    private BigDecimal revenuePerLabourHour = BigDecimal.ZERO;
+
+    // Hours with staff on, and those below the store's revenue per staff threshold
+    private int staffedHours;
+    private int underutilisedHours;
+
+    // Category Name -> Revenue
+    private Map<String, BigDecimal> revenueByCategory;
+
+    // Job Title -> Revenue Generated
+    private Map<String, BigDecimal> revenueByJobTitle;
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(LocalDateTime endTime) {
+        this.endTime = endTime;
+    }
+
+    public BigDecimal getTotalRevenue() {
+        return totalRevenue;
+    }
+
+    public void setTotalRevenue(BigDecimal totalRevenue) {
+        this.totalRevenue = totalRevenue;
+    }
+
+    public long getTotalItemsSold() {
+        return totalItemsSold;
+    }
+
+    public void setTotalItemsSold(long totalItemsSold) {
+        this.totalItemsSold = totalItemsSold;
+    }
+
+    public int getStaffCount() {
+        return staffCount;
+    }
+
+    public void setStaffCount(int staffCount) {
+        this.staffCount = staffCount;
+    }
+
+    public BigDecimal getLabourHours() {
+        return labourHours;
+    }
+
+    public void setLabourHours(BigDecimal labourHours) {
+        this.labourHours = labourHours;
+    }
+
+    public BigDecimal getRevenuePerLabourHour() {
+        return revenuePerLabourHour;
+    }
+
+    public void setRevenuePerLabourHour(BigDecimal revenuePerLabourHour) {
+        this.revenuePerLabourHour = revenuePerLabourHour;
+    }
+
+    public int getStaffedHours() {
+        return staffedHours;
+    }
+
+    public void setStaffedHours(int staffedHours) {
+        this.staffedHours = staffedHours;
+    }
+
+    public int getUnderutilisedHours() {
+        return underutilisedHours;
+    }
+
+    public void setUnderutilisedHours(int underutilisedHours) {
+        this.underutilisedHours = underutilisedHours;
+    }
+
+    public Map<String, BigDecimal> getRevenueByCategory() {
+        return revenueByCategory;
+    }
+
+    public void setRevenueByCategory(Map<String, BigDecimal> revenueByCategory) {
+        this.revenueByCategory = revenueByCategory;
+    }
+
+    public Map<String, BigDecimal> getRevenueByJobTitle() {
+        return revenueByJobTitle;
+    }
+
+    public void setRevenueByJobTitle(Map<String, BigDecimal> revenueByJobTitle) {
+        this.revenueByJobTitle = revenueByJobTitle;
+    }
+}
@@ -0,0 +1,130 @@
+package com.hospomate.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+public class RangeInsightsDTO {
+    private LocalDate from;
+    private LocalDate to;
+    private String granularity;
+    private BigDecimal totalRevenue = BigDecimal.ZERO;
+    private long totalItemsSold;
+    private BigDecimal labourHours = BigDecimal.ZERO;
+    private BigDecimal revenuePerLabourHour = BigDecimal.ZERO;
+    private int underutilisedHours;
+    private Map<String, BigDecimal> revenueByCategory;
+    private Map<String, BigDecimal> revenueByJobTitle;
+    private int bucketCount;
+
+    // Null when the buckets were streamed ahead of this summary
+    private List<RangeBucketDTO> buckets;
+
+    // False when staff roles could not be loaded from Square
+    private boolean complete = true;
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public String getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(String granularity) {
+        this.granularity = granularity;
+    }
+
+    public BigDecimal getTotalRevenue() {
+        return totalRevenue;
+    }
+
+    public void setTotalRevenue(BigDecimal totalRevenue) {
+        this.totalRevenue = totalRevenue;
+    }
+
+    public long getTotalItemsSold() {
+        return totalItemsSold;
+    }
+
+    public void setTotalItemsSold(long totalItemsSold) {
+        this.totalItemsSold = totalItemsSold;
+    }
+
+    public BigDecimal getLabourHours() {
+        return labourHours;
+    }
+
+    public void setLabourHours(BigDecimal labourHours) {
+        this.labourHours = labourHours;
+    }
+
+    public BigDecimal getRevenuePerLabourHour() {
+        return revenuePerLabourHour;
+    }
+
+    public void setRevenuePerLabourHour(BigDecimal revenuePerLabourHour) {
+        this.revenuePerLabourHour = revenuePerLabourHour;
+    }
+
+    public int getUnderutilisedHours() {
+        return underutilisedHours;
+    }
+
+    public void setUnderutilisedHours(int underutilisedHours) {
+        this.underutilisedHours = underutilisedHours;
+    }
+
+    public Map<String, BigDecimal> getRevenueByCategory() {
+        return revenueByCategory;
+    }
+
+    public void setRevenueByCategory(Map<String, BigDecimal> revenueByCategory) {
+        this.revenueByCategory = revenueByCategory;
+    }
+
+    public Map<String, BigDecimal> getRevenueByJobTitle() {
+        return revenueByJobTitle;
+    }
+
+    public void setRevenueByJobTitle(Map<String, BigDecimal> revenueByJobTitle) {
+        this.revenueByJobTitle = revenueByJobTitle;
+    }
+
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    public void setBucketCount(int bucketCount) {
+        this.bucketCount = bucketCount;
+    }
+
+    public List<RangeBucketDTO> getBuckets() {
+        return buckets;
+    }
+
+    public void setBuckets(List<RangeBucketDTO> buckets) {
+        this.buckets = buckets;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+}
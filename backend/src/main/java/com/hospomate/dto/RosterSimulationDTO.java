@@ -0,0 +1,91 @@
+package com.hospomate.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public class RosterSimulationDTO {
+    private LocalDate weekStart;
+    private BigDecimal projectedRevenue = BigDecimal.ZERO;
+    private BigDecimal labourHours = BigDecimal.ZERO;
+    private BigDecimal labourCost = BigDecimal.ZERO;
+    private BigDecimal labourCostPercent;
+    private BigDecimal revenuePerLabourHour = BigDecimal.ZERO;
+    private int underutilisedHours;
+
+    // Weeks of history behind the demand curve; 0 means no projection
+    private int weeksOfHistory;
+    private List<RosterSlotDTO> slots;
+
+    public LocalDate getWeekStart() {
+        return weekStart;
+    }
+
+    public void setWeekStart(LocalDate weekStart) {
+        this.weekStart = weekStart;
+    }
+
+    public BigDecimal getProjectedRevenue() {
+        return projectedRevenue;
+    }
+
+    public void setProjectedRevenue(BigDecimal projectedRevenue) {
+        this.projectedRevenue = projectedRevenue;
+    }
+
+    public BigDecimal getLabourHours() {
+        return labourHours;
+    }
+
+    public void setLabourHours(BigDecimal labourHours) {
+        this.labourHours = labourHours;
+    }
+
+    public BigDecimal getLabourCost() {
+        return labourCost;
+    }
+
+    public void setLabourCost(BigDecimal labourCost) {
+        this.labourCost = labourCost;
+    }
+
+    public BigDecimal getLabourCostPercent() {
+        return labourCostPercent;
+    }
+
+    public void setLabourCostPercent(BigDecimal labourCostPercent) {
+        this.labourCostPercent = labourCostPercent;
+    }
+
+    public BigDecimal getRevenuePerLabourHour() {
+        return revenuePerLabourHour;
+    }
+
+    public void setRevenuePerLabourHour(BigDecimal revenuePerLabourHour) {
+        this.revenuePerLabourHour = revenuePerLabourHour;
+    }
+
+    public int getUnderutilisedHours() {
+        return underutilisedHours;
+    }
+
+    public void setUnderutilisedHours(int underutilisedHours) {
+        this.underutilisedHours = underutilisedHours;
+    }
+
+    public int getWeeksOfHistory() {
+        return weeksOfHistory;
+    }
+
+    public void setWeeksOfHistory(int weeksOfHistory) {
+        this.weeksOfHistory = weeksOfHistory;
+    }
+
+    public List<RosterSlotDTO> getSlots() {
+        return slots;
+    }
+
+    public void setSlots(List<RosterSlotDTO> slots) {
+        this.slots = slots;
+    }
+}
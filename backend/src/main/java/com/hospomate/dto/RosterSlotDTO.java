@@ -0,0 +1,81 @@
+package com.hospomate.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public class RosterSlotDTO {
+    private LocalDateTime startTime;
+    private BigDecimal projectedRevenue = BigDecimal.ZERO;
+    private int staffCount;
+    private BigDecimal labourHours = BigDecimal.ZERO;
+    private BigDecimal revenuePerStaff = BigDecimal.ZERO;
+    private BigDecimal labourCost = BigDecimal.ZERO;
+
+    // Null when no revenue is projected
+    private BigDecimal labourCostPercent;
+    private boolean underutilised;
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public BigDecimal getProjectedRevenue() {
+        return projectedRevenue;
+    }
+
+    public void setProjectedRevenue(BigDecimal projectedRevenue) {
+        this.projectedRevenue = projectedRevenue;
+    }
+
+    public int getStaffCount() {
+        return staffCount;
+    }
+
+    public void setStaffCount(int staffCount) {
+        this.staffCount = staffCount;
+    }
+
+    public BigDecimal getLabourHours() {
+        return labourHours;
+    }
+
+    public void setLabourHours(BigDecimal labourHours) {
+        this.labourHours = labourHours;
+    }
+
+    public BigDecimal getRevenuePerStaff() {
+        return revenuePerStaff;
+    }
+
+    public void setRevenuePerStaff(BigDecimal revenuePerStaff) {
+        this.revenuePerStaff = revenuePerStaff;
+    }
+
+    public BigDecimal getLabourCost() {
+        return labourCost;
+    }
+
+    public void setLabourCost(BigDecimal labourCost) {
+        this.labourCost = labourCost;
+    }
+
+    public BigDecimal getLabourCostPercent() {
+        return labourCostPercent;
+    }
+
+    public void setLabourCostPercent(BigDecimal labourCostPercent) {
+        this.labourCostPercent = labourCostPercent;
+    }
+
+    public boolean isUnderutilised() {
+        return underutilised;
+    }
+
+    public void setUnderutilised(boolean underutilised) {
+        this.underutilised = underutilised;
+    }
+}
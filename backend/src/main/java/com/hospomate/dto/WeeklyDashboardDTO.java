@@ -20,6 +20,12 @@ public class WeeklyDashboardDTO {
     private String openingTime;
     private String closingTime;
 
+    // False when part of the data could not be loaded from Square
+    private boolean complete = true;
+
+    // When this dashboard was assembled; older than now when served stale
+    private java.time.Instant computedAt;
+
     public BigDecimal getTotalRevenue() {
         return totalRevenue;
     }
@@ -83,4 +89,20 @@ public class WeeklyDashboardDTO {
     public void setClosingTime(String closingTime) {
         this.closingTime = closingTime;
     }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+
+    public java.time.Instant getComputedAt() {
+        return computedAt;
+    }
+
+    public void setComputedAt(java.time.Instant computedAt) {
+        this.computedAt = computedAt;
+    }
 }
@@ -0,0 +1,141 @@
+package com.hospomate.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Fitted state of one store's hourly demand model for one metric (revenue or
+ * items sold), so a restart resumes from {@code fittedThrough} instead of
+ * retraining over the whole history. The seasonal and squared error arrays
+ * hold one double per hour of the week, Monday 00:00 first.
+ */
+@Entity
+@Table(name = "demand_forecast_models", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_demand_forecast_model", columnNames = { "store_id", "metric" }) })
+public class DemandForecastModel {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "store_id", nullable = false)
+    private Long storeId;
+
+    @Column(nullable = false)
+    private String metric;
+
+    // Square location the history was read from; a new location starts a new model
+    @Column(nullable = false)
+    private String locationId;
+
+    // Last calendar day folded into the model
+    private LocalDate fittedThrough;
+    private long observations;
+    private double level;
+    private double trend;
+
+    @Column(length = 2048)
+    private byte[] seasonal;
+
+    @Column(length = 2048)
+    private byte[] squaredError;
+
+    private Instant updatedAt;
+
+    public DemandForecastModel() {
+    }
+
+    public DemandForecastModel(Long storeId, String metric, String locationId) {
+        this.storeId = storeId;
+        this.metric = metric;
+        this.locationId = locationId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getStoreId() {
+        return storeId;
+    }
+
+    public void setStoreId(Long storeId) {
+        this.storeId = storeId;
+    }
+
+    public String getMetric() {
+        return metric;
+    }
+
+    public void setMetric(String metric) {
+        this.metric = metric;
+    }
+
+    public String getLocationId() {
+        return locationId;
+    }
+
+    public void setLocationId(String locationId) {
+        this.locationId = locationId;
+    }
+
+    public LocalDate getFittedThrough() {
+        return fittedThrough;
+    }
+
+    public void setFittedThrough(LocalDate fittedThrough) {
+        this.fittedThrough = fittedThrough;
+    }
+
+    public long getObservations() {
+        return observations;
+    }
+
+    public void setObservations(long observations) {
+        this.observations = observations;
+    }
+
+    public double getLevel() {
+        return level;
+    }
+
+    public void setLevel(double level) {
+        this.level = level;
+    }
+
+    public double getTrend() {
+        return trend;
+    }
+
+    public void setTrend(double trend) {
+        this.trend = trend;
+    }
+
+    public byte[] getSeasonal() {
+        return seasonal;
+    }
+
+    public void setSeasonal(byte[] seasonal) {
+        this.seasonal = seasonal;
+    }
+
+    public byte[] getSquaredError() {
+        return squaredError;
+    }
+
+    public void setSquaredError(byte[] squaredError) {
+        this.squaredError = squaredError;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,79 @@
+package com.hospomate.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * A stored embedding, keyed by the hash of the embedding model ID and the
+ * normalised text it was computed from, so identical chunks in any upload or
+ * store reuse it instead of calling the model again. The vector is held as
+ * float32 values.
+ */
+@Entity
+@Table(name = "embedding_cache")
+public class EmbeddingCacheEntry {
+    @Id
+    @Column(length = 64)
+    private String contentHash;
+
+    @Column(nullable = false)
+    private String modelId;
+
+    private int dimensions;
+
+    @Column(nullable = false, length = 8192)
+    private byte[] embedding;
+
+    private Instant createdAt;
+
+    public EmbeddingCacheEntry() {
+    }
+
+    public EmbeddingCacheEntry(String contentHash, String modelId, int dimensions, byte[] embedding) {
+        this.contentHash = contentHash;
+        this.modelId = modelId;
+        this.dimensions = dimensions;
+        this.embedding = embedding;
+        this.createdAt = Instant.now();
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getModelId() {
+        return modelId;
+    }
+
+    public void setModelId(String modelId) {
+        this.modelId = modelId;
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    public void setDimensions(int dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    public byte[] getEmbedding() {
+        return embedding;
+    }
+
+    public void setEmbedding(byte[] embedding) {
+        this.embedding = embedding;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
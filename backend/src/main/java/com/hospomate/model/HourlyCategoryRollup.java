@@ -0,0 +1,97 @@
+package com.hospomate.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Revenue for one location, hour and sales category, rolled up from the local
+ * Square orders. Rebuilt for an hour whenever an order closed in that hour is
+ * stored or corrected.
+ */
+@Entity
+@Table(name = "hourly_category_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_hourly_category_rollup", columnNames = { "location_id", "hour_start",
+                "category" }) })
+public class HourlyCategoryRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "location_id", nullable = false)
+    private String locationId;
+
+    @Column(name = "hour_start", nullable = false)
+    private Instant hourStart;
+
+    @Column(nullable = false)
+    private String category;
+
+    private long revenueCents;
+    private long itemCount;
+    private long orderCount;
+
+    public HourlyCategoryRollup() {
+    }
+
+    public HourlyCategoryRollup(String locationId, Instant hourStart, String category) {
+        this.locationId = locationId;
+        this.hourStart = hourStart;
+        this.category = category;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getLocationId() {
+        return locationId;
+    }
+
+    public void setLocationId(String locationId) {
+        this.locationId = locationId;
+    }
+
+    public Instant getHourStart() {
+        return hourStart;
+    }
+
+    public void setHourStart(Instant hourStart) {
+        this.hourStart = hourStart;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public long getRevenueCents() {
+        return revenueCents;
+    }
+
+    public void setRevenueCents(long revenueCents) {
+        this.revenueCents = revenueCents;
+    }
+
+    public long getItemCount() {
+        return itemCount;
+    }
+
+    public void setItemCount(long itemCount) {
+        this.itemCount = itemCount;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+}
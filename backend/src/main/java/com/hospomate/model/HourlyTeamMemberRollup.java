@@ -0,0 +1,88 @@
+package com.hospomate.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Time a Square team member spent on shift within one hour at a location.
+ * Together with {@link HourlyCategoryRollup} this is enough to attribute an
+ * hour's revenue to roles and staff without reading orders or shifts again.
+ */
+@Entity
+@Table(name = "hourly_team_member_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_hourly_team_member_rollup", columnNames = { "location_id", "hour_start",
+                "team_member_id" }) })
+public class HourlyTeamMemberRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "location_id", nullable = false)
+    private String locationId;
+
+    @Column(name = "hour_start", nullable = false)
+    private Instant hourStart;
+
+    @Column(name = "team_member_id", nullable = false)
+    private String teamMemberId;
+
+    private long shiftMinutes;
+    private int shiftCount;
+
+    public HourlyTeamMemberRollup() {
+    }
+
+    public HourlyTeamMemberRollup(String locationId, Instant hourStart, String teamMemberId) {
+        this.locationId = locationId;
+        this.hourStart = hourStart;
+        this.teamMemberId = teamMemberId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getLocationId() {
+        return locationId;
+    }
+
+    public void setLocationId(String locationId) {
+        this.locationId = locationId;
+    }
+
+    public Instant getHourStart() {
+        return hourStart;
+    }
+
+    public void setHourStart(Instant hourStart) {
+        this.hourStart = hourStart;
+    }
+
+    public String getTeamMemberId() {
+        return teamMemberId;
+    }
+
+    public void setTeamMemberId(String teamMemberId) {
+        this.teamMemberId = teamMemberId;
+    }
+
+    public long getShiftMinutes() {
+        return shiftMinutes;
+    }
+
+    public void setShiftMinutes(long shiftMinutes) {
+        this.shiftMinutes = shiftMinutes;
+    }
+
+    public int getShiftCount() {
+        return shiftCount;
+    }
+
+    public void setShiftCount(int shiftCount) {
+        this.shiftCount = shiftCount;
+    }
+}
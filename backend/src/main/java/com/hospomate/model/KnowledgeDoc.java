@@ -4,7 +4,8 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "knowledge_docs")
+@Table(name = "knowledge_docs", indexes = {
+        @Index(name = "idx_knowledge_docs_store_file_hash", columnList = "store_id, file_hash") })
 public class KnowledgeDoc {
 
     @Id
@@ -24,10 +25,26 @@ public class KnowledgeDoc {
     @Column(nullable = false)
     private Long storeId;
 
+    @Column(length = 1000)
     private String errorMessage;
 
+    // SHA-256 of the uploaded file, in hex; a store uploading the same file again gets this row back
+    @Column(length = 64)
+    private String fileHash;
+
+    // Ingestion progress, updated by the ingest worker as it goes. Nullable so the
+    // columns can be added to existing rows, which read as 0
+    private Integer pagesParsed;
+    private Integer chunksTotal;
+    private Integer chunksEmbedded;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+
+    /** PENDING (queued) -> PARSING -> EMBEDDING -> INDEXED, or FAILED from any of them. */
     public enum Status {
         PENDING,
+        PARSING,
+        EMBEDDING,
         INDEXED,
         FAILED
     }
@@ -89,4 +106,52 @@ public class KnowledgeDoc {
     public void setErrorMessage(String errorMessage) {
         this.errorMessage = errorMessage;
     }
+
+    public String getFileHash() {
+        return fileHash;
+    }
+
+    public void setFileHash(String fileHash) {
+        this.fileHash = fileHash;
+    }
+
+    public int getPagesParsed() {
+        return pagesParsed != null ? pagesParsed : 0;
+    }
+
+    public void setPagesParsed(int pagesParsed) {
+        this.pagesParsed = pagesParsed;
+    }
+
+    public int getChunksTotal() {
+        return chunksTotal != null ? chunksTotal : 0;
+    }
+
+    public void setChunksTotal(int chunksTotal) {
+        this.chunksTotal = chunksTotal;
+    }
+
+    public int getChunksEmbedded() {
+        return chunksEmbedded != null ? chunksEmbedded : 0;
+    }
+
+    public void setChunksEmbedded(int chunksEmbedded) {
+        this.chunksEmbedded = chunksEmbedded;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
 }
@@ -31,6 +31,10 @@ public class Procedure {
     @OneToMany(mappedBy = "procedure", cascade = CascadeType.ALL, orphanRemoval = true)
     private java.util.List<ProcedureTask> tasks = new java.util.ArrayList<>();
 
+    // Content hash of the text last written to the vector store; re-indexing skips the procedure while it matches
+    @Column(length = 64)
+    private String indexedContentHash;
+
     public enum ProcedureType {
         OPENING, CLOSING
     }
@@ -92,4 +96,12 @@ public class Procedure {
     public void setTasks(java.util.List<ProcedureTask> tasks) {
         this.tasks = tasks;
     }
+
+    public String getIndexedContentHash() {
+        return indexedContentHash;
+    }
+
+    public void setIndexedContentHash(String indexedContentHash) {
+        this.indexedContentHash = indexedContentHash;
+    }
 }
@@ -0,0 +1,52 @@
+package com.hospomate.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Per-location progress of the Square shift sync into the hourly team member
+ * rollups. {@code backfilledFrom} is the earliest hour rolled up from shifts
+ * without a gap since; {@code lastSyncedAt} is when the sync last ran, so the
+ * next one only re-reads the shifts around it.
+ */
+@Entity
+@Table(name = "square_shift_sync_state")
+public class ShiftSyncState {
+    @Id
+    @Column(name = "location_id")
+    private String locationId;
+
+    private Instant backfilledFrom;
+    private Instant lastSyncedAt;
+
+    public ShiftSyncState() {
+    }
+
+    public ShiftSyncState(String locationId) {
+        this.locationId = locationId;
+    }
+
+    public String getLocationId() {
+        return locationId;
+    }
+
+    public void setLocationId(String locationId) {
+        this.locationId = locationId;
+    }
+
+    public Instant getBackfilledFrom() {
+        return backfilledFrom;
+    }
+
+    public void setBackfilledFrom(Instant backfilledFrom) {
+        this.backfilledFrom = backfilledFrom;
+    }
+
+    public Instant getLastSyncedAt() {
+        return lastSyncedAt;
+    }
+
+    public void setLastSyncedAt(Instant lastSyncedAt) {
+        this.lastSyncedAt = lastSyncedAt;
+    }
+}
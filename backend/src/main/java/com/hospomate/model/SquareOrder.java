@@ -0,0 +1,152 @@
+package com.hospomate.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Local copy of a Square order, kept up to date by the order sync job so
+ * dashboards and reports can read sales without calling SearchOrders.
+ * Money columns are in cents; a null amount means Square did not report it.
+ */
+@Entity
+@Table(name = "square_orders", indexes = {
+        @Index(name = "idx_square_orders_location_closed_at", columnList = "location_id, closed_at") })
+public class SquareOrder {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "square_order_id", nullable = false, unique = true)
+    private String squareOrderId;
+
+    @Column(name = "location_id", nullable = false)
+    private String locationId;
+
+    private String state;
+
+    @Column(name = "closed_at")
+    private Instant closedAt;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    private Integer version;
+
+    private Long totalCents;
+    private Long tipCents;
+    private Long refundedCents;
+
+    private Instant syncedAt;
+
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    @org.hibernate.annotations.BatchSize(size = 100)
+    private java.util.List<SquareOrderLineItem> lineItems = new java.util.ArrayList<>();
+
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    @org.hibernate.annotations.BatchSize(size = 100)
+    private java.util.List<SquareOrderServiceCharge> serviceCharges = new java.util.ArrayList<>();
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getSquareOrderId() {
+        return squareOrderId;
+    }
+
+    public void setSquareOrderId(String squareOrderId) {
+        this.squareOrderId = squareOrderId;
+    }
+
+    public String getLocationId() {
+        return locationId;
+    }
+
+    public void setLocationId(String locationId) {
+        this.locationId = locationId;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    public Instant getClosedAt() {
+        return closedAt;
+    }
+
+    public void setClosedAt(Instant closedAt) {
+        this.closedAt = closedAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
+    public Long getTotalCents() {
+        return totalCents;
+    }
+
+    public void setTotalCents(Long totalCents) {
+        this.totalCents = totalCents;
+    }
+
+    public Long getTipCents() {
+        return tipCents;
+    }
+
+    public void setTipCents(Long tipCents) {
+        this.tipCents = tipCents;
+    }
+
+    public Long getRefundedCents() {
+        return refundedCents;
+    }
+
+    public void setRefundedCents(Long refundedCents) {
+        this.refundedCents = refundedCents;
+    }
+
+    public Instant getSyncedAt() {
+        return syncedAt;
+    }
+
+    public void setSyncedAt(Instant syncedAt) {
+        this.syncedAt = syncedAt;
+    }
+
+    public java.util.List<SquareOrderLineItem> getLineItems() {
+        return lineItems;
+    }
+
+    public void setLineItems(java.util.List<SquareOrderLineItem> lineItems) {
+        this.lineItems = lineItems;
+    }
+
+    public java.util.List<SquareOrderServiceCharge> getServiceCharges() {
+        return serviceCharges;
+    }
+
+    public void setServiceCharges(java.util.List<SquareOrderServiceCharge> serviceCharges) {
+        this.serviceCharges = serviceCharges;
+    }
+}
@@ -0,0 +1,92 @@
+package com.hospomate.model;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "square_order_line_items")
+public class SquareOrderLineItem {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false)
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private SquareOrder order;
+
+    private String uid;
+    private String name;
+
+    @Column(name = "catalog_object_id")
+    private String catalogObjectId;
+
+    // Square sends quantities as decimal strings, e.g. "1" or "0.5"
+    private String quantity;
+
+    private Long grossSalesCents;
+    private Long totalCents;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public SquareOrder getOrder() {
+        return order;
+    }
+
+    public void setOrder(SquareOrder order) {
+        this.order = order;
+    }
+
+    public String getUid() {
+        return uid;
+    }
+
+    public void setUid(String uid) {
+        this.uid = uid;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getCatalogObjectId() {
+        return catalogObjectId;
+    }
+
+    public void setCatalogObjectId(String catalogObjectId) {
+        this.catalogObjectId = catalogObjectId;
+    }
+
+    public String getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(String quantity) {
+        this.quantity = quantity;
+    }
+
+    public Long getGrossSalesCents() {
+        return grossSalesCents;
+    }
+
+    public void setGrossSalesCents(Long grossSalesCents) {
+        this.grossSalesCents = grossSalesCents;
+    }
+
+    public Long getTotalCents() {
+        return totalCents;
+    }
+
+    public void setTotalCents(Long totalCents) {
+        this.totalCents = totalCents;
+    }
+}
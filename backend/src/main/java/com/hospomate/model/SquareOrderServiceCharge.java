@@ -0,0 +1,60 @@
+package com.hospomate.model;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "square_order_service_charges")
+public class SquareOrderServiceCharge {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false)
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private SquareOrder order;
+
+    private String uid;
+    private String name;
+    private Long amountCents;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public SquareOrder getOrder() {
+        return order;
+    }
+
+    public void setOrder(SquareOrder order) {
+        this.order = order;
+    }
+
+    public String getUid() {
+        return uid;
+    }
+
+    public void setUid(String uid) {
+        this.uid = uid;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Long getAmountCents() {
+        return amountCents;
+    }
+
+    public void setAmountCents(Long amountCents) {
+        this.amountCents = amountCents;
+    }
+}
@@ -0,0 +1,107 @@
+package com.hospomate.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Which local staff member a Square team member is, per store. Links are first
+ * suggested by matching names and can then be confirmed or corrected by the
+ * owner; a link without a staff id records that the team member has no local
+ * staff row, so they are not re-matched on every read.
+ */
+@Entity
+@Table(name = "square_staff_links", uniqueConstraints = @UniqueConstraint(name = "uk_square_staff_links_member", columnNames = {
+        "store_id", "team_member_id" }))
+public class SquareStaffLink {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "store_id", nullable = false)
+    private Long storeId;
+
+    @Column(name = "team_member_id", nullable = false)
+    private String teamMemberId;
+
+    // Square's display name when the link was last made, for the owner's review
+    private String squareName;
+
+    @Column(name = "staff_id")
+    private Long staffId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    private Instant updatedAt;
+
+    public enum Status {
+        SUGGESTED,
+        CONFIRMED
+    }
+
+    public SquareStaffLink() {
+    }
+
+    public SquareStaffLink(Long storeId, String teamMemberId) {
+        this.storeId = storeId;
+        this.teamMemberId = teamMemberId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getStoreId() {
+        return storeId;
+    }
+
+    public void setStoreId(Long storeId) {
+        this.storeId = storeId;
+    }
+
+    public String getTeamMemberId() {
+        return teamMemberId;
+    }
+
+    public void setTeamMemberId(String teamMemberId) {
+        this.teamMemberId = teamMemberId;
+    }
+
+    public String getSquareName() {
+        return squareName;
+    }
+
+    public void setSquareName(String squareName) {
+        this.squareName = squareName;
+    }
+
+    public Long getStaffId() {
+        return staffId;
+    }
+
+    public void setStaffId(Long staffId) {
+        this.staffId = staffId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -31,6 +31,15 @@ public class Store {
     @Column(precision = 10, scale = 2)
     private BigDecimal revenuePerLabourHourThreshold = new BigDecimal("50.00");
 
+    // Square location and access token for this venue; the configured defaults
+    // are used when unset
+    @Column(name = "square_location_id")
+    private String squareLocationId;
+
+    @com.fasterxml.jackson.annotation.JsonProperty(access = com.fasterxml.jackson.annotation.JsonProperty.Access.WRITE_ONLY)
+    @Column(name = "square_access_token")
+    private String squareAccessToken;
+
     public Long getId() {
         return id;
     }
@@ -110,4 +119,20 @@ public class Store {
     public void setClosingTime(java.time.LocalTime closingTime) {
         this.closingTime = closingTime;
     }
+
+    public String getSquareLocationId() {
+        return squareLocationId;
+    }
+
+    public void setSquareLocationId(String squareLocationId) {
+        this.squareLocationId = squareLocationId;
+    }
+
+    public String getSquareAccessToken() {
+        return squareAccessToken;
+    }
+
+    public void setSquareAccessToken(String squareAccessToken) {
+        this.squareAccessToken = squareAccessToken;
+    }
 }
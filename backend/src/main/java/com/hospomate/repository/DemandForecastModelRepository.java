@@ -0,0 +1,12 @@
+package com.hospomate.repository;
+
+import com.hospomate.model.DemandForecastModel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface DemandForecastModelRepository extends JpaRepository<DemandForecastModel, Long> {
+    List<DemandForecastModel> findByStoreId(Long storeId);
+}
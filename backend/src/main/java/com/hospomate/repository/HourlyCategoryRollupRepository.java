@@ -0,0 +1,30 @@
+package com.hospomate.repository;
+
+import com.hospomate.model.HourlyCategoryRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface HourlyCategoryRollupRepository extends JpaRepository<HourlyCategoryRollup, Long> {
+    @Query("SELECT r FROM HourlyCategoryRollup r WHERE r.locationId = :locationId AND r.hourStart >= :start AND r.hourStart < :end ORDER BY r.hourStart")
+    List<HourlyCategoryRollup> findInRange(@Param("locationId") String locationId, @Param("start") Instant start,
+            @Param("end") Instant end);
+
+    Optional<HourlyCategoryRollup> findFirstByLocationIdOrderByHourStartAsc(String locationId);
+
+    @Modifying
+    @Query("DELETE FROM HourlyCategoryRollup r WHERE r.locationId = :locationId AND r.hourStart IN :hours")
+    int deleteHours(@Param("locationId") String locationId, @Param("hours") Collection<Instant> hours);
+
+    @Modifying
+    @Query("DELETE FROM HourlyCategoryRollup r WHERE r.locationId = :locationId AND r.hourStart >= :start AND r.hourStart < :end")
+    int deleteRange(@Param("locationId") String locationId, @Param("start") Instant start, @Param("end") Instant end);
+}
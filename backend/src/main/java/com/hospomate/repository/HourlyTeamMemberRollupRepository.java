@@ -0,0 +1,22 @@
+package com.hospomate.repository;
+
+import com.hospomate.model.HourlyTeamMemberRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface HourlyTeamMemberRollupRepository extends JpaRepository<HourlyTeamMemberRollup, Long> {
+    @Query("SELECT r FROM HourlyTeamMemberRollup r WHERE r.locationId = :locationId AND r.hourStart >= :start AND r.hourStart < :end ORDER BY r.hourStart")
+    List<HourlyTeamMemberRollup> findInRange(@Param("locationId") String locationId, @Param("start") Instant start,
+            @Param("end") Instant end);
+
+    @Modifying
+    @Query("DELETE FROM HourlyTeamMemberRollup r WHERE r.locationId = :locationId AND r.hourStart >= :start AND r.hourStart < :end")
+    int deleteRange(@Param("locationId") String locationId, @Param("start") Instant start, @Param("end") Instant end);
+}
@@ -4,9 +4,16 @@ import com.hospomate.model.KnowledgeDoc;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface KnowledgeDocRepository extends JpaRepository<KnowledgeDoc, Long> {
     List<KnowledgeDoc> findByStoreId(Long storeId);
+
+    List<KnowledgeDoc> findByStatusIn(Collection<KnowledgeDoc.Status> statuses);
+
+    Optional<KnowledgeDoc> findFirstByStoreIdAndFileHashAndStatusNotOrderByIdDesc(Long storeId, String fileHash,
+            KnowledgeDoc.Status status);
 }
@@ -18,4 +18,16 @@ public interface ShiftRepository extends JpaRepository<Shift, Long> {
     @Query("SELECT s FROM Shift s WHERE s.staff.store.id = :storeId AND s.clockInTime < :end AND (s.clockOutTime IS NULL OR s.clockOutTime > :start)")
     List<Shift> findActiveShiftsByStoreAndTimeRange(@Param("storeId") Long storeId, @Param("start") LocalDateTime start,
             @Param("end") LocalDateTime end);
+
+    /**
+     * Same result as {@link #findActiveShiftsByStoreAndTimeRange}, using the
+     * GiST index on the PostgreSQL-only {@code clock_range} column (see
+     * ShiftClockRangeSchema) to find candidates before the exact recheck.
+     */
+    @Query(value = "SELECT s.* FROM shifts s JOIN staff st ON st.id = s.staff_id"
+            + " WHERE st.store_id = :storeId AND s.clock_range && tsrange(:start, :end, '[)')"
+            + " AND s.clock_in_time < :end AND (s.clock_out_time IS NULL OR s.clock_out_time > :start)",
+            nativeQuery = true)
+    List<Shift> findActiveShiftsByStoreAndClockRange(@Param("storeId") Long storeId,
+            @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 }
@@ -0,0 +1,9 @@
+package com.hospomate.repository;
+
+import com.hospomate.model.ShiftSyncState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ShiftSyncStateRepository extends JpaRepository<ShiftSyncState, String> {
+}
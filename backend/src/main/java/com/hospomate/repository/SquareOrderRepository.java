@@ -0,0 +1,20 @@
+package com.hospomate.repository;
+
+import com.hospomate.model.SquareOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SquareOrderRepository extends JpaRepository<SquareOrder, Long> {
+    Optional<SquareOrder> findBySquareOrderId(String squareOrderId);
+
+    @Query("SELECT o FROM SquareOrder o LEFT JOIN FETCH o.lineItems WHERE o.locationId = :locationId AND o.state = :state AND o.closedAt >= :start AND o.closedAt < :end")
+    List<SquareOrder> findClosedBetween(@Param("locationId") String locationId, @Param("state") String state,
+            @Param("start") Instant start, @Param("end") Instant end);
+}
@@ -0,0 +1,15 @@
+package com.hospomate.repository;
+
+import com.hospomate.model.SquareStaffLink;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SquareStaffLinkRepository extends JpaRepository<SquareStaffLink, Long> {
+    List<SquareStaffLink> findByStoreId(Long storeId);
+
+    Optional<SquareStaffLink> findByStoreIdAndTeamMemberId(Long storeId, String teamMemberId);
+}
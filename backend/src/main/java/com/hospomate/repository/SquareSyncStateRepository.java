@@ -0,0 +1,9 @@
+package com.hospomate.repository;
+
+import com.hospomate.model.SquareSyncState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SquareSyncStateRepository extends JpaRepository<SquareSyncState, String> {
+}
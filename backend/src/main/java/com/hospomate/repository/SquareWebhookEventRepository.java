@@ -0,0 +1,19 @@
+package com.hospomate.repository;
+
+import com.hospomate.model.SquareWebhookEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SquareWebhookEventRepository extends JpaRepository<SquareWebhookEvent, Long> {
+    boolean existsByEventId(String eventId);
+
+    List<SquareWebhookEvent> findByEntityIdAndIdLessThanOrderByIdDesc(String entityId, Long id);
+
+    List<SquareWebhookEvent> findByStatusInAndAttemptsLessThanAndReceivedAtBefore(
+            Collection<SquareWebhookEvent.Status> statuses, int attempts, Instant receivedBefore);
+}
@@ -8,4 +8,9 @@ public interface StoreRepository extends JpaRepository<Store, Long> {
     List<Store> findByOwnerId(Long ownerId);
 
     List<Store> findByNameContainingIgnoreCase(String name);
+
+    java.util.Optional<Store> findFirstBySquareLocationIdAndSquareAccessTokenIsNotNull(String squareLocationId);
+
+    @org.springframework.data.jpa.repository.Query("SELECT DISTINCT s.squareLocationId FROM Store s WHERE s.squareLocationId IS NOT NULL")
+    List<String> findSquareLocationIds();
 }
@@ -0,0 +1,214 @@
+package com.hospomate.service;
+
+import com.hospomate.dto.WeeklyDashboardDTO;
+import com.hospomate.model.Store;
+import com.hospomate.repository.StoreRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Last computed weekly dashboard per store and week, for
+ * stale-while-revalidate reads and background precomputation.
+ *
+ * A read returns the stored snapshot straight away and, if it is older than
+ * the allowed age, starts a background refresh; only a week never computed
+ * before makes the caller wait. At most one refresh per store and week runs at
+ * a time. An incomplete dashboard (Square partly unavailable) never replaces a
+ * complete one.
+ *
+ * Shortly after each store's closing time the current and previous week are
+ * recomputed, so the first owner in on Monday morning is served from a warm
+ * snapshot and a warm hourly cache.
+ */
+@Service
+public class DashboardSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardSnapshotService.class);
+
+    /** Last computed dashboards, keyed by store and week start. */
+    public static final String SNAPSHOT_CACHE = "weeklyDashboards";
+
+    /** A stored dashboard and whether a background refresh was started for it. */
+    public record Read(WeeklyDashboardDTO dashboard, boolean revalidating) {
+    }
+
+    record WeekKey(Long storeId, LocalDate weekStart) {
+    }
+
+    private final RevenueIntelligenceService intelligenceService;
+    private final StoreRepository storeRepository;
+    private final CacheManager cacheManager;
+    private final Executor refreshExecutor;
+    private final Duration closeDelay;
+    private final Map<WeekKey, CompletableFuture<WeeklyDashboardDTO>> refreshing = new ConcurrentHashMap<>();
+    // Store ID -> trading close that was last precomputed
+    private final Map<Long, LocalDateTime> lastPrecomputedClose = new ConcurrentHashMap<>();
+    private final Set<Long> precomputing = ConcurrentHashMap.newKeySet();
+
+    public DashboardSnapshotService(RevenueIntelligenceService intelligenceService,
+            StoreRepository storeRepository,
+            CacheManager cacheManager,
+            @Qualifier("dashboardRefreshExecutor") Executor refreshExecutor,
+            @Value("${insights.precompute.minutes-after-close:30}") long closeDelayMinutes) {
+        this.intelligenceService = intelligenceService;
+        this.storeRepository = storeRepository;
+        this.cacheManager = cacheManager;
+        this.refreshExecutor = refreshExecutor;
+        this.closeDelay = Duration.ofMinutes(closeDelayMinutes);
+    }
+
+    /**
+     * The stored dashboard for the week, refreshed in the background when older
+     * than {@code maxAge} or incomplete. Computes it on this thread's behalf
+     * (waiting for the result) only when the week has never been computed.
+     */
+    public Read get(Long storeId, LocalDate weekStart, Duration maxAge) {
+        WeeklyDashboardDTO stored = stored(new WeekKey(storeId, weekStart));
+        if (stored == null) {
+            return new Read(refresh(storeId, weekStart).join(), false);
+        }
+        boolean stale = !stored.isComplete()
+                || Duration.between(stored.getComputedAt(), Instant.now()).compareTo(maxAge) > 0;
+        if (stale) {
+            refresh(storeId, weekStart);
+        }
+        return new Read(stored, stale);
+    }
+
+    /**
+     * Recomputes the week on the refresh pool, joining a refresh already in
+     * flight for the same store and week.
+     */
+    public CompletableFuture<WeeklyDashboardDTO> refresh(Long storeId, LocalDate weekStart) {
+        WeekKey key = new WeekKey(storeId, weekStart);
+        CompletableFuture<WeeklyDashboardDTO> created = new CompletableFuture<>();
+        CompletableFuture<WeeklyDashboardDTO> existing = refreshing.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    created.complete(compute(key));
+                } catch (Throwable e) {
+                    logger.warn("Dashboard refresh failed for store {} week {}", storeId, weekStart, e);
+                    created.completeExceptionally(e);
+                } finally {
+                    refreshing.remove(key, created);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Pool saturated: the caller keeps the snapshot it has
+            refreshing.remove(key, created);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    private WeeklyDashboardDTO compute(WeekKey key) {
+        WeeklyDashboardDTO computed = intelligenceService.getWeeklyDashboard(key.storeId(), key.weekStart());
+        WeeklyDashboardDTO current = stored(key);
+        Cache cache = cacheManager.getCache(SNAPSHOT_CACHE);
+        if (cache != null && (computed.isComplete() || current == null)) {
+            cache.put(key, computed);
+            return computed;
+        }
+        return current != null ? current : computed;
+    }
+
+    private WeeklyDashboardDTO stored(WeekKey key) {
+        Cache cache = cacheManager.getCache(SNAPSHOT_CACHE);
+        return cache != null ? cache.get(key, WeeklyDashboardDTO.class) : null;
+    }
+
+    /** Settings changed: the owner expects the next read to reflect them. */
+    @EventListener
+    public void onSettingsChanged(InsightSettingsChangedEvent event) {
+        Cache cache = cacheManager.getCache(SNAPSHOT_CACHE);
+        if (cache == null) {
+            return;
+        }
+        if (cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+            caffeine.asMap().keySet().removeIf(key -> key instanceof WeekKey weekKey
+                    && weekKey.storeId().equals(event.storeId()));
+        } else {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Warms the current and previous week for every store whose trading day
+     * closed at least {@code minutes-after-close} ago and has not been
+     * precomputed since. The week containing the close and the one before are
+     * both warmed, so a close early on Monday still covers Sunday's week.
+     *
+     * The refreshes are chained on the refresh pool rather than waited for, so
+     * the scheduler thread is free for the other jobs; a store still being
+     * precomputed is skipped until it finishes.
+     */
+    @Scheduled(fixedDelayString = "${insights.precompute.check-interval-ms:900000}",
+            initialDelayString = "${insights.precompute.initial-delay-ms:60000}")
+    public void precomputeAfterClose() {
+        LocalDateTime now = LocalDateTime.now();
+        for (Store store : storeRepository.findAll()) {
+            Long storeId = store.getId();
+            LocalDateTime lastClose = lastClose(store, now, closeDelay);
+            if (lastClose.equals(lastPrecomputedClose.get(storeId)) || !precomputing.add(storeId)) {
+                continue;
+            }
+            LocalDate currentWeek = weekStartOf(lastClose.minus(closeDelay).toLocalDate());
+            // The previous week starts once the current one is done, so a store never competes with itself
+            // for Square quota; the refresh pool bounds how many stores run at once
+            refresh(storeId, currentWeek)
+                    .thenCompose(current -> refresh(storeId, currentWeek.minusWeeks(1)))
+                    .whenComplete((previous, e) -> {
+                        precomputing.remove(storeId);
+                        if (e == null) {
+                            lastPrecomputedClose.put(storeId, lastClose);
+                            logger.info("Precomputed dashboards for store {} after close at {}", storeId, lastClose);
+                        } else {
+                            logger.warn("Dashboard precompute failed for store {}, retrying next run", storeId, e);
+                        }
+                    });
+        }
+    }
+
+    /**
+     * The most recent close of trade, plus {@code delay}, at or before
+     * {@code now}. A store closing after midnight closes on the calendar day
+     * after it opened, which this handles without special casing. Stores
+     * without a closing time are treated as closing at midnight.
+     */
+    static LocalDateTime lastClose(Store store, LocalDateTime now, Duration delay) {
+        LocalTime closing = store.getClosingTime() != null ? store.getClosingTime() : LocalTime.MIDNIGHT;
+        LocalDateTime candidate = now.toLocalDate().atTime(closing).plus(delay);
+        while (candidate.isAfter(now)) {
+            candidate = candidate.minusDays(1);
+        }
+        return candidate;
+    }
+
+    static LocalDate weekStartOf(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+}
@@ -0,0 +1,325 @@
+package com.hospomate.service;
+
+import com.hospomate.dto.DemandForecastDTO;
+import com.hospomate.dto.ForecastHourDTO;
+import com.hospomate.model.DemandForecastModel;
+import com.hospomate.model.HourlyCategoryRollup;
+import com.hospomate.model.Store;
+import com.hospomate.repository.DemandForecastModelRepository;
+import com.hospomate.repository.HourlyCategoryRollupRepository;
+import com.hospomate.repository.StoreRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hourly revenue and items sold forecasts per store, from a
+ * {@link SeasonalSmoothing} model per metric fitted over the hourly category
+ * rollups.
+ *
+ * A store's models start from up to {@code insights.forecast.history-days} of
+ * history and are then only moved forward: shortly after each close the days
+ * that closed since {@code fittedThrough} are folded in and the state saved,
+ * so neither a restart nor a read retrains from scratch. Hours without rollups
+ * count as zero (the store was closed or quiet). Orders corrected after their
+ * day was folded in are not refitted; the error smoothing absorbs them. A store
+ * moved to another Square location starts over.
+ */
+@Service
+public class DemandForecastService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DemandForecastService.class);
+
+    static final String REVENUE = "REVENUE";
+    static final String ITEMS = "ITEMS";
+
+    private final StoreRepository storeRepository;
+    private final HourlyCategoryRollupRepository categoryRollupRepository;
+    private final DemandForecastModelRepository modelRepository;
+    private final SquareService squareService;
+    private final SeasonalSmoothing.Parameters parameters;
+    private final int historyDays;
+    private final int chunkDays;
+    private final double intervalZ;
+    private final Duration closeDelay;
+    // One fit per store at a time, so a read and the scheduled refit never both insert a model
+    private final Map<Long, Object> storeLocks = new ConcurrentHashMap<>();
+
+    public DemandForecastService(StoreRepository storeRepository,
+            HourlyCategoryRollupRepository categoryRollupRepository,
+            DemandForecastModelRepository modelRepository,
+            SquareService squareService,
+            @Value("${insights.forecast.alpha:0.05}") double alpha,
+            @Value("${insights.forecast.beta:0.001}") double beta,
+            @Value("${insights.forecast.gamma:0.3}") double gamma,
+            @Value("${insights.forecast.phi:0.98}") double phi,
+            @Value("${insights.forecast.history-days:365}") int historyDays,
+            @Value("${insights.forecast.chunk-days:28}") int chunkDays,
+            @Value("${insights.forecast.interval-z:1.28}") double intervalZ,
+            @Value("${insights.precompute.minutes-after-close:30}") long closeDelayMinutes) {
+        this.storeRepository = storeRepository;
+        this.categoryRollupRepository = categoryRollupRepository;
+        this.modelRepository = modelRepository;
+        this.squareService = squareService;
+        this.parameters = new SeasonalSmoothing.Parameters(alpha, beta, gamma, phi);
+        this.historyDays = historyDays;
+        this.chunkDays = chunkDays;
+        this.intervalZ = intervalZ;
+        this.closeDelay = Duration.ofMinutes(closeDelayMinutes);
+    }
+
+    /**
+     * Forecast for the week starting {@code weekStart}, which must begin after
+     * the last closed day. Empty while the store has less than a week of
+     * closed history.
+     *
+     * @throws IllegalArgumentException for a week that has already started
+     */
+    public Optional<DemandForecastDTO> getWeek(Long storeId, LocalDate weekStart) {
+        Store store = storeRepository.findById(storeId).orElseThrow(() -> new RuntimeException("Store not found"));
+        fit(storeId, lastClosedDay(store, LocalDateTime.now(), closeDelay));
+
+        Map<String, DemandForecastModel> models = modelsByMetric(storeId);
+        DemandForecastModel revenueModel = models.get(REVENUE);
+        DemandForecastModel itemsModel = models.get(ITEMS);
+        if (revenueModel == null || itemsModel == null) {
+            return Optional.empty();
+        }
+        LocalDate forecastFrom = revenueModel.getFittedThrough().plusDays(1);
+        if (weekStart.isBefore(forecastFrom)) {
+            throw new IllegalArgumentException("Forecasts start after the last closed day, "
+                    + revenueModel.getFittedThrough());
+        }
+        DemandForecastDTO forecast = forecast(weekStart, forecastFrom, ZoneId.systemDefault(),
+                SeasonalSmoothing.restore(parameters, revenueModel),
+                SeasonalSmoothing.restore(parameters, itemsModel), intervalZ);
+        forecast.setFittedThrough(revenueModel.getFittedThrough());
+        forecast.setWeeksOfHistory((int) (revenueModel.getObservations() / DemandProfile.SLOTS));
+        return Optional.of(forecast);
+    }
+
+    /**
+     * Folds the days that closed since each store's models were last fitted.
+     * Runs on the same schedule as the dashboard precompute.
+     */
+    @Scheduled(fixedDelayString = "${insights.precompute.check-interval-ms:900000}",
+            initialDelayString = "${insights.forecast.initial-delay-ms:120000}")
+    public void refitClosedDays() {
+        LocalDateTime now = LocalDateTime.now();
+        for (Store store : storeRepository.findAll()) {
+            try {
+                fit(store.getId(), lastClosedDay(store, now, closeDelay));
+            } catch (RuntimeException e) {
+                logger.warn("Forecast refit failed for store {}, retrying next run", store.getId(), e);
+            }
+        }
+    }
+
+    /** Brings the store's models up to date through the end of {@code throughDay}. */
+    public void fit(Long storeId, LocalDate throughDay) {
+        synchronized (storeLocks.computeIfAbsent(storeId, id -> new Object())) {
+            String locationId = squareService.getLocationId(storeId);
+            Map<String, DemandForecastModel> models = modelsByMetric(storeId);
+            DemandForecastModel revenueModel = models.get(REVENUE);
+            DemandForecastModel itemsModel = models.get(ITEMS);
+            ZoneId zone = ZoneId.systemDefault();
+
+            Fitter fitter;
+            LocalDate from;
+            if (revenueModel != null && itemsModel != null && locationId.equals(revenueModel.getLocationId())
+                    && revenueModel.getFittedThrough().equals(itemsModel.getFittedThrough())) {
+                from = revenueModel.getFittedThrough().plusDays(1);
+                if (from.isAfter(throughDay)) {
+                    return;
+                }
+                fitter = new Fitter(parameters, SeasonalSmoothing.restore(parameters, revenueModel),
+                        SeasonalSmoothing.restore(parameters, itemsModel));
+            } else {
+                Optional<HourlyCategoryRollup> first = categoryRollupRepository
+                        .findFirstByLocationIdOrderByHourStartAsc(locationId);
+                if (first.isEmpty()) {
+                    return;
+                }
+                LocalDate earliest = LocalDateTime.ofInstant(first.get().getHourStart(), zone).toLocalDate();
+                LocalDate historyStart = throughDay.minusDays(historyDays - 1L);
+                from = earliest.isAfter(historyStart) ? earliest : historyStart;
+                if (from.plusWeeks(1).isAfter(throughDay.plusDays(1))) {
+                    return;
+                }
+                modelRepository.deleteAll(models.values());
+                revenueModel = new DemandForecastModel(storeId, REVENUE, locationId);
+                itemsModel = new DemandForecastModel(storeId, ITEMS, locationId);
+                fitter = new Fitter(parameters, null, null);
+                logger.info("Training demand forecast for store {} from {}", storeId, from);
+            }
+
+            for (LocalDate chunk = from; !chunk.isAfter(throughDay); chunk = chunk.plusDays(chunkDays)) {
+                LocalDate chunkEnd = chunk.plusDays(chunkDays).isAfter(throughDay) ? throughDay.plusDays(1)
+                        : chunk.plusDays(chunkDays);
+                Instant start = chunk.atStartOfDay(zone).toInstant();
+                Instant end = chunkEnd.atStartOfDay(zone).toInstant();
+                fitter.addHours(start, end, zone, categoryRollupRepository.findInRange(locationId, start, end));
+            }
+            if (!fitter.initialised()) {
+                return;
+            }
+
+            Instant now = Instant.now();
+            fitter.saveTo(revenueModel, itemsModel);
+            for (DemandForecastModel model : List.of(revenueModel, itemsModel)) {
+                model.setFittedThrough(throughDay);
+                model.setUpdatedAt(now);
+            }
+            modelRepository.saveAll(List.of(revenueModel, itemsModel));
+        }
+    }
+
+    private Map<String, DemandForecastModel> modelsByMetric(Long storeId) {
+        Map<String, DemandForecastModel> models = new HashMap<>();
+        for (DemandForecastModel model : modelRepository.findByStoreId(storeId)) {
+            models.put(model.getMetric(), model);
+        }
+        return models;
+    }
+
+    /**
+     * The last calendar day fully traded at {@code now}: the day of the most
+     * recent close, or the day before it when the store closes after midnight.
+     */
+    static LocalDate lastClosedDay(Store store, LocalDateTime now, Duration delay) {
+        LocalDateTime close = DashboardSnapshotService.lastClose(store, now, delay).minus(delay);
+        LocalTime opening = store.getOpeningTime() != null ? store.getOpeningTime() : LocalTime.MIDNIGHT;
+        return close.toLocalTime().isAfter(opening) ? close.toLocalDate() : close.toLocalDate().minusDays(1);
+    }
+
+    /**
+     * The week's hourly forecasts, counting horizons from the start of
+     * {@code forecastFrom}, the first day the models have not seen.
+     */
+    static DemandForecastDTO forecast(LocalDate weekStart, LocalDate forecastFrom, ZoneId zone,
+            SeasonalSmoothing revenue, SeasonalSmoothing items, double intervalZ) {
+        Instant origin = forecastFrom.atStartOfDay(zone).toInstant();
+        Instant end = weekStart.plusWeeks(1).atStartOfDay(zone).toInstant();
+        List<ForecastHourDTO> hours = new ArrayList<>(DemandProfile.SLOTS);
+        long totalRevenueCents = 0;
+        double totalItems = 0;
+        for (Instant hour = weekStart.atStartOfDay(zone).toInstant(); hour.isBefore(end); hour = hour
+                .plusSeconds(3600)) {
+            LocalDateTime startTime = LocalDateTime.ofInstant(hour, zone);
+            int slot = DemandProfile.slotOf(startTime);
+            int ahead = (int) Duration.between(origin, hour).toHours() + 1;
+
+            double revenueCents = revenue.forecast(ahead, slot);
+            double revenueMargin = intervalZ * revenue.standardError(ahead, slot);
+            double itemCount = items.forecast(ahead, slot);
+            double itemsMargin = intervalZ * items.standardError(ahead, slot);
+
+            ForecastHourDTO dto = new ForecastHourDTO();
+            dto.setStartTime(startTime);
+            dto.setRevenue(cents(revenueCents));
+            dto.setRevenueLow(cents(revenueCents - revenueMargin));
+            dto.setRevenueHigh(cents(revenueCents + revenueMargin));
+            dto.setItems(count(itemCount));
+            dto.setItemsLow(count(itemCount - itemsMargin));
+            dto.setItemsHigh(count(itemCount + itemsMargin));
+            hours.add(dto);
+
+            totalRevenueCents += Math.round(Math.max(revenueCents, 0));
+            totalItems += Math.max(itemCount, 0);
+        }
+
+        DemandForecastDTO forecast = new DemandForecastDTO();
+        forecast.setWeekStart(weekStart);
+        forecast.setProjectedRevenue(BigDecimal.valueOf(totalRevenueCents, 2));
+        forecast.setProjectedItems(count(totalItems));
+        forecast.setHours(hours);
+        return forecast;
+    }
+
+    private static BigDecimal cents(double value) {
+        return BigDecimal.valueOf(Math.round(Math.max(value, 0)), 2);
+    }
+
+    private static BigDecimal count(double value) {
+        return BigDecimal.valueOf(Math.max(value, 0)).setScale(1, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Feeds hourly totals to both models in time order. A new pair of models
+     * buffers its first 168 hours and starts from them.
+     */
+    static final class Fitter {
+        private final SeasonalSmoothing.Parameters parameters;
+        private SeasonalSmoothing revenue;
+        private SeasonalSmoothing items;
+        private final double[] firstRevenue = new double[DemandProfile.SLOTS];
+        private final double[] firstItems = new double[DemandProfile.SLOTS];
+        private int buffered;
+
+        Fitter(SeasonalSmoothing.Parameters parameters, SeasonalSmoothing revenue, SeasonalSmoothing items) {
+            this.parameters = parameters;
+            this.revenue = revenue;
+            this.items = items;
+        }
+
+        /** Every hour in [start, end), from rollup rows inside it in any order. */
+        void addHours(Instant start, Instant end, ZoneId zone, List<HourlyCategoryRollup> rows) {
+            int hourCount = (int) Duration.between(start, end).toHours();
+            long[] revenueCents = new long[hourCount];
+            long[] itemCount = new long[hourCount];
+            long startSecond = start.getEpochSecond();
+            for (HourlyCategoryRollup row : rows) {
+                long index = Math.floorDiv(row.getHourStart().getEpochSecond() - startSecond, 3600L);
+                if (index >= 0 && index < hourCount) {
+                    revenueCents[(int) index] += row.getRevenueCents();
+                    itemCount[(int) index] += row.getItemCount();
+                }
+            }
+            for (int index = 0; index < hourCount; index++) {
+                LocalDateTime hour = LocalDateTime.ofInstant(Instant.ofEpochSecond(startSecond + index * 3600L),
+                        zone);
+                add(DemandProfile.slotOf(hour), revenueCents[index], itemCount[index]);
+            }
+        }
+
+        void add(int slot, double revenueCents, double itemCount) {
+            if (revenue != null) {
+                revenue.update(slot, revenueCents);
+                items.update(slot, itemCount);
+                return;
+            }
+            firstRevenue[slot] = revenueCents;
+            firstItems[slot] = itemCount;
+            if (++buffered == DemandProfile.SLOTS) {
+                revenue = SeasonalSmoothing.initialise(parameters, firstRevenue);
+                items = SeasonalSmoothing.initialise(parameters, firstItems);
+            }
+        }
+
+        boolean initialised() {
+            return revenue != null;
+        }
+
+        void saveTo(DemandForecastModel revenueModel, DemandForecastModel itemsModel) {
+            revenue.saveTo(revenueModel);
+            items.saveTo(itemsModel);
+        }
+    }
+}
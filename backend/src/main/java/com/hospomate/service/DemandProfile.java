@@ -0,0 +1,35 @@
+package com.hospomate.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Expected revenue for a store in each hour of the week (Monday 00:00 first),
+ * averaged over the weeks of history that had any trade.
+ */
+public final class DemandProfile {
+
+    public static final int SLOTS = 7 * 24;
+
+    private final long[] revenueCents;
+    private final int weeks;
+
+    DemandProfile(long[] revenueCents, int weeks) {
+        if (revenueCents.length != SLOTS) {
+            throw new IllegalArgumentException("Expected " + SLOTS + " hourly slots");
+        }
+        this.revenueCents = revenueCents;
+        this.weeks = weeks;
+    }
+
+    static int slotOf(LocalDateTime time) {
+        return (time.getDayOfWeek().getValue() - 1) * 24 + time.getHour();
+    }
+
+    long revenueCents(int slot) {
+        return revenueCents[slot];
+    }
+
+    public int weeks() {
+        return weeks;
+    }
+}
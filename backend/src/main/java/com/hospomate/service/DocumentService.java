@@ -5,32 +5,92 @@ import com.hospomate.repository.KnowledgeDocRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.document.Document;
-import org.springframework.ai.reader.pdf.PagePdfDocumentReader;
-import org.springframework.ai.transformer.splitter.TokenTextSplitter;
-import org.springframework.ai.vectorstore.VectorStore;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
+/**
+ * Knowledge base documents: uploads are spooled to a temporary file and
+ * queued, then parsed, chunked, embedded and written to the vector table by
+ * the bounded {@code documentIngestExecutor} pool, with the parse and write
+ * stages of each document running alongside on
+ * {@code documentPipelineExecutor}. Progress is kept on the
+ * {@link KnowledgeDoc} row so the client can poll it.
+ */
 @Service
 public class DocumentService {
 
     private static final Logger logger = LoggerFactory.getLogger(DocumentService.class);
 
+    static final int CHUNK_SIZE = 2000; // Characters
+    static final int CHUNK_OVERLAP = 200;
+
+    private static final List<KnowledgeDoc.Status> UNFINISHED = List.of(KnowledgeDoc.Status.PENDING,
+            KnowledgeDoc.Status.PARSING, KnowledgeDoc.Status.EMBEDDING);
+
     private final KnowledgeDocRepository knowledgeDocRepository;
-    private final VectorStore vectorStore;
+    private final EmbeddingCacheService embeddingCache;
+    private final PgVectorWriter vectorWriter;
+    private final IngestPipelineStats stats;
+    private final Executor ingestExecutor;
+    private final Executor pipelineExecutor;
+    private final int embedBatchSize;
+    private final int pipelineDepth;
+    private final Duration retryAfter;
 
     @Autowired
-    public DocumentService(KnowledgeDocRepository knowledgeDocRepository, VectorStore vectorStore) {
+    public DocumentService(KnowledgeDocRepository knowledgeDocRepository, EmbeddingCacheService embeddingCache,
+            PgVectorWriter vectorWriter, IngestPipelineStats stats,
+            @Qualifier("documentIngestExecutor") Executor ingestExecutor,
+            @Qualifier("documentPipelineExecutor") Executor pipelineExecutor,
+            @Value("${documents.ingest.embed-batch-size:32}") int embedBatchSize,
+            @Value("${documents.ingest.pipeline-depth:4}") int pipelineDepth,
+            @Value("${documents.ingest.retry-after-seconds:30}") long retryAfterSeconds) {
         this.knowledgeDocRepository = knowledgeDocRepository;
-        this.vectorStore = vectorStore;
+        this.embeddingCache = embeddingCache;
+        this.vectorWriter = vectorWriter;
+        this.stats = stats;
+        this.ingestExecutor = ingestExecutor;
+        this.pipelineExecutor = pipelineExecutor;
+        this.embedBatchSize = embedBatchSize;
+        this.pipelineDepth = pipelineDepth;
+        this.retryAfter = Duration.ofSeconds(retryAfterSeconds);
     }
 
     public List<KnowledgeDoc> getAllDocuments() {
@@ -41,85 +101,399 @@ public class DocumentService {
         return knowledgeDocRepository.findByStoreId(storeId);
     }
 
-    public KnowledgeDoc ingestDocument(MultipartFile file, Long storeId) throws IOException {
-        logger.info("Starting ingestion for file: {} for storeId: {}", file.getOriginalFilename(), storeId);
+    public Optional<KnowledgeDoc> getDocument(Long id) {
+        return knowledgeDocRepository.findById(id);
+    }
+
+    /**
+     * Queues a PDF for ingestion and returns its PENDING row straight away. A
+     * file the store has already uploaded (same SHA-256) is not ingested
+     * again: the existing row is returned, INDEXED or still in progress.
+     *
+     * @throws IngestQueueFullException if the ingest queue is full; nothing is kept
+     */
+    public KnowledgeDoc submitDocument(MultipartFile file, Long storeId) throws IOException {
+        Path upload = Files.createTempFile("knowledge-doc-", ".pdf");
+        String fileHash;
+        try (DigestInputStream in = new DigestInputStream(file.getInputStream(), EmbeddingCacheService.sha256())) {
+            Files.copy(in, upload, StandardCopyOption.REPLACE_EXISTING);
+            fileHash = HexFormat.of().formatHex(in.getMessageDigest().digest());
+        } catch (IOException e) {
+            Files.deleteIfExists(upload);
+            throw e;
+        }
+
+        Optional<KnowledgeDoc> duplicate = knowledgeDocRepository
+                .findFirstByStoreIdAndFileHashAndStatusNotOrderByIdDesc(storeId, fileHash, KnowledgeDoc.Status.FAILED);
+        if (duplicate.isPresent()) {
+            Files.deleteIfExists(upload);
+            logger.info("{} for storeId: {} is the same file as document {}, not ingesting again",
+                    file.getOriginalFilename(), storeId, duplicate.get().getId());
+            return duplicate.get();
+        }
 
-        // 1. Save Entity
         KnowledgeDoc doc = new KnowledgeDoc();
         doc.setFilename(file.getOriginalFilename());
         doc.setUploadDate(LocalDateTime.now());
         doc.setStatus(KnowledgeDoc.Status.PENDING);
         doc.setStoreId(storeId);
-        doc = knowledgeDocRepository.save(doc);
+        doc.setFileHash(fileHash);
+        KnowledgeDoc saved = knowledgeDocRepository.save(doc);
 
         try {
-            // 2. Read PDF using Spring AI
-            Resource resource = new ByteArrayResource(file.getBytes());
-            PagePdfDocumentReader reader = new PagePdfDocumentReader(resource);
-            List<Document> documents = reader.get();
-            if (documents == null || documents.isEmpty()) {
-                throw new RuntimeException("No content extracted from PDF");
-            }
-            logger.info("Extracted {} documents from PDF", documents.size());
-            documents.forEach(d -> logger.info("Doc Content Length: {}",
-                    d.getContent() != null ? d.getContent().length() : "NULL"));
+            ingestExecutor.execute(() -> ingest(saved.getId(), upload));
+        } catch (RejectedExecutionException e) {
+            knowledgeDocRepository.delete(saved);
+            Files.deleteIfExists(upload);
+            throw new IngestQueueFullException(retryAfter, e);
+        }
+        logger.info("Queued ingestion of {} for storeId: {} as document {}", saved.getFilename(), storeId,
+                saved.getId());
+        return saved;
+    }
 
-            List<Document> validDocuments = documents.stream()
-                    .filter(d -> d.getContent() != null && !d.getContent().isBlank())
-                    .toList();
+    /**
+     * Parses, chunks, embeds and stores a spooled upload, then deletes the
+     * file. The stages overlap: a parser task streams pages into a bounded
+     * chunk queue, this worker embeds chunks in micro-batches of
+     * {@code documents.ingest.embed-batch-size}, and a writer task stores each
+     * embedded batch while the next is embedded. At most
+     * {@code documents.ingest.pipeline-depth} batches wait between stages, so
+     * a large PDF is never held in memory whole. The first failure in any
+     * stage stops the others.
+     */
+    void ingest(Long docId, Path upload) {
+        KnowledgeDoc doc = knowledgeDocRepository.findById(docId).orElse(null);
+        if (doc == null) {
+            deleteQuietly(upload);
+            return;
+        }
+        logger.info("Starting ingestion for file: {} for storeId: {}", doc.getFilename(), doc.getStoreId());
+        long started = System.nanoTime();
+        Pipeline pipeline = new Pipeline(embedBatchSize * pipelineDepth, pipelineDepth);
+        try {
+            doc.setStartedAt(LocalDateTime.now());
+            doc.setStatus(KnowledgeDoc.Status.PARSING);
+            doc = knowledgeDocRepository.save(doc);
 
-            if (validDocuments.isEmpty()) {
-                throw new RuntimeException("No valid text content extracted from PDF");
-            }
+            Map<String, Object> chunkMetadata = Map.of(
+                    "docId", String.valueOf(doc.getId()),
+                    "storeId", String.valueOf(doc.getStoreId()),
+                    "filename", doc.getFilename(),
+                    "type", "KNOWLEDGE_BASE");
+            Long id = doc.getId();
+            pipeline.launch(pipelineExecutor, () -> parse(upload, id, chunkMetadata, pipeline));
+            pipeline.launch(pipelineExecutor, () -> write(pipeline));
 
-            // 3. Split into chunks (Manual Character Splitter to avoid NPE in
-            // TokenTextSplitter)
-            List<Document> chunks = new java.util.ArrayList<>();
-            int chunkSize = 2000; // Characters
-            int overlap = 200;
-
-            for (Document d : validDocuments) {
-                String content = d.getContent();
-                for (int i = 0; i < content.length(); i += (chunkSize - overlap)) {
-                    int end = Math.min(i + chunkSize, content.length());
-                    String chunkText = content.substring(i, end);
-                    if (chunkText.isBlank())
-                        continue; // Skip blank chunks
-
-                    // Copy metadata
-                    try {
-                        Map<String, Object> metadata = new java.util.HashMap<>(d.getMetadata());
-                        chunks.add(new Document(chunkText, metadata));
-                    } catch (Exception e) {
-                        logger.error("Chunk processing failed. Chunk length: {}. Content: [{}]", chunkText.length(),
-                                chunkText);
-                        throw e;
+            List<Document> batch = new ArrayList<>(embedBatchSize);
+            boolean parsed = false;
+            while (!parsed) {
+                Document chunk = pipeline.take(pipeline.chunks);
+                if (chunk == END_OF_CHUNKS) {
+                    parsed = true;
+                } else {
+                    batch.add(chunk);
+                }
+                if (batch.size() == embedBatchSize || (parsed && !batch.isEmpty())) {
+                    if (doc.getStatus() == KnowledgeDoc.Status.PARSING) {
+                        doc.setStatus(KnowledgeDoc.Status.EMBEDDING);
                     }
+                    long embedStart = System.nanoTime();
+                    List<List<Double>> embeddings = embeddingCache
+                            .embed(batch.stream().map(Document::getContent).toList());
+                    pipeline.embedded(batch.size(), System.nanoTime() - embedStart, stats);
+                    pipeline.put(pipeline.batches, new EmbeddedBatch(batch, embeddings));
+                    batch = new ArrayList<>(embedBatchSize);
+                    doc = saveProgress(doc, pipeline);
                 }
             }
+            pipeline.put(pipeline.batches, END_OF_BATCHES);
+            pipeline.awaitStages();
+            pipeline.rethrowFailure();
 
-            // 4. Add Metadata
-            for (Document chunk : chunks) {
-                chunk.getMetadata().putAll(Map.of(
-                        "docId", String.valueOf(doc.getId()),
-                        "storeId", String.valueOf(storeId),
-                        "filename", doc.getFilename(),
-                        "type", "KNOWLEDGE_BASE"));
+            if (pipeline.pagesParsed.get() == 0) {
+                throw new RuntimeException("No valid text content extracted from PDF");
             }
-
-            // 5. Store in Vector Store
-            vectorStore.add(chunks);
-
-            // 6. Update Status
+            doc = saveProgress(doc, pipeline);
             doc.setStatus(KnowledgeDoc.Status.INDEXED);
-            logger.info("Successfully ingested document: {}", doc.getFilename());
+            logger.info("Ingested {}: {} chunks from {} pages in {} ms (busy parse {} ms, embed {} ms, write {} ms)",
+                    doc.getFilename(), pipeline.chunksWritten.get(), pipeline.pagesParsed.get(),
+                    (System.nanoTime() - started) / 1_000_000, pipeline.parseNanos.get() / 1_000_000,
+                    pipeline.embedNanos.get() / 1_000_000, pipeline.writeNanos.get() / 1_000_000);
 
         } catch (Exception e) {
-            logger.error("Failed to ingest document", e);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            pipeline.fail(e);
+            Throwable cause = pipeline.failure.get();
+            logger.error("Failed to ingest document {}", docId, cause);
             doc.setStatus(KnowledgeDoc.Status.FAILED);
-            doc.setErrorMessage(e.toString());
+            doc.setErrorMessage(truncate(cause.toString()));
+        } finally {
+            pipeline.awaitStagesQuietly();
+            deleteQuietly(upload);
         }
 
+        doc.setCompletedAt(LocalDateTime.now());
+        knowledgeDocRepository.save(doc);
+    }
+
+    private KnowledgeDoc saveProgress(KnowledgeDoc doc, Pipeline pipeline) {
+        doc.setPagesParsed(pipeline.pagesParsed.get());
+        doc.setChunksTotal(pipeline.chunksParsed.get());
+        doc.setChunksEmbedded(pipeline.chunksWritten.get());
         return knowledgeDocRepository.save(doc);
     }
+
+    /**
+     * Parser stage: streams pages into chunks on the chunk queue. Each chunk's
+     * vector ID is derived from the document and its content hash, so a chunk
+     * repeated within the document (a running header, a repeated table) is
+     * stored once.
+     */
+    private void parse(Path upload, Long docId, Map<String, Object> chunkMetadata, Pipeline pipeline) {
+        try {
+            Set<String> seen = new HashSet<>();
+            long[] mark = { System.nanoTime() };
+            readPages(upload, page -> {
+                if (page.getContent() == null || page.getContent().isBlank()) {
+                    return;
+                }
+                List<Document> chunks = new ArrayList<>();
+                for (Document chunk : splitPage(page)) {
+                    String contentHash = embeddingCache.contentHash(chunk.getContent());
+                    if (seen.add(contentHash)) {
+                        chunk.getMetadata().putAll(chunkMetadata);
+                        chunk.getMetadata().put("contentHash", contentHash);
+                        chunks.add(new Document(chunkId(docId, contentHash), chunk.getContent(),
+                                chunk.getMetadata()));
+                    }
+                }
+                // Time spent blocked on a full queue is the embedder's, not the parser's
+                long busy = System.nanoTime() - mark[0];
+                pipeline.parseNanos.addAndGet(busy);
+                stats.record(IngestPipelineStats.Stage.PARSE, 1, busy);
+                pipeline.pagesParsed.incrementAndGet();
+                pipeline.chunksParsed.addAndGet(chunks.size());
+                try {
+                    for (Document chunk : chunks) {
+                        pipeline.put(pipeline.chunks, chunk);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Interrupted while parsing");
+                }
+                mark[0] = System.nanoTime();
+            });
+            pipeline.put(pipeline.chunks, END_OF_CHUNKS);
+        } catch (Exception e) {
+            pipeline.fail(e);
+        } finally {
+            pipeline.stageDone.countDown();
+        }
+    }
+
+    /** Writer stage: stores embedded batches as they arrive. */
+    private void write(Pipeline pipeline) {
+        try {
+            EmbeddedBatch batch;
+            while ((batch = pipeline.take(pipeline.batches)) != END_OF_BATCHES) {
+                long writeStart = System.nanoTime();
+                vectorWriter.write(batch.chunks(), batch.embeddings());
+                long busy = System.nanoTime() - writeStart;
+                pipeline.writeNanos.addAndGet(busy);
+                stats.record(IngestPipelineStats.Stage.WRITE, batch.chunks().size(), busy);
+                pipeline.chunksWritten.addAndGet(batch.chunks().size());
+            }
+        } catch (Exception e) {
+            pipeline.fail(e);
+        } finally {
+            pipeline.stageDone.countDown();
+        }
+    }
+
+    static String chunkId(Long docId, String contentHash) {
+        return UUID.nameUUIDFromBytes((docId + ":" + contentHash).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    /** Streams the PDF a page at a time, one Document per page. */
+    void readPages(Path upload, Consumer<Document> pageSink) throws IOException {
+        try (PDDocument pdf = Loader.loadPDF(upload.toFile())) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            for (int page = 1; page <= pdf.getNumberOfPages(); page++) {
+                stripper.setStartPage(page);
+                stripper.setEndPage(page);
+                Map<String, Object> metadata = new HashMap<>();
+                metadata.put("page_number", page);
+                metadata.put("file_name", upload.getFileName().toString());
+                pageSink.accept(new Document(stripper.getText(pdf), metadata));
+            }
+        }
+    }
+
+    /**
+     * Queued and running ingests do not survive a restart (their spooled
+     * files are gone with the worker), so they are marked failed for the
+     * owner to upload again.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void failInterruptedIngests() {
+        List<KnowledgeDoc> interrupted = knowledgeDocRepository.findByStatusIn(UNFINISHED);
+        for (KnowledgeDoc doc : interrupted) {
+            doc.setStatus(KnowledgeDoc.Status.FAILED);
+            doc.setErrorMessage("Ingestion was interrupted by a restart, please upload the document again");
+            doc.setCompletedAt(LocalDateTime.now());
+        }
+        if (!interrupted.isEmpty()) {
+            knowledgeDocRepository.saveAll(interrupted);
+            logger.warn("Marked {} interrupted document ingests as failed", interrupted.size());
+        }
+    }
+
+    private static String truncate(String message) {
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+
+    private static void deleteQuietly(Path upload) {
+        try {
+            Files.deleteIfExists(upload);
+        } catch (IOException e) {
+            logger.warn("Could not delete spooled upload {}", upload, e);
+        }
+    }
+
+    /**
+     * Splits pages into overlapping character chunks, each carrying a copy of
+     * its page's metadata. A manual character splitter, as TokenTextSplitter
+     * throws an NPE on some PDFs.
+     */
+    static List<Document> splitIntoChunks(List<Document> documents) {
+        List<Document> chunks = new ArrayList<>();
+        for (Document d : documents) {
+            chunks.addAll(splitPage(d));
+        }
+        return chunks;
+    }
+
+    static List<Document> splitPage(Document d) {
+        List<Document> chunks = new ArrayList<>();
+        String content = d.getContent();
+        for (int i = 0; i < content.length(); i += (CHUNK_SIZE - CHUNK_OVERLAP)) {
+            int end = Math.min(i + CHUNK_SIZE, content.length());
+            String chunkText = content.substring(i, end);
+            if (chunkText.isBlank())
+                continue; // Skip blank chunks
+
+            // Copy metadata
+            try {
+                Map<String, Object> metadata = new HashMap<>(d.getMetadata());
+                chunks.add(new Document(chunkText, metadata));
+            } catch (Exception e) {
+                logger.error("Chunk processing failed. Chunk length: {}. Content: [{}]", chunkText.length(),
+                        chunkText);
+                throw e;
+            }
+        }
+        return chunks;
+    }
+
+    private record EmbeddedBatch(List<Document> chunks, List<List<Double>> embeddings) {
+    }
+
+    private static final Document END_OF_CHUNKS = new Document("");
+    private static final EmbeddedBatch END_OF_BATCHES = new EmbeddedBatch(List.of(), List.of());
+
+    /**
+     * Queues and counters shared by one document's stages. Hand-offs poll so
+     * that a stage blocked on a full or empty queue notices another stage's
+     * failure and gives up instead of waiting forever.
+     */
+    private static final class Pipeline {
+
+        private static final long POLL_MILLIS = 100;
+        private static final int STAGES = 2;
+
+        final BlockingQueue<Document> chunks;
+        final BlockingQueue<EmbeddedBatch> batches;
+        final CountDownLatch stageDone = new CountDownLatch(STAGES);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final AtomicInteger pagesParsed = new AtomicInteger();
+        final AtomicInteger chunksParsed = new AtomicInteger();
+        final AtomicInteger chunksWritten = new AtomicInteger();
+        final AtomicLong parseNanos = new AtomicLong();
+        final AtomicLong embedNanos = new AtomicLong();
+        final AtomicLong writeNanos = new AtomicLong();
+
+        private int launched;
+
+        Pipeline(int chunkCapacity, int batchCapacity) {
+            this.chunks = new ArrayBlockingQueue<>(chunkCapacity);
+            this.batches = new ArrayBlockingQueue<>(batchCapacity);
+        }
+
+        /** Starts a stage; each one counts {@link #stageDone} down when it stops. */
+        void launch(Executor executor, Runnable stage) {
+            executor.execute(stage);
+            launched++;
+        }
+
+        void embedded(int count, long nanos, IngestPipelineStats stats) {
+            embedNanos.addAndGet(nanos);
+            stats.record(IngestPipelineStats.Stage.EMBED, count, nanos);
+        }
+
+        /** Records the first failure; later ones are consequences of it. */
+        void fail(Throwable e) {
+            failure.compareAndSet(null, e);
+        }
+
+        <T> void put(BlockingQueue<T> queue, T item) throws InterruptedException {
+            while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                abortIfFailed();
+            }
+        }
+
+        <T> T take(BlockingQueue<T> queue) throws InterruptedException {
+            T item;
+            while ((item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                abortIfFailed();
+            }
+            return item;
+        }
+
+        void awaitStages() throws InterruptedException {
+            while (!stageDone.await(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                abortIfFailed();
+            }
+        }
+
+        /** Waits for the parser and writer to stop, which they do promptly once failed. */
+        void awaitStagesQuietly() {
+            for (int never = launched; never < STAGES; never++) {
+                stageDone.countDown();
+            }
+            try {
+                stageDone.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void rethrowFailure() throws Exception {
+            Throwable e = failure.get();
+            if (e instanceof Exception exception) {
+                throw exception;
+            }
+            if (e != null) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        private void abortIfFailed() {
+            if (failure.get() != null) {
+                throw new CancellationException("Another ingestion stage failed");
+            }
+        }
+    }
 }
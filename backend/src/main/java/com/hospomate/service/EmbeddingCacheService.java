@@ -0,0 +1,145 @@
+package com.hospomate.service;
+
+import com.hospomate.model.EmbeddingCacheEntry;
+import com.hospomate.repository.EmbeddingCacheRepository;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Embeddings through a persistent cache. Text is normalised (Unicode NFC,
+ * whitespace collapsed) and hashed together with
+ * {@code documents.embedding.model-id}; only texts whose hash is not in the
+ * {@code embedding_cache} table are sent to the model, once each however
+ * often they repeat. Changing the model ID starts a fresh set of keys.
+ *
+ * New entries are inserted with {@code ON CONFLICT DO NOTHING}: two ingest
+ * workers embedding the same text at once both miss and both insert, and the
+ * second insert is simply a no-op.
+ */
+@Service
+public class EmbeddingCacheService {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final String INSERT = "INSERT INTO embedding_cache"
+            + " (content_hash, model_id, dimensions, embedding, created_at) VALUES (?, ?, ?, ?, ?)"
+            + " ON CONFLICT (content_hash) DO NOTHING";
+
+    private final EmbeddingModel embeddingModel;
+    private final EmbeddingCacheRepository cacheRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final String modelId;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public EmbeddingCacheService(EmbeddingModel embeddingModel, EmbeddingCacheRepository cacheRepository,
+            JdbcTemplate jdbcTemplate, @Value("${documents.embedding.model-id:all-MiniLM-L6-v2}") String modelId) {
+        this.embeddingModel = embeddingModel;
+        this.cacheRepository = cacheRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.modelId = modelId;
+    }
+
+    /** Key of {@code text}'s embedding: SHA-256 of the model ID and the normalised text, in hex. */
+    public String contentHash(String text) {
+        return sha256Hex(modelId + "\n" + normalise(text));
+    }
+
+    /** One embedding per text, in order. */
+    public List<List<Double>> embed(List<String> texts) {
+        Map<String, String> normalisedByHash = new LinkedHashMap<>();
+        List<String> hashes = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            String normalised = normalise(text);
+            String hash = sha256Hex(modelId + "\n" + normalised);
+            hashes.add(hash);
+            normalisedByHash.putIfAbsent(hash, normalised);
+        }
+
+        Map<String, List<Double>> byHash = new LinkedHashMap<>();
+        for (EmbeddingCacheEntry entry : cacheRepository.findAllById(normalisedByHash.keySet())) {
+            byHash.put(entry.getContentHash(), decode(entry.getEmbedding()));
+        }
+        List<String> missing = normalisedByHash.keySet().stream().filter(hash -> !byHash.containsKey(hash)).toList();
+        if (!missing.isEmpty()) {
+            List<List<Double>> computed = embeddingModel.embed(missing.stream().map(normalisedByHash::get).toList());
+            Timestamp now = Timestamp.from(java.time.Instant.now());
+            List<Object[]> rows = new ArrayList<>(missing.size());
+            for (int i = 0; i < missing.size(); i++) {
+                List<Double> embedding = computed.get(i);
+                byHash.put(missing.get(i), embedding);
+                rows.add(new Object[] { missing.get(i), modelId, embedding.size(), encode(embedding), now });
+            }
+            jdbcTemplate.batchUpdate(INSERT, rows);
+        }
+        misses.add(missing.size());
+        hits.add(texts.size() - missing.size());
+
+        List<List<Double>> embeddings = new ArrayList<>(texts.size());
+        for (String hash : hashes) {
+            embeddings.add(byHash.get(hash));
+        }
+        return embeddings;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("modelId", modelId);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        return stats;
+    }
+
+    static String normalise(String text) {
+        return WHITESPACE.matcher(Normalizer.normalize(text, Normalizer.Form.NFC)).replaceAll(" ").trim();
+    }
+
+    static String sha256Hex(String value) {
+        return sha256Hex(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String sha256Hex(byte[] bytes) {
+        return HexFormat.of().formatHex(sha256().digest(bytes));
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static byte[] encode(List<Double> embedding) {
+        ByteBuffer buffer = ByteBuffer.allocate(embedding.size() * Float.BYTES);
+        for (Double value : embedding) {
+            buffer.putFloat(value.floatValue());
+        }
+        return buffer.array();
+    }
+
+    private static List<Double> decode(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        List<Double> embedding = new ArrayList<>(bytes.length / Float.BYTES);
+        while (buffer.hasRemaining()) {
+            embedding.add((double) buffer.getFloat());
+        }
+        return embedding;
+    }
+}
@@ -0,0 +1,89 @@
+package com.hospomate.service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Orders and shifts for a run of consecutive hours, indexed by hour slot.
+ *
+ * Slot {@code i} covers {@code [origin + i hours, origin + i + 1 hours)}. An
+ * order is placed in the slot containing its close time; a shift is placed in
+ * every slot it overlaps, using the same half-open overlap test as
+ * {@link ParsedShift#overlaps}. Building the index is a single pass over the
+ * inputs, so callers can then read any slot without rescanning the week.
+ */
+public final class HourlyBuckets {
+
+    private final LocalDateTime origin;
+    private final List<List<ParsedOrder>> orders;
+    private final List<List<ParsedShift>> shifts;
+
+    private HourlyBuckets(LocalDateTime origin, int slotCount) {
+        this.origin = origin;
+        this.orders = new ArrayList<>(slotCount);
+        this.shifts = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            orders.add(new ArrayList<>());
+            shifts.add(new ArrayList<>());
+        }
+    }
+
+    public static HourlyBuckets build(LocalDateTime origin, int slotCount, List<ParsedOrder> parsedOrders,
+            List<ParsedShift> parsedShifts) {
+        HourlyBuckets buckets = new HourlyBuckets(origin, slotCount);
+
+        for (ParsedOrder order : parsedOrders) {
+            if (order == null || order.closedAt().isBefore(origin)) {
+                continue;
+            }
+            long slot = ChronoUnit.HOURS.between(origin, order.closedAt());
+            if (slot < slotCount) {
+                buckets.orders.get((int) slot).add(order);
+            }
+        }
+
+        for (ParsedShift shift : parsedShifts) {
+            if (shift == null) {
+                continue;
+            }
+            // Overlap with slot i means start < origin+i+1 and end > origin+i,
+            // i.e. floor(start) <= i < ceil(end) measured in hours from origin.
+            long from = Math.max(0, floorSlot(origin, shift.start()));
+            long to = Math.min(slotCount, ceilSlot(origin, shift.end()));
+            for (long slot = from; slot < to; slot++) {
+                buckets.shifts.get((int) slot).add(shift);
+            }
+        }
+
+        return buckets;
+    }
+
+    public int slotCount() {
+        return orders.size();
+    }
+
+    public LocalDateTime slotStart(int slot) {
+        return origin.plusHours(slot);
+    }
+
+    public List<ParsedOrder> ordersAt(int slot) {
+        return Collections.unmodifiableList(orders.get(slot));
+    }
+
+    public List<ParsedShift> shiftsAt(int slot) {
+        return Collections.unmodifiableList(shifts.get(slot));
+    }
+
+    static long floorSlot(LocalDateTime origin, LocalDateTime time) {
+        long hours = ChronoUnit.HOURS.between(origin, time);
+        return time.isBefore(origin.plusHours(hours)) ? hours - 1 : hours;
+    }
+
+    static long ceilSlot(LocalDateTime origin, LocalDateTime time) {
+        long hours = ChronoUnit.HOURS.between(origin, time);
+        return time.isAfter(origin.plusHours(hours)) ? hours + 1 : hours;
+    }
+}
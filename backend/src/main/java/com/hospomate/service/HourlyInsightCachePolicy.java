@@ -0,0 +1,76 @@
+package com.hospomate.service;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.hospomate.dto.HourlyInsightDTO;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Expiry and weight of entries in the {@value RevenueIntelligenceService#HOURLY_CACHE}
+ * cache.
+ *
+ * Hours in the current week (Monday to Sunday, server time) can still change
+ * through refunds, late clock-outs or webhooks that never arrived, so they
+ * expire after {@code currentWeekTtl}. Hours of closed weeks expire after the
+ * much longer {@code closedWeekTtl}. A week counts as current until
+ * {@code closedWeekGrace} after it ends, so Monday morning still refreshes
+ * last Sunday. An entry's weight is one plus the rows of its breakdown maps,
+ * so a busy hour with many categories and staff counts for more than a quiet
+ * one.
+ */
+public class HourlyInsightCachePolicy implements Expiry<Object, Object> {
+
+    private final Duration currentWeekTtl;
+    private final Duration closedWeekTtl;
+    private final Duration closedWeekGrace;
+    private final Supplier<LocalDateTime> clock;
+
+    public HourlyInsightCachePolicy(Duration currentWeekTtl, Duration closedWeekTtl, Duration closedWeekGrace,
+            Supplier<LocalDateTime> clock) {
+        this.currentWeekTtl = currentWeekTtl;
+        this.closedWeekTtl = closedWeekTtl;
+        this.closedWeekGrace = closedWeekGrace;
+        this.clock = clock;
+    }
+
+    public Duration ttlFor(LocalDateTime hourStart) {
+        LocalDateTime currentWeekStart = clock.get().minus(closedWeekGrace).toLocalDate()
+                .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+        return hourStart.isBefore(currentWeekStart) ? closedWeekTtl : currentWeekTtl;
+    }
+
+    @Override
+    public long expireAfterCreate(Object key, Object value, long currentTime) {
+        if (key instanceof RevenueIntelligenceService.HourKey hourKey) {
+            return ttlFor(hourKey.hourStart()).toNanos();
+        }
+        return currentWeekTtl.toNanos();
+    }
+
+    @Override
+    public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+        return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+
+    public static int weigh(Object key, Object value) {
+        if (!(value instanceof HourlyInsightDTO hour)) {
+            return 1;
+        }
+        return 1 + size(hour.getRevenueByCategory()) + size(hour.getRevenueByJobTitle())
+                + size(hour.getRevenueByStaffName());
+    }
+
+    private static int size(Map<?, ?> map) {
+        return map != null ? map.size() : 0;
+    }
+}
@@ -0,0 +1,53 @@
+package com.hospomate.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput of each document ingestion stage since startup: items handled
+ * (pages parsed, chunks embedded, chunks written) and the time the stage
+ * spent busy on them, excluding time spent waiting on its neighbours. The
+ * slowest stage by items per busy second is the one to tune.
+ */
+@Component
+public class IngestPipelineStats {
+
+    public enum Stage {
+        PARSE,
+        EMBED,
+        WRITE
+    }
+
+    private final Map<Stage, LongAdder> items = new EnumMap<>(Stage.class);
+    private final Map<Stage, LongAdder> busyNanos = new EnumMap<>(Stage.class);
+
+    public IngestPipelineStats() {
+        for (Stage stage : Stage.values()) {
+            items.put(stage, new LongAdder());
+            busyNanos.put(stage, new LongAdder());
+        }
+    }
+
+    public void record(Stage stage, long count, long nanos) {
+        items.get(stage).add(count);
+        busyNanos.get(stage).add(nanos);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (Stage stage : Stage.values()) {
+            long count = items.get(stage).sum();
+            double busySeconds = busyNanos.get(stage).sum() / 1e9;
+            Map<String, Object> stageStats = new LinkedHashMap<>();
+            stageStats.put("items", count);
+            stageStats.put("busySeconds", busySeconds);
+            stageStats.put("itemsPerSecond", busySeconds > 0 ? count / busySeconds : 0.0);
+            result.put(stage.name().toLowerCase(), stageStats);
+        }
+        return result;
+    }
+}
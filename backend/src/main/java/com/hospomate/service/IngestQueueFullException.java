@@ -0,0 +1,21 @@
+package com.hospomate.service;
+
+import java.time.Duration;
+
+/**
+ * Every document ingest worker is busy and the queue is full, so an upload
+ * was turned away rather than held in memory. The client should try again.
+ */
+public class IngestQueueFullException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public IngestQueueFullException(Duration retryAfter, Throwable cause) {
+        super("Document ingestion is busy, try again shortly", cause);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
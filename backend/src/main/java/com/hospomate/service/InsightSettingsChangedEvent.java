@@ -0,0 +1,9 @@
+package com.hospomate.service;
+
+/**
+ * A store's revenue attribution settings changed: job role contributions,
+ * staff (job titles or Square links) or the revenue per labour hour threshold.
+ * Every cached insight for the store was computed with the old settings.
+ */
+public record InsightSettingsChangedEvent(Long storeId) {
+}
@@ -0,0 +1,56 @@
+package com.hospomate.service;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Retrieval for the assistant. The store and content type filter is part of
+ * the vector search itself (a metadata filter expression, which PgVectorStore
+ * turns into a jsonpath condition served by the index VectorMetadataIndexSchema
+ * creates), so the top {@code chat.retrieval.top-k} hits are all the store's
+ * own instead of whatever survives filtering another store's neighbours out.
+ */
+@Service
+public class KnowledgeSearchService {
+
+    private final VectorStore vectorStore;
+    private final int topK;
+    private final double similarityThreshold;
+    private final List<String> types;
+
+    public KnowledgeSearchService(VectorStore vectorStore,
+            @Value("${chat.retrieval.top-k:4}") int topK,
+            @Value("${chat.retrieval.similarity-threshold:0.0}") double similarityThreshold,
+            @Value("${chat.retrieval.types:KNOWLEDGE_BASE,PROCEDURE}") List<String> types) {
+        for (String type : types) {
+            if (!type.matches("[A-Z_]+")) {
+                throw new IllegalArgumentException("Invalid chat.retrieval.types entry: " + type);
+            }
+        }
+        this.vectorStore = vectorStore;
+        this.topK = topK;
+        this.similarityThreshold = similarityThreshold;
+        this.types = List.copyOf(types);
+    }
+
+    /** The chunks most similar to {@code query} among {@code storeId}'s documents, or every store's if null. */
+    public List<Document> search(String query, Long storeId) {
+        return vectorStore.similaritySearch(SearchRequest.query(query)
+                .withTopK(topK)
+                .withSimilarityThreshold(similarityThreshold)
+                .withFilterExpression(filterExpression(storeId, types)));
+    }
+
+    /** Store IDs are kept in metadata as strings, so they are compared as strings. */
+    static String filterExpression(Long storeId, List<String> types) {
+        String typeFilter = "type in [" + types.stream().map(type -> "'" + type + "'")
+                .collect(Collectors.joining(", ")) + "]";
+        return storeId == null ? typeFilter : "storeId == '" + storeId + "' && " + typeFilter;
+    }
+}
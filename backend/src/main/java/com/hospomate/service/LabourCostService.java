@@ -0,0 +1,242 @@
+package com.hospomate.service;
+
+import com.hospomate.dto.LabourCostDTO;
+import com.hospomate.dto.LabourHourDTO;
+import com.hospomate.model.HourlyCategoryRollup;
+import com.hospomate.model.HourlyTeamMemberRollup;
+import com.hospomate.model.Staff;
+import com.hospomate.model.Store;
+import com.hospomate.repository.HourlyCategoryRollupRepository;
+import com.hospomate.repository.HourlyTeamMemberRollupRepository;
+import com.hospomate.repository.StaffRepository;
+import com.hospomate.repository.StoreRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Labour cost against revenue for a week, hour by hour.
+ *
+ * Every minute on shift, from the hourly team member rollups of Square
+ * timecards, is priced at the linked staff member's hourly rate; revenue comes
+ * from the hourly category rollups. Both are local tables, so a week is one
+ * pass over two queries with no Square order or shift fetch. Money is summed
+ * in long cents (cost in cents times minutes) and only turned into BigDecimal
+ * for the result.
+ *
+ * An hour is overstaffed when revenue per labour hour is below the store's
+ * threshold, and understaffed when there was revenue with nobody on or revenue
+ * per labour hour above the threshold times {@code understaffed-multiplier}.
+ *
+ * A week reaching back before the shift sync's coverage is marked incomplete:
+ * its hours may lack shifts, and would show as understaffed for it.
+ */
+@Service
+public class LabourCostService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LabourCostService.class);
+
+    private final StoreRepository storeRepository;
+    private final StaffRepository staffRepository;
+    private final StaffIdentityService staffIdentityService;
+    private final HourlyCategoryRollupRepository categoryRollupRepository;
+    private final HourlyTeamMemberRollupRepository teamMemberRollupRepository;
+    private final RevenueRollupService rollupService;
+    private final SquareService squareService;
+    private final BigDecimal understaffedMultiplier;
+
+    public LabourCostService(StoreRepository storeRepository,
+            StaffRepository staffRepository,
+            StaffIdentityService staffIdentityService,
+            HourlyCategoryRollupRepository categoryRollupRepository,
+            HourlyTeamMemberRollupRepository teamMemberRollupRepository,
+            RevenueRollupService rollupService,
+            SquareService squareService,
+            @Value("${insights.labour.understaffed-multiplier:2.0}") BigDecimal understaffedMultiplier) {
+        this.storeRepository = storeRepository;
+        this.staffRepository = staffRepository;
+        this.staffIdentityService = staffIdentityService;
+        this.categoryRollupRepository = categoryRollupRepository;
+        this.teamMemberRollupRepository = teamMemberRollupRepository;
+        this.rollupService = rollupService;
+        this.squareService = squareService;
+        this.understaffedMultiplier = understaffedMultiplier;
+    }
+
+    public LabourCostDTO getWeek(Long storeId, LocalDate weekStart) {
+        Store store = storeRepository.findById(storeId).orElseThrow(() -> new RuntimeException("Store not found"));
+        String locationId = squareService.getLocationId(storeId);
+
+        boolean complete = true;
+        Map<String, String> squareStaffNames;
+        try {
+            squareStaffNames = squareService.fetchTeamMemberNames(locationId);
+        } catch (SquareUnavailableException e) {
+            // Confirmed links still price their minutes; only new team members are missed
+            logger.warn("Team members unavailable, labour cost incomplete: {}", e.getMessage());
+            squareStaffNames = Map.of();
+            complete = false;
+        }
+        Map<String, Staff> staffByTeamMember = staffIdentityService.staffByTeamMember(storeId,
+                staffRepository.findByStoreId(storeId), squareStaffNames);
+
+        ZoneId zone = ZoneId.systemDefault();
+        Instant start = weekStart.atStartOfDay(zone).toInstant();
+        Instant end = weekStart.plusWeeks(1).atStartOfDay(zone).toInstant();
+        Instant shiftsFrom = rollupService.teamMemberHoursFrom(locationId);
+        if (shiftsFrom == null || start.isBefore(shiftsFrom)) {
+            logger.debug("Shifts not synced for location {} before {}, labour cost incomplete", locationId, shiftsFrom);
+            complete = false;
+        }
+        BigDecimal threshold = store.getRevenuePerLabourHourThreshold() != null
+                ? store.getRevenuePerLabourHourThreshold()
+                : new BigDecimal("50.00");
+
+        LabourCostDTO week = compute(start, (int) Duration.between(start, end).toHours(), zone,
+                categoryRollupRepository.findInRange(locationId, start, end),
+                teamMemberRollupRepository.findInRange(locationId, start, end),
+                rateCentsByTeamMember(staffByTeamMember), threshold, understaffedMultiplier);
+        week.setWeekStart(weekStart);
+        week.setComplete(complete);
+        return week;
+    }
+
+    /** Hourly rate in cents per team member, for those linked to staff with a rate. */
+    static Map<String, Long> rateCentsByTeamMember(Map<String, Staff> staffByTeamMember) {
+        Map<String, Long> rates = new HashMap<>();
+        for (Map.Entry<String, Staff> entry : staffByTeamMember.entrySet()) {
+            BigDecimal rate = entry.getValue().getHourlyRate();
+            if (rate != null) {
+                rates.put(entry.getKey(), rate.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue());
+            }
+        }
+        return rates;
+    }
+
+    /**
+     * Prices and flags {@code slotCount} hours from {@code start} in one pass
+     * over the rollup rows, which may come in any order.
+     */
+    static LabourCostDTO compute(Instant start, int slotCount, ZoneId zone,
+            List<HourlyCategoryRollup> categoryRows, List<HourlyTeamMemberRollup> teamMemberRows,
+            Map<String, Long> rateCentsByTeamMember, BigDecimal threshold, BigDecimal understaffedMultiplier) {
+        long[] revenueCents = new long[slotCount];
+        long[] minutes = new long[slotCount];
+        // Cents times minutes, divided by 60 once at the end
+        long[] costUnits = new long[slotCount];
+        int[] staffCount = new int[slotCount];
+        long unpricedMinutes = 0;
+
+        long startSecond = start.getEpochSecond();
+        for (HourlyCategoryRollup row : categoryRows) {
+            int slot = slotOf(row.getHourStart(), startSecond, slotCount);
+            if (slot >= 0) {
+                revenueCents[slot] += row.getRevenueCents();
+            }
+        }
+        for (HourlyTeamMemberRollup row : teamMemberRows) {
+            int slot = slotOf(row.getHourStart(), startSecond, slotCount);
+            if (slot < 0) {
+                continue;
+            }
+            minutes[slot] += row.getShiftMinutes();
+            staffCount[slot]++;
+            Long rateCents = rateCentsByTeamMember.get(row.getTeamMemberId());
+            if (rateCents != null) {
+                costUnits[slot] += rateCents * row.getShiftMinutes();
+            } else {
+                unpricedMinutes += row.getShiftMinutes();
+            }
+        }
+
+        // Flags compare revenue * 60 with threshold * minutes, all in cents
+        long thresholdCents = threshold.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+        long understaffedCents = threshold.multiply(understaffedMultiplier).movePointRight(2)
+                .setScale(0, RoundingMode.HALF_UP).longValue();
+
+        LabourCostDTO week = new LabourCostDTO();
+        List<LabourHourDTO> hours = new ArrayList<>(slotCount);
+        long totalRevenue = 0;
+        long totalMinutes = 0;
+        long totalCostUnits = 0;
+        int overstaffedHours = 0;
+        int understaffedHours = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            LabourHourDTO hour = new LabourHourDTO();
+            hour.setStartTime(LocalDateTime.ofInstant(Instant.ofEpochSecond(startSecond + slot * 3600L), zone));
+            hour.setRevenue(BigDecimal.valueOf(revenueCents[slot], 2));
+            hour.setStaffCount(staffCount[slot]);
+            hour.setLabourHours(hoursOf(minutes[slot]));
+            hour.setLabourCost(costOf(costUnits[slot]));
+            hour.setLabourCostPercent(percentOf(costUnits[slot], revenueCents[slot]));
+            hour.setRevenuePerLabourHour(perLabourHour(revenueCents[slot], minutes[slot]));
+
+            boolean overstaffed = minutes[slot] > 0 && revenueCents[slot] * 60 < thresholdCents * minutes[slot];
+            boolean understaffed = revenueCents[slot] > 0
+                    && (minutes[slot] == 0 || revenueCents[slot] * 60 > understaffedCents * minutes[slot]);
+            hour.setOverstaffed(overstaffed);
+            hour.setUnderstaffed(understaffed);
+            hours.add(hour);
+
+            totalRevenue += revenueCents[slot];
+            totalMinutes += minutes[slot];
+            totalCostUnits += costUnits[slot];
+            overstaffedHours += overstaffed ? 1 : 0;
+            understaffedHours += understaffed ? 1 : 0;
+        }
+
+        week.setHours(hours);
+        week.setTotalRevenue(BigDecimal.valueOf(totalRevenue, 2));
+        week.setLabourHours(hoursOf(totalMinutes));
+        week.setLabourCost(costOf(totalCostUnits));
+        week.setLabourCostPercent(percentOf(totalCostUnits, totalRevenue));
+        week.setRevenuePerLabourHour(perLabourHour(totalRevenue, totalMinutes));
+        week.setUnpricedLabourHours(hoursOf(unpricedMinutes));
+        week.setOverstaffedHours(overstaffedHours);
+        week.setUnderstaffedHours(understaffedHours);
+        return week;
+    }
+
+    private static int slotOf(Instant hourStart, long startSecond, int slotCount) {
+        long slot = Math.floorDiv(hourStart.getEpochSecond() - startSecond, 3600L);
+        return slot >= 0 && slot < slotCount ? (int) slot : -1;
+    }
+
+    static BigDecimal hoursOf(long minutes) {
+        return BigDecimal.valueOf(minutes).divide(BigDecimal.valueOf(60), 2, RoundingMode.HALF_UP);
+    }
+
+    static BigDecimal costOf(long costUnits) {
+        return BigDecimal.valueOf(costUnits).divide(BigDecimal.valueOf(6000), 2, RoundingMode.HALF_UP);
+    }
+
+    static BigDecimal percentOf(long costUnits, long revenueCents) {
+        if (revenueCents == 0) {
+            return null;
+        }
+        // cost / revenue * 100 = costUnits / 60 / revenueCents * 100
+        return BigDecimal.valueOf(costUnits).multiply(BigDecimal.valueOf(100))
+                .divide(BigDecimal.valueOf(revenueCents * 60), 2, RoundingMode.HALF_UP);
+    }
+
+    static BigDecimal perLabourHour(long revenueCents, long minutes) {
+        if (minutes == 0) {
+            return BigDecimal.ZERO;
+        }
+        return BigDecimal.valueOf(revenueCents * 60, 2).divide(BigDecimal.valueOf(minutes), 2,
+                RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,320 @@
+package com.hospomate.service;
+
+import com.hospomate.model.SquareOrder;
+import com.hospomate.model.SquareOrderLineItem;
+import com.hospomate.model.SquareOrderServiceCharge;
+import com.hospomate.model.SquareSyncState;
+import com.hospomate.repository.SquareOrderRepository;
+import com.hospomate.repository.SquareSyncStateRepository;
+import com.squareup.square.types.Order;
+import com.squareup.square.types.OrderLineItem;
+import com.squareup.square.types.OrderServiceCharge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Local store of Square orders per location.
+ *
+ * A scheduled job pulls only the orders updated since the last stored
+ * {@code updated_at} watermark (with a small overlap, since upserts are
+ * idempotent) and upserts them with their line items and service charges.
+ * Reads for ranges older than what has been loaded first backfill that
+ * history by close time. Dashboards and reports read from the local tables.
+ * Each stored page publishes an {@link OrdersChangedEvent} with the close
+ * times it touched, which keeps the hourly rollups current.
+ */
+@Service
+public class OrderWarehouseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderWarehouseService.class);
+
+    static final String COMPLETED = "COMPLETED";
+
+    private final SquareOrderRepository orderRepository;
+    private final SquareSyncStateRepository syncStateRepository;
+    private final SquareOrderFeed orderFeed;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SquareLocations locations;
+
+    private final Map<String, ReentrantLock> locationLocks = new ConcurrentHashMap<>();
+
+    @Value("${square.sync.backfill-days:35}")
+    private int backfillDays;
+
+    @Value("${square.sync.watermark-overlap-seconds:60}")
+    private long watermarkOverlapSeconds;
+
+    public OrderWarehouseService(SquareOrderRepository orderRepository,
+            SquareSyncStateRepository syncStateRepository,
+            SquareOrderFeed orderFeed,
+            PlatformTransactionManager transactionManager,
+            ApplicationEventPublisher eventPublisher,
+            SquareLocations locations) {
+        this.orderRepository = orderRepository;
+        this.syncStateRepository = syncStateRepository;
+        this.orderFeed = orderFeed;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.locations = locations;
+    }
+
+    @Scheduled(fixedDelayString = "${square.sync.interval-ms:300000}", initialDelayString = "${square.sync.initial-delay-ms:30000}")
+    public void syncConfiguredLocations() {
+        for (String locationId : locations.locationIds()) {
+            try {
+                int synced = sync(locationId);
+                logger.info("Square order sync for location {} stored {} orders", locationId, synced);
+            } catch (Exception e) {
+                logger.error("Square order sync failed for location {}", locationId, e);
+            }
+        }
+    }
+
+    /**
+     * Pulls orders updated since the location's watermark. Returns the number of
+     * orders inserted or changed locally.
+     */
+    public int sync(String locationId) {
+        ReentrantLock lock = locationLocks.computeIfAbsent(locationId, id -> new ReentrantLock());
+        lock.lock();
+        try {
+            SquareSyncState state = syncStateRepository.findById(locationId)
+                    .orElseGet(() -> new SquareSyncState(locationId));
+            Instant now = Instant.now();
+
+            Instant since;
+            if (state.getOrdersWatermark() == null) {
+                since = now.minus(Duration.ofDays(backfillDays));
+                state.setBackfilledFrom(since);
+            } else {
+                since = state.getOrdersWatermark().minusSeconds(watermarkOverlapSeconds);
+            }
+
+            Instant watermark = state.getOrdersWatermark();
+            int stored = 0;
+            String cursor = null;
+            do {
+                SquareOrderFeed.Page page = orderFeed.ordersUpdatedSince(locationId, since, cursor);
+                stored += storePage(page.orders());
+                for (Order order : page.orders()) {
+                    Instant updatedAt = parseInstant(order.getUpdatedAt().orElse(null));
+                    if (updatedAt != null && (watermark == null || updatedAt.isAfter(watermark))) {
+                        watermark = updatedAt;
+                    }
+                }
+                cursor = page.cursor();
+            } while (cursor != null);
+
+            state.setOrdersWatermark(watermark != null ? watermark : since);
+            state.setLastSyncedAt(now);
+            syncStateRepository.save(state);
+            return stored;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Makes sure orders closed from {@code from} onwards are stored locally and
+     * up to date, fetching older history by close time when needed.
+     */
+    public void refresh(String locationId, Instant from) {
+        sync(locationId);
+
+        ReentrantLock lock = locationLocks.computeIfAbsent(locationId, id -> new ReentrantLock());
+        lock.lock();
+        try {
+            SquareSyncState state = syncStateRepository.findById(locationId).orElseThrow();
+            if (state.getBackfilledFrom() != null && !from.isBefore(state.getBackfilledFrom())) {
+                return;
+            }
+
+            Instant until = state.getBackfilledFrom() != null ? state.getBackfilledFrom() : Instant.now();
+            logger.info("Backfilling Square orders for location {} from {} to {}", locationId, from, until);
+            String cursor = null;
+            do {
+                SquareOrderFeed.Page page = orderFeed.ordersClosedBetween(locationId, from, until, cursor);
+                storePage(page.orders());
+                cursor = page.cursor();
+            } while (cursor != null);
+
+            state.setBackfilledFrom(from);
+            syncStateRepository.save(state);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Completed orders closed within {@code [start, end)} (local time) with their
+     * per-day and per-hour totals in {@code zoneId}. The location is refreshed
+     * from Square first so only the delta since the last sync is fetched; if
+     * Square is unavailable the stored orders are returned marked incomplete.
+     */
+    public OrderWindow loadWindow(String locationId, LocalDateTime start, LocalDateTime end, ZoneId zoneId) {
+        Instant startInstant = start.atZone(ZoneId.systemDefault()).toInstant();
+        Instant endInstant = end.atZone(ZoneId.systemDefault()).toInstant();
+        boolean upToDate = true;
+        try {
+            refresh(locationId, startInstant);
+        } catch (SquareUnavailableException e) {
+            // Serve what is stored locally, flagged so it is not cached as final
+            logger.warn("Square order refresh failed for location {}; serving local orders: {}", locationId,
+                    e.getMessage());
+            upToDate = false;
+        }
+
+        boolean complete = upToDate;
+        return transactionTemplate.execute(status -> {
+            OrderWindow.Builder window = new OrderWindow.Builder(locationId, start, end, zoneId);
+            if (!complete) {
+                window.incomplete();
+            }
+            for (SquareOrder order : orderRepository.findClosedBetween(locationId, COMPLETED, startInstant,
+                    endInstant)) {
+                window.add(order);
+            }
+            return window.build();
+        });
+    }
+
+    private int storePage(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return 0;
+        }
+        Map<String, Set<Instant>> changedCloseTimes = new HashMap<>();
+        Integer stored = transactionTemplate.execute(status -> {
+            int count = 0;
+            for (Order order : orders) {
+                if (upsert(order, changedCloseTimes.computeIfAbsent(order.getLocationId(), id -> new HashSet<>()))) {
+                    count++;
+                }
+            }
+            return count;
+        });
+
+        // Published after commit so listeners read the stored orders
+        changedCloseTimes.forEach((location, closeTimes) -> {
+            if (!closeTimes.isEmpty()) {
+                eventPublisher.publishEvent(new OrdersChangedEvent(location, closeTimes));
+            }
+        });
+        return stored != null ? stored : 0;
+    }
+
+    /**
+     * Inserts or replaces the local copy of an order. Returns false when the
+     * incoming order is not newer than what is already stored (out-of-order
+     * pages or a re-delivered duplicate).
+     */
+    boolean upsert(Order order) {
+        return upsert(order, new HashSet<>());
+    }
+
+    /**
+     * As {@link #upsert(Order)}, adding the order's close time before and after
+     * the change to {@code changedCloseTimes} when it was stored.
+     */
+    boolean upsert(Order order, Set<Instant> changedCloseTimes) {
+        String squareOrderId = order.getId().orElse(null);
+        if (squareOrderId == null) {
+            return false;
+        }
+
+        SquareOrder local = orderRepository.findBySquareOrderId(squareOrderId).orElseGet(SquareOrder::new);
+        Integer incomingVersion = order.getVersion().orElse(null);
+        Instant incomingUpdatedAt = parseInstant(order.getUpdatedAt().orElse(null));
+        if (local.getVersion() != null && incomingVersion != null) {
+            if (incomingVersion < local.getVersion()) {
+                return false;
+            }
+            // Re-delivered by the watermark overlap without changes
+            if (incomingVersion.equals(local.getVersion()) && incomingUpdatedAt != null
+                    && incomingUpdatedAt.equals(local.getUpdatedAt())) {
+                return false;
+            }
+        }
+
+        if (local.getClosedAt() != null) {
+            changedCloseTimes.add(local.getClosedAt());
+        }
+        local.setSquareOrderId(squareOrderId);
+        local.setLocationId(order.getLocationId());
+        local.setState(order.getState().map(String::valueOf).orElse(null));
+        local.setClosedAt(parseInstant(order.getClosedAt().orElse(null)));
+        local.setUpdatedAt(incomingUpdatedAt);
+        local.setVersion(incomingVersion);
+        local.setTotalCents(order.getTotalMoney().isPresent()
+                ? order.getTotalMoney().get().getAmount().orElse(0L)
+                : null);
+        local.setTipCents(order.getNetAmounts().isPresent() && order.getNetAmounts().get().getTipMoney().isPresent()
+                ? order.getNetAmounts().get().getTipMoney().get().getAmount().orElse(0L)
+                : null);
+        local.setRefundedCents(order.getReturnAmounts().isPresent()
+                && order.getReturnAmounts().get().getTotalMoney().isPresent()
+                        ? order.getReturnAmounts().get().getTotalMoney().get().getAmount().orElse(0L)
+                        : null);
+        local.setSyncedAt(Instant.now());
+
+        // Line items and service charges can change on any edit, so replace them
+        // wholesale rather than diffing by uid
+        local.getLineItems().clear();
+        for (OrderLineItem item : order.getLineItems().orElse(List.of())) {
+            SquareOrderLineItem localItem = new SquareOrderLineItem();
+            localItem.setOrder(local);
+            localItem.setUid(item.getUid().orElse(null));
+            localItem.setName(item.getName().orElse(null));
+            localItem.setCatalogObjectId(item.getCatalogObjectId().orElse(null));
+            localItem.setQuantity(item.getQuantity());
+            localItem.setGrossSalesCents(item.getGrossSalesMoney().isPresent()
+                    ? item.getGrossSalesMoney().get().getAmount().orElse(0L)
+                    : null);
+            localItem.setTotalCents(item.getTotalMoney().isPresent()
+                    ? item.getTotalMoney().get().getAmount().orElse(0L)
+                    : null);
+            local.getLineItems().add(localItem);
+        }
+
+        local.getServiceCharges().clear();
+        for (OrderServiceCharge sc : order.getServiceCharges().orElse(List.of())) {
+            SquareOrderServiceCharge localCharge = new SquareOrderServiceCharge();
+            localCharge.setOrder(local);
+            localCharge.setUid(sc.getUid().orElse(null));
+            localCharge.setName(sc.getName().orElse(null));
+            localCharge.setAmountCents(sc.getAmountMoney().isPresent()
+                    ? sc.getAmountMoney().get().getAmount().orElse(0L)
+                    : null);
+            local.getServiceCharges().add(localCharge);
+        }
+
+        orderRepository.save(local);
+        if (local.getClosedAt() != null) {
+            changedCloseTimes.add(local.getClosedAt());
+        }
+        return true;
+    }
+
+    private static Instant parseInstant(String isoDate) {
+        return isoDate != null ? OffsetDateTime.parse(isoDate).toInstant() : null;
+    }
+}
@@ -0,0 +1,140 @@
+package com.hospomate.service;
+
+import com.hospomate.model.SquareOrder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable set of completed orders closed within {@code [start, end)} for one
+ * location, with order totals already rolled up per day and per hour in the
+ * location's time zone. One window serves both the shift report's daily sales
+ * and the insights dashboard, so a range is only read once per request.
+ */
+public final class OrderWindow {
+
+    private final String locationId;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final ZoneId zoneId;
+    private final List<ParsedOrder> orders;
+    private final Map<LocalDate, Long> salesCentsByDate;
+    private final Map<LocalDateTime, Long> salesCentsByHour;
+    private final boolean complete;
+
+    private OrderWindow(Builder builder) {
+        this.locationId = builder.locationId;
+        this.start = builder.start;
+        this.end = builder.end;
+        this.zoneId = builder.zoneId;
+        this.orders = Collections.unmodifiableList(builder.orders);
+        this.salesCentsByDate = Collections.unmodifiableMap(builder.salesCentsByDate);
+        this.salesCentsByHour = Collections.unmodifiableMap(builder.salesCentsByHour);
+        this.complete = builder.complete;
+    }
+
+    public String getLocationId() {
+        return locationId;
+    }
+
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public LocalDateTime getEnd() {
+        return end;
+    }
+
+    public ZoneId getZoneId() {
+        return zoneId;
+    }
+
+    public List<ParsedOrder> getOrders() {
+        return orders;
+    }
+
+    /**
+     * False when the window was read from local data that could not be brought
+     * up to date with Square, so recent orders may be missing.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Order totals (tips included) in cents per calendar date in the location's
+     * time zone.
+     */
+    public Map<LocalDate, Long> getSalesCentsByDate() {
+        return salesCentsByDate;
+    }
+
+    /**
+     * Order totals (tips included) in cents per hour, keyed by the start of the
+     * hour in the location's time zone.
+     */
+    public Map<LocalDateTime, Long> getSalesCentsByHour() {
+        return salesCentsByHour;
+    }
+
+    /**
+     * Daily sales in dollars keyed by ISO date, the shape the shift report
+     * returns.
+     */
+    public Map<String, Double> getDailySales() {
+        Map<String, Double> salesMap = new java.util.HashMap<>();
+        salesCentsByDate.forEach((date, cents) -> salesMap.put(date.toString(), cents / 100.0));
+        return salesMap;
+    }
+
+    static final class Builder {
+        private final String locationId;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final ZoneId zoneId;
+        private final List<ParsedOrder> orders = new ArrayList<>();
+        private final Map<LocalDate, Long> salesCentsByDate = new TreeMap<>();
+        private final Map<LocalDateTime, Long> salesCentsByHour = new TreeMap<>();
+        private boolean complete = true;
+
+        Builder(String locationId, LocalDateTime start, LocalDateTime end, ZoneId zoneId) {
+            this.locationId = locationId;
+            this.start = start;
+            this.end = end;
+            this.zoneId = zoneId;
+        }
+
+        Builder add(SquareOrder order) {
+            ParsedOrder parsed = ParsedOrder.from(order);
+            if (parsed == null) {
+                return this;
+            }
+            orders.add(parsed);
+
+            if (order.getTotalCents() != null) {
+                ZonedDateTime closedAt = order.getClosedAt().atZone(zoneId);
+                salesCentsByDate.merge(closedAt.toLocalDate(), order.getTotalCents(), Long::sum);
+                salesCentsByHour.merge(closedAt.toLocalDateTime().truncatedTo(ChronoUnit.HOURS),
+                        order.getTotalCents(), Long::sum);
+            }
+            return this;
+        }
+
+        Builder incomplete() {
+            this.complete = false;
+            return this;
+        }
+
+        OrderWindow build() {
+            return new OrderWindow(this);
+        }
+    }
+}
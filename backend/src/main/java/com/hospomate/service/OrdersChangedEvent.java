@@ -0,0 +1,12 @@
+package com.hospomate.service;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * Orders at a location were inserted or changed in the order warehouse.
+ * {@code closeTimes} holds the close time of each changed order, before and
+ * after the change, so listeners can refresh just the affected hours.
+ */
+public record OrdersChangedEvent(String locationId, Set<Instant> closeTimes) {
+}
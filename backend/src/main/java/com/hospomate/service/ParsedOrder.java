@@ -0,0 +1,124 @@
+package com.hospomate.service;
+
+import com.hospomate.model.SquareOrder;
+import com.hospomate.model.SquareOrderLineItem;
+import com.hospomate.model.SquareOrderServiceCharge;
+import com.squareup.square.types.Order;
+import com.squareup.square.types.OrderLineItem;
+import com.squareup.square.types.OrderServiceCharge;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A Square order reduced to the fields the revenue analytics read, parsed once
+ * up front so the hourly aggregation never touches the SDK objects or date
+ * strings again. Money is kept in cents exactly as Square reports it.
+ */
+public record ParsedOrder(
+        String orderId,
+        LocalDateTime closedAt,
+        List<LineItem> lineItems,
+        List<Long> serviceChargeCents,
+        Long totalCents,
+        Long tipCents) {
+
+    public record LineItem(String catalogObjectId, long quantity, long amountCents) {
+    }
+
+    /**
+     * Returns null for orders that have not closed, as those never fall into an
+     * hour bucket.
+     */
+    public static ParsedOrder from(Order order) {
+        String closedAtStr = order.getClosedAt().orElse(null);
+        if (closedAtStr == null) {
+            return null;
+        }
+        LocalDateTime closedAt = OffsetDateTime.parse(closedAtStr)
+                .atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+
+        List<LineItem> lineItems = new ArrayList<>();
+        if (order.getLineItems().isPresent()) {
+            for (OrderLineItem item : order.getLineItems().get()) {
+                long qty = 1;
+                try {
+                    qty = Long.parseLong(item.getQuantity());
+                } catch (NumberFormatException ignored) {
+                }
+
+                long amountCents = 0;
+                if (item.getGrossSalesMoney() != null && item.getGrossSalesMoney().isPresent()) {
+                    amountCents = item.getGrossSalesMoney().get().getAmount().orElse(0L);
+                } else if (item.getTotalMoney() != null && item.getTotalMoney().isPresent()) {
+                    amountCents = item.getTotalMoney().get().getAmount().orElse(0L);
+                }
+
+                lineItems.add(new LineItem(item.getCatalogObjectId().orElse(null), qty, amountCents));
+            }
+        }
+
+        List<Long> serviceChargeCents = new ArrayList<>();
+        if (order.getServiceCharges().isPresent()) {
+            for (OrderServiceCharge sc : order.getServiceCharges().get()) {
+                if (sc.getAmountMoney() != null && sc.getAmountMoney().isPresent()) {
+                    serviceChargeCents.add(sc.getAmountMoney().get().getAmount().orElse(0L));
+                }
+            }
+        }
+
+        Long totalCents = order.getTotalMoney().isPresent()
+                ? order.getTotalMoney().get().getAmount().orElse(0L)
+                : null;
+
+        Long tipCents = null;
+        if (order.getNetAmounts() != null && order.getNetAmounts().isPresent()
+                && order.getNetAmounts().get().getTipMoney().isPresent()) {
+            tipCents = order.getNetAmounts().get().getTipMoney().get().getAmount().orElse(0L);
+        }
+
+        return new ParsedOrder(order.getId().orElse(null), closedAt, lineItems, serviceChargeCents, totalCents,
+                tipCents);
+    }
+
+    /**
+     * Same reduction as {@link #from(Order)}, from the locally stored copy.
+     */
+    public static ParsedOrder from(SquareOrder order) {
+        if (order.getClosedAt() == null) {
+            return null;
+        }
+        LocalDateTime closedAt = LocalDateTime.ofInstant(order.getClosedAt(), ZoneId.systemDefault());
+
+        List<LineItem> lineItems = new ArrayList<>(order.getLineItems().size());
+        for (SquareOrderLineItem item : order.getLineItems()) {
+            long qty = 1;
+            try {
+                qty = Long.parseLong(item.getQuantity());
+            } catch (NumberFormatException ignored) {
+            }
+
+            long amountCents = 0;
+            if (item.getGrossSalesCents() != null) {
+                amountCents = item.getGrossSalesCents();
+            } else if (item.getTotalCents() != null) {
+                amountCents = item.getTotalCents();
+            }
+
+            lineItems.add(new LineItem(item.getCatalogObjectId(), qty, amountCents));
+        }
+
+        List<Long> serviceChargeCents = new ArrayList<>();
+        for (SquareOrderServiceCharge sc : order.getServiceCharges()) {
+            if (sc.getAmountCents() != null) {
+                serviceChargeCents.add(sc.getAmountCents());
+            }
+        }
+
+        return new ParsedOrder(order.getSquareOrderId(), closedAt, lineItems, serviceChargeCents,
+                order.getTotalCents(), order.getTipCents());
+    }
+}
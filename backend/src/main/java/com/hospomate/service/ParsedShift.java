@@ -0,0 +1,38 @@
+package com.hospomate.service;
+
+import com.squareup.square.types.Shift;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+
+/**
+ * A Square timecard with its start and end already converted to local time.
+ * Shifts that are still open (no clock-out) end at the {@code now} supplied
+ * when parsing, so every hour bucket sees the same cut-off.
+ */
+public record ParsedShift(String teamMemberId, LocalDateTime start, LocalDateTime end) {
+
+    /**
+     * Returns null for shifts without a start time.
+     */
+    public static ParsedShift from(Shift shift, LocalDateTime now) {
+        String startAtStr = shift.getStartAt();
+        if (startAtStr == null) {
+            return null;
+        }
+        String endAtStr = shift.getEndAt().orElse(null);
+
+        LocalDateTime start = OffsetDateTime.parse(startAtStr)
+                .atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        LocalDateTime end = endAtStr != null ? OffsetDateTime.parse(endAtStr)
+                .atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime()
+                : now;
+
+        return new ParsedShift(shift.getTeamMemberId().orElse(null), start, end);
+    }
+
+    public boolean overlaps(LocalDateTime rangeStart, LocalDateTime rangeEnd) {
+        return start.isBefore(rangeEnd) && end.isAfter(rangeStart);
+    }
+}
@@ -0,0 +1,83 @@
+package com.hospomate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Writes already embedded chunks to the pgvector table the VectorStore reads
+ * from. {@code VectorStore.add} embeds each document itself inside the write,
+ * one at a time; writing here lets ingestion embed in batches on its own
+ * thread and overlap that with the database round trips.
+ *
+ * Rows are upserted by document ID with the same columns PgVectorStore uses
+ * (uuid id, text content, json metadata, vector embedding), one JDBC batch
+ * per call.
+ */
+@Component
+public class PgVectorWriter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final String upsert;
+    private final String delete;
+
+    public PgVectorWriter(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+            @Value("${documents.ingest.vector-table:vector_store}") String table) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.upsert = "INSERT INTO " + table + " (id, content, metadata, embedding)"
+                + " VALUES (?::uuid, ?, ?::json, ?::vector)"
+                + " ON CONFLICT (id) DO UPDATE SET content = EXCLUDED.content, metadata = EXCLUDED.metadata,"
+                + " embedding = EXCLUDED.embedding";
+        this.delete = "DELETE FROM " + table + " WHERE id = ?::uuid";
+    }
+
+    /** Stores {@code chunks} with the embedding at the same index of {@code embeddings}. */
+    public void write(List<org.springframework.ai.document.Document> chunks, List<List<Double>> embeddings) {
+        if (chunks.size() != embeddings.size()) {
+            throw new IllegalArgumentException("Expected one embedding per chunk");
+        }
+        List<Object[]> rows = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            org.springframework.ai.document.Document chunk = chunks.get(i);
+            rows.add(new Object[] { chunk.getId(), chunk.getContent(), json(chunk),
+                    vectorLiteral(embeddings.get(i)) });
+        }
+        jdbcTemplate.batchUpdate(upsert, rows);
+    }
+
+    /** Removes the rows with these IDs; unknown IDs are ignored. */
+    public void delete(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(delete, ids.stream().map(id -> new Object[] { id }).toList());
+    }
+
+    private String json(org.springframework.ai.document.Document chunk) {
+        try {
+            return objectMapper.writeValueAsString(chunk.getMetadata());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Chunk metadata is not serialisable", e);
+        }
+    }
+
+    /** pgvector's text form, {@code [x,y,...]}. */
+    static String vectorLiteral(List<Double> embedding) {
+        StringBuilder literal = new StringBuilder(embedding.size() * 12).append('[');
+        for (int i = 0; i < embedding.size(); i++) {
+            if (i > 0) {
+                literal.append(',');
+            }
+            literal.append(embedding.get(i).floatValue());
+        }
+        return literal.append(']').toString();
+    }
+}
@@ -0,0 +1,173 @@
+package com.hospomate.service;
+
+import com.hospomate.dto.HourlyInsightDTO;
+import com.hospomate.dto.PortfolioDTO;
+import com.hospomate.dto.PortfolioStoreDTO;
+import com.hospomate.dto.WeeklyDashboardDTO;
+import com.hospomate.model.Store;
+import com.hospomate.repository.StoreRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Weekly dashboards for all of an owner's stores, side by side.
+ *
+ * Each store's dashboard is computed on the bounded portfolio pool, against
+ * its own Square location. The caller waits up to one shared deadline; a
+ * store still running then is reported as timed out rather than holding up
+ * the others, and keeps computing in the background so a retry is served from
+ * the hourly cache. Totals cover the stores that returned a dashboard, and
+ * stores are ranked by revenue per labour hour.
+ *
+ * Labour hours are staff on shift per hour summed over the week, the same
+ * measure the dashboard's hourly insights use.
+ */
+@Service
+public class PortfolioInsightService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PortfolioInsightService.class);
+
+    public static final String OK = "OK";
+    public static final String INCOMPLETE = "INCOMPLETE";
+    public static final String TIMED_OUT = "TIMED_OUT";
+    public static final String FAILED = "FAILED";
+
+    private final RevenueIntelligenceService intelligenceService;
+    private final StoreRepository storeRepository;
+    private final Executor portfolioExecutor;
+    private final Duration timeout;
+
+    public PortfolioInsightService(RevenueIntelligenceService intelligenceService,
+            StoreRepository storeRepository,
+            @Qualifier("portfolioExecutor") Executor portfolioExecutor,
+            @Value("${insights.portfolio.timeout-ms:15000}") long timeoutMs) {
+        this.intelligenceService = intelligenceService;
+        this.storeRepository = storeRepository;
+        this.portfolioExecutor = portfolioExecutor;
+        this.timeout = Duration.ofMillis(timeoutMs);
+    }
+
+    public PortfolioDTO getPortfolio(Long ownerId, LocalDate weekStart) {
+        List<Store> stores = storeRepository.findByOwnerId(ownerId);
+        List<CompletableFuture<WeeklyDashboardDTO>> dashboards = new ArrayList<>();
+        for (Store store : stores) {
+            CompletableFuture<WeeklyDashboardDTO> dashboard;
+            try {
+                dashboard = CompletableFuture.supplyAsync(
+                        () -> intelligenceService.getWeeklyDashboard(store.getId(), weekStart), portfolioExecutor);
+            } catch (RuntimeException e) {
+                // Pool saturated
+                dashboard = CompletableFuture.failedFuture(e);
+            }
+            dashboards.add(dashboard);
+        }
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        List<PortfolioStoreDTO> rows = new ArrayList<>();
+        Map<String, BigDecimal> revenueByCategory = new HashMap<>();
+        for (int i = 0; i < stores.size(); i++) {
+            Store store = stores.get(i);
+            PortfolioStoreDTO row = new PortfolioStoreDTO();
+            row.setStoreId(store.getId());
+            row.setStoreName(store.getName());
+            try {
+                WeeklyDashboardDTO dashboard = dashboards.get(i)
+                        .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                fill(row, dashboard);
+                if (dashboard.getRevenueByCategory() != null) {
+                    dashboard.getRevenueByCategory().forEach((category, revenue) -> revenueByCategory
+                            .merge(category, revenue, BigDecimal::add));
+                }
+            } catch (TimeoutException e) {
+                row.setStatus(TIMED_OUT);
+                row.setError("No dashboard within " + timeout.toMillis() + " ms");
+            } catch (ExecutionException e) {
+                logger.warn("Portfolio dashboard failed for store {}: {}", store.getId(), e.getCause().getMessage());
+                row.setStatus(FAILED);
+                row.setError(e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                row.setStatus(TIMED_OUT);
+                row.setError("Interrupted");
+            }
+            rows.add(row);
+        }
+
+        PortfolioDTO portfolio = summarize(rows);
+        portfolio.setOwnerId(ownerId);
+        portfolio.setWeekStart(weekStart);
+        portfolio.setRevenueByCategory(revenueByCategory);
+        return portfolio;
+    }
+
+    private static void fill(PortfolioStoreDTO row, WeeklyDashboardDTO dashboard) {
+        long staffHours = 0;
+        if (dashboard.getHourlyInsights() != null) {
+            for (HourlyInsightDTO hour : dashboard.getHourlyInsights()) {
+                staffHours += hour.getActiveStaffCount();
+            }
+        }
+        row.setStatus(dashboard.isComplete() ? OK : INCOMPLETE);
+        row.setTotalRevenue(dashboard.getTotalRevenue());
+        row.setLabourHours(BigDecimal.valueOf(staffHours));
+        row.setRevenuePerLabourHour(perLabourHour(dashboard.getTotalRevenue(), row.getLabourHours()));
+    }
+
+    /** Merges totals over the stores with a dashboard and ranks them. */
+    static PortfolioDTO summarize(List<PortfolioStoreDTO> rows) {
+        PortfolioDTO portfolio = new PortfolioDTO();
+        BigDecimal revenue = BigDecimal.ZERO;
+        BigDecimal labourHours = BigDecimal.ZERO;
+        boolean complete = true;
+        for (PortfolioStoreDTO row : rows) {
+            complete &= OK.equals(row.getStatus());
+            if (row.getTotalRevenue() != null) {
+                revenue = revenue.add(row.getTotalRevenue());
+                labourHours = labourHours.add(row.getLabourHours());
+            }
+        }
+
+        List<PortfolioStoreDTO> ranked = new ArrayList<>(rows);
+        ranked.sort(Comparator.comparing(PortfolioStoreDTO::getRevenuePerLabourHour,
+                Comparator.nullsLast(Comparator.reverseOrder())));
+        int rank = 1;
+        for (PortfolioStoreDTO row : ranked) {
+            if (row.getRevenuePerLabourHour() != null) {
+                row.setRank(rank++);
+            }
+        }
+
+        portfolio.setTotalRevenue(revenue);
+        portfolio.setLabourHours(labourHours);
+        BigDecimal perLabourHour = perLabourHour(revenue, labourHours);
+        portfolio.setRevenuePerLabourHour(perLabourHour != null ? perLabourHour : BigDecimal.ZERO);
+        portfolio.setStores(ranked);
+        portfolio.setComplete(complete);
+        return portfolio;
+    }
+
+    private static BigDecimal perLabourHour(BigDecimal revenue, BigDecimal labourHours) {
+        if (revenue == null || labourHours == null || labourHours.signum() == 0) {
+            return null;
+        }
+        return revenue.divide(labourHours, 2, RoundingMode.HALF_UP);
+    }
+}
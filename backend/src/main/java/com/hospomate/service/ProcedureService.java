@@ -5,17 +5,25 @@ import com.hospomate.dto.ProcedureTaskDTO;
 import com.hospomate.dto.TaskExecutionRequest;
 import com.hospomate.model.*;
 import com.hospomate.repository.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
 public class ProcedureService {
+    private static final Logger logger = LoggerFactory.getLogger(ProcedureService.class);
+
     @Autowired
     private ProcedureRepository procedureRepository;
     @Autowired
@@ -50,7 +58,11 @@ public class ProcedureService {
     }
 
     @Autowired
-    private org.springframework.ai.vectorstore.VectorStore vectorStore;
+    private EmbeddingCacheService embeddingCache;
+    @Autowired
+    private PgVectorWriter vectorWriter;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
     @Transactional
     public Procedure createProcedure(ProcedureRequest request) {
@@ -73,53 +85,116 @@ public class ProcedureService {
     @Transactional
     public void deleteProcedure(Long id) {
         procedureRepository.deleteById(id);
-        // Clean up from vector store (Optional, requires ID tracking)
-        // vectorStore.delete(List.of(id.toString()));
+        vectorWriter.delete(List.of(vectorId(id)));
     }
 
-    private void ingestProcedure(Procedure procedure) {
-        try {
-            System.out.println("Starting ingestion for procedure ID: " + procedure.getId());
-            // Re-fetch to ensure we have full objects (avoid lazy loading / detached
-            // issues)
-            Store store = storeRepository.findById(procedure.getStore().getId()).orElse(null);
-            JobArea jobArea = jobAreaRepository.findById(procedure.getJobArea().getId()).orElse(null);
-
-            if (store == null || jobArea == null) {
-                System.err.println("Skipping ingestion: Store or JobArea not found for procedure " + procedure.getId());
-                return;
+    /**
+     * Re-indexes every procedure whose text has changed since it was last
+     * written to the vector store (or was never written), leaving the rest
+     * alone.
+     *
+     * Each procedure is read and written in its own short transaction, with
+     * the embedding in between outside any, so a failed vector write only
+     * rolls back that procedure and the rest are still indexed.
+     *
+     * @return the number of procedures written
+     */
+    public int reindexChangedProcedures() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int written = 0;
+        for (Long procedureId : procedureRepository.findAll().stream().map(Procedure::getId).toList()) {
+            try {
+                org.springframework.ai.document.Document doc = transaction.execute(status -> procedureRepository
+                        .findById(procedureId).map(this::changedDocument).orElse(null));
+                if (doc == null) {
+                    continue;
+                }
+                List<List<Double>> embeddings = embeddingCache.embed(List.of(doc.getContent()));
+                String contentHash = (String) doc.getMetadata().get("contentHash");
+                transaction.executeWithoutResult(status -> {
+                    vectorWriter.write(List.of(doc), embeddings);
+                    procedureRepository.findById(procedureId)
+                            .ifPresent(procedure -> procedure.setIndexedContentHash(contentHash));
+                });
+                logger.info("Re-indexed procedure {} ({} characters)", procedureId, doc.getContent().length());
+                written++;
+            } catch (RuntimeException e) {
+                logger.error("Failed to re-index procedure {}, retrying next run", procedureId, e);
             }
+        }
+        return written;
+    }
 
-            // 1. Convert Procedure to Text
-            StringBuilder content = new StringBuilder();
-            content.append("Procedure: ").append(procedure.getName()).append("\n");
-            content.append("Job Area: ").append(jobArea.getName()).append("\n");
-            content.append("Store ID: ").append(store.getId()).append("\n");
-            content.append("Steps:\n");
+    /**
+     * The procedure's single vector row. Every version is written under the
+     * same ID, so an update replaces the previous text instead of adding a
+     * second copy; the version is the {@code contentHash} in its metadata.
+     */
+    static String vectorId(Long procedureId) {
+        return UUID.nameUUIDFromBytes(("procedure:" + procedureId).getBytes(StandardCharsets.UTF_8)).toString();
+    }
 
-            for (ProcedureTask task : procedure.getTasks()) {
-                content.append(task.getOrderIndex()).append(". ").append(task.getDescription()).append("\n");
+    /** Writes the procedure's vector if its text changed; true if it was written. */
+    private boolean ingestProcedure(Procedure procedure) {
+        try {
+            org.springframework.ai.document.Document doc = changedDocument(procedure);
+            if (doc == null) {
+                return false;
             }
 
-            System.out.println("Constructed content for embedding (length " + content.length() + "): "
-                    + content.toString().substring(0, Math.min(content.length(), 50)) + "...");
+            // Embed (unchanged text comes from the embedding cache) and upsert over the previous version
+            vectorWriter.write(List.of(doc), embeddingCache.embed(List.of(doc.getContent())));
+            procedure.setIndexedContentHash((String) doc.getMetadata().get("contentHash"));
+            logger.info("Indexed procedure {} ({} characters)", procedure.getId(), doc.getContent().length());
+            return true;
+
+        } catch (Exception e) {
+            logger.error("Failed to ingest procedure {}", procedure.getId(), e);
+            return false;
+        }
+    }
 
-            // 2. Create Document with Metadata
-            org.springframework.ai.document.Document doc = new org.springframework.ai.document.Document(
-                    content.toString(),
-                    java.util.Map.of(
-                            "procedureId", String.valueOf(procedure.getId()),
-                            "storeId", String.valueOf(store.getId()),
-                            "jobAreaId", String.valueOf(jobArea.getId())));
+    /**
+     * The procedure's vector document, or {@code null} when its text is what
+     * was last indexed or its store or job area is gone.
+     */
+    private org.springframework.ai.document.Document changedDocument(Procedure procedure) {
+        // Re-fetch to ensure we have full objects (avoid lazy loading / detached
+        // issues)
+        Store store = storeRepository.findById(procedure.getStore().getId()).orElse(null);
+        JobArea jobArea = jobAreaRepository.findById(procedure.getJobArea().getId()).orElse(null);
+
+        if (store == null || jobArea == null) {
+            logger.warn("Skipping ingestion: Store or JobArea not found for procedure {}", procedure.getId());
+            return null;
+        }
 
-            // 3. Save to Vector Store
-            vectorStore.add(List.of(doc));
-            System.out.println("Procedure ingestion completed successfully for ID: " + procedure.getId());
+        // 1. Convert Procedure to Text
+        StringBuilder content = new StringBuilder();
+        content.append("Procedure: ").append(procedure.getName()).append("\n");
+        content.append("Job Area: ").append(jobArea.getName()).append("\n");
+        content.append("Store ID: ").append(store.getId()).append("\n");
+        content.append("Steps:\n");
 
-        } catch (Exception e) {
-            System.err.println("Failed to ingest procedure: " + e.getMessage());
-            e.printStackTrace();
+        for (ProcedureTask task : procedure.getTasks()) {
+            content.append(task.getOrderIndex()).append(". ").append(task.getDescription()).append("\n");
+        }
+
+        String contentHash = embeddingCache.contentHash(content.toString());
+        if (contentHash.equals(procedure.getIndexedContentHash())) {
+            return null;
         }
+
+        // 2. Create Document with Metadata
+        return new org.springframework.ai.document.Document(
+                vectorId(procedure.getId()),
+                content.toString(),
+                new java.util.HashMap<>(java.util.Map.of(
+                        "procedureId", String.valueOf(procedure.getId()),
+                        "storeId", String.valueOf(store.getId()),
+                        "jobAreaId", String.valueOf(jobArea.getId()),
+                        "type", "PROCEDURE",
+                        "contentHash", contentHash)));
     }
 
     private void updateProcedureFromRequest(Procedure procedure, ProcedureRequest request) {
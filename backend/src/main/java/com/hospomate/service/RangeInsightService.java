@@ -0,0 +1,387 @@
+package com.hospomate.service;
+
+import com.hospomate.dto.RangeBucketDTO;
+import com.hospomate.dto.RangeInsightsDTO;
+import com.hospomate.model.HourlyCategoryRollup;
+import com.hospomate.model.HourlyTeamMemberRollup;
+import com.hospomate.repository.HourlyCategoryRollupRepository;
+import com.hospomate.repository.HourlyTeamMemberRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Revenue and labour insights for any date range at hour, day, week or month
+ * granularity, read from the hourly rollups rather than Square.
+ *
+ * The range is read once, in chunks of a few days, merging the category and
+ * team member rollups hour by hour; each bucket is handed to the caller as
+ * soon as the first hour after it is seen, so a streamed response holds one
+ * chunk and one bucket in memory whatever the range. Revenue is attributed to
+ * job titles per hour with the same contribution rules as the dashboard.
+ *
+ * The number of buckets is capped, so the response size is bounded: without
+ * a requested granularity the finest one within the cap is used. Weeks start
+ * on Monday and months on the 1st; the first and last bucket are cut to the
+ * range.
+ */
+@Service
+public class RangeInsightService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RangeInsightService.class);
+
+    public enum Granularity {
+        HOUR, DAY, WEEK, MONTH
+    }
+
+    private final RevenueIntelligenceService intelligenceService;
+    private final HourlyCategoryRollupRepository categoryRollupRepository;
+    private final HourlyTeamMemberRollupRepository teamMemberRollupRepository;
+    private final RevenueRollupService rollupService;
+    private final SquareService squareService;
+    private final int maxBuckets;
+    private final int chunkDays;
+
+    public RangeInsightService(RevenueIntelligenceService intelligenceService,
+            HourlyCategoryRollupRepository categoryRollupRepository,
+            HourlyTeamMemberRollupRepository teamMemberRollupRepository,
+            RevenueRollupService rollupService,
+            SquareService squareService,
+            @Value("${insights.range.max-buckets:800}") int maxBuckets,
+            @Value("${insights.range.chunk-days:7}") int chunkDays) {
+        this.intelligenceService = intelligenceService;
+        this.categoryRollupRepository = categoryRollupRepository;
+        this.teamMemberRollupRepository = teamMemberRollupRepository;
+        this.rollupService = rollupService;
+        this.squareService = squareService;
+        this.maxBuckets = maxBuckets;
+        this.chunkDays = chunkDays;
+    }
+
+    /**
+     * The requested granularity if it fits in the bucket cap, or for
+     * {@code null} the finest one that does.
+     *
+     * @throws IllegalArgumentException for an empty range or too many buckets
+     */
+    public Granularity resolveGranularity(LocalDate from, LocalDate to, Granularity requested) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        if (requested != null) {
+            long count = bucketCount(from, to, requested);
+            if (count > maxBuckets) {
+                throw new IllegalArgumentException(count + " " + requested.name().toLowerCase()
+                        + " buckets exceed the limit of " + maxBuckets + ", use a coarser granularity");
+            }
+            return requested;
+        }
+        for (Granularity granularity : Granularity.values()) {
+            if (bucketCount(from, to, granularity) <= maxBuckets) {
+                return granularity;
+            }
+        }
+        throw new IllegalArgumentException("Range spans more than " + maxBuckets + " months");
+    }
+
+    /** Every bucket of the range, with totals. */
+    public RangeInsightsDTO getRange(Long storeId, LocalDate from, LocalDate to, Granularity granularity) {
+        List<RangeBucketDTO> buckets = new ArrayList<>();
+        RangeInsightsDTO summary = stream(storeId, from, to, granularity, buckets::add);
+        summary.setBuckets(buckets);
+        return summary;
+    }
+
+    /**
+     * Hands each bucket of the range to {@code sink} in order, including empty
+     * ones, and returns the totals (without buckets) once the range is done.
+     */
+    public RangeInsightsDTO stream(Long storeId, LocalDate from, LocalDate to, Granularity granularity,
+            Consumer<RangeBucketDTO> sink) {
+        String locationId = squareService.getLocationId(storeId);
+        boolean complete = true;
+        Map<String, String> squareStaffNames;
+        try {
+            squareStaffNames = squareService.fetchTeamMemberNames(locationId);
+        } catch (SquareUnavailableException e) {
+            // Confirmed staff links still resolve roles; only new team members are missed
+            logger.warn("Team members unavailable, range insights incomplete: {}", e.getMessage());
+            squareStaffNames = Map.of();
+            complete = false;
+        }
+        // Hours before the shift sync's coverage may lack shifts, so their staffing is not to be trusted
+        Instant shiftsFrom = rollupService.teamMemberHoursFrom(locationId);
+        if (shiftsFrom == null || from.atStartOfDay(ZoneId.systemDefault()).toInstant().isBefore(shiftsFrom)) {
+            logger.debug("Shifts not synced for location {} before {}, range insights incomplete", locationId,
+                    shiftsFrom);
+            complete = false;
+        }
+        RevenueIntelligenceService.InsightContext context = intelligenceService.loadContext(storeId,
+                squareStaffNames, Map.of());
+
+        Emitter emitter = new Emitter(context, from.atStartOfDay(), to.atStartOfDay(), granularity, sink);
+        ZoneId zone = ZoneId.systemDefault();
+        for (LocalDate chunkStart = from; chunkStart.isBefore(to); chunkStart = chunkStart.plusDays(chunkDays)) {
+            LocalDate chunkEnd = chunkStart.plusDays(chunkDays).isBefore(to) ? chunkStart.plusDays(chunkDays) : to;
+            Instant start = chunkStart.atStartOfDay(zone).toInstant();
+            Instant end = chunkEnd.atStartOfDay(zone).toInstant();
+            List<HourlyCategoryRollup> categories = categoryRollupRepository.findInRange(locationId, start, end);
+            List<HourlyTeamMemberRollup> staff = teamMemberRollupRepository.findInRange(locationId, start, end);
+
+            // Both lists are ordered by hour: merge them an hour at a time
+            int c = 0;
+            int t = 0;
+            while (c < categories.size() || t < staff.size()) {
+                Instant hour = c == categories.size() ? staff.get(t).getHourStart()
+                        : t == staff.size() ? categories.get(c).getHourStart()
+                                : min(categories.get(c).getHourStart(), staff.get(t).getHourStart());
+                int cEnd = c;
+                while (cEnd < categories.size() && categories.get(cEnd).getHourStart().equals(hour)) {
+                    cEnd++;
+                }
+                int tEnd = t;
+                while (tEnd < staff.size() && staff.get(tEnd).getHourStart().equals(hour)) {
+                    tEnd++;
+                }
+                emitter.addHour(LocalDateTime.ofInstant(hour, zone), categories.subList(c, cEnd),
+                        staff.subList(t, tEnd));
+                c = cEnd;
+                t = tEnd;
+            }
+        }
+
+        RangeInsightsDTO summary = emitter.finish();
+        summary.setFrom(from);
+        summary.setTo(to);
+        summary.setGranularity(granularity.name());
+        summary.setComplete(complete);
+        return summary;
+    }
+
+    static long bucketCount(LocalDate from, LocalDate to, Granularity granularity) {
+        LocalDate last = to.minusDays(1);
+        return switch (granularity) {
+            case HOUR -> ChronoUnit.DAYS.between(from, to) * 24;
+            case DAY -> ChronoUnit.DAYS.between(from, to);
+            case WEEK -> ChronoUnit.WEEKS.between(weekStart(from), weekStart(last)) + 1;
+            case MONTH -> ChronoUnit.MONTHS.between(YearMonth.from(from), YearMonth.from(last)) + 1;
+        };
+    }
+
+    static LocalDateTime bucketEnd(LocalDateTime start, Granularity granularity) {
+        return switch (granularity) {
+            case HOUR -> start.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            case DAY -> start.toLocalDate().plusDays(1).atStartOfDay();
+            case WEEK -> start.toLocalDate().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).atStartOfDay();
+            case MONTH -> start.toLocalDate().with(TemporalAdjusters.firstDayOfNextMonth()).atStartOfDay();
+        };
+    }
+
+    private static LocalDate weekStart(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    private static Instant min(Instant a, Instant b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    /** Moves through the range bucket by bucket, emitting each one once it is complete. */
+    private static final class Emitter {
+        private final RevenueIntelligenceService.InsightContext context;
+        private final LocalDateTime rangeEnd;
+        private final Granularity granularity;
+        private final Consumer<RangeBucketDTO> sink;
+        private final Bucket total;
+        private Bucket bucket;
+        private int bucketCount;
+
+        Emitter(RevenueIntelligenceService.InsightContext context, LocalDateTime rangeStart, LocalDateTime rangeEnd,
+                Granularity granularity, Consumer<RangeBucketDTO> sink) {
+            this.context = context;
+            this.rangeEnd = rangeEnd;
+            this.granularity = granularity;
+            this.sink = sink;
+            this.total = new Bucket(context, rangeStart, rangeEnd);
+            this.bucket = next(rangeStart);
+        }
+
+        void addHour(LocalDateTime hour, List<HourlyCategoryRollup> categories, List<HourlyTeamMemberRollup> staff) {
+            while (!hour.isBefore(bucket.end)) {
+                flush();
+            }
+            bucket.addHour(categories, staff);
+        }
+
+        RangeInsightsDTO finish() {
+            while (bucket.start.isBefore(rangeEnd)) {
+                flush();
+            }
+            RangeInsightsDTO summary = new RangeInsightsDTO();
+            RangeBucketDTO totals = total.toDTO();
+            summary.setTotalRevenue(totals.getTotalRevenue());
+            summary.setTotalItemsSold(totals.getTotalItemsSold());
+            summary.setLabourHours(totals.getLabourHours());
+            summary.setRevenuePerLabourHour(totals.getRevenuePerLabourHour());
+            summary.setUnderutilisedHours(totals.getUnderutilisedHours());
+            summary.setRevenueByCategory(totals.getRevenueByCategory());
+            summary.setRevenueByJobTitle(totals.getRevenueByJobTitle());
+            summary.setBucketCount(bucketCount);
+            return summary;
+        }
+
+        private void flush() {
+            sink.accept(bucket.toDTO());
+            total.merge(bucket);
+            bucketCount++;
+            bucket = next(bucket.end);
+        }
+
+        private Bucket next(LocalDateTime start) {
+            LocalDateTime end = bucketEnd(start, granularity);
+            return new Bucket(context, start, end.isBefore(rangeEnd) ? end : rangeEnd);
+        }
+    }
+
+    /** Sums for one bucket, money in long cents and role revenue in cents times fraction. */
+    private static final class Bucket {
+        private final RevenueIntelligenceService.InsightContext context;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private long revenueCents;
+        private long itemsSold;
+        private long shiftMinutes;
+        private int staffedHours;
+        private int underutilisedHours;
+        private long[] categoryCents;
+        private boolean[] categorySold;
+        private final long[] roleUnits;
+        private final boolean[] roleCredited;
+        private final Set<String> teamMembers = new HashSet<>();
+
+        Bucket(RevenueIntelligenceService.InsightContext context, LocalDateTime start, LocalDateTime end) {
+            this.context = context;
+            this.start = start;
+            this.end = end;
+            this.categoryCents = new long[context.categoryCount()];
+            this.categorySold = new boolean[context.categoryCount()];
+            this.roleUnits = new long[context.roleCount()];
+            this.roleCredited = new boolean[context.roleCount()];
+        }
+
+        void addHour(List<HourlyCategoryRollup> categories, List<HourlyTeamMemberRollup> staff) {
+            int[] staffCountByRole = new int[roleUnits.length];
+            for (HourlyTeamMemberRollup row : staff) {
+                staffCountByRole[context.roleOf(row.getTeamMemberId())]++;
+                teamMembers.add(row.getTeamMemberId());
+                shiftMinutes += row.getShiftMinutes();
+            }
+
+            long hourCents = 0;
+            for (HourlyCategoryRollup row : categories) {
+                int category = context.categoryNamed(row.getCategory());
+                addCategory(category, row.getRevenueCents());
+                hourCents += row.getRevenueCents();
+                itemsSold += row.getItemCount();
+                context.attribute(category, row.getRevenueCents(), staffCountByRole, roleUnits, roleCredited);
+            }
+            revenueCents += hourCents;
+
+            // Same test as the hourly insight's underutilised flag
+            if (!staff.isEmpty()) {
+                staffedHours++;
+                BigDecimal revenuePerStaff = BigDecimal.valueOf(hourCents, 2)
+                        .divide(BigDecimal.valueOf(staff.size()), 2, RoundingMode.HALF_UP);
+                if (revenuePerStaff.compareTo(context.threshold) < 0) {
+                    underutilisedHours++;
+                }
+            }
+        }
+
+        void merge(Bucket other) {
+            revenueCents += other.revenueCents;
+            itemsSold += other.itemsSold;
+            shiftMinutes += other.shiftMinutes;
+            staffedHours += other.staffedHours;
+            underutilisedHours += other.underutilisedHours;
+            for (int category = 0; category < other.categoryCents.length; category++) {
+                if (other.categorySold[category]) {
+                    addCategory(category, other.categoryCents[category]);
+                }
+            }
+            for (int role = 0; role < roleUnits.length; role++) {
+                roleUnits[role] += other.roleUnits[role];
+                roleCredited[role] |= other.roleCredited[role];
+            }
+            teamMembers.addAll(other.teamMembers);
+        }
+
+        private void addCategory(int category, long cents) {
+            if (category >= categoryCents.length) {
+                int size = Math.max(category + 1, context.categoryCount());
+                categoryCents = Arrays.copyOf(categoryCents, size);
+                categorySold = Arrays.copyOf(categorySold, size);
+            }
+            categoryCents[category] += cents;
+            categorySold[category] = true;
+        }
+
+        RangeBucketDTO toDTO() {
+            RangeBucketDTO dto = new RangeBucketDTO();
+            dto.setStartTime(start);
+            dto.setEndTime(end);
+            dto.setTotalRevenue(BigDecimal.valueOf(revenueCents, 2));
+            dto.setTotalItemsSold(itemsSold);
+            dto.setStaffCount(teamMembers.size());
+            dto.setLabourHours(BigDecimal.valueOf(shiftMinutes).divide(BigDecimal.valueOf(60), 2,
+                    RoundingMode.HALF_UP));
+            if (shiftMinutes > 0) {
+                // cents * 60 / minutes is revenue per hour in cents
+                dto.setRevenuePerLabourHour(BigDecimal.valueOf(revenueCents * 60, 2)
+                        .divide(BigDecimal.valueOf(shiftMinutes), 2, RoundingMode.HALF_UP));
+            }
+            dto.setStaffedHours(staffedHours);
+            dto.setUnderutilisedHours(underutilisedHours);
+
+            Map<String, BigDecimal> revenueByCategory = new HashMap<>();
+            for (int category = 0; category < categoryCents.length; category++) {
+                if (categorySold[category]) {
+                    revenueByCategory.put(context.categoryName(category),
+                            BigDecimal.valueOf(categoryCents[category], 2));
+                }
+            }
+            dto.setRevenueByCategory(revenueByCategory);
+
+            Map<String, BigDecimal> revenueByJobTitle = new HashMap<>();
+            for (int role = 0; role < roleUnits.length; role++) {
+                if (roleCredited[role]) {
+                    revenueByJobTitle.put(context.roleName(role),
+                            BigDecimal.valueOf(roleUnits[role],
+                                    RevenueIntelligenceService.InsightContext.ROLE_REVENUE_SCALE)
+                                    .setScale(2, RoundingMode.HALF_UP));
+                }
+            }
+            dto.setRevenueByJobTitle(revenueByJobTitle);
+            return dto;
+        }
+    }
+}
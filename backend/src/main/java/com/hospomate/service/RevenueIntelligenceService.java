@@ -5,173 +5,319 @@ import com.hospomate.model.*;
 import com.hospomate.repository.JobRoleContributionRepository;
 import com.hospomate.repository.StaffRepository;
 import com.hospomate.repository.StoreRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 @Service
 public class RevenueIntelligenceService {
 
+    private static final Logger logger = LoggerFactory.getLogger(RevenueIntelligenceService.class);
+
+    private static final int HOURS_PER_WEEK = 7 * 24;
+
+    /** Per-hour dashboard insights, keyed by store and hour start. */
+    public static final String HOURLY_CACHE = "hourlyInsights";
+
     private final JobRoleContributionRepository contributionRepository;
     private final StoreRepository storeRepository;
     private final StaffRepository staffRepository;
+    private final StaffIdentityService staffIdentityService;
     private final SquareService squareService;
+    private final CacheManager cacheManager;
 
     public RevenueIntelligenceService(
             JobRoleContributionRepository contributionRepository,
             StoreRepository storeRepository,
             StaffRepository staffRepository,
-            SquareService squareService) {
+            StaffIdentityService staffIdentityService,
+            SquareService squareService,
+            CacheManager cacheManager) {
         this.contributionRepository = contributionRepository;
         this.storeRepository = storeRepository;
         this.staffRepository = staffRepository;
+        this.staffIdentityService = staffIdentityService;
         this.squareService = squareService;
+        this.cacheManager = cacheManager;
     }
 
-    public HourlyInsightDTO calculateHourlyInsight(Long storeId, LocalDateTime start, LocalDateTime end,
-            List<com.squareup.square.types.Order> squareOrders, List<com.squareup.square.types.Shift> squareShifts,
+    /**
+     * Store-level inputs shared by every hour bucket of a dashboard: loaded once
+     * per request instead of once per hour.
+     *
+     * Category and job title names are interned to array indices here so the
+     * hourly aggregation can accumulate long cents into arrays; names are only
+     * looked up again when an hour's DTO is built. Each Square team member's
+     * role comes from their persisted link to a local staff member, so resolving
+     * a shift's role is a single lookup by team member ID.
+     */
+    static final class InsightContext {
+        static final int UNCATEGORIZED = 0;
+        static final int SURCHARGES = 1;
+        static final int CUSTOM_AMOUNT = 2;
+        static final int UNASSIGNED = 0;
+
+        // Contribution fractions are kept in ten-thousandths (4 decimal places)
+        private static final int FRACTION_SCALE = 4;
+        // Role revenue is cents times a fraction: 2 + 4 decimal places
+        static final int ROLE_REVENUE_SCALE = 2 + FRACTION_SCALE;
+
+        final BigDecimal threshold;
+        final Map<String, String> squareStaffNames;
+
+        private final List<String> categoryNames = new ArrayList<>();
+        private final Map<String, Integer> categoryIndex = new HashMap<>();
+        // Catalog variation ID -> category index
+        private final Map<String, Integer> categoryByVariation = new HashMap<>();
+
+        private final List<String> roleNames = new ArrayList<>();
+        private final Map<String, Integer> roleIndex = new HashMap<>();
+        // Square team member ID -> job title index of their linked local staff
+        private final Map<String, Integer> roleByTeamMember = new HashMap<>();
+
+        // Category index -> (role indices, fractions in ten-thousandths)
+        private final int[][] contributionRoles;
+        private final long[][] contributionFractions;
+
+        InsightContext(Store store, List<JobRoleContribution> contributions, List<Staff> localStaffList,
+                Map<String, Staff> staffByTeamMember, Map<String, String> squareStaffNames,
+                Map<String, String> variationToCategoryMap) {
+            BigDecimal storeThreshold = store.getRevenuePerLabourHourThreshold();
+            this.threshold = storeThreshold != null ? storeThreshold : new BigDecimal("50.00");
+            this.squareStaffNames = squareStaffNames;
+
+            internCategory("Uncategorized");
+            internCategory("Surcharges");
+            internCategory("Custom Amount");
+            for (Map.Entry<String, String> entry : variationToCategoryMap.entrySet()) {
+                if (entry.getValue() != null) {
+                    categoryByVariation.put(entry.getKey(), internCategory(entry.getValue()));
+                }
+            }
+
+            internRole("Unassigned");
+            for (Staff localStaff : localStaffList) {
+                if (localStaff.getJobTitle() != null) {
+                    internRole(localStaff.getJobTitle());
+                }
+            }
+            for (Map.Entry<String, Staff> entry : staffByTeamMember.entrySet()) {
+                String jobTitle = entry.getValue().getJobTitle();
+                roleByTeamMember.put(entry.getKey(), internRole(jobTitle != null ? jobTitle : "Unassigned"));
+            }
+
+            // Category -> (Role -> Fraction), later rows for the same pair win
+            Map<Integer, Map<Integer, Long>> fractions = new HashMap<>();
+            for (JobRoleContribution contrib : contributions) {
+                BigDecimal fraction = contrib.getContributionPercentage()
+                        .divide(new BigDecimal("100"), FRACTION_SCALE, RoundingMode.HALF_UP);
+                fractions.computeIfAbsent(internCategory(contrib.getCategoryName()), c -> new LinkedHashMap<>())
+                        .put(internRole(contrib.getJobTitle()), fraction.unscaledValue().longValue());
+            }
+            this.contributionRoles = new int[categoryNames.size()][];
+            this.contributionFractions = new long[categoryNames.size()][];
+            for (int category = 0; category < categoryNames.size(); category++) {
+                Map<Integer, Long> roleFractions = fractions.getOrDefault(category, Map.of());
+                contributionRoles[category] = new int[roleFractions.size()];
+                contributionFractions[category] = new long[roleFractions.size()];
+                int i = 0;
+                for (Map.Entry<Integer, Long> entry : roleFractions.entrySet()) {
+                    contributionRoles[category][i] = entry.getKey();
+                    contributionFractions[category][i] = entry.getValue();
+                    i++;
+                }
+            }
+        }
+
+        private int internCategory(String name) {
+            return categoryIndex.computeIfAbsent(name, n -> {
+                categoryNames.add(n);
+                return categoryNames.size() - 1;
+            });
+        }
+
+        private int internRole(String name) {
+            return roleIndex.computeIfAbsent(name, n -> {
+                roleNames.add(n);
+                return roleNames.size() - 1;
+            });
+        }
+
+        int categoryCount() {
+            return categoryNames.size();
+        }
+
+        int roleCount() {
+            return roleNames.size();
+        }
+
+        /** Index of a category by name, interning categories first seen after construction. */
+        int categoryNamed(String name) {
+            return internCategory(name);
+        }
+
+        String categoryName(int category) {
+            return categoryNames.get(category);
+        }
+
+        String roleName(int role) {
+            return roleNames.get(role);
+        }
+
+        /**
+         * Credits a category's revenue to each of its contributing roles that has
+         * staff on, in cents times fraction ({@code ROLE_REVENUE_SCALE} places).
+         */
+        void attribute(int category, long cents, int[] staffCountByRole, long[] roleUnits,
+                boolean[] roleCredited) {
+            if (category >= contributionRoles.length) {
+                return; // interned later, so it has no contributions
+            }
+            int[] roles = contributionRoles[category];
+            long[] fractions = contributionFractions[category];
+            for (int i = 0; i < roles.length; i++) {
+                // If there are staff in this role currently working
+                if (staffCountByRole[roles[i]] > 0) {
+                    roleUnits[roles[i]] += cents * fractions[i];
+                    roleCredited[roles[i]] = true;
+                }
+            }
+        }
+
+        int categoryOf(String catalogObjectId) {
+            Integer category = catalogObjectId != null ? categoryByVariation.get(catalogObjectId) : null;
+            return category != null ? category : UNCATEGORIZED;
+        }
+
+        int roleOf(String teamMemberId) {
+            Integer role = teamMemberId != null ? roleByTeamMember.get(teamMemberId) : null;
+            return role != null ? role : UNASSIGNED;
+        }
+    }
+
+    InsightContext loadContext(Long storeId, Map<String, String> variationToCategoryMap) {
+        return loadContext(storeId, squareService.fetchTeamMemberNames(squareService.getLocationId(storeId)),
+                variationToCategoryMap);
+    }
+
+    InsightContext loadContext(Long storeId, Map<String, String> squareStaffNames,
             Map<String, String> variationToCategoryMap) {
         java.util.Objects.requireNonNull(storeId, "Store ID cannot be null");
         Store store = storeRepository.findById(storeId).orElseThrow(() -> new RuntimeException("Store not found"));
+        List<Staff> localStaff = staffRepository.findByStoreId(storeId);
+        return new InsightContext(store, contributionRepository.findByStoreId(storeId), localStaff,
+                staffIdentityService.staffByTeamMember(storeId, localStaff, squareStaffNames), squareStaffNames,
+                variationToCategoryMap);
+    }
+
+    public HourlyInsightDTO calculateHourlyInsight(Long storeId, LocalDateTime start, LocalDateTime end,
+            List<com.squareup.square.types.Order> squareOrders, List<com.squareup.square.types.Shift> squareShifts,
+            Map<String, String> variationToCategoryMap) {
+        InsightContext context = loadContext(storeId, variationToCategoryMap);
+        LocalDateTime now = LocalDateTime.now();
 
-        List<JobRoleContribution> contributions = contributionRepository.findByStoreId(storeId);
+        List<ParsedOrder> bucketOrders = new java.util.ArrayList<>();
+        for (com.squareup.square.types.Order order : squareOrders) {
+            ParsedOrder parsed = ParsedOrder.from(order);
+            // strictly starts on or after start, strictly before end
+            if (parsed != null && !parsed.closedAt().isBefore(start) && parsed.closedAt().isBefore(end)) {
+                bucketOrders.add(parsed);
+            }
+        }
+
+        List<ParsedShift> bucketShifts = new java.util.ArrayList<>();
+        for (com.squareup.square.types.Shift shift : squareShifts) {
+            ParsedShift parsed = ParsedShift.from(shift, now);
+            if (parsed != null && parsed.overlaps(start, end)) {
+                bucketShifts.add(parsed);
+            }
+        }
+
+        return calculateHourlyInsight(start, end, bucketOrders, bucketShifts, context);
+    }
 
+    /**
+     * Aggregates a single hour from orders and shifts that have already been
+     * bucketed into it. Money is summed as long cents into arrays indexed by the
+     * context's interned categories and roles, and converted to BigDecimal only
+     * when the DTO is built.
+     */
+    HourlyInsightDTO calculateHourlyInsight(LocalDateTime start, LocalDateTime end, List<ParsedOrder> bucketOrders,
+            List<ParsedShift> activeShifts, InsightContext context) {
         HourlyInsightDTO dto = new HourlyInsightDTO();
         dto.setStartTime(start);
         dto.setEndTime(end);
 
-        BigDecimal totalRevenue = BigDecimal.ZERO;
+        long totalCents = 0;
         long totalItemsSold = 0;
-        Map<String, BigDecimal> revenueByCategory = new HashMap<>();
-
-        // Aggregate Revenue and Items from Square Orders Memory List
-        for (com.squareup.square.types.Order order : squareOrders) {
-            String closedAtStr = order.getClosedAt().orElse(null);
-            if (closedAtStr == null)
-                continue;
-
-            LocalDateTime closedAt = java.time.OffsetDateTime.parse(closedAtStr)
-                    .atZoneSameInstant(java.time.ZoneId.systemDefault()).toLocalDateTime();
-
-            // strictly starts on or after start, strictly before end
-            if (closedAt.isBefore(start) || !closedAt.isBefore(end)) {
-                continue; // Not in this hour bucket
-            }
+        long[] categoryCents = new long[context.categoryCount()];
+        boolean[] categorySold = new boolean[context.categoryCount()];
+
+        // Aggregate Revenue and Items from the orders closed in this hour
+        for (ParsedOrder order : bucketOrders) {
+            if (!order.lineItems().isEmpty()) {
+                for (ParsedOrder.LineItem item : order.lineItems()) {
+                    totalItemsSold += item.quantity();
+
+                    int category = context.categoryOf(item.catalogObjectId());
+                    totalCents += item.amountCents();
+                    categoryCents[category] += item.amountCents();
+                    categorySold[category] = true;
+                }
 
-            if (order.getLineItems().isPresent() && !order.getLineItems().get().isEmpty()) {
-                for (com.squareup.square.types.OrderLineItem item : order.getLineItems().get()) {
-                    long qty = 1;
-                    try {
-                        qty = Long.parseLong(item.getQuantity());
-                    } catch (NumberFormatException ignored) {
-                    }
-
-                    totalItemsSold += qty;
-
-                    String categoryName = "Uncategorized";
-                    if (item.getCatalogObjectId().isPresent()) {
-                        String variationId = item.getCatalogObjectId().get();
-                        if (variationToCategoryMap.containsKey(variationId)) {
-                            categoryName = variationToCategoryMap.get(variationId);
-                        }
-                    }
-
-                    double itemTotal = 0.0;
-                    if (item.getGrossSalesMoney() != null && item.getGrossSalesMoney().isPresent()) {
-                        itemTotal = item.getGrossSalesMoney().get().getAmount().orElse(0L).doubleValue() / 100.0;
-                    } else if (item.getTotalMoney() != null && item.getTotalMoney().isPresent()) {
-                        itemTotal = item.getTotalMoney().get().getAmount().orElse(0L).doubleValue() / 100.0;
-                    }
-
-                    totalRevenue = totalRevenue.add(BigDecimal.valueOf(itemTotal));
-
-                    revenueByCategory.put(categoryName,
-                            revenueByCategory.getOrDefault(categoryName, BigDecimal.ZERO)
-                                    .add(BigDecimal.valueOf(itemTotal)));
-                } // end for items
-
-                if (order.getServiceCharges().isPresent()) {
-                    for (com.squareup.square.types.OrderServiceCharge sc : order.getServiceCharges().get()) {
-                        if (sc.getAmountMoney() != null && sc.getAmountMoney().isPresent()) {
-                            double scAmount = sc.getAmountMoney().get().getAmount().orElse(0L).doubleValue() / 100.0;
-                            totalRevenue = totalRevenue.add(BigDecimal.valueOf(scAmount));
-                            revenueByCategory.put("Surcharges", revenueByCategory
-                                    .getOrDefault("Surcharges", BigDecimal.ZERO).add(BigDecimal.valueOf(scAmount)));
-                        }
-                    }
+                for (long scCents : order.serviceChargeCents()) {
+                    totalCents += scCents;
+                    categoryCents[InsightContext.SURCHARGES] += scCents;
+                    categorySold[InsightContext.SURCHARGES] = true;
                 }
-            } else {
-                if (order.getTotalMoney().isPresent()) {
-                    double customAmount = order.getTotalMoney().get().getAmount().orElse(0L).doubleValue() / 100.0;
-
-                    // Subtract tip if present inside net amounts
-                    // Unfortunately Square Order totalMoney includes tip, so we must subtract it if
-                    // we want gross revenue from custom amounts.
-                    if (order.getNetAmounts() != null && order.getNetAmounts().isPresent()
-                            && order.getNetAmounts().get().getTipMoney().isPresent()) {
-                        double tip = order.getNetAmounts().get().getTipMoney().get().getAmount().orElse(0L)
-                                .doubleValue() / 100.0;
-                        customAmount -= tip;
-                    }
-
-                    totalRevenue = totalRevenue.add(BigDecimal.valueOf(customAmount));
-                    totalItemsSold += 1;
-                    revenueByCategory.put("Custom Amount", revenueByCategory
-                            .getOrDefault("Custom Amount", BigDecimal.ZERO).add(BigDecimal.valueOf(customAmount)));
+            } else if (order.totalCents() != null) {
+                // Square Order totalMoney includes tip, so we must subtract it if
+                // we want gross revenue from custom amounts.
+                long customCents = order.totalCents();
+                if (order.tipCents() != null) {
+                    customCents -= order.tipCents();
                 }
-            } // end logic lines
 
-            if (start.getHour() == 10) {
-                double orderTotal = order.getTotalMoney().isPresent()
-                        ? order.getTotalMoney().get().getAmount().orElse(0L).doubleValue() / 100.0
-                        : 0.0;
-                System.out.println("DEBUG ORDER | OrderTotalId: " + order.getId() + " | OrderTotal: " + orderTotal);
+                totalCents += customCents;
+                totalItemsSold += 1;
+                categoryCents[InsightContext.CUSTOM_AMOUNT] += customCents;
+                categorySold[InsightContext.CUSTOM_AMOUNT] = true;
             }
-        } // end for orders
+        }
+
+        BigDecimal totalRevenue = BigDecimal.valueOf(totalCents, 2);
+        Map<String, BigDecimal> revenueByCategory = new HashMap<>();
+        for (int category = 0; category < categoryCents.length; category++) {
+            if (categorySold[category]) {
+                revenueByCategory.put(context.categoryNames.get(category),
+                        BigDecimal.valueOf(categoryCents[category], 2));
+            }
+        }
 
         dto.setTotalRevenue(totalRevenue);
         dto.setTotalItemsSold(totalItemsSold);
         dto.setRevenueByCategory(revenueByCategory);
 
-        // Staff Analysis - Filter Square Shifts into this hourly bucket
-        List<com.squareup.square.types.Shift> activeShifts = new java.util.ArrayList<>();
-        for (com.squareup.square.types.Shift shift : squareShifts) {
-            String startAtStr = shift.getStartAt();
-            String endAtStr = shift.getEndAt().orElse(null);
-            if (startAtStr == null) {
-                continue;
-            }
-
-            LocalDateTime shiftStart = java.time.OffsetDateTime.parse(startAtStr)
-                    .atZoneSameInstant(java.time.ZoneId.systemDefault()).toLocalDateTime();
-            LocalDateTime shiftEnd = endAtStr != null ? java.time.OffsetDateTime.parse(endAtStr)
-                    .atZoneSameInstant(java.time.ZoneId.systemDefault()).toLocalDateTime()
-                    : LocalDateTime.now();
-
-            // Check overlap
-            if (shiftStart.isBefore(end) && shiftEnd.isAfter(start)) {
-                activeShifts.add(shift);
-            }
-        }
-
+        // Staff Analysis - shifts overlapping this hour were bucketed up front
         int activeStaffCount = activeShifts.size();
         dto.setActiveStaffCount(activeStaffCount);
 
-        BigDecimal threshold = store.getRevenuePerLabourHourThreshold();
-        if (threshold == null) {
-            threshold = new BigDecimal("50.00");
-        }
-
         if (activeStaffCount > 0) {
             BigDecimal revenuePerStaff = totalRevenue.divide(BigDecimal.valueOf(activeStaffCount), 2,
                     RoundingMode.HALF_UP);
             dto.setRevenuePerStaffMember(revenuePerStaff);
-            dto.setUnderutilised(revenuePerStaff.compareTo(threshold) < 0);
+            dto.setUnderutilised(revenuePerStaff.compareTo(context.threshold) < 0);
         } else {
             dto.setUnderutilised(false);
             dto.setRevenuePerStaffMember(BigDecimal.ZERO);
@@ -179,167 +325,313 @@ public class RevenueIntelligenceService {
 
         // Feature 3.2: Job Title Contribution Mapping
         // Distribute revenue based on the roles present
+
+        // 1. Group staff by the job title of their linked local staff member
+        int[] staffCountByRole = new int[context.roleCount()];
+        for (ParsedShift s : activeShifts) {
+            staffCountByRole[context.roleOf(s.teamMemberId())]++;
+        }
+
+        // 2. Re-distribute category revenue to roles present, in cents x fraction
+        long[] roleRevenue = new long[context.roleCount()];
+        boolean[] roleCredited = new boolean[context.roleCount()];
+        for (int category = 0; category < categoryCents.length; category++) {
+            if (categorySold[category]) {
+                context.attribute(category, categoryCents[category], staffCountByRole, roleRevenue, roleCredited);
+            }
+        }
+
         Map<String, BigDecimal> revenueByJobTitle = new HashMap<>();
+        for (int role = 0; role < roleRevenue.length; role++) {
+            if (roleCredited[role]) {
+                revenueByJobTitle.put(context.roleNames.get(role),
+                        BigDecimal.valueOf(roleRevenue[role], InsightContext.ROLE_REVENUE_SCALE)
+                                .setScale(2, RoundingMode.HALF_UP));
+            }
+        }
+        dto.setRevenueByJobTitle(revenueByJobTitle);
+
+        // 3. Distribute Job Title Revenue equally among staff members in that role
         Map<String, BigDecimal> revenueByStaffName = new HashMap<>();
+        for (ParsedShift s : activeShifts) {
+            String squareName = context.squareStaffNames.get(s.teamMemberId());
+            if (squareName == null) {
+                squareName = "Square User " + s.teamMemberId();
+            }
+            int role = context.roleOf(s.teamMemberId());
 
-        // 1. Group staff by role and resolve Local Staff Name/Title through TeamMember
-        // ID
-        Map<String, Integer> staffCountByRole = new HashMap<>();
+            BigDecimal staffShare = BigDecimal.valueOf(roleRevenue[role], InsightContext.ROLE_REVENUE_SCALE)
+                    .divide(BigDecimal.valueOf(staffCountByRole[role]), 2, RoundingMode.HALF_UP);
+            revenueByStaffName.merge(squareName, staffShare, BigDecimal::add);
+        }
 
-        List<Staff> localStaffList = staffRepository.findByStoreId(storeId);
+        dto.setRevenueByStaffName(revenueByStaffName);
+
+        return dto;
+    }
 
-        // Fetch real Square Staff names to match against Local Staff DB
-        Map<String, String> squareStaffNames = squareService.fetchTeamMemberNames();
+    /**
+     * Revenue and attribution for the week starting {@code weekStart}, assembled
+     * from per-hour insights held in the {@value #HOURLY_CACHE} cache. Only the
+     * hours missing from the cache are computed, in one pass over the smallest
+     * range covering them, so an order or shift update that evicts a single hour
+     * costs one hour of work. Hours that have not started yet have no sales or
+     * shifts and are never cached.
+     *
+     * If Square is unavailable the missing hours are built from whatever could be
+     * loaded, left out of the cache, and the dashboard is marked incomplete.
+     */
+    public com.hospomate.dto.WeeklyDashboardDTO getWeeklyDashboard(Long storeId, java.time.LocalDate weekStart) {
+        HourlyInsightDTO[] hours = new HourlyInsightDTO[HOURS_PER_WEEK];
+        boolean complete = fillHours(storeId, weekStart.atStartOfDay(), hours, LocalDateTime.now());
 
-        for (com.squareup.square.types.Shift s : activeShifts) {
-            String tmId = s.getTeamMemberId().orElse(null);
+        WeekTotals totals = new WeekTotals(weekStart);
+        for (int slot = 0; slot < HOURS_PER_WEEK; slot++) {
+            totals.add(slot, hours[slot]);
+        }
+        com.hospomate.dto.WeeklyDashboardDTO weeklyDTO = totals.toDashboard();
+        weeklyDTO.setHourlyInsights(new ArrayList<>(java.util.Arrays.asList(hours)));
+        weeklyDTO.setComplete(complete);
+        weeklyDTO.setComputedAt(java.time.Instant.now());
+        return weeklyDTO;
+    }
 
-            String role = "Unassigned";
-            String squareName = squareStaffNames.getOrDefault(tmId, "Unknown Square Staff");
+    /**
+     * The same dashboard, a day at a time: each day's hours are read from the
+     * cache or computed, handed to {@code sink} in order and dropped, so only
+     * one day of hourly insights is held and the first hours reach the client
+     * before the rest of the week is computed. The returned dashboard has the
+     * week's totals and no hourly insights. Each day still sees shifts running
+     * over from the night before, so the hours match the buffered dashboard's.
+     */
+    public com.hospomate.dto.WeeklyDashboardDTO streamWeeklyDashboard(Long storeId, java.time.LocalDate weekStart,
+            java.util.function.Consumer<HourlyInsightDTO> sink) {
+        LocalDateTime now = LocalDateTime.now();
+        WeekTotals totals = new WeekTotals(weekStart);
+        boolean complete = true;
+        for (int day = 0; day < 7; day++) {
+            HourlyInsightDTO[] hours = new HourlyInsightDTO[24];
+            complete &= fillHours(storeId, weekStart.plusDays(day).atStartOfDay(), hours, now);
+            for (int h = 0; h < hours.length; h++) {
+                totals.add(day * 24 + h, hours[h]);
+                sink.accept(hours[h]);
+            }
+        }
+        com.hospomate.dto.WeeklyDashboardDTO weeklyDTO = totals.toDashboard();
+        weeklyDTO.setComplete(complete);
+        weeklyDTO.setComputedAt(java.time.Instant.now());
+        return weeklyDTO;
+    }
 
-            // Attempt to match the Square Name closely to our Database Staff name
-            for (Staff localStaff : localStaffList) {
-                if (localStaff.getName() != null
-                        && squareName.toLowerCase().contains(localStaff.getName().toLowerCase().trim())) {
-                    if (localStaff.getJobTitle() != null) {
-                        role = localStaff.getJobTitle();
-                    }
-                    break;
+    /**
+     * Fills {@code hours} with consecutive hours from {@code rangeStart}: from
+     * the cache where present, otherwise computed in one pass over the smallest
+     * range covering the missing ones and cached if complete. Returns false if
+     * Square was partly unavailable for the computed hours.
+     */
+    private boolean fillHours(Long storeId, LocalDateTime rangeStart, HourlyInsightDTO[] hours, LocalDateTime now) {
+        Cache hourCache = cacheManager.getCache(HOURLY_CACHE);
+        int firstMissing = -1;
+        int lastMissing = -1;
+        for (int slot = 0; slot < hours.length; slot++) {
+            LocalDateTime start = rangeStart.plusHours(slot);
+            if (!start.isBefore(now)) {
+                hours[slot] = emptyHour(start);
+                continue;
+            }
+            HourlyInsightDTO cached = hourCache != null ? hourCache.get(hourKey(storeId, start), HourlyInsightDTO.class)
+                    : null;
+            if (cached != null) {
+                hours[slot] = cached;
+            } else {
+                if (firstMissing < 0) {
+                    firstMissing = slot;
                 }
+                lastMissing = slot;
             }
-
-            staffCountByRole.put(role, staffCountByRole.getOrDefault(role, 0) + 1);
         }
-
-        // 2. Build Contribution Map: Category Name -> (Role -> Percentage)
-        Map<String, Map<String, BigDecimal>> categoryRolePercentages = new HashMap<>();
-        for (JobRoleContribution contrib : contributions) {
-            String catName = contrib.getCategoryName();
-            categoryRolePercentages.putIfAbsent(catName, new HashMap<>());
-            categoryRolePercentages.get(catName).put(contrib.getJobTitle(),
-                    contrib.getContributionPercentage().divide(new BigDecimal("100"), 4, RoundingMode.HALF_UP));
+        if (firstMissing < 0) {
+            return true;
         }
 
-        // 3. Re-distribute category revenue to roles
-        for (Map.Entry<String, BigDecimal> catEntry : revenueByCategory.entrySet()) {
-            String cat = catEntry.getKey();
-            BigDecimal catRev = catEntry.getValue();
-
-            Map<String, BigDecimal> rolePercentages = categoryRolePercentages.getOrDefault(cat, new HashMap<>());
+        ComputedHours computed = computeHours(storeId, rangeStart.plusHours(firstMissing),
+                lastMissing - firstMissing + 1, now);
+        for (int i = 0; i < computed.hours().length; i++) {
+            int slot = firstMissing + i;
+            if (hours[slot] != null) {
+                continue;
+            }
+            hours[slot] = computed.hours()[i];
+            if (computed.complete() && hourCache != null) {
+                hourCache.put(hourKey(storeId, hours[slot].getStartTime()), hours[slot]);
+            }
+        }
+        return computed.complete();
+    }
 
-            for (Map.Entry<String, BigDecimal> roleEntry : rolePercentages.entrySet()) {
-                String role = roleEntry.getKey();
-                BigDecimal percentage = roleEntry.getValue();
+    /**
+     * Drops cached hourly insights for a store over {@code [from, to)}, so the
+     * next dashboard read recomputes just those hours.
+     */
+    public void evictHours(Long storeId, LocalDateTime from, LocalDateTime to) {
+        Cache hourCache = cacheManager.getCache(HOURLY_CACHE);
+        if (hourCache == null) {
+            return;
+        }
+        for (LocalDateTime hour = from.truncatedTo(java.time.temporal.ChronoUnit.HOURS); hour.isBefore(to); hour = hour
+                .plusHours(1)) {
+            hourCache.evict(hourKey(storeId, hour));
+        }
+    }
 
-                // If there are staff in this role currently working
-                if (staffCountByRole.containsKey(role)) {
-                    BigDecimal roleRevenueShare = catRev.multiply(percentage);
-                    revenueByJobTitle.put(role,
-                            revenueByJobTitle.getOrDefault(role, BigDecimal.ZERO).add(roleRevenueShare));
-                }
-            }
+    /**
+     * Drops every cached hourly insight for a store, e.g. after its contribution
+     * percentages, staff or threshold change.
+     */
+    public void evictStore(Long storeId) {
+        Cache hourCache = cacheManager.getCache(HOURLY_CACHE);
+        if (hourCache == null) {
+            return;
         }
+        Object nativeCache = hourCache.getNativeCache();
+        if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+            caffeine.asMap().keySet().removeIf(key -> key instanceof HourKey hourKey
+                    && hourKey.storeId().equals(storeId));
+        } else if (nativeCache instanceof Map<?, ?> map) {
+            map.keySet().removeIf(key -> key instanceof HourKey hourKey && hourKey.storeId().equals(storeId));
+        } else {
+            hourCache.clear();
+        }
+    }
 
-        dto.setRevenueByJobTitle(revenueByJobTitle);
+    @org.springframework.context.event.EventListener
+    public void onSettingsChanged(InsightSettingsChangedEvent event) {
+        evictStore(event.storeId());
+    }
 
-        // 4. Distribute Job Title Revenue equally among staff members in that role
-        for (com.squareup.square.types.Shift s : activeShifts) {
-            String tmId = s.getTeamMemberId().orElse(null);
-            String squareName = squareStaffNames.getOrDefault(tmId, "Square User " + tmId);
+    /** Key of the {@value #HOURLY_CACHE} cache. */
+    record HourKey(Long storeId, LocalDateTime hourStart) {
+    }
 
-            String role = "Unassigned";
-            for (Staff localStaff : localStaffList) {
-                if (localStaff.getName() != null
-                        && squareName.toLowerCase().contains(localStaff.getName().toLowerCase().trim())) {
-                    if (localStaff.getJobTitle() != null) {
-                        role = localStaff.getJobTitle();
-                    }
-                    break;
-                }
-            }
+    private record ComputedHours(HourlyInsightDTO[] hours, boolean complete) {
+    }
 
-            int count = staffCountByRole.getOrDefault(role, 1);
-            BigDecimal totalRoleRev = revenueByJobTitle.getOrDefault(role, BigDecimal.ZERO);
+    private ComputedHours computeHours(Long storeId, LocalDateTime rangeStart, int slotCount, LocalDateTime now) {
+        LocalDateTime rangeEnd = rangeStart.plusHours(slotCount);
+        String locationId = squareService.getLocationId(storeId);
+        boolean complete = true;
+
+        Map<String, String> squareStaffNames;
+        try {
+            squareStaffNames = squareService.fetchTeamMemberNames(locationId);
+        } catch (SquareUnavailableException e) {
+            logger.warn("Team members unavailable, dashboard incomplete: {}", e.getMessage());
+            squareStaffNames = Map.of();
+            complete = false;
+        }
 
-            BigDecimal staffShare = totalRoleRev.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
+        List<com.squareup.square.types.Shift> squareShifts;
+        try {
+            // Square filters shifts by start time, so look back a day for shifts
+            // already running when the range begins; the buckets clip them
+            squareShifts = squareService.fetchSquareShifts(locationId, rangeStart.minusDays(1), rangeEnd);
+        } catch (SquareUnavailableException e) {
+            logger.warn("Shifts unavailable, dashboard incomplete: {}", e.getMessage());
+            squareShifts = List.of();
+            complete = false;
+        }
 
-            String staffName = squareName;
-            revenueByStaffName.put(staffName,
-                    revenueByStaffName.getOrDefault(staffName, BigDecimal.ZERO).add(staffShare));
+        // Orders come from the shared order window, read from the local warehouse
+        OrderWindow orderWindow = squareService.fetchOrderWindow(storeId, rangeStart, rangeEnd);
+        List<ParsedOrder> parsedOrders = orderWindow.getOrders();
+        complete &= orderWindow.isComplete();
+        logger.debug("Fetched {} shifts and {} orders for {} hours from {}", squareShifts.size(),
+                parsedOrders.size(), slotCount, rangeStart);
+
+        Map<String, String> variationToCategoryMap;
+        try {
+            variationToCategoryMap = squareService.fetchVariationToCategoryMap(locationId);
+        } catch (SquareUnavailableException e) {
+            logger.warn("Catalog unavailable, dashboard incomplete: {}", e.getMessage());
+            variationToCategoryMap = Map.of();
+            complete = false;
         }
+        InsightContext context = loadContext(storeId, squareStaffNames, variationToCategoryMap);
 
-        dto.setRevenueByStaffName(revenueByStaffName);
+        // Parse every shift once, then bucket orders and shifts by hour
+        List<ParsedShift> parsedShifts = new java.util.ArrayList<>(squareShifts.size());
+        for (com.squareup.square.types.Shift shift : squareShifts) {
+            parsedShifts.add(ParsedShift.from(shift, now));
+        }
+        HourlyBuckets buckets = HourlyBuckets.build(rangeStart, slotCount, parsedOrders, parsedShifts);
 
-        return dto;
+        HourlyInsightDTO[] hours = new HourlyInsightDTO[slotCount];
+        for (int slot = 0; slot < slotCount; slot++) {
+            LocalDateTime start = rangeStart.plusHours(slot);
+            hours[slot] = calculateHourlyInsight(start, start.plusHours(1), buckets.ordersAt(slot),
+                    buckets.shiftsAt(slot), context);
+        }
+        return new ComputedHours(hours, complete);
     }
 
-    @org.springframework.cache.annotation.Cacheable(value = "weeklyInsights", key = "#storeId + '-' + #weekStart")
-    public com.hospomate.dto.WeeklyDashboardDTO getWeeklyDashboard(Long storeId, java.time.LocalDate weekStart) {
-        com.hospomate.dto.WeeklyDashboardDTO weeklyDTO = new com.hospomate.dto.WeeklyDashboardDTO();
-        java.util.List<HourlyInsightDTO> hourlyInsights = new java.util.ArrayList<>();
-
-        BigDecimal weeklyTotalRevenue = BigDecimal.ZERO;
-        Map<String, BigDecimal> weeklyRevenueByCategory = new HashMap<>();
-        Map<String, BigDecimal> weeklyRevenueByDay = new HashMap<>();
-        Map<String, BigDecimal> weeklyRevenueByJobTitle = new HashMap<>();
-        Map<String, BigDecimal> weeklyRevenueByStaffName = new HashMap<>();
-
-        // NEW LOGIC: Batch Fetch from Square once per Week
-        LocalDateTime globalStart = weekStart.atStartOfDay();
-        LocalDateTime globalEnd = weekStart.plusDays(7).atStartOfDay();
-
-        List<com.squareup.square.types.Shift> squareShifts = squareService.fetchSquareShifts(globalStart, globalEnd);
-        List<com.squareup.square.types.Order> squareOrders = squareService.fetchDetailedSquareOrders(globalStart,
-                globalEnd);
-        System.out.println("DEBUG: Fetched " + squareShifts.size() + " shifts and " + squareOrders.size()
-                + " orders for week starting " + weekStart);
-        Map<String, String> variationToCategoryMap = squareService.fetchVariationToCategoryMap();
-
-        for (int i = 0; i < 7; i++) {
-            java.time.LocalDate date = weekStart.plusDays(i);
-            String dayName = date.getDayOfWeek().name();
-            BigDecimal dailyRevenue = BigDecimal.ZERO;
-
-            // Analyze all 24 hours to ensure weekly totals encompass pre/post-trading sales
-            for (int h = 0; h < 24; h++) {
-                LocalDateTime start = date.atTime(h, 0);
-                LocalDateTime end = start.plusHours(1);
-
-                HourlyInsightDTO hourlyDto = calculateHourlyInsight(storeId, start, end, squareOrders, squareShifts,
-                        variationToCategoryMap);
-                hourlyInsights.add(hourlyDto);
-
-                dailyRevenue = dailyRevenue.add(hourlyDto.getTotalRevenue());
-                weeklyTotalRevenue = weeklyTotalRevenue.add(hourlyDto.getTotalRevenue());
-
-                for (Map.Entry<String, BigDecimal> catEntry : hourlyDto.getRevenueByCategory().entrySet()) {
-                    weeklyRevenueByCategory.put(catEntry.getKey(),
-                            weeklyRevenueByCategory.getOrDefault(catEntry.getKey(), BigDecimal.ZERO)
-                                    .add(catEntry.getValue()));
-                }
+    /**
+     * Weekly totals accumulated one hour at a time. All 24 hours of each day
+     * count, so weekly totals encompass pre/post-trading sales.
+     */
+    private static final class WeekTotals {
+        private final java.time.LocalDate weekStart;
+        private BigDecimal totalRevenue = BigDecimal.ZERO;
+        private final BigDecimal[] revenueByDay = new BigDecimal[7];
+        private final Map<String, BigDecimal> revenueByCategory = new HashMap<>();
+        private final Map<String, BigDecimal> revenueByJobTitle = new HashMap<>();
+        private final Map<String, BigDecimal> revenueByStaffName = new HashMap<>();
+
+        WeekTotals(java.time.LocalDate weekStart) {
+            this.weekStart = weekStart;
+            java.util.Arrays.fill(revenueByDay, BigDecimal.ZERO);
+        }
 
-                for (Map.Entry<String, BigDecimal> jobEntry : hourlyDto.getRevenueByJobTitle().entrySet()) {
-                    weeklyRevenueByJobTitle.put(jobEntry.getKey(),
-                            weeklyRevenueByJobTitle.getOrDefault(jobEntry.getKey(), BigDecimal.ZERO)
-                                    .add(jobEntry.getValue()));
-                }
+        void add(int slot, HourlyInsightDTO hour) {
+            revenueByDay[slot / 24] = revenueByDay[slot / 24].add(hour.getTotalRevenue());
+            totalRevenue = totalRevenue.add(hour.getTotalRevenue());
+            for (Map.Entry<String, BigDecimal> catEntry : hour.getRevenueByCategory().entrySet()) {
+                revenueByCategory.merge(catEntry.getKey(), catEntry.getValue(), BigDecimal::add);
+            }
+            for (Map.Entry<String, BigDecimal> jobEntry : hour.getRevenueByJobTitle().entrySet()) {
+                revenueByJobTitle.merge(jobEntry.getKey(), jobEntry.getValue(), BigDecimal::add);
+            }
+            for (Map.Entry<String, BigDecimal> staffEntry : hour.getRevenueByStaffName().entrySet()) {
+                revenueByStaffName.merge(staffEntry.getKey(), staffEntry.getValue(), BigDecimal::add);
+            }
+        }
 
-                for (Map.Entry<String, BigDecimal> staffEntry : hourlyDto.getRevenueByStaffName().entrySet()) {
-                    weeklyRevenueByStaffName.put(staffEntry.getKey(),
-                            weeklyRevenueByStaffName.getOrDefault(staffEntry.getKey(), BigDecimal.ZERO)
-                                    .add(staffEntry.getValue()));
-                }
+        com.hospomate.dto.WeeklyDashboardDTO toDashboard() {
+            Map<String, BigDecimal> byDay = new HashMap<>();
+            for (int i = 0; i < 7; i++) {
+                byDay.put(weekStart.plusDays(i).getDayOfWeek().name(), revenueByDay[i]);
             }
-            weeklyRevenueByDay.put(dayName, dailyRevenue);
+            com.hospomate.dto.WeeklyDashboardDTO weeklyDTO = new com.hospomate.dto.WeeklyDashboardDTO();
+            weeklyDTO.setTotalRevenue(totalRevenue);
+            weeklyDTO.setRevenueByCategory(revenueByCategory);
+            weeklyDTO.setRevenueByDay(byDay);
+            weeklyDTO.setRevenueByJobTitle(revenueByJobTitle);
+            weeklyDTO.setRevenueByStaffName(revenueByStaffName);
+            return weeklyDTO;
         }
+    }
 
-        weeklyDTO.setTotalRevenue(weeklyTotalRevenue);
-        weeklyDTO.setRevenueByCategory(weeklyRevenueByCategory);
-        weeklyDTO.setRevenueByDay(weeklyRevenueByDay);
-        weeklyDTO.setRevenueByJobTitle(weeklyRevenueByJobTitle);
-        weeklyDTO.setRevenueByStaffName(weeklyRevenueByStaffName);
-        weeklyDTO.setHourlyInsights(hourlyInsights);
+    /** An hour that has not started yet: nothing sold and nobody on shift. */
+    private static HourlyInsightDTO emptyHour(LocalDateTime start) {
+        HourlyInsightDTO dto = new HourlyInsightDTO();
+        dto.setStartTime(start);
+        dto.setEndTime(start.plusHours(1));
+        dto.setRevenueByCategory(new HashMap<>());
+        dto.setRevenueByJobTitle(new HashMap<>());
+        dto.setRevenueByStaffName(new HashMap<>());
+        return dto;
+    }
 
-        return weeklyDTO;
+    private static HourKey hourKey(Long storeId, LocalDateTime hourStart) {
+        return new HourKey(storeId, hourStart);
     }
 }
@@ -0,0 +1,414 @@
+package com.hospomate.service;
+
+import com.hospomate.model.HourlyCategoryRollup;
+import com.hospomate.model.HourlyTeamMemberRollup;
+import com.hospomate.model.ShiftSyncState;
+import com.hospomate.model.SquareOrder;
+import com.hospomate.repository.HourlyCategoryRollupRepository;
+import com.hospomate.repository.HourlyTeamMemberRollupRepository;
+import com.hospomate.repository.ShiftSyncStateRepository;
+import com.hospomate.repository.SquareOrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Maintains the hourly rollup tables from the order warehouse and Square
+ * shifts.
+ *
+ * Category rollups for an hour are recomputed from the stored orders whenever
+ * the warehouse reports a change to an order closed in that hour. Team member
+ * rollups are rebuilt from Square shifts by a scheduled sync, when a shift
+ * webhook arrives and on demand; the sync records how far back they are
+ * complete, so readers can tell missing shifts from nobody on. Range summaries
+ * (weeks, months, year on year) then read at most one row per hour and
+ * category instead of every line item.
+ *
+ * Category names come from the Square catalog at the time an hour is rolled
+ * up; after re-categorising items, rebuild the affected range.
+ */
+@Service
+public class RevenueRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevenueRollupService.class);
+
+    private final SquareOrderRepository orderRepository;
+    private final HourlyCategoryRollupRepository categoryRollupRepository;
+    private final HourlyTeamMemberRollupRepository teamMemberRollupRepository;
+    private final ShiftSyncStateRepository shiftSyncStateRepository;
+    private final SquareService squareService;
+    private final SquareLocations locations;
+    private final TransactionTemplate transactionTemplate;
+    private final int backfillDays;
+    private final int shiftLookbackHours;
+
+    private final Map<String, ReentrantLock> locationLocks = new ConcurrentHashMap<>();
+
+    public RevenueRollupService(SquareOrderRepository orderRepository,
+            HourlyCategoryRollupRepository categoryRollupRepository,
+            HourlyTeamMemberRollupRepository teamMemberRollupRepository,
+            ShiftSyncStateRepository shiftSyncStateRepository,
+            SquareService squareService,
+            SquareLocations locations,
+            PlatformTransactionManager transactionManager,
+            @Value("${square.sync.backfill-days:35}") int backfillDays,
+            @Value("${square.sync.shift-lookback-hours:48}") int shiftLookbackHours) {
+        this.orderRepository = orderRepository;
+        this.categoryRollupRepository = categoryRollupRepository;
+        this.teamMemberRollupRepository = teamMemberRollupRepository;
+        this.shiftSyncStateRepository = shiftSyncStateRepository;
+        this.squareService = squareService;
+        this.locations = locations;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.backfillDays = backfillDays;
+        this.shiftLookbackHours = shiftLookbackHours;
+    }
+
+    public record Mismatch(Instant hourStart, String key, String stored, String actual) {
+    }
+
+    public record CheckResult(String locationId, Instant from, Instant to, int categoryRows, int teamMemberRows,
+            List<Mismatch> mismatches) {
+    }
+
+    public record Summary(long revenueCents, long itemCount, Map<String, Long> revenueCentsByCategory,
+            Map<LocalDate, Long> revenueCentsByDay) {
+    }
+
+    @EventListener
+    public void onOrdersChanged(OrdersChangedEvent event) {
+        TreeSet<Instant> hours = new TreeSet<>();
+        for (Instant closedAt : event.closeTimes()) {
+            hours.add(hourOf(closedAt));
+        }
+        try {
+            rebuildCategoryHours(event.locationId(), hours);
+        } catch (SquareUnavailableException e) {
+            // Left as they were; the consistency check will show the gap
+            logger.warn("Could not update revenue rollups for {} hours at {}: {}", hours.size(),
+                    event.locationId(), e.getMessage());
+        }
+    }
+
+    /** Recomputes category rollups for the given hour starts from the stored orders. */
+    public void rebuildCategoryHours(String locationId, Collection<Instant> hourStarts) {
+        if (hourStarts.isEmpty()) {
+            return;
+        }
+        Map<String, String> variationToCategoryMap = squareService.fetchVariationToCategoryMap(locationId);
+        transactionTemplate.executeWithoutResult(status -> {
+            categoryRollupRepository.deleteHours(locationId, hourStarts);
+            for (Instant hour : hourStarts) {
+                categoryRollupRepository.saveAll(computeCategoryRollups(locationId, hour,
+                        hour.plus(Duration.ofHours(1)), variationToCategoryMap).values());
+            }
+        });
+    }
+
+    /**
+     * Rebuilds both rollups for {@code [from, to)} from the stored orders and
+     * Square shifts, a day at a time. Returns the number of rows written.
+     */
+    public int rebuild(String locationId, Instant from, Instant to) {
+        Map<String, String> variationToCategoryMap = squareService.fetchVariationToCategoryMap(locationId);
+        int written = 0;
+        for (Instant dayStart = from; dayStart.isBefore(to); dayStart = dayStart.plus(Duration.ofDays(1))) {
+            Instant dayEnd = min(dayStart.plus(Duration.ofDays(1)), to);
+            Instant start = dayStart;
+            Integer rows = transactionTemplate.execute(status -> {
+                categoryRollupRepository.deleteRange(locationId, start, dayEnd);
+                return categoryRollupRepository.saveAll(
+                        computeCategoryRollups(locationId, start, dayEnd, variationToCategoryMap).values()).size();
+            });
+            written += rows != null ? rows : 0;
+            written += rebuildTeamMemberHours(locationId, start, dayEnd);
+        }
+        extendShiftCoverage(locationId, from, to);
+        logger.info("Rebuilt {} rollup rows for location {} from {} to {}", written, locationId, from, to);
+        return written;
+    }
+
+    /** Rebuilds team member rollups for {@code [from, to)} from Square shifts. */
+    public int rebuildTeamMemberHours(String locationId, Instant from, Instant to) {
+        Instant start = hourOf(from);
+        Instant end = to.equals(hourOf(to)) ? to : hourOf(to).plus(Duration.ofHours(1));
+        Map<String, HourlyTeamMemberRollup> rollups = computeTeamMemberRollups(locationId, start, end);
+        Integer rows = transactionTemplate.execute(status -> {
+            teamMemberRollupRepository.deleteRange(locationId, start, end);
+            return teamMemberRollupRepository.saveAll(rollups.values()).size();
+        });
+        return rows != null ? rows : 0;
+    }
+
+    @Scheduled(fixedDelayString = "${square.sync.shift-interval-ms:900000}", initialDelayString = "${square.sync.initial-delay-ms:30000}")
+    public void syncConfiguredLocations() {
+        for (String locationId : locations.locationIds()) {
+            try {
+                int rows = syncTeamMemberHours(locationId);
+                logger.info("Square shift sync for location {} wrote {} team member rollup rows", locationId, rows);
+            } catch (Exception e) {
+                logger.error("Square shift sync failed for location {}", locationId, e);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds team member rollups from Square shifts since the last sync,
+     * reaching back {@code shift-lookback-hours} for shifts closed or edited
+     * late; a location's first sync backfills {@code backfill-days}. Returns
+     * the number of rows written.
+     */
+    public int syncTeamMemberHours(String locationId) {
+        ReentrantLock lock = locationLocks.computeIfAbsent(locationId, id -> new ReentrantLock());
+        lock.lock();
+        try {
+            ShiftSyncState state = shiftSyncStateRepository.findById(locationId)
+                    .orElseGet(() -> new ShiftSyncState(locationId));
+            Instant now = Instant.now();
+            Instant from = state.getLastSyncedAt() == null
+                    ? hourOf(now.minus(Duration.ofDays(backfillDays)))
+                    : hourOf(state.getLastSyncedAt().minus(Duration.ofHours(shiftLookbackHours)));
+
+            int rows = rebuildTeamMemberHours(locationId, from, now);
+            if (state.getBackfilledFrom() == null) {
+                state.setBackfilledFrom(from);
+            }
+            state.setLastSyncedAt(now);
+            shiftSyncStateRepository.save(state);
+            return rows;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Start of the team member rollups that are complete up to the last shift
+     * sync, or {@code null} before a location's first sync. Earlier hours only
+     * hold shifts seen by webhooks, so a missing row there is not proof that
+     * nobody was on.
+     */
+    public Instant teamMemberHoursFrom(String locationId) {
+        return shiftSyncStateRepository.findById(locationId).map(ShiftSyncState::getBackfilledFrom).orElse(null);
+    }
+
+    /** Moves the complete range back to {@code from} when a rebuild reaches it. */
+    private void extendShiftCoverage(String locationId, Instant from, Instant to) {
+        ReentrantLock lock = locationLocks.computeIfAbsent(locationId, id -> new ReentrantLock());
+        lock.lock();
+        try {
+            shiftSyncStateRepository.findById(locationId)
+                    .filter(state -> state.getBackfilledFrom() != null
+                            && from.isBefore(state.getBackfilledFrom())
+                            && !to.isBefore(state.getBackfilledFrom()))
+                    .ifPresent(state -> {
+                        state.setBackfilledFrom(hourOf(from));
+                        shiftSyncStateRepository.save(state);
+                    });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Compares the stored rollups for {@code [from, to)} with values recomputed
+     * from the stored orders and Square shifts, without changing anything.
+     */
+    public CheckResult check(String locationId, Instant from, Instant to) {
+        Map<String, String> variationToCategoryMap = squareService.fetchVariationToCategoryMap(locationId);
+        List<Mismatch> mismatches = new ArrayList<>();
+        int categoryRows = 0;
+        int teamMemberRows = 0;
+
+        for (Instant dayStart = from; dayStart.isBefore(to); dayStart = dayStart.plus(Duration.ofDays(1))) {
+            Instant dayEnd = min(dayStart.plus(Duration.ofDays(1)), to);
+            Instant start = dayStart;
+
+            Map<String, HourlyCategoryRollup> expected = transactionTemplate
+                    .execute(status -> computeCategoryRollups(locationId, start, dayEnd, variationToCategoryMap));
+            Map<String, HourlyCategoryRollup> stored = new HashMap<>();
+            for (HourlyCategoryRollup row : categoryRollupRepository.findInRange(locationId, start, dayEnd)) {
+                stored.put(row.getHourStart() + "|" + row.getCategory(), row);
+            }
+            categoryRows += stored.size();
+            for (String key : union(expected.keySet(), stored.keySet())) {
+                String want = describe(expected.get(key));
+                String have = describe(stored.get(key));
+                if (!want.equals(have)) {
+                    Instant hour = (expected.containsKey(key) ? expected.get(key) : stored.get(key)).getHourStart();
+                    mismatches.add(new Mismatch(hour, "category:" + key.substring(key.indexOf('|') + 1), have,
+                            want));
+                }
+            }
+
+            Map<String, HourlyTeamMemberRollup> expectedShifts = computeTeamMemberRollups(locationId, start,
+                    dayEnd);
+            Map<String, HourlyTeamMemberRollup> storedShifts = new HashMap<>();
+            for (HourlyTeamMemberRollup row : teamMemberRollupRepository.findInRange(locationId, start, dayEnd)) {
+                storedShifts.put(row.getHourStart() + "|" + row.getTeamMemberId(), row);
+            }
+            teamMemberRows += storedShifts.size();
+            for (String key : union(expectedShifts.keySet(), storedShifts.keySet())) {
+                String want = describe(expectedShifts.get(key));
+                String have = describe(storedShifts.get(key));
+                if (!want.equals(have)) {
+                    Instant hour = (expectedShifts.containsKey(key) ? expectedShifts.get(key)
+                            : storedShifts.get(key)).getHourStart();
+                    mismatches.add(new Mismatch(hour, "teamMember:" + key.substring(key.indexOf('|') + 1), have,
+                            want));
+                }
+            }
+        }
+        return new CheckResult(locationId, from, to, categoryRows, teamMemberRows, mismatches);
+    }
+
+    /** Revenue over {@code [from, to)} summed from the category rollups. */
+    public Summary summarize(String locationId, Instant from, Instant to) {
+        long revenueCents = 0;
+        long itemCount = 0;
+        Map<String, Long> byCategory = new TreeMap<>();
+        Map<LocalDate, Long> byDay = new TreeMap<>();
+        for (HourlyCategoryRollup row : categoryRollupRepository.findInRange(locationId, from, to)) {
+            revenueCents += row.getRevenueCents();
+            itemCount += row.getItemCount();
+            byCategory.merge(row.getCategory(), row.getRevenueCents(), Long::sum);
+            byDay.merge(LocalDate.ofInstant(row.getHourStart(), ZoneId.systemDefault()), row.getRevenueCents(),
+                    Long::sum);
+        }
+        return new Summary(revenueCents, itemCount, byCategory, byDay);
+    }
+
+    /**
+     * Category rollups from the completed orders closed in {@code [start, end)},
+     * keyed by "hourStart|category". Follows the same revenue rules as the
+     * hourly insight: line items at gross sales by catalog category, service
+     * charges as "Surcharges", and orders without line items as "Custom Amount"
+     * net of tip.
+     */
+    private Map<String, HourlyCategoryRollup> computeCategoryRollups(String locationId, Instant start, Instant end,
+            Map<String, String> variationToCategoryMap) {
+        Map<String, HourlyCategoryRollup> rollups = new HashMap<>();
+        for (SquareOrder stored : orderRepository.findClosedBetween(locationId, OrderWarehouseService.COMPLETED,
+                start, end)) {
+            ParsedOrder order = ParsedOrder.from(stored);
+            if (order == null) {
+                continue;
+            }
+            Instant hour = hourOf(stored.getClosedAt());
+            java.util.Set<String> categoriesInOrder = new java.util.HashSet<>();
+
+            if (!order.lineItems().isEmpty()) {
+                for (ParsedOrder.LineItem item : order.lineItems()) {
+                    String category = "Uncategorized";
+                    if (item.catalogObjectId() != null && variationToCategoryMap.containsKey(item.catalogObjectId())) {
+                        category = variationToCategoryMap.get(item.catalogObjectId());
+                    }
+                    add(rollups, locationId, hour, category, item.amountCents(), item.quantity(), categoriesInOrder);
+                }
+                for (long scCents : order.serviceChargeCents()) {
+                    add(rollups, locationId, hour, "Surcharges", scCents, 0, categoriesInOrder);
+                }
+            } else if (order.totalCents() != null) {
+                long customCents = order.totalCents() - (order.tipCents() != null ? order.tipCents() : 0);
+                add(rollups, locationId, hour, "Custom Amount", customCents, 1, categoriesInOrder);
+            }
+        }
+        return rollups;
+    }
+
+    private static void add(Map<String, HourlyCategoryRollup> rollups, String locationId, Instant hour,
+            String category, long cents, long items, java.util.Set<String> categoriesInOrder) {
+        HourlyCategoryRollup rollup = rollups.computeIfAbsent(hour + "|" + category,
+                k -> new HourlyCategoryRollup(locationId, hour, category));
+        rollup.setRevenueCents(rollup.getRevenueCents() + cents);
+        rollup.setItemCount(rollup.getItemCount() + items);
+        if (categoriesInOrder.add(category)) {
+            rollup.setOrderCount(rollup.getOrderCount() + 1);
+        }
+    }
+
+    /**
+     * Minutes on shift per hour and team member over {@code [start, end)},
+     * keyed by "hourStart|teamMemberId". Shifts still open count up to now.
+     */
+    private Map<String, HourlyTeamMemberRollup> computeTeamMemberRollups(String locationId, Instant start,
+            Instant end) {
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDateTime rangeStart = LocalDateTime.ofInstant(start, zone);
+        LocalDateTime rangeEnd = LocalDateTime.ofInstant(end, zone);
+        LocalDateTime now = LocalDateTime.now();
+
+        // Square filters shifts by start time, so look back a day for shifts
+        // already running when the range begins
+        Map<String, HourlyTeamMemberRollup> rollups = new HashMap<>();
+        for (com.squareup.square.types.Shift shift : squareService.fetchSquareShifts(locationId,
+                rangeStart.minusDays(1), rangeEnd)) {
+            if (!locationId.equals(shift.getLocationId())) {
+                continue;
+            }
+            ParsedShift parsed = ParsedShift.from(shift, now);
+            if (parsed == null || parsed.teamMemberId() == null || parsed.end() == null) {
+                continue;
+            }
+            LocalDateTime from = parsed.start().isAfter(rangeStart) ? parsed.start() : rangeStart;
+            LocalDateTime to = parsed.end().isBefore(rangeEnd) ? parsed.end() : rangeEnd;
+            for (LocalDateTime hour = from.truncatedTo(ChronoUnit.HOURS); hour.isBefore(to); hour = hour
+                    .plusHours(1)) {
+                LocalDateTime overlapStart = from.isAfter(hour) ? from : hour;
+                LocalDateTime overlapEnd = to.isBefore(hour.plusHours(1)) ? to : hour.plusHours(1);
+                long minutes = Duration.between(overlapStart, overlapEnd).toMinutes();
+                Instant hourStart = hour.atZone(zone).toInstant();
+
+                HourlyTeamMemberRollup rollup = rollups.computeIfAbsent(hourStart + "|" + parsed.teamMemberId(),
+                        k -> new HourlyTeamMemberRollup(locationId, hourStart, parsed.teamMemberId()));
+                rollup.setShiftMinutes(rollup.getShiftMinutes() + minutes);
+                rollup.setShiftCount(rollup.getShiftCount() + 1);
+            }
+        }
+        return rollups;
+    }
+
+    static Instant hourOf(Instant instant) {
+        ZoneId zone = ZoneId.systemDefault();
+        return LocalDateTime.ofInstant(instant, zone).truncatedTo(ChronoUnit.HOURS).atZone(zone).toInstant();
+    }
+
+    private static Instant min(Instant a, Instant b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static TreeSet<String> union(Collection<String> a, Collection<String> b) {
+        TreeSet<String> keys = new TreeSet<>(a);
+        keys.addAll(b);
+        return keys;
+    }
+
+    private static String describe(HourlyCategoryRollup row) {
+        return row == null ? "none"
+                : row.getRevenueCents() + "c/" + row.getItemCount() + " items/" + row.getOrderCount() + " orders";
+    }
+
+    private static String describe(HourlyTeamMemberRollup row) {
+        return row == null ? "none" : row.getShiftMinutes() + " min/" + row.getShiftCount() + " shifts";
+    }
+}
@@ -0,0 +1,216 @@
+package com.hospomate.service;
+
+import com.hospomate.dto.RosterSimulationDTO;
+import com.hospomate.dto.RosterSlotDTO;
+import com.hospomate.model.HourlyCategoryRollup;
+import com.hospomate.model.Shift;
+import com.hospomate.model.Staff;
+import com.hospomate.model.Store;
+import com.hospomate.repository.HourlyCategoryRollupRepository;
+import com.hospomate.repository.StaffRepository;
+import com.hospomate.repository.StoreRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What-if evaluation of a proposed roster against historical demand.
+ *
+ * Each store's demand profile (expected revenue per day of week and hour, the
+ * mean of the last {@code insights.demand-profile.weeks} full weeks of hourly
+ * rollups) is built once and held in the {@value #PROFILE_CACHE} cache, so a
+ * simulation touches no table other than the store's staff rates and can be
+ * re-run on every roster edit. The roster is laid over the week's 168 hours
+ * and priced at each staff member's hourly rate.
+ */
+@Service
+public class RosterSimulationService {
+
+    /** Demand profiles, keyed by store ID. */
+    public static final String PROFILE_CACHE = "demandProfiles";
+
+    private final StoreRepository storeRepository;
+    private final StaffRepository staffRepository;
+    private final HourlyCategoryRollupRepository categoryRollupRepository;
+    private final SquareService squareService;
+    private final CacheManager cacheManager;
+    private final int profileWeeks;
+
+    public RosterSimulationService(StoreRepository storeRepository,
+            StaffRepository staffRepository,
+            HourlyCategoryRollupRepository categoryRollupRepository,
+            SquareService squareService,
+            CacheManager cacheManager,
+            @Value("${insights.demand-profile.weeks:8}") int profileWeeks) {
+        this.storeRepository = storeRepository;
+        this.staffRepository = staffRepository;
+        this.categoryRollupRepository = categoryRollupRepository;
+        this.squareService = squareService;
+        this.cacheManager = cacheManager;
+        this.profileWeeks = profileWeeks;
+    }
+
+    /**
+     * Projected revenue, labour cost and underutilised hours for {@code roster}
+     * in the week starting {@code weekStart}. Shifts only need staff (by ID),
+     * start and end times.
+     *
+     * @throws IllegalArgumentException for a shift without times or staff
+     */
+    public RosterSimulationDTO simulate(Long storeId, LocalDate weekStart, List<Shift> roster) {
+        Store store = storeRepository.findById(storeId).orElseThrow(() -> new RuntimeException("Store not found"));
+        Map<Long, Long> rateCentsByStaff = new HashMap<>();
+        for (Staff staff : staffRepository.findByStoreId(storeId)) {
+            if (staff.getHourlyRate() != null) {
+                rateCentsByStaff.put(staff.getId(), toCents(staff.getHourlyRate()));
+            }
+        }
+        BigDecimal threshold = store.getRevenuePerLabourHourThreshold() != null
+                ? store.getRevenuePerLabourHourThreshold()
+                : new BigDecimal("50.00");
+        return simulate(weekStart, roster, profile(storeId), rateCentsByStaff, threshold);
+    }
+
+    DemandProfile profile(Long storeId) {
+        Cache cache = cacheManager.getCache(PROFILE_CACHE);
+        if (cache == null) {
+            return buildProfile(storeId, LocalDate.now());
+        }
+        return cache.get(storeId, () -> buildProfile(storeId, LocalDate.now()));
+    }
+
+    /** Mean revenue per hour of the week over the full weeks before {@code today}'s. */
+    DemandProfile buildProfile(Long storeId, LocalDate today) {
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate end = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate start = end.minusWeeks(profileWeeks);
+        List<HourlyCategoryRollup> rows = categoryRollupRepository.findInRange(squareService.getLocationId(storeId),
+                start.atStartOfDay(zone).toInstant(), end.atStartOfDay(zone).toInstant());
+
+        long[] totals = new long[DemandProfile.SLOTS];
+        boolean[] traded = new boolean[profileWeeks];
+        for (HourlyCategoryRollup row : rows) {
+            LocalDateTime hour = LocalDateTime.ofInstant(row.getHourStart(), zone);
+            totals[DemandProfile.slotOf(hour)] += row.getRevenueCents();
+            traded[(int) (ChronoUnit.DAYS.between(start, hour.toLocalDate()) / 7)] = true;
+        }
+        int weeks = 0;
+        for (boolean week : traded) {
+            weeks += week ? 1 : 0;
+        }
+        if (weeks > 0) {
+            for (int slot = 0; slot < totals.length; slot++) {
+                totals[slot] = Math.round((double) totals[slot] / weeks);
+            }
+        }
+        return new DemandProfile(totals, weeks);
+    }
+
+    /** Rates and history changed: rebuild the store's profile on next use. */
+    @EventListener
+    public void onSettingsChanged(InsightSettingsChangedEvent event) {
+        Cache cache = cacheManager.getCache(PROFILE_CACHE);
+        if (cache != null) {
+            cache.evict(event.storeId());
+        }
+    }
+
+    static RosterSimulationDTO simulate(LocalDate weekStart, List<Shift> roster, DemandProfile profile,
+            Map<Long, Long> rateCentsByStaff, BigDecimal threshold) {
+        LocalDateTime weekStartTime = weekStart.atStartOfDay();
+        LocalDateTime weekEnd = weekStartTime.plusWeeks(1);
+        long[] minutes = new long[DemandProfile.SLOTS];
+        // Cents times minutes, divided by 60 once at the end
+        long[] costUnits = new long[DemandProfile.SLOTS];
+        int[] staffCount = new int[DemandProfile.SLOTS];
+
+        for (Shift shift : roster) {
+            if (shift.getStartTime() == null || shift.getEndTime() == null
+                    || !shift.getStartTime().isBefore(shift.getEndTime())) {
+                throw new IllegalArgumentException("Every shift needs a start time before its end time");
+            }
+            if (shift.getStaff() == null) {
+                throw new IllegalArgumentException("Every shift needs a staff member");
+            }
+            long rateCents = rateCentsByStaff.getOrDefault(shift.getStaff().getId(),
+                    shift.getStaff().getHourlyRate() != null ? toCents(shift.getStaff().getHourlyRate()) : 0L);
+            LocalDateTime from = shift.getStartTime().isAfter(weekStartTime) ? shift.getStartTime() : weekStartTime;
+            LocalDateTime to = shift.getEndTime().isBefore(weekEnd) ? shift.getEndTime() : weekEnd;
+            for (LocalDateTime hour = from.truncatedTo(ChronoUnit.HOURS); hour.isBefore(to); hour = hour
+                    .plusHours(1)) {
+                LocalDateTime overlapStart = from.isAfter(hour) ? from : hour;
+                LocalDateTime overlapEnd = to.isBefore(hour.plusHours(1)) ? to : hour.plusHours(1);
+                long overlap = Duration.between(overlapStart, overlapEnd).toMinutes();
+                int slot = (int) ChronoUnit.HOURS.between(weekStartTime, hour);
+                minutes[slot] += overlap;
+                costUnits[slot] += rateCents * overlap;
+                staffCount[slot]++;
+            }
+        }
+
+        List<RosterSlotDTO> slots = new ArrayList<>(DemandProfile.SLOTS);
+        long totalRevenue = 0;
+        long totalMinutes = 0;
+        long totalCostUnits = 0;
+        int underutilisedHours = 0;
+        for (int slot = 0; slot < DemandProfile.SLOTS; slot++) {
+            LocalDateTime startTime = weekStartTime.plusHours(slot);
+            long revenueCents = profile.revenueCents(DemandProfile.slotOf(startTime));
+            RosterSlotDTO dto = new RosterSlotDTO();
+            dto.setStartTime(startTime);
+            dto.setProjectedRevenue(BigDecimal.valueOf(revenueCents, 2));
+            dto.setStaffCount(staffCount[slot]);
+            dto.setLabourHours(LabourCostService.hoursOf(minutes[slot]));
+            dto.setLabourCost(LabourCostService.costOf(costUnits[slot]));
+            dto.setLabourCostPercent(LabourCostService.percentOf(costUnits[slot], revenueCents));
+            // Same test as the dashboard: the hour's revenue per staff member on, in
+            // cents rounded half up, below the threshold
+            boolean underutilised = false;
+            if (staffCount[slot] > 0) {
+                BigDecimal revenuePerStaff = BigDecimal.valueOf(revenueCents, 2)
+                        .divide(BigDecimal.valueOf(staffCount[slot]), 2, RoundingMode.HALF_UP);
+                dto.setRevenuePerStaff(revenuePerStaff);
+                underutilised = revenuePerStaff.compareTo(threshold) < 0;
+            }
+            dto.setUnderutilised(underutilised);
+            slots.add(dto);
+
+            totalRevenue += revenueCents;
+            totalMinutes += minutes[slot];
+            totalCostUnits += costUnits[slot];
+            underutilisedHours += underutilised ? 1 : 0;
+        }
+
+        RosterSimulationDTO simulation = new RosterSimulationDTO();
+        simulation.setWeekStart(weekStart);
+        simulation.setProjectedRevenue(BigDecimal.valueOf(totalRevenue, 2));
+        simulation.setLabourHours(LabourCostService.hoursOf(totalMinutes));
+        simulation.setLabourCost(LabourCostService.costOf(totalCostUnits));
+        simulation.setLabourCostPercent(LabourCostService.percentOf(totalCostUnits, totalRevenue));
+        simulation.setRevenuePerLabourHour(LabourCostService.perLabourHour(totalRevenue, totalMinutes));
+        simulation.setUnderutilisedHours(underutilisedHours);
+        simulation.setWeeksOfHistory(profile.weeks());
+        simulation.setSlots(slots);
+        return simulation;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+}
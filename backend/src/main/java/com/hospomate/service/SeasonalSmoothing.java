@@ -0,0 +1,130 @@
+package com.hospomate.service;
+
+import com.hospomate.model.DemandForecastModel;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Additive Holt-Winters with a damped trend over an hourly series whose
+ * season is the 168 hours of the week (slots as in {@link DemandProfile}).
+ *
+ * Each hour moves the level and trend a little and that hour-of-week's
+ * seasonal term by {@code gamma}, so an update is a handful of multiplies and
+ * a year of one store trains in well under a millisecond. The one-step squared
+ * error is smoothed per slot at the same rate as the seasonal term and gives
+ * the prediction interval, widened with the horizon by the usual
+ * {@code 1 + (h - 1) * alpha^2} factor for the level's drift.
+ */
+public final class SeasonalSmoothing {
+
+    /** Smoothing rates and trend damping, all in (0, 1]. */
+    public record Parameters(double alpha, double beta, double gamma, double phi) {
+    }
+
+    private final Parameters parameters;
+    private double level;
+    private double trend;
+    private final double[] seasonal;
+    private final double[] squaredError;
+    private long observations;
+
+    private SeasonalSmoothing(Parameters parameters, double level, double trend, double[] seasonal,
+            double[] squaredError, long observations) {
+        this.parameters = parameters;
+        this.level = level;
+        this.trend = trend;
+        this.seasonal = seasonal;
+        this.squaredError = squaredError;
+        this.observations = observations;
+    }
+
+    /**
+     * Starts a model from the first week of history: the level is the week's
+     * mean and each slot's seasonal term its difference from it.
+     *
+     * @param firstWeek one value per slot
+     */
+    public static SeasonalSmoothing initialise(Parameters parameters, double[] firstWeek) {
+        if (firstWeek.length != DemandProfile.SLOTS) {
+            throw new IllegalArgumentException("Expected " + DemandProfile.SLOTS + " hourly slots");
+        }
+        double mean = 0;
+        for (double value : firstWeek) {
+            mean += value;
+        }
+        mean /= firstWeek.length;
+        double[] seasonal = new double[DemandProfile.SLOTS];
+        for (int slot = 0; slot < seasonal.length; slot++) {
+            seasonal[slot] = firstWeek[slot] - mean;
+        }
+        return new SeasonalSmoothing(parameters, mean, 0, seasonal, new double[DemandProfile.SLOTS],
+                DemandProfile.SLOTS);
+    }
+
+    public static SeasonalSmoothing restore(Parameters parameters, DemandForecastModel model) {
+        return new SeasonalSmoothing(parameters, model.getLevel(), model.getTrend(), decode(model.getSeasonal()),
+                decode(model.getSquaredError()), model.getObservations());
+    }
+
+    public void saveTo(DemandForecastModel model) {
+        model.setLevel(level);
+        model.setTrend(trend);
+        model.setSeasonal(encode(seasonal));
+        model.setSquaredError(encode(squaredError));
+        model.setObservations(observations);
+    }
+
+    /** Folds in the value observed in {@code slot}, the hour after the last one seen. */
+    public void update(int slot, double value) {
+        double alpha = parameters.alpha();
+        double gamma = parameters.gamma();
+        double damped = parameters.phi() * trend;
+        double error = value - (level + damped + seasonal[slot]);
+
+        double previousLevel = level;
+        level = alpha * (value - seasonal[slot]) + (1 - alpha) * (previousLevel + damped);
+        trend = parameters.beta() * (level - previousLevel) + (1 - parameters.beta()) * damped;
+        seasonal[slot] = gamma * (value - level) + (1 - gamma) * seasonal[slot];
+        squaredError[slot] = gamma * error * error + (1 - gamma) * squaredError[slot];
+        observations++;
+    }
+
+    /** Point forecast {@code hoursAhead} (1 = the next hour) hours on, in {@code slot}. */
+    public double forecast(int hoursAhead, int slot) {
+        double phi = parameters.phi();
+        // phi + phi^2 + ... + phi^h
+        double dampedSteps = phi == 1 ? hoursAhead : phi * (1 - Math.pow(phi, hoursAhead)) / (1 - phi);
+        return level + dampedSteps * trend + seasonal[slot];
+    }
+
+    /** Standard error of {@link #forecast(int, int)}. */
+    public double standardError(int hoursAhead, int slot) {
+        // Error smoothing starts at zero; divide by the weight it has built up since
+        double weeks = (double) (observations - DemandProfile.SLOTS) / DemandProfile.SLOTS;
+        double weight = 1 - Math.pow(1 - parameters.gamma(), Math.max(weeks, 0));
+        if (weight <= 0) {
+            return 0;
+        }
+        double alpha = parameters.alpha();
+        return Math.sqrt(squaredError[slot] / weight * (1 + (hoursAhead - 1) * alpha * alpha));
+    }
+
+    public long observations() {
+        return observations;
+    }
+
+    private static byte[] encode(double[] values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * Double.BYTES);
+        buffer.asDoubleBuffer().put(values);
+        return buffer.array();
+    }
+
+    private static double[] decode(byte[] bytes) {
+        double[] values = new double[DemandProfile.SLOTS];
+        if (bytes == null || bytes.length != values.length * Double.BYTES) {
+            throw new IllegalStateException("Stored forecast model has an unexpected shape");
+        }
+        ByteBuffer.wrap(bytes).asDoubleBuffer().get(values);
+        return values;
+    }
+}
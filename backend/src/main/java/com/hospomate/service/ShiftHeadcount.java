@@ -0,0 +1,62 @@
+package com.hospomate.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * Headcount per time slot from a set of shifts, in one pass.
+ *
+ * A shift counts in a slot under the same predicate as {@link ParsedShift#overlaps}
+ * and the shift repository's JPQL: {@code start < slotEnd && (end == null || end > slotStart)}.
+ * A null end is an open shift (still clocked in) and a null start never counts.
+ */
+public final class ShiftHeadcount {
+
+    private ShiftHeadcount() {
+    }
+
+    /**
+     * Number of shifts on during each slot {@code [origin + i * slot, origin +
+     * (i + 1) * slot)}. Each shift covers the run of slots from the one holding
+     * its start to the last one starting before its end, so the counts come
+     * from one sweep over a difference array rather than a scan per slot.
+     */
+    public static <T> int[] perSlot(Collection<T> shifts, Function<T, LocalDateTime> start,
+            Function<T, LocalDateTime> end, LocalDateTime origin, int slotCount, Duration slot) {
+        long originNanos = toNanos(origin);
+        long slotNanos = slot.toNanos();
+        int[] delta = new int[slotCount + 1];
+        for (T shift : shifts) {
+            LocalDateTime shiftStart = shift != null ? start.apply(shift) : null;
+            if (shiftStart == null) {
+                continue;
+            }
+            LocalDateTime shiftEnd = end.apply(shift);
+            // start < origin + (k + 1) * slot  <=>  k >= floor((start - origin) / slot)
+            long from = Math.floorDiv(toNanos(shiftStart) - originNanos, slotNanos);
+            // end > origin + k * slot  <=>  k < ceil((end - origin) / slot)
+            long to = shiftEnd == null ? slotCount : -Math.floorDiv(originNanos - toNanos(shiftEnd), slotNanos);
+            from = Math.max(0, from);
+            to = Math.min(slotCount, to);
+            if (from < to) {
+                delta[(int) from]++;
+                delta[(int) to]--;
+            }
+        }
+
+        int[] headcount = new int[slotCount];
+        int running = 0;
+        for (int i = 0; i < slotCount; i++) {
+            running += delta[i];
+            headcount[i] = running;
+        }
+        return headcount;
+    }
+
+    private static long toNanos(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + time.getNano();
+    }
+}
@@ -0,0 +1,47 @@
+package com.hospomate.service;
+
+import com.hospomate.config.ShiftClockRangeSchema;
+import com.hospomate.model.Shift;
+import com.hospomate.repository.ShiftRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * "Who was on shift during [start, end)" for a store's own (clocked) shifts,
+ * answered by the GiST-indexed range query on PostgreSQL and the plain JPQL
+ * predicate elsewhere, with per-slot headcounts from {@link ShiftHeadcount}.
+ */
+@Service
+public class ShiftOverlapService {
+
+    private final ShiftRepository shiftRepository;
+    private final ShiftClockRangeSchema clockRangeSchema;
+
+    public ShiftOverlapService(ShiftRepository shiftRepository, ShiftClockRangeSchema clockRangeSchema) {
+        this.shiftRepository = shiftRepository;
+        this.clockRangeSchema = clockRangeSchema;
+    }
+
+    public List<Shift> findActiveShifts(Long storeId, LocalDateTime start, LocalDateTime end) {
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("start must be before end");
+        }
+        if (clockRangeSchema.isAvailable()) {
+            return shiftRepository.findActiveShiftsByStoreAndClockRange(storeId, start, end);
+        }
+        return shiftRepository.findActiveShiftsByStoreAndTimeRange(storeId, start, end);
+    }
+
+    /**
+     * Clocked-in headcount for each slot from {@code start}, the last slot
+     * being cut short at {@code end}. Open shifts count until {@code end}.
+     */
+    public int[] headcountPerSlot(Long storeId, LocalDateTime start, LocalDateTime end, Duration slot) {
+        int slotCount = (int) ((Duration.between(start, end).toNanos() + slot.toNanos() - 1) / slot.toNanos());
+        List<Shift> shifts = findActiveShifts(storeId, start, end);
+        return ShiftHeadcount.perSlot(shifts, Shift::getClockInTime, Shift::getClockOutTime, start, slotCount, slot);
+    }
+}
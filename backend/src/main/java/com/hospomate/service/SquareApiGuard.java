@@ -0,0 +1,229 @@
+package com.hospomate.service;
+
+import com.squareup.square.core.SquareApiException;
+import com.squareup.square.core.SquareException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Guards every call to the Square API made with a given access token.
+ *
+ * Each access token gets a token-bucket request budget and a circuit breaker.
+ * A call waits for a token, then runs; 429s, 5xx responses and network errors
+ * are retried with jittered exponential backoff. Other 4xx responses are
+ * thrown straight away. Callers walking a cursor chain guard each page on its
+ * own, so a retry re-requests only the page that failed.
+ *
+ * When retries run out or the breaker is open, the call fails with
+ * {@link SquareUnavailableException} instead of returning a partial result.
+ */
+public class SquareApiGuard {
+
+    private static final Logger logger = LoggerFactory.getLogger(SquareApiGuard.class);
+
+    public record Settings(
+            double requestsPerSecond,
+            int burst,
+            int maxAttempts,
+            Duration baseBackoff,
+            Duration maxBackoff,
+            int failureThreshold,
+            Duration openDuration) {
+    }
+
+    private final Settings settings;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public SquareApiGuard(Settings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Runs {@code request} against Square under the budget and breaker for
+     * {@code accessToken}. {@code operation} only labels logs and errors.
+     */
+    public <T> T call(String accessToken, String operation, Supplier<T> request) {
+        TokenBucket bucket = buckets.computeIfAbsent(accessToken,
+                t -> new TokenBucket(settings.requestsPerSecond(), settings.burst()));
+        CircuitBreaker breaker = breakers.computeIfAbsent(accessToken,
+                t -> new CircuitBreaker(settings.failureThreshold(), settings.openDuration()));
+
+        SquareException lastFailure = null;
+        for (int attempt = 1; attempt <= settings.maxAttempts(); attempt++) {
+            if (!breaker.allowRequest()) {
+                throw new SquareUnavailableException(operation + ": Square circuit breaker is open",
+                        breaker.retryAfter(), lastFailure);
+            }
+            // Every path out of here records an outcome or hands back the half-open trial,
+            // or an interrupt or a bug in the request would leave the breaker rejecting for good
+            boolean recorded = false;
+            try {
+                sleep(bucket.reserve(), operation);
+                try {
+                    T result = request.get();
+                    breaker.onSuccess();
+                    recorded = true;
+                    return result;
+                } catch (SquareApiException e) {
+                    if (!isRetryable(e.statusCode())) {
+                        // Square answered; the request itself is wrong
+                        breaker.onSuccess();
+                        recorded = true;
+                        throw e;
+                    }
+                    lastFailure = e;
+                } catch (SquareException e) {
+                    lastFailure = e;
+                }
+                breaker.onFailure();
+                recorded = true;
+            } finally {
+                if (!recorded) {
+                    breaker.releaseTrial();
+                }
+            }
+
+            if (attempt < settings.maxAttempts()) {
+                Duration delay = backoff(attempt);
+                logger.warn("Square {} failed (attempt {}/{}): {}; retrying in {} ms", operation, attempt,
+                        settings.maxAttempts(), lastFailure.getMessage(), delay.toMillis());
+                sleep(delay, operation);
+            }
+        }
+        throw new SquareUnavailableException(
+                operation + ": Square request failed after " + settings.maxAttempts() + " attempts",
+                breaker.retryAfter(), lastFailure);
+    }
+
+    static boolean isRetryable(int statusCode) {
+        return statusCode == 429 || statusCode >= 500;
+    }
+
+    /** Full jitter: a random delay up to the capped exponential backoff. */
+    private Duration backoff(int attempt) {
+        long cap = Math.min(settings.maxBackoff().toMillis(),
+                settings.baseBackoff().toMillis() * (1L << Math.min(attempt - 1, 20)));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(cap + 1));
+    }
+
+    private static void sleep(Duration delay, String operation) {
+        if (delay.isZero() || delay.isNegative()) {
+            return;
+        }
+        try {
+            Thread.sleep(delay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SquareUnavailableException(operation + ": interrupted while waiting for Square",
+                    Duration.ZERO, e);
+        }
+    }
+
+    /**
+     * Request budget refilled continuously at {@code ratePerSecond} up to
+     * {@code capacity}. Callers reserve a token up front and are told how long
+     * to wait for it, so waiting happens outside the lock and in arrival order.
+     */
+    static final class TokenBucket {
+        private final double ratePerSecond;
+        private final double capacity;
+        private double tokens;
+        private long lastRefillNanos;
+
+        TokenBucket(double ratePerSecond, int capacity) {
+            this.ratePerSecond = ratePerSecond;
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        synchronized Duration reserve() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) / 1e9 * ratePerSecond);
+            lastRefillNanos = now;
+
+            tokens -= 1;
+            if (tokens >= 0) {
+                return Duration.ZERO;
+            }
+            return Duration.ofNanos((long) Math.ceil(-tokens / ratePerSecond * 1e9));
+        }
+    }
+
+    /**
+     * Opens after {@code failureThreshold} consecutive failures and rejects
+     * calls for {@code openDuration}. After that a single trial call is let
+     * through: success closes the breaker, failure opens it again.
+     */
+    static final class CircuitBreaker {
+        enum State {
+            CLOSED, OPEN, HALF_OPEN
+        }
+
+        private final int failureThreshold;
+        private final Duration openDuration;
+        private State state = State.CLOSED;
+        private int consecutiveFailures;
+        private long openUntilNanos;
+        private boolean trialInFlight;
+
+        CircuitBreaker(int failureThreshold, Duration openDuration) {
+            this.failureThreshold = failureThreshold;
+            this.openDuration = openDuration;
+        }
+
+        synchronized boolean allowRequest() {
+            if (state == State.OPEN) {
+                if (System.nanoTime() - openUntilNanos < 0) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trialInFlight = false;
+            }
+            if (state == State.HALF_OPEN) {
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+            }
+            return true;
+        }
+
+        synchronized void onSuccess() {
+            state = State.CLOSED;
+            consecutiveFailures = 0;
+            trialInFlight = false;
+        }
+
+        /** The call ended without a Square outcome: lets the next one be the trial. */
+        synchronized void releaseTrial() {
+            trialInFlight = false;
+        }
+
+        synchronized void onFailure() {
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+                if (state != State.OPEN) {
+                    logger.warn("Square circuit breaker opened after {} consecutive failures", consecutiveFailures);
+                }
+                state = State.OPEN;
+                openUntilNanos = System.nanoTime() + openDuration.toNanos();
+                trialInFlight = false;
+            }
+        }
+
+        synchronized Duration retryAfter() {
+            if (state != State.OPEN) {
+                return Duration.ZERO;
+            }
+            return Duration.ofNanos(Math.max(0, openUntilNanos - System.nanoTime()));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.hospomate.service;
+
+import com.squareup.square.types.*;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+@Component
+public class SquareApiOrderFeed implements SquareOrderFeed {
+
+    private final SquareClientProvider clientProvider;
+    private final SquareLocations locations;
+
+    public SquareApiOrderFeed(SquareClientProvider clientProvider, SquareLocations locations) {
+        this.clientProvider = clientProvider;
+        this.locations = locations;
+    }
+
+    @Override
+    public Page ordersUpdatedSince(String locationId, Instant since, String cursor) {
+        // Square requires the sort field to match the date-time filter field
+        return search(locationId, SearchOrdersDateTimeFilter.builder()
+                .updatedAt(TimeRange.builder()
+                        .startAt(since.toString())
+                        .build())
+                .build(),
+                SearchOrdersSort.builder()
+                        .sortField(SearchOrdersSortField.UPDATED_AT)
+                        .sortOrder(SortOrder.ASC)
+                        .build(),
+                cursor);
+    }
+
+    @Override
+    public Page ordersClosedBetween(String locationId, Instant start, Instant end, String cursor) {
+        return search(locationId, SearchOrdersDateTimeFilter.builder()
+                .closedAt(TimeRange.builder()
+                        .startAt(start.toString())
+                        .endAt(end.toString())
+                        .build())
+                .build(),
+                SearchOrdersSort.builder()
+                        .sortField(SearchOrdersSortField.CLOSED_AT)
+                        .sortOrder(SortOrder.ASC)
+                        .build(),
+                cursor);
+    }
+
+    private Page search(String locationId, SearchOrdersDateTimeFilter dateTimeFilter, SearchOrdersSort sort,
+            String cursor) {
+        SearchOrdersRequest.Builder requestBuilder = SearchOrdersRequest.builder()
+                .locationIds(List.of(locationId))
+                .query(SearchOrdersQuery.builder()
+                        .filter(SearchOrdersFilter.builder()
+                                .dateTimeFilter(dateTimeFilter)
+                                .build())
+                        .sort(sort)
+                        .build())
+                .limit(500) // SearchOrders allows up to 1000 per page, unlike the labor endpoints
+                .returnEntries(false); // We want the full order object, not just an entry
+
+        if (cursor != null) {
+            requestBuilder.cursor(cursor);
+        }
+
+        SearchOrdersRequest request = requestBuilder.build();
+        SearchOrdersResponse response = clientProvider.execute(locations.accessToken(locationId), "orders.search",
+                client -> client.orders().search(request));
+        return new Page(response.getOrders().orElse(List.of()), response.getCursor().orElse(null));
+    }
+}
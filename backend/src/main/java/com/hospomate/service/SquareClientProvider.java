@@ -0,0 +1,85 @@
+package com.hospomate.service;
+
+import com.squareup.square.SquareClient;
+import com.squareup.square.core.Environment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Builds the shared Square SDK client from the configured access token and
+ * environment, so every component talking to Square uses the same client.
+ * Stores on their own Square account get one client per access token.
+ * Calls go through {@link #execute}, which applies the access token's rate
+ * budget, retries and circuit breaker.
+ */
+@Component
+public class SquareClientProvider {
+
+    private final String accessToken;
+    private final String environment;
+    private final String baseUrl;
+    private final SquareApiGuard guard;
+
+    private final java.util.Map<String, SquareClient> clients = new java.util.concurrent.ConcurrentHashMap<>();
+
+    @org.springframework.beans.factory.annotation.Autowired
+    public SquareClientProvider(
+            @Value("${square.access.token}") String accessToken,
+            @Value("${square.environment}") String environment,
+            @Value("${square.base-url:}") String baseUrl,
+            @Value("${square.rate-limit.requests-per-second:10}") double requestsPerSecond,
+            @Value("${square.rate-limit.burst:20}") int burst,
+            @Value("${square.retry.max-attempts:4}") int maxAttempts,
+            @Value("${square.retry.base-backoff-ms:250}") long baseBackoffMs,
+            @Value("${square.retry.max-backoff-ms:8000}") long maxBackoffMs,
+            @Value("${square.circuit-breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${square.circuit-breaker.open-seconds:30}") long openSeconds) {
+        this(accessToken, environment, baseUrl, new SquareApiGuard(new SquareApiGuard.Settings(requestsPerSecond,
+                burst, maxAttempts, Duration.ofMillis(baseBackoffMs), Duration.ofMillis(maxBackoffMs),
+                failureThreshold, Duration.ofSeconds(openSeconds))));
+    }
+
+    SquareClientProvider(String accessToken, String environment, String baseUrl, SquareApiGuard guard) {
+        this.accessToken = accessToken;
+        this.environment = environment;
+        this.baseUrl = baseUrl;
+        this.guard = guard;
+    }
+
+    public SquareClient getClient() {
+        return getClient(accessToken);
+    }
+
+    public SquareClient getClient(String token) {
+        return clients.computeIfAbsent(token, t -> {
+            var builder = SquareClient.builder()
+                    .token(t)
+                    .environment(environment.equalsIgnoreCase("sandbox") ? Environment.SANDBOX : Environment.PRODUCTION)
+                    // Retries are handled by SquareApiGuard so they share the rate budget
+                    .maxRetries(0);
+            if (baseUrl != null && !baseUrl.isBlank()) {
+                builder.url(baseUrl);
+            }
+            return builder.build();
+        });
+    }
+
+    /**
+     * Runs one Square request. Throws {@link SquareUnavailableException} when
+     * Square keeps failing, rather than letting the caller carry on with a
+     * partial result.
+     */
+    public <T> T execute(String operation, Function<SquareClient, T> request) {
+        return execute(accessToken, operation, request);
+    }
+
+    /** Runs one Square request with another account's access token, under that token's budget. */
+    public <T> T execute(String token, String operation, Function<SquareClient, T> request) {
+        String effectiveToken = token != null && !token.isBlank() ? token : accessToken;
+        SquareClient client = getClient(effectiveToken);
+        return guard.call(effectiveToken, operation, () -> request.apply(client));
+    }
+}
@@ -0,0 +1,77 @@
+package com.hospomate.service;
+
+import com.hospomate.model.Store;
+import com.hospomate.repository.StoreRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Square location and access token per store. A store with its own
+ * {@code squareLocationId} (and, for a separate Square account, its own
+ * access token) is served from that location; every other store uses the
+ * configured {@code square.location.id} and {@code square.access.token}.
+ *
+ * Lookups are cached until {@link #invalidate()}, which store updates call.
+ */
+@Component
+public class SquareLocations {
+
+    private final StoreRepository storeRepository;
+    private final String defaultLocationId;
+    private final String defaultAccessToken;
+
+    private final Map<Long, String> locationByStore = new ConcurrentHashMap<>();
+    private final Map<String, String> tokenByLocation = new ConcurrentHashMap<>();
+
+    public SquareLocations(StoreRepository storeRepository,
+            @Value("${square.location.id}") String defaultLocationId,
+            @Value("${square.access.token:}") String defaultAccessToken) {
+        this.storeRepository = storeRepository;
+        this.defaultLocationId = defaultLocationId;
+        this.defaultAccessToken = defaultAccessToken;
+    }
+
+    public String defaultLocationId() {
+        return defaultLocationId;
+    }
+
+    public String locationId(Long storeId) {
+        if (storeId == null) {
+            return defaultLocationId;
+        }
+        return locationByStore.computeIfAbsent(storeId, id -> storeRepository.findById(id)
+                .map(Store::getSquareLocationId)
+                .filter(location -> !location.isBlank())
+                .orElse(defaultLocationId));
+    }
+
+    /** Access token for a location: the one stored with it, or the configured one. */
+    public String accessToken(String locationId) {
+        if (locationId == null || locationId.equals(defaultLocationId)) {
+            return defaultAccessToken;
+        }
+        return tokenByLocation.computeIfAbsent(locationId, id -> storeRepository
+                .findFirstBySquareLocationIdAndSquareAccessTokenIsNotNull(id)
+                .map(Store::getSquareAccessToken)
+                .filter(token -> !token.isBlank())
+                .orElse(defaultAccessToken));
+    }
+
+    /** The configured location followed by every location set on a store. */
+    public Set<String> locationIds() {
+        Set<String> locations = new LinkedHashSet<>();
+        locations.add(defaultLocationId);
+        locations.addAll(storeRepository.findSquareLocationIds());
+        return locations;
+    }
+
+    public void invalidate() {
+        locationByStore.clear();
+        tokenByLocation.clear();
+    }
+}
@@ -0,0 +1,28 @@
+package com.hospomate.service;
+
+import com.squareup.square.types.Order;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Source of raw Square orders for the local order warehouse. The production
+ * implementation pages through SearchOrders; tests plug in an in-memory feed.
+ * A null cursor on a returned page means the chain is exhausted.
+ */
+public interface SquareOrderFeed {
+
+    record Page(List<Order> orders, String cursor) {
+    }
+
+    /**
+     * Orders at the location whose {@code updated_at} is at or after
+     * {@code since}, oldest update first.
+     */
+    Page ordersUpdatedSince(String locationId, Instant since, String cursor);
+
+    /**
+     * Orders at the location closed within {@code [start, end)}.
+     */
+    Page ordersClosedBetween(String locationId, Instant start, Instant end, String cursor);
+}
@@ -0,0 +1,105 @@
+package com.hospomate.service;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * Per-location cache of Square reference data (team members, job titles,
+ * categories and the variation → category map).
+ *
+ * Entries expire after {@code ttl}; once an entry is older than
+ * {@code refreshAfter} the next read returns the current value and reloads it
+ * in the background, so analytics only block on Square for a cold location.
+ * A failed load is not cached: the caller sees the exception and a failed
+ * background refresh keeps the previous value.
+ */
+public class SquareReferenceDataCache {
+
+    public enum Kind {
+        TEAM_MEMBER_NAMES,
+        JOB_TITLES,
+        CATEGORY_NAMES,
+        VARIATION_CATEGORIES
+    }
+
+    public record Key(String locationId, Kind kind) {
+    }
+
+    private final LoadingCache<Key, Object> cache;
+    private final AtomicLong refreshes = new AtomicLong();
+
+    public SquareReferenceDataCache(BiFunction<String, Kind, Object> loader, Duration ttl, Duration refreshAfter,
+            long maxEntries, Executor executor) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .refreshAfterWrite(refreshAfter)
+                .executor(executor)
+                .recordStats()
+                .build(new CacheLoader<Key, Object>() {
+                    @Override
+                    public Object load(Key key) {
+                        return loader.apply(key.locationId(), key.kind());
+                    }
+
+                    @Override
+                    public Object reload(Key key, Object oldValue) {
+                        refreshes.incrementAndGet();
+                        return load(key);
+                    }
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String locationId, Kind kind) {
+        return (T) cache.get(new Key(locationId, kind));
+    }
+
+    /** Drops every cached kind for a location; the next read reloads from Square. */
+    public void invalidate(String locationId) {
+        for (Kind kind : Kind.values()) {
+            cache.invalidate(new Key(locationId, kind));
+        }
+    }
+
+    /** Drops one kind of reference data for every location. */
+    public void invalidate(Kind kind) {
+        cache.asMap().keySet().removeIf(key -> key.kind() == kind);
+    }
+
+    /** Reloads all cached entries in the background, keeping current values until they finish. */
+    public void refreshAll() {
+        cache.refreshAll(cache.asMap().keySet());
+    }
+
+    /** Queues a background load of every kind for a location. */
+    public void warm(String locationId) {
+        for (Kind kind : Kind.values()) {
+            cache.refresh(new Key(locationId, kind));
+        }
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("entries", cache.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("loadSuccesses", stats.loadSuccessCount());
+        result.put("loadFailures", stats.loadFailureCount());
+        result.put("refreshes", refreshes.get());
+        result.put("evictions", stats.evictionCount());
+        result.put("averageLoadMillis", stats.averageLoadPenalty() / 1_000_000.0);
+        return result;
+    }
+}
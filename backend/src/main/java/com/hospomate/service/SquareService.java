@@ -1,73 +1,141 @@
 package com.hospomate.service;
 
 import com.hospomate.dto.ShiftComparisonDTO;
-import com.squareup.square.core.Environment;
 import com.squareup.square.SquareClient;
 
 import com.squareup.square.types.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 @Service
 public class SquareService {
 
-    @Value("${square.access.token}")
-    private String accessToken;
-
-    @Value("${square.location.id}")
-    private String locationId;
-
-    @Value("${square.environment}")
-    private String environment;
+    private static final Logger logger = LoggerFactory.getLogger(SquareService.class);
 
     private String locationTimezone; // Cache timezone
-    private SquareClient squareClient;
 
-    public SquareService() {
+    private record OrderWindowKey(String locationId, LocalDateTime start, LocalDateTime end) {
     }
 
-    private SquareClient getClient() {
-        if (squareClient == null) {
-            squareClient = SquareClient.builder()
-                    .token(accessToken)
-                    .environment(environment.equalsIgnoreCase("sandbox") ? Environment.SANDBOX : Environment.PRODUCTION)
-                    .build();
-        }
-        return squareClient;
+    private final Map<OrderWindowKey, CompletableFuture<OrderWindow>> inFlightWindows = new ConcurrentHashMap<>();
+
+    private final SquareClientProvider clientProvider;
+    private final OrderWarehouseService orderWarehouse;
+    private final SquareLocations locations;
+    private final Executor squareFetchExecutor;
+    private final SquareReferenceDataCache referenceData;
+
+    public SquareService(SquareClientProvider clientProvider, OrderWarehouseService orderWarehouse,
+            SquareLocations locations,
+            @Qualifier("squareFetchExecutor") Executor squareFetchExecutor,
+            @Value("${square.reference-cache.ttl-minutes:60}") long referenceTtlMinutes,
+            @Value("${square.reference-cache.refresh-minutes:10}") long referenceRefreshMinutes,
+            @Value("${square.reference-cache.max-entries:200}") long referenceMaxEntries) {
+        this.clientProvider = clientProvider;
+        this.orderWarehouse = orderWarehouse;
+        this.locations = locations;
+        this.squareFetchExecutor = squareFetchExecutor;
+        this.referenceData = new SquareReferenceDataCache(this::loadReferenceData,
+                Duration.ofMinutes(referenceTtlMinutes), Duration.ofMinutes(referenceRefreshMinutes),
+                referenceMaxEntries, squareFetchExecutor);
+    }
+
+    /**
+     * Square location backing a store: its own location if set, otherwise the
+     * configured one.
+     */
+    public String getLocationId(Long storeId) {
+        return locations.locationId(storeId);
     }
 
     public Map<String, Object> getSquareShiftReport(Long storeId, LocalDateTime start,
             LocalDateTime end) {
 
+        // Start the independent fetches together: team members, scheduled and actual
+        // shifts (split into per-day windows) run on the Square fetch pool while the
+        // order window loads on this thread. Each phase records its wall-clock time.
+        long reportStart = System.nanoTime();
+        Map<String, Long> timings = new ConcurrentHashMap<>();
+        String location = getLocationId(storeId);
+
+        CompletableFuture<Map<String, String>> teamMembersFuture = CompletableFuture
+                .supplyAsync(() -> fetchTeamMemberNames(location), squareFetchExecutor)
+                .whenComplete((r, e) -> timings.put("teamMembers", elapsedMillis(reportStart)));
+        CompletableFuture<List<ScheduledShift>> scheduledFuture = fetchSplitByDay(start, end,
+                (from, to) -> fetchScheduledShiftsInWindow(location, from, to), sched -> sched.getId().orElse(null))
+                .whenComplete((r, e) -> timings.put("scheduledShifts", elapsedMillis(reportStart)));
+        CompletableFuture<List<Shift>> actualFuture = fetchSplitByDay(start, end,
+                (from, to) -> fetchSquareShiftsInWindow(location, from, to), shift -> shift.getId().orElse(null))
+                .whenComplete((r, e) -> timings.put("actualShifts", elapsedMillis(reportStart)));
+
+        // Daily Sales from the shared order window
+        OrderWindow orderWindow = fetchOrderWindow(storeId, start, end);
+        Map<String, Double> salesMap = orderWindow.getDailySales();
+        timings.put("dailySales", elapsedMillis(reportStart));
+
+        Map<String, String> squareStaffNames = join(teamMembersFuture);
+        logger.debug("Fetched {} team members", squareStaffNames.size());
+        List<ScheduledShift> scheduledShifts = join(scheduledFuture);
+        logger.debug("Fetched {} scheduled shifts", scheduledShifts.size());
+        List<Shift> actualShifts = join(actualFuture);
+        logger.debug("Fetched {} actual shifts", actualShifts.size());
+
+        List<com.hospomate.dto.ShiftReportDTO> report = mergeShiftReport(scheduledShifts, actualShifts,
+                squareStaffNames);
+
+        logger.debug("Returning report with {} entries", report.size());
+        timings.put("total", elapsedMillis(reportStart));
+
+        Map<String, Object> response = new java.util.HashMap<>();
+        response.put("shifts", report);
+        response.put("dailySales", salesMap);
+        // False when Square could not be reached to bring local orders up to date
+        response.put("complete", orderWindow.isComplete());
+        response.put("timings", new java.util.TreeMap<>(timings));
+
+        return response;
+    }
+
+    /**
+     * Merges Square scheduled shifts and timecards into one row per team member
+     * per day, with the variance between them, newest day first.
+     */
+    static List<com.hospomate.dto.ShiftReportDTO> mergeShiftReport(List<ScheduledShift> scheduledShifts,
+            List<Shift> actualShifts, Map<String, String> squareStaffNames) {
         // Map to merge Scheduled and Actual (Both from Square)
         // Key: "TeamMemberId|YYYY-MM-DD"
         Map<String, com.hospomate.dto.ShiftReportDTO> reportMap = new java.util.HashMap<>();
-        Map<String, String> squareStaffNames = fetchTeamMemberNames();
-        System.out.println("DEBUG: Fetched " + squareStaffNames.size() + " team members.");
-
-        // 1. Fetch Square Scheduled Shifts
-        List<ScheduledShift> scheduledShifts = fetchScheduledShifts(start, end);
-        System.out.println("DEBUG: Fetched " + scheduledShifts.size() + " scheduled shifts.");
 
+        // 1. Square Scheduled Shifts
         for (ScheduledShift sched : scheduledShifts) {
             ScheduledShiftDetails details = sched.getPublishedShiftDetails()
                     .orElse(sched.getDraftShiftDetails().orElse(null));
             if (details == null) {
-                System.out.println("DEBUG: Skipping scheduled shift with no details (ID: "
-                        + sched.getId().orElse("Unknown") + ")");
+                logger.debug("Skipping scheduled shift with no details (ID: {})", sched.getId().orElse("Unknown"));
                 continue;
             }
 
             String tmId = details.getTeamMemberId().orElse(null);
             if (tmId == null) {
-                System.out.println("DEBUG: Skipping scheduled shift with no TeamMemberId");
+                logger.debug("Skipping scheduled shift with no TeamMemberId");
                 continue;
             }
 
@@ -78,7 +146,7 @@ public class SquareService {
             LocalDateTime schedEnd = parseSquareTime(endAtStr);
 
             if (schedStart == null) {
-                System.out.println("DEBUG: Skipping scheduled shift with invalid start time: " + startAtStr);
+                logger.debug("Skipping scheduled shift with invalid start time: {}", startAtStr);
                 continue;
             }
 
@@ -99,12 +167,9 @@ public class SquareService {
             }
             reportMap.put(key, dto);
         }
-        System.out.println("DEBUG: Processed scheduled shifts. Map size: " + reportMap.size());
-
-        // 2. Fetch Square Shifts (Actual - Timecards)
-        List<Shift> actualShifts = fetchSquareShifts(start, end);
-        System.out.println("DEBUG: Fetched " + actualShifts.size() + " actual shifts.");
+        logger.debug("Processed scheduled shifts. Map size: {}", reportMap.size());
 
+        // 2. Square Shifts (Actual - Timecards)
         for (Shift actual : actualShifts) {
             String tmId = actual.getTeamMemberId().orElse(null);
             if (tmId == null)
@@ -164,16 +229,7 @@ public class SquareService {
             return a.getStaffName().compareTo(b.getStaffName());
         });
 
-        System.out.println("DEBUG: Returning report with " + report.size() + " entries.");
-
-        // 4. Fetch Daily Sales
-        Map<String, Double> salesMap = fetchDailySales(start, end);
-
-        Map<String, Object> response = new java.util.HashMap<>();
-        response.put("shifts", report);
-        response.put("dailySales", salesMap);
-
-        return response;
+        return report;
     }
 
     // Deprecated or Modified: compareShifts (keeping for backward compat if needed,
@@ -184,270 +240,289 @@ public class SquareService {
     }
 
     public List<Shift> fetchSquareShifts(LocalDateTime start, LocalDateTime end) {
+        return fetchSquareShifts(locations.defaultLocationId(), start, end);
+    }
+
+    public List<Shift> fetchSquareShifts(String locationId, LocalDateTime start, LocalDateTime end) {
+        return join(fetchSplitByDay(start, end, (from, to) -> fetchSquareShiftsInWindow(locationId, from, to),
+                shift -> shift.getId().orElse(null)));
+    }
+
+    /**
+     * Fetches {@code [start, end)} as parallel per-day sub-windows on the Square
+     * fetch pool and merges them in window order. Square's time range filters
+     * are inclusive at both ends, so results are de-duplicated by id.
+     */
+    private <T> CompletableFuture<List<T>> fetchSplitByDay(LocalDateTime start, LocalDateTime end,
+            BiFunction<LocalDateTime, LocalDateTime, List<T>> fetcher, Function<T, String> idOf) {
+        List<CompletableFuture<List<T>>> parts = new ArrayList<>();
+        for (LocalDateTime from = start; from.isBefore(end); from = from.plusDays(1)) {
+            LocalDateTime windowStart = from;
+            LocalDateTime windowEnd = from.plusDays(1).isBefore(end) ? from.plusDays(1) : end;
+            parts.add(CompletableFuture.supplyAsync(() -> fetcher.apply(windowStart, windowEnd),
+                    squareFetchExecutor));
+        }
+
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture[0])).thenApply(v -> {
+            Map<Object, T> merged = new java.util.LinkedHashMap<>();
+            for (CompletableFuture<List<T>> part : parts) {
+                for (T item : part.join()) {
+                    String id = idOf.apply(item);
+                    merged.putIfAbsent(id != null ? id : new Object(), item);
+                }
+            }
+            return new ArrayList<>(merged.values());
+        });
+    }
+
+    /** Waits for a future, rethrowing its failure (e.g. SquareUnavailableException) unwrapped. */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        }
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private List<Shift> fetchSquareShiftsInWindow(String locationId, LocalDateTime start, LocalDateTime end) {
         List<Shift> allShifts = new ArrayList<>();
         String cursor = null;
 
-        try {
-            com.squareup.square.labor.ShiftsClient shiftsClient = getClient().labor().shifts();
-
-            do {
-                com.squareup.square.labor.types.SearchShiftsRequest.Builder requestBuilder = com.squareup.square.labor.types.SearchShiftsRequest
-                        .builder()
-                        .query(ShiftQuery.builder()
-                                .filter(ShiftFilter.builder()
-                                        .locationIds(List.of(locationId))
-                                        .start(TimeRange.builder()
-                                                .startAt(start.atZone(ZoneId.systemDefault()).toOffsetDateTime()
-                                                        .toString())
-                                                .endAt(end.atZone(ZoneId.systemDefault()).toOffsetDateTime().toString())
-                                                .build())
-                                        .build())
-                                .build())
-                        .limit(50);
-
-                if (cursor != null) {
-                    requestBuilder.cursor(cursor);
-                }
+        do {
+            com.squareup.square.labor.types.SearchShiftsRequest.Builder requestBuilder = com.squareup.square.labor.types.SearchShiftsRequest
+                    .builder()
+                    .query(ShiftQuery.builder()
+                            .filter(ShiftFilter.builder()
+                                    .locationIds(List.of(locationId))
+                                    .start(TimeRange.builder()
+                                            .startAt(start.atZone(ZoneId.systemDefault()).toOffsetDateTime()
+                                                    .toString())
+                                            .endAt(end.atZone(ZoneId.systemDefault()).toOffsetDateTime().toString())
+                                            .build())
+                                    .build())
+                            .build())
+                    .limit(50);
+
+            if (cursor != null) {
+                requestBuilder.cursor(cursor);
+            }
 
-                SearchShiftsResponse response = shiftsClient.search(requestBuilder.build());
-                if (response.getShifts().isPresent()) {
-                    allShifts.addAll(response.getShifts().get());
-                }
-                cursor = response.getCursor().orElse(null);
+            // Each page is retried on its own, so a failure resumes from this cursor
+            com.squareup.square.labor.types.SearchShiftsRequest request = requestBuilder.build();
+            SearchShiftsResponse response = clientProvider.execute(locations.accessToken(locationId),
+                    "labor.shifts.search",
+                    client -> client.labor().shifts().search(request));
+            if (response.getShifts().isPresent()) {
+                allShifts.addAll(response.getShifts().get());
+            }
+            cursor = response.getCursor().orElse(null);
 
-            } while (cursor != null);
+        } while (cursor != null);
 
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
         return allShifts;
     }
 
-    private List<ScheduledShift> fetchScheduledShifts(LocalDateTime start, LocalDateTime end) {
+    private List<ScheduledShift> fetchScheduledShiftsInWindow(String locationId, LocalDateTime start,
+            LocalDateTime end) {
         List<ScheduledShift> allShifts = new ArrayList<>();
         String cursor = null;
 
-        try {
-            com.squareup.square.LaborClient laborClient = getClient().labor();
-
-            do {
-                SearchScheduledShiftsRequest.Builder requestBuilder = SearchScheduledShiftsRequest.builder()
-                        .query(ScheduledShiftQuery.builder()
-                                .filter(ScheduledShiftFilter.builder()
-                                        .start(TimeRange.builder()
-                                                .startAt(start.atZone(ZoneId.systemDefault()).toOffsetDateTime()
-                                                        .toString())
-                                                .endAt(end.atZone(ZoneId.systemDefault()).toOffsetDateTime().toString())
-                                                .build())
-                                        .locationIds(List.of(locationId))
-                                        .build())
-                                .build())
-                        .limit(50); // Keep limit at 50 to avoid VALUE_TOO_HIGH error
-
-                if (cursor != null) {
-                    requestBuilder.cursor(cursor);
-                }
+        do {
+            SearchScheduledShiftsRequest.Builder requestBuilder = SearchScheduledShiftsRequest.builder()
+                    .query(ScheduledShiftQuery.builder()
+                            .filter(ScheduledShiftFilter.builder()
+                                    .start(TimeRange.builder()
+                                            .startAt(start.atZone(ZoneId.systemDefault()).toOffsetDateTime()
+                                                    .toString())
+                                            .endAt(end.atZone(ZoneId.systemDefault()).toOffsetDateTime().toString())
+                                            .build())
+                                    .locationIds(List.of(locationId))
+                                    .build())
+                            .build())
+                    .limit(50); // Keep limit at 50 to avoid VALUE_TOO_HIGH error
+
+            if (cursor != null) {
+                requestBuilder.cursor(cursor);
+            }
 
-                SearchScheduledShiftsResponse response = laborClient.searchScheduledShifts(requestBuilder.build());
-                if (response.getScheduledShifts().isPresent()) {
-                    allShifts.addAll(response.getScheduledShifts().get());
-                }
-                cursor = response.getCursor().orElse(null);
+            SearchScheduledShiftsRequest request = requestBuilder.build();
+            SearchScheduledShiftsResponse response = clientProvider.execute(locations.accessToken(locationId),
+                    "labor.scheduledShifts.search",
+                    client -> client.labor().searchScheduledShifts(request));
+            if (response.getScheduledShifts().isPresent()) {
+                allShifts.addAll(response.getScheduledShifts().get());
+            }
+            cursor = response.getCursor().orElse(null);
 
-            } while (cursor != null);
+        } while (cursor != null);
 
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
         return allShifts;
     }
 
+    // --- Reference data (team members, job titles, catalog) ---
+    // Served from SquareReferenceDataCache; the load* methods below are the raw
+    // Square calls. A cold entry that cannot be loaded throws
+    // SquareUnavailableException rather than caching an empty result.
+
     public Map<String, String> fetchTeamMemberNames() {
-        Map<String, String> nameMap = new java.util.HashMap<>();
-        try {
-            com.squareup.square.TeamMembersClient teamApi = getClient().teamMembers();
-            SearchTeamMembersRequest request = SearchTeamMembersRequest.builder()
-                    .limit(100)
-                    .build();
-
-            SearchTeamMembersResponse response = teamApi.search(request);
-            if (response.getTeamMembers().isPresent()) {
-                for (TeamMember tm : response.getTeamMembers().get()) {
-                    String given = tm.getGivenName().orElse("");
-                    String family = tm.getFamilyName().orElse("");
-                    String fullName = (given + " " + family).trim();
-                    nameMap.put(tm.getId().orElse(""), fullName);
-                }
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return nameMap;
+        return fetchTeamMemberNames(locations.defaultLocationId());
+    }
+
+    public Map<String, String> fetchTeamMemberNames(String locationId) {
+        return referenceData.get(locationId, SquareReferenceDataCache.Kind.TEAM_MEMBER_NAMES);
     }
 
     public List<String> fetchSquareJobTitles() {
-        java.util.Set<String> roles = new java.util.HashSet<>();
-        try {
-            com.squareup.square.TeamMembersClient teamApi = getClient().teamMembers();
-            SearchTeamMembersRequest request = SearchTeamMembersRequest.builder()
-                    .limit(100)
-                    .build();
-
-            SearchTeamMembersResponse response = teamApi.search(request);
-            if (response.getTeamMembers().isPresent()) {
-                for (TeamMember tm : response.getTeamMembers().get()) {
-                    if (tm.getWageSetting().isPresent()) {
-                        com.squareup.square.types.WageSetting wageSetting = tm.getWageSetting().get();
-                        if (wageSetting.getJobAssignments().isPresent()) {
-                            for (com.squareup.square.types.JobAssignment assignment : wageSetting.getJobAssignments()
-                                    .get()) {
-                                if (assignment.getJobTitle().isPresent()) {
-                                    String title = assignment.getJobTitle().get();
-                                    if (title != null && !title.trim().isEmpty()) {
-                                        roles.add(title.trim());
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return new java.util.ArrayList<>(roles);
+        return referenceData.get(locations.defaultLocationId(), SquareReferenceDataCache.Kind.JOB_TITLES);
     }
 
-    public List<Order> fetchDetailedSquareOrders(LocalDateTime start, LocalDateTime end) {
-        List<Order> allOrders = new ArrayList<>();
-        String cursor = null;
+    public List<String> fetchSquareCategoryNames() {
+        return referenceData.get(locations.defaultLocationId(), SquareReferenceDataCache.Kind.CATEGORY_NAMES);
+    }
 
-        if (locationTimezone == null) {
-            fetchLocationTimezone();
-        }
+    public Map<String, String> fetchVariationToCategoryMap() {
+        return fetchVariationToCategoryMap(locations.defaultLocationId());
+    }
 
-        try {
-            com.squareup.square.OrdersClient ordersClient = getClient().orders();
-
-            do {
-                SearchOrdersRequest.Builder requestBuilder = SearchOrdersRequest.builder()
-                        .locationIds(List.of(locationId))
-                        .query(SearchOrdersQuery.builder()
-                                .filter(SearchOrdersFilter.builder()
-                                        .dateTimeFilter(SearchOrdersDateTimeFilter.builder()
-                                                .closedAt(TimeRange.builder()
-                                                        .startAt(start.atZone(ZoneId.systemDefault()).toOffsetDateTime()
-                                                                .toString())
-                                                        .endAt(end.atZone(ZoneId.systemDefault()).toOffsetDateTime()
-                                                                .toString())
-                                                        .build())
-                                                .build())
-                                        .build())
-                                .build())
-                        .limit(50)
-                        .returnEntries(false); // We want the full order object, not just an entry
-
-                if (cursor != null) {
-                    requestBuilder.cursor(cursor);
-                }
+    public Map<String, String> fetchVariationToCategoryMap(String locationId) {
+        return referenceData.get(locationId, SquareReferenceDataCache.Kind.VARIATION_CATEGORIES);
+    }
 
-                SearchOrdersResponse response = ordersClient.search(requestBuilder.build());
-                if (response.getOrders().isPresent()) {
-                    for (Order order : response.getOrders().get()) {
-                        String state = String.valueOf(order.getState());
-                        if (state.contains("COMPLETED")) {
-                            allOrders.add(order);
-                        }
-                    }
-                }
-                cursor = response.getCursor().orElse(null);
+    public void invalidateReferenceData(Long storeId) {
+        referenceData.invalidate(getLocationId(storeId));
+    }
 
-            } while (cursor != null);
+    /** Team members changed in Square: drop cached names and job titles. */
+    public void invalidateTeamMembers() {
+        referenceData.invalidate(SquareReferenceDataCache.Kind.TEAM_MEMBER_NAMES);
+        referenceData.invalidate(SquareReferenceDataCache.Kind.JOB_TITLES);
+    }
+
+    public Map<String, Object> getReferenceDataStats() {
+        return referenceData.stats();
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
+    /**
+     * Refresh-ahead for reference data: reloads every cached location in the
+     * background and makes sure every store's location is warm, so requests
+     * rarely see a cold entry.
+     */
+    @Scheduled(fixedDelayString = "${square.reference-cache.refresh-minutes:10}", initialDelay = 0,
+            timeUnit = java.util.concurrent.TimeUnit.MINUTES)
+    public void refreshReferenceData() {
+        referenceData.refreshAll();
+        for (String locationId : locations.locationIds()) {
+            referenceData.warm(locationId);
         }
-        return allOrders;
     }
 
-    private LocalDateTime parseSquareTime(String isoDate) {
-        if (isoDate == null)
-            return null;
-        return OffsetDateTime.parse(isoDate).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    private Object loadReferenceData(String location, SquareReferenceDataCache.Kind kind) {
+        // Team member and catalog lookups are merchant-wide, so the location picks
+        // the Square account (its access token) and partitions the cache.
+        String token = locations.accessToken(location);
+        return switch (kind) {
+            case TEAM_MEMBER_NAMES -> java.util.Collections.unmodifiableMap(loadTeamMemberNames(token));
+            case JOB_TITLES -> java.util.Collections.unmodifiableList(loadSquareJobTitles(token));
+            // The SDK pager hides the catalog cursor, so a catalog listing is retried as a whole
+            case CATEGORY_NAMES -> java.util.Collections.unmodifiableList(
+                    clientProvider.execute(token, "catalog.list", this::loadSquareCategoryNames));
+            case VARIATION_CATEGORIES -> java.util.Collections.unmodifiableMap(
+                    clientProvider.execute(token, "catalog.list", this::loadVariationToCategoryMap));
+        };
     }
 
-    private Map<String, Double> fetchDailySales(LocalDateTime start, LocalDateTime end) {
-        Map<String, Double> salesMap = new java.util.HashMap<>();
+    private List<TeamMember> searchAllTeamMembers(String token) {
+        List<TeamMember> teamMembers = new ArrayList<>();
         String cursor = null;
+        do {
+            SearchTeamMembersRequest.Builder requestBuilder = SearchTeamMembersRequest.builder()
+                    .limit(100);
+            if (cursor != null) {
+                requestBuilder.cursor(cursor);
+            }
 
-        // Ensure we have the timezone
-        if (locationTimezone == null) {
-            fetchLocationTimezone();
-        }
-        ZoneId zoneId = (locationTimezone != null) ? ZoneId.of(locationTimezone) : ZoneId.systemDefault();
-
-        try {
-            com.squareup.square.OrdersClient ordersClient = getClient().orders();
-
-            do {
-                SearchOrdersRequest.Builder requestBuilder = SearchOrdersRequest.builder()
-                        .locationIds(List.of(locationId))
-                        .query(SearchOrdersQuery.builder()
-                                .filter(SearchOrdersFilter.builder()
-                                        // Filter in memory to avoid OrderState enum issues
-                                        // .stateFilter(...)
-                                        .dateTimeFilter(SearchOrdersDateTimeFilter.builder()
-                                                .closedAt(TimeRange.builder()
-                                                        .startAt(start.atZone(ZoneId.systemDefault()).toOffsetDateTime()
-                                                                .toString())
-                                                        .endAt(end.atZone(ZoneId.systemDefault()).toOffsetDateTime()
-                                                                .toString())
-                                                        .build())
-                                                .build())
-                                        .build())
-                                .build())
-                        .limit(50);
-
-                if (cursor != null) {
-                    requestBuilder.cursor(cursor);
-                }
-
-                SearchOrdersResponse response = ordersClient.search(requestBuilder.build());
-                if (response.getOrders().isPresent()) {
-                    List<Order> orders = response.getOrders().get();
+            SearchTeamMembersRequest request = requestBuilder.build();
+            SearchTeamMembersResponse response = clientProvider.execute(token, "teamMembers.search",
+                    client -> client.teamMembers().search(request));
+            teamMembers.addAll(response.getTeamMembers().orElse(List.of()));
+            cursor = response.getCursor().orElse(null);
+        } while (cursor != null);
+        return teamMembers;
+    }
 
-                    for (Order order : orders) {
-                        // Handle Optional[COMPLETED] or just COMPLETED
-                        String state = String.valueOf(order.getState());
+    private Map<String, String> loadTeamMemberNames(String token) {
+        Map<String, String> nameMap = new java.util.HashMap<>();
+        for (TeamMember tm : searchAllTeamMembers(token)) {
+            String given = tm.getGivenName().orElse("");
+            String family = tm.getFamilyName().orElse("");
+            String fullName = (given + " " + family).trim();
+            nameMap.put(tm.getId().orElse(""), fullName);
+        }
+        return nameMap;
+    }
 
-                        if (!state.contains("COMPLETED")) {
-                            continue;
-                        }
-                        if (order.getTotalMoney() != null && order.getTotalMoney().isPresent()) {
-                            String closedAt = order.getClosedAt().orElse(null); // ISO String
-                            if (closedAt != null) {
-                                // Convert UTC ISO string to ZonedDateTime, then to Location's Timezone, then to
-                                // LocalDate
-                                String date = OffsetDateTime.parse(closedAt)
-                                        .atZoneSameInstant(zoneId)
-                                        .toLocalDate().toString();
-
-                                // getAmount() returns Optional<Long> in this SDK version
-                                double amount = order.getTotalMoney().get().getAmount().orElse(0L).doubleValue()
-                                        / 100.0;
-                                salesMap.put(date, salesMap.getOrDefault(date, 0.0) + amount);
+    private List<String> loadSquareJobTitles(String token) {
+        java.util.Set<String> roles = new java.util.HashSet<>();
+        for (TeamMember tm : searchAllTeamMembers(token)) {
+            if (tm.getWageSetting().isPresent()) {
+                com.squareup.square.types.WageSetting wageSetting = tm.getWageSetting().get();
+                if (wageSetting.getJobAssignments().isPresent()) {
+                    for (com.squareup.square.types.JobAssignment assignment : wageSetting.getJobAssignments()
+                            .get()) {
+                        if (assignment.getJobTitle().isPresent()) {
+                            String title = assignment.getJobTitle().get();
+                            if (title != null && !title.trim().isEmpty()) {
+                                roles.add(title.trim());
                             }
                         }
                     }
                 }
-                cursor = response.getCursor().orElse(null);
+            }
+        }
+        return new java.util.ArrayList<>(roles);
+    }
+
+    /**
+     * Completed orders for a store over {@code [start, end)}, shared by the shift
+     * report and the insights dashboard. Concurrent requests for the same
+     * location and window wait on the first one instead of each reading and
+     * syncing the order warehouse.
+     */
+    public OrderWindow fetchOrderWindow(Long storeId, LocalDateTime start, LocalDateTime end) {
+        OrderWindowKey key = new OrderWindowKey(getLocationId(storeId), start, end);
+        CompletableFuture<OrderWindow> pending = new CompletableFuture<>();
+        CompletableFuture<OrderWindow> inFlight = inFlightWindows.putIfAbsent(key, pending);
+        if (inFlight != null) {
+            return join(inFlight);
+        }
 
-            } while (cursor != null);
+        try {
+            OrderWindow window = orderWarehouse.loadWindow(key.locationId(), start, end, getLocationZone());
+            pending.complete(window);
+            return window;
+        } catch (RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightWindows.remove(key, pending);
+        }
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
+    private ZoneId getLocationZone() {
+        if (locationTimezone == null) {
+            fetchLocationTimezone();
         }
-        return salesMap;
+        return (locationTimezone != null) ? ZoneId.of(locationTimezone) : ZoneId.systemDefault();
+    }
+
+    private static LocalDateTime parseSquareTime(String isoDate) {
+        if (isoDate == null)
+            return null;
+        return OffsetDateTime.parse(isoDate).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
     }
 
     private void fetchLocationTimezone() {
@@ -456,83 +531,77 @@ public class SquareService {
         this.locationTimezone = "Australia/Sydney";
     }
 
-    public List<String> fetchSquareCategoryNames() {
+    private List<String> loadSquareCategoryNames(SquareClient client) {
         List<String> categories = new ArrayList<>();
-        try {
-            com.squareup.square.CatalogClient catalogApi = getClient().catalog();
-            com.squareup.square.types.ListCatalogRequest request = com.squareup.square.types.ListCatalogRequest
-                    .builder()
-                    .types("CATEGORY")
-                    .build();
-
-            com.squareup.square.core.SyncPagingIterable<com.squareup.square.types.CatalogObject> objects = catalogApi
-                    .list(request);
-            for (com.squareup.square.types.CatalogObject obj : objects) {
-                if (obj.getCategory().isPresent() && obj.getCategory().get().getCategoryData().isPresent()) {
-                    String name = obj.getCategory().get().getCategoryData().get().getName().orElse(null);
-                    if (name != null && !name.trim().isEmpty()) {
-                        categories.add(name);
-                    }
+        com.squareup.square.CatalogClient catalogApi = client.catalog();
+        com.squareup.square.types.ListCatalogRequest request = com.squareup.square.types.ListCatalogRequest
+                .builder()
+                .types("CATEGORY")
+                .build();
+
+        com.squareup.square.core.SyncPagingIterable<com.squareup.square.types.CatalogObject> objects = catalogApi
+                .list(request);
+        for (com.squareup.square.types.CatalogObject obj : objects) {
+            if (obj.getCategory().isPresent() && obj.getCategory().get().getCategoryData().isPresent()) {
+                String name = obj.getCategory().get().getCategoryData().get().getName().orElse(null);
+                if (name != null && !name.trim().isEmpty()) {
+                    categories.add(name);
                 }
             }
-        } catch (Exception e) {
-            e.printStackTrace();
         }
         return categories;
     }
 
-    public Map<String, String> fetchVariationToCategoryMap() {
+    private Map<String, String> loadVariationToCategoryMap(SquareClient client) {
         Map<String, String> map = new java.util.HashMap<>();
-        try {
-            com.squareup.square.CatalogClient catalogApi = getClient().catalog();
-
-            // First fetch all categories to map Category ID -> Name
-            Map<String, String> categoryIdToName = new java.util.HashMap<>();
-            com.squareup.square.types.ListCatalogRequest catRequest = com.squareup.square.types.ListCatalogRequest
-                    .builder()
-                    .types("CATEGORY")
-                    .build();
-            com.squareup.square.core.SyncPagingIterable<com.squareup.square.types.CatalogObject> catObjects = catalogApi
-                    .list(catRequest);
-            for (com.squareup.square.types.CatalogObject obj : catObjects) {
-                if (obj.getCategory().isPresent()) {
-                    com.squareup.square.types.CatalogObjectCategory cat = obj.getCategory().get();
-                    if (cat.getId().isPresent() && cat.getCategoryData().isPresent()) {
-                        String name = cat.getCategoryData().get().getName().orElse(null);
-                        if (name != null) {
-                            categoryIdToName.put(cat.getId().get(), name);
-                        }
+        com.squareup.square.CatalogClient catalogApi = client.catalog();
+
+        // First fetch all categories to map Category ID -> Name
+        Map<String, String> categoryIdToName = new java.util.HashMap<>();
+        com.squareup.square.types.ListCatalogRequest catRequest = com.squareup.square.types.ListCatalogRequest
+                .builder()
+                .types("CATEGORY")
+                .build();
+        com.squareup.square.core.SyncPagingIterable<com.squareup.square.types.CatalogObject> catObjects = catalogApi
+                .list(catRequest);
+        for (com.squareup.square.types.CatalogObject obj : catObjects) {
+            if (obj.getCategory().isPresent()) {
+                com.squareup.square.types.CatalogObjectCategory cat = obj.getCategory().get();
+                if (cat.getId().isPresent() && cat.getCategoryData().isPresent()) {
+                    String name = cat.getCategoryData().get().getName().orElse(null);
+                    if (name != null) {
+                        categoryIdToName.put(cat.getId().get(), name);
                     }
                 }
             }
+        }
 
-            // Next fetch all ITEMs to map Variation ID -> Category Name
-            com.squareup.square.types.ListCatalogRequest itemRequest = com.squareup.square.types.ListCatalogRequest
-                    .builder()
-                    .types("ITEM")
-                    .build();
-            com.squareup.square.core.SyncPagingIterable<com.squareup.square.types.CatalogObject> itemObjects = catalogApi
-                    .list(itemRequest);
-
-            for (com.squareup.square.types.CatalogObject obj : itemObjects) {
-                if (obj.getItem().isPresent()) {
-                    com.squareup.square.types.CatalogObjectItem itemObj = obj.getItem().get();
-                    if (itemObj.getItemData().isPresent()) {
-                        com.squareup.square.types.CatalogItem itemData = itemObj.getItemData().get();
-                        String catId = itemData.getCategoryId().orElse(null);
-
-                        if (catId != null && categoryIdToName.containsKey(catId)) {
-                            String catName = categoryIdToName.get(catId);
-
-                            // Map every variation of this item to the category name
-                            if (itemData.getVariations().isPresent()) {
-                                for (com.squareup.square.types.CatalogObject variationObj : itemData.getVariations()
-                                        .get()) {
-                                    if (variationObj.getItemVariation().isPresent()) {
-                                        String variationId = variationObj.getItemVariation().get().getId();
-                                        if (variationId != null) {
-                                            map.put(variationId, catName);
-                                        }
+        // Next fetch all ITEMs to map Variation ID -> Category Name
+        com.squareup.square.types.ListCatalogRequest itemRequest = com.squareup.square.types.ListCatalogRequest
+                .builder()
+                .types("ITEM")
+                .build();
+        com.squareup.square.core.SyncPagingIterable<com.squareup.square.types.CatalogObject> itemObjects = catalogApi
+                .list(itemRequest);
+
+        for (com.squareup.square.types.CatalogObject obj : itemObjects) {
+            if (obj.getItem().isPresent()) {
+                com.squareup.square.types.CatalogObjectItem itemObj = obj.getItem().get();
+                if (itemObj.getItemData().isPresent()) {
+                    com.squareup.square.types.CatalogItem itemData = itemObj.getItemData().get();
+                    String catId = itemData.getCategoryId().orElse(null);
+
+                    if (catId != null && categoryIdToName.containsKey(catId)) {
+                        String catName = categoryIdToName.get(catId);
+
+                        // Map every variation of this item to the category name
+                        if (itemData.getVariations().isPresent()) {
+                            for (com.squareup.square.types.CatalogObject variationObj : itemData.getVariations()
+                                    .get()) {
+                                if (variationObj.getItemVariation().isPresent()) {
+                                    String variationId = variationObj.getItemVariation().get().getId();
+                                    if (variationId != null) {
+                                        map.put(variationId, catName);
                                     }
                                 }
                             }
@@ -540,9 +609,6 @@ public class SquareService {
                     }
                 }
             }
-        } catch (Exception e) {
-            System.err.println("Error fetching Variation to Category Map: " + e.getMessage());
-            e.printStackTrace();
         }
         return map;
     }
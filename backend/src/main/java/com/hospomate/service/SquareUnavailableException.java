@@ -0,0 +1,23 @@
+package com.hospomate.service;
+
+import java.time.Duration;
+
+/**
+ * Square could not be reached for a request: retries were exhausted or the
+ * circuit breaker is open. Callers must treat any data depending on the
+ * request as incomplete.
+ */
+public class SquareUnavailableException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public SquareUnavailableException(String message, Duration retryAfter, Throwable cause) {
+        super(message, cause);
+        this.retryAfter = retryAfter;
+    }
+
+    /** How long until the circuit breaker lets requests through again, zero if it is closed. */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
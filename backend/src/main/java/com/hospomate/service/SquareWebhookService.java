@@ -0,0 +1,292 @@
+package com.hospomate.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospomate.model.SquareOrder;
+import com.hospomate.model.SquareWebhookEvent;
+import com.hospomate.model.Store;
+import com.hospomate.repository.SquareOrderRepository;
+import com.hospomate.repository.SquareWebhookEventRepository;
+import com.hospomate.repository.StoreRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Receives Square webhook notifications and applies them to local state.
+ *
+ * Events are verified, written to the event log (once per event id) and
+ * applied on a single background worker:
+ * <ul>
+ * <li>order.* — runs a delta sync of the order warehouse for the location and
+ * evicts the dashboard hours the order closed in, before and after.</li>
+ * <li>labor.shift.* / labor.timecard.* — evicts the dashboard hours the shift
+ * covers, including where it was before an edit or delete, and rebuilds the
+ * team member rollups for those hours.</li>
+ * <li>team_member.* — drops the cached team member names and job titles.</li>
+ * </ul>
+ * Events that fail to apply are retried by a scheduled job.
+ */
+@Service
+public class SquareWebhookService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SquareWebhookService.class);
+
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final SquareWebhookEventRepository eventRepository;
+    private final SquareOrderRepository orderRepository;
+    private final StoreRepository storeRepository;
+    private final OrderWarehouseService orderWarehouse;
+    private final SquareService squareService;
+    private final RevenueIntelligenceService intelligenceService;
+    private final RevenueRollupService rollupService;
+    private final ObjectMapper objectMapper;
+    private final Executor webhookExecutor;
+
+    @Value("${square.webhook.signature-key:}")
+    private String signatureKey;
+
+    @Value("${square.webhook.notification-url:}")
+    private String notificationUrl;
+
+    public SquareWebhookService(SquareWebhookEventRepository eventRepository,
+            SquareOrderRepository orderRepository,
+            StoreRepository storeRepository,
+            OrderWarehouseService orderWarehouse,
+            SquareService squareService,
+            RevenueIntelligenceService intelligenceService,
+            RevenueRollupService rollupService,
+            ObjectMapper objectMapper,
+            @Qualifier("squareWebhookExecutor") Executor webhookExecutor) {
+        this.eventRepository = eventRepository;
+        this.orderRepository = orderRepository;
+        this.storeRepository = storeRepository;
+        this.orderWarehouse = orderWarehouse;
+        this.squareService = squareService;
+        this.intelligenceService = intelligenceService;
+        this.rollupService = rollupService;
+        this.objectMapper = objectMapper;
+        this.webhookExecutor = webhookExecutor;
+    }
+
+    /**
+     * Square signs each notification with HMAC-SHA256 over the subscription's
+     * notification URL followed by the raw request body, base64 encoded.
+     */
+    public boolean isValidSignature(byte[] body, String signature) {
+        if (signatureKey == null || signatureKey.isBlank() || signature == null) {
+            return false;
+        }
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(signatureKey.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            mac.update(notificationUrl.getBytes(StandardCharsets.UTF_8));
+            byte[] expected = Base64.getEncoder().encode(mac.doFinal(body));
+            return MessageDigest.isEqual(expected, signature.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            logger.error("Could not verify Square webhook signature", e);
+            return false;
+        }
+    }
+
+    /**
+     * Records a verified notification and queues it to be applied. Returns false
+     * when the event id has already been received.
+     */
+    public boolean receive(byte[] body) throws IOException {
+        JsonNode root = objectMapper.readTree(body);
+        String eventId = root.path("event_id").asText(null);
+        String type = root.path("type").asText(null);
+        if (eventId == null || type == null) {
+            throw new IOException("Square webhook is missing event_id or type");
+        }
+        if (eventRepository.existsByEventId(eventId)) {
+            return false;
+        }
+
+        JsonNode data = root.path("data");
+        SquareWebhookEvent event = new SquareWebhookEvent();
+        event.setEventId(eventId);
+        event.setType(type);
+        event.setMerchantId(root.path("merchant_id").asText(null));
+        event.setEntityId(data.path("id").asText(null));
+        event.setLocationId(findLocationId(data.path("object")));
+        event.setPayload(new String(body, StandardCharsets.UTF_8));
+        event.setReceivedAt(Instant.now());
+        event.setStatus(SquareWebhookEvent.Status.RECEIVED);
+        try {
+            event = eventRepository.save(event);
+        } catch (DataIntegrityViolationException e) {
+            // Redelivered concurrently; the other request recorded it
+            return false;
+        }
+
+        submit(event.getId());
+        return true;
+    }
+
+    /** Re-queues events that failed or were never picked up (e.g. after a restart). */
+    @Scheduled(fixedDelayString = "${square.webhook.retry-interval-ms:60000}")
+    public void retryPendingEvents() {
+        List<SquareWebhookEvent> pending = eventRepository.findByStatusInAndAttemptsLessThanAndReceivedAtBefore(
+                List.of(SquareWebhookEvent.Status.RECEIVED, SquareWebhookEvent.Status.FAILED), MAX_ATTEMPTS,
+                Instant.now().minusSeconds(30));
+        for (SquareWebhookEvent event : pending) {
+            submit(event.getId());
+        }
+    }
+
+    private void submit(Long eventRowId) {
+        try {
+            webhookExecutor.execute(() -> apply(eventRowId));
+        } catch (TaskRejectedException e) {
+            logger.warn("Square webhook queue is full; event {} will be applied by the retry job", eventRowId);
+        }
+    }
+
+    void apply(Long eventRowId) {
+        SquareWebhookEvent event = eventRepository.findById(eventRowId).orElse(null);
+        if (event == null || event.getStatus() == SquareWebhookEvent.Status.APPLIED) {
+            return;
+        }
+
+        event.setAttempts(event.getAttempts() + 1);
+        try {
+            JsonNode data = objectMapper.readTree(event.getPayload()).path("data");
+            String type = event.getType();
+            if (type.startsWith("order.")) {
+                applyOrderEvent(event, data);
+            } else if (type.startsWith("labor.shift.") || type.startsWith("labor.timecard.")) {
+                applyShiftEvent(event, data);
+            } else if (type.startsWith("team_member.")) {
+                squareService.invalidateTeamMembers();
+            }
+            event.setStatus(SquareWebhookEvent.Status.APPLIED);
+            event.setAppliedAt(Instant.now());
+            event.setLastError(null);
+        } catch (Exception e) {
+            logger.warn("Applying Square webhook {} ({}) failed: {}", event.getEventId(), event.getType(),
+                    e.getMessage());
+            event.setStatus(SquareWebhookEvent.Status.FAILED);
+            String message = String.valueOf(e.getMessage());
+            event.setLastError(message.length() > 1000 ? message.substring(0, 1000) : message);
+        }
+        eventRepository.save(event);
+    }
+
+    private void applyOrderEvent(SquareWebhookEvent event, JsonNode data) {
+        String orderId = event.getEntityId();
+        String locationId = event.getLocationId();
+        if (orderId == null || locationId == null) {
+            return;
+        }
+        // order.created carries "order_created", order.updated "order_updated", ...
+        JsonNode summary = firstField(data.path("object"));
+        Integer version = summary.hasNonNull("version") ? summary.get("version").asInt() : null;
+
+        SquareOrder before = orderRepository.findBySquareOrderId(orderId).orElse(null);
+        if (before != null && version != null && before.getVersion() != null && before.getVersion() >= version) {
+            return;
+        }
+        Instant closedBefore = before != null ? before.getClosedAt() : null;
+
+        orderWarehouse.sync(locationId);
+
+        SquareOrder after = orderRepository.findBySquareOrderId(orderId).orElse(null);
+        if (version != null && (after == null || after.getVersion() == null || after.getVersion() < version)) {
+            // SearchOrders is eventually consistent; retry once the update is visible
+            throw new IllegalStateException("Order " + orderId + " version " + version + " not yet searchable");
+        }
+        Instant closedAfter = after != null ? after.getClosedAt() : null;
+
+        for (Instant closedAt : new Instant[] { closedBefore, closedAfter }) {
+            if (closedAt != null) {
+                LocalDateTime hour = LocalDateTime.ofInstant(closedAt, ZoneId.systemDefault());
+                evictHours(locationId, hour, hour.plusHours(1));
+            }
+        }
+    }
+
+    private void applyShiftEvent(SquareWebhookEvent event, JsonNode data) throws IOException {
+        JsonNode shift = firstField(data.path("object"));
+        evictShiftHours(event.getLocationId(), shift);
+
+        // Also clear where the shift was before this edit or delete
+        if (event.getEntityId() != null) {
+            for (SquareWebhookEvent previous : eventRepository
+                    .findByEntityIdAndIdLessThanOrderByIdDesc(event.getEntityId(), event.getId())) {
+                JsonNode previousShift = firstField(
+                        objectMapper.readTree(previous.getPayload()).path("data").path("object"));
+                if (previousShift.has("start_at")) {
+                    evictShiftHours(previous.getLocationId(), previousShift);
+                    break;
+                }
+            }
+        }
+    }
+
+    private void evictShiftHours(String locationId, JsonNode shift) {
+        LocalDateTime start = parseTime(shift.path("start_at").asText(null));
+        if (locationId == null || start == null) {
+            return;
+        }
+        // An open shift counts until now; later hours are not cached yet
+        LocalDateTime end = parseTime(shift.path("end_at").asText(null));
+        LocalDateTime until = end != null ? end : LocalDateTime.now().plusHours(1);
+        evictHours(locationId, start, until);
+
+        ZoneId zone = ZoneId.systemDefault();
+        rollupService.rebuildTeamMemberHours(locationId, start.atZone(zone).toInstant(),
+                until.atZone(zone).toInstant());
+    }
+
+    private void evictHours(String locationId, LocalDateTime from, LocalDateTime to) {
+        // Guard against bogus ranges from malformed payloads
+        if (Duration.between(from, to).toDays() > 31) {
+            to = from.plusDays(31);
+        }
+        for (Store store : storeRepository.findAll()) {
+            if (locationId.equals(squareService.getLocationId(store.getId()))) {
+                intelligenceService.evictHours(store.getId(), from, to);
+            }
+        }
+    }
+
+    /** The object of a webhook's data is wrapped in a single field named after the entity. */
+    private static JsonNode firstField(JsonNode object) {
+        return object.isObject() && object.size() > 0 ? object.elements().next() : object;
+    }
+
+    private static String findLocationId(JsonNode object) {
+        String locationId = firstField(object).path("location_id").asText(null);
+        return locationId != null && !locationId.isEmpty() ? locationId : null;
+    }
+
+    private static LocalDateTime parseTime(String isoDate) {
+        if (isoDate == null || isoDate.isEmpty()) {
+            return null;
+        }
+        return OffsetDateTime.parse(isoDate).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    }
+}
@@ -0,0 +1,189 @@
+package com.hospomate.service;
+
+import com.hospomate.model.SquareStaffLink;
+import com.hospomate.model.Staff;
+import com.hospomate.repository.SquareStaffLinkRepository;
+import com.hospomate.repository.StaffRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Resolves Square team members to local staff through persisted
+ * {@link SquareStaffLink}s. A team member seen for the first time is matched
+ * by name and the suggestion stored; after that, resolution is a map lookup by
+ * team member ID. A suggestion that found nobody, or whose staff member has
+ * since been removed, is matched again on each lookup, so staff added later
+ * are picked up. Owners can confirm or correct any link, and confirmed links
+ * are never re-suggested.
+ */
+@Service
+public class StaffIdentityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StaffIdentityService.class);
+
+    private final SquareStaffLinkRepository linkRepository;
+    private final StaffRepository staffRepository;
+
+    public StaffIdentityService(SquareStaffLinkRepository linkRepository, StaffRepository staffRepository) {
+        this.linkRepository = linkRepository;
+        this.staffRepository = staffRepository;
+    }
+
+    /**
+     * Square team member ID -> local staff member for a store, suggesting links
+     * for any team member in {@code squareStaffNames} that has none yet. Team
+     * members linked to nobody, or to staff no longer in {@code localStaff}, are
+     * left out.
+     */
+    public Map<String, Staff> staffByTeamMember(Long storeId, List<Staff> localStaff,
+            Map<String, String> squareStaffNames) {
+        Map<Long, Staff> staffById = new HashMap<>();
+        for (Staff staff : localStaff) {
+            staffById.put(staff.getId(), staff);
+        }
+
+        Map<String, Staff> result = new HashMap<>();
+        Set<String> linked = new HashSet<>();
+        for (SquareStaffLink link : linkRepository.findByStoreId(storeId)) {
+            linked.add(link.getTeamMemberId());
+            Staff staff = link.getStaffId() != null ? staffById.get(link.getStaffId()) : null;
+            if (staff == null && link.getStatus() == SquareStaffLink.Status.SUGGESTED) {
+                staff = resuggest(link, squareStaffNames.getOrDefault(link.getTeamMemberId(), link.getSquareName()),
+                        localStaff);
+            }
+            if (staff != null) {
+                result.put(link.getTeamMemberId(), staff);
+            }
+        }
+
+        for (Map.Entry<String, String> member : squareStaffNames.entrySet()) {
+            if (linked.contains(member.getKey())) {
+                continue;
+            }
+            SquareStaffLink link = suggest(storeId, member.getKey(), member.getValue(), localStaff);
+            Staff staff = link != null && link.getStaffId() != null ? staffById.get(link.getStaffId()) : null;
+            if (staff != null) {
+                result.put(member.getKey(), staff);
+            }
+        }
+        return result;
+    }
+
+    /** All links for a store, after suggesting links for team members not seen before. */
+    public List<SquareStaffLink> getLinks(Long storeId, Map<String, String> squareStaffNames) {
+        staffByTeamMember(storeId, staffRepository.findByStoreId(storeId), squareStaffNames);
+        return linkRepository.findByStoreId(storeId);
+    }
+
+    /**
+     * Records the owner's answer for a team member: the local staff member they
+     * are, or {@code null} when they have no staff row in this store.
+     */
+    public SquareStaffLink confirm(Long storeId, String teamMemberId, Long staffId) {
+        if (staffId != null) {
+            Staff staff = staffRepository.findById(staffId)
+                    .orElseThrow(() -> new IllegalArgumentException("Staff not found: " + staffId));
+            if (staff.getStore() == null || !storeId.equals(staff.getStore().getId())) {
+                throw new IllegalArgumentException("Staff " + staffId + " does not belong to store " + storeId);
+            }
+        }
+        SquareStaffLink link = linkRepository.findByStoreIdAndTeamMemberId(storeId, teamMemberId)
+                .orElseGet(() -> new SquareStaffLink(storeId, teamMemberId));
+        link.setStaffId(staffId);
+        link.setStatus(SquareStaffLink.Status.CONFIRMED);
+        link.setUpdatedAt(Instant.now());
+        return linkRepository.save(link);
+    }
+
+    /**
+     * Matches an unresolved suggestion again, saving it only if the answer
+     * changed: a new match, or a link to removed staff cleared.
+     */
+    private Staff resuggest(SquareStaffLink link, String squareName, List<Staff> localStaff) {
+        Staff match = matchByName(squareName, localStaff);
+        Long staffId = match != null ? match.getId() : null;
+        if (!Objects.equals(staffId, link.getStaffId())) {
+            link.setSquareName(squareName);
+            link.setStaffId(staffId);
+            link.setUpdatedAt(Instant.now());
+            linkRepository.save(link);
+        }
+        return match;
+    }
+
+    private SquareStaffLink suggest(Long storeId, String teamMemberId, String squareName, List<Staff> localStaff) {
+        Staff match = matchByName(squareName, localStaff);
+        SquareStaffLink link = new SquareStaffLink(storeId, teamMemberId);
+        link.setSquareName(squareName);
+        link.setStaffId(match != null ? match.getId() : null);
+        link.setStatus(SquareStaffLink.Status.SUGGESTED);
+        link.setUpdatedAt(Instant.now());
+        try {
+            return linkRepository.save(link);
+        } catch (DataIntegrityViolationException e) {
+            // Suggested concurrently by another request; use that one
+            logger.debug("Link for team member {} already exists", teamMemberId);
+            return linkRepository.findByStoreIdAndTeamMemberId(storeId, teamMemberId).orElse(null);
+        }
+    }
+
+    /**
+     * The local staff member whose name best matches a Square name: the same
+     * name, or every word of the local name appearing as a word of the Square
+     * name (e.g. "Sam" for "Sam Lee"). Returns null when nobody matches or the
+     * best match is shared, so "Ann" is not taken for "Joanne" and two Sams are
+     * left for the owner.
+     */
+    static Staff matchByName(String squareName, List<Staff> localStaff) {
+        String square = normalize(squareName);
+        if (square.isEmpty()) {
+            return null;
+        }
+        Set<String> squareWords = new HashSet<>(Arrays.asList(square.split(" ")));
+
+        Staff best = null;
+        int bestScore = 0;
+        boolean tied = false;
+        for (Staff staff : localStaff) {
+            String local = normalize(staff.getName());
+            if (local.isEmpty()) {
+                continue;
+            }
+            int score = 0;
+            if (local.equals(square)) {
+                score = 2;
+            } else if (squareWords.containsAll(Arrays.asList(local.split(" ")))) {
+                score = 1;
+            }
+            if (score > bestScore) {
+                best = staff;
+                bestScore = score;
+                tied = false;
+            } else if (score > 0 && score == bestScore) {
+                tied = true;
+            }
+        }
+        return tied ? null : best;
+    }
+
+    /** Lower case, accents and punctuation removed, single spaces between words. */
+    static String normalize(String name) {
+        if (name == null) {
+            return "";
+        }
+        String stripped = Normalizer.normalize(name, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return stripped.toLowerCase().replaceAll("[^a-z0-9]+", " ").trim();
+    }
+}
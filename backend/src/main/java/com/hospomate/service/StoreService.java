@@ -5,8 +5,10 @@ import com.hospomate.model.Store;
 import com.hospomate.repository.MenuItemRepository;
 import com.hospomate.repository.StoreRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +21,12 @@ public class StoreService {
     @Autowired
     private MenuItemRepository menuItemRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private SquareLocations squareLocations;
+
     public Optional<Store> getStoreById(Long id) {
         return storeRepository.findById(id);
     }
@@ -52,6 +60,37 @@ public class StoreService {
         store.setName(storeDetails.getName());
         store.setAddress(storeDetails.getAddress());
         store.setImageUrl(storeDetails.getImageUrl());
-        return storeRepository.save(store);
+        BigDecimal threshold = storeDetails.getRevenuePerLabourHourThreshold();
+        boolean thresholdChanged = threshold != null
+                && (store.getRevenuePerLabourHourThreshold() == null
+                        || threshold.compareTo(store.getRevenuePerLabourHourThreshold()) != 0);
+        if (thresholdChanged) {
+            store.setRevenuePerLabourHourThreshold(threshold);
+        }
+        // Like the token, an update without a location keeps it; a blank one clears it
+        String location = storeDetails.getSquareLocationId();
+        if (location != null && location.isBlank()) {
+            location = null;
+        }
+        boolean locationChanged = storeDetails.getSquareLocationId() != null
+                && !java.util.Objects.equals(store.getSquareLocationId(), location);
+        if (locationChanged) {
+            store.setSquareLocationId(location);
+        }
+        // The token is never returned to clients, so an update without one keeps it
+        boolean tokenChanged = storeDetails.getSquareAccessToken() != null;
+        if (tokenChanged) {
+            store.setSquareAccessToken(storeDetails.getSquareAccessToken().isBlank() ? null
+                    : storeDetails.getSquareAccessToken());
+        }
+        Store saved = storeRepository.save(store);
+        if (locationChanged || tokenChanged) {
+            squareLocations.invalidate();
+        }
+        if (thresholdChanged || locationChanged) {
+            // Cached insights were judged against the old threshold or read from the old location
+            eventPublisher.publishEvent(new InsightSettingsChangedEvent(storeId));
+        }
+        return saved;
     }
 }
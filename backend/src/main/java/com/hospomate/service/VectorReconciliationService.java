@@ -0,0 +1,147 @@
+package com.hospomate.service;
+
+import com.hospomate.model.KnowledgeDoc;
+import com.hospomate.model.Procedure;
+import com.hospomate.repository.KnowledgeDocRepository;
+import com.hospomate.repository.ProcedureRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the vector table in step with procedures and knowledge documents.
+ * Changed procedures are re-indexed first, then the table is scanned in ID
+ * order, {@code documents.vector-reconcile.batch-size} rows at a time, and
+ * rows no longer backed by anything are deleted: procedure vectors whose
+ * procedure is gone or which are not its current vector (copies written
+ * before vector IDs were deterministic), and chunks of documents that are
+ * gone or failed part way through ingestion. The purge runs even when
+ * re-indexing fails.
+ */
+@Service
+public class VectorReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VectorReconciliationService.class);
+
+    private static final String FIRST_ID = "00000000-0000-0000-0000-000000000000";
+
+    record VectorRow(String id, Long procedureId, Long docId) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PgVectorWriter vectorWriter;
+    private final ProcedureService procedureService;
+    private final ProcedureRepository procedureRepository;
+    private final KnowledgeDocRepository knowledgeDocRepository;
+    private final int batchSize;
+    private final String scan;
+
+    public VectorReconciliationService(JdbcTemplate jdbcTemplate, PgVectorWriter vectorWriter,
+            ProcedureService procedureService, ProcedureRepository procedureRepository,
+            KnowledgeDocRepository knowledgeDocRepository,
+            @Value("${documents.vector-reconcile.batch-size:500}") int batchSize,
+            @Value("${documents.ingest.vector-table:vector_store}") String table) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.vectorWriter = vectorWriter;
+        this.procedureService = procedureService;
+        this.procedureRepository = procedureRepository;
+        this.knowledgeDocRepository = knowledgeDocRepository;
+        this.batchSize = batchSize;
+        this.scan = "SELECT id::text AS id, metadata->>'procedureId' AS procedure_id, metadata->>'docId' AS doc_id"
+                + " FROM " + table + " WHERE id > ?::uuid ORDER BY id LIMIT ?";
+    }
+
+    @Scheduled(fixedDelayString = "${documents.vector-reconcile.interval-ms:21600000}",
+            initialDelayString = "${documents.vector-reconcile.initial-delay-ms:600000}")
+    public void reconcile() {
+        int reindexed = 0;
+        try {
+            reindexed = procedureService.reindexChangedProcedures();
+        } catch (RuntimeException e) {
+            logger.warn("Procedure re-indexing failed, purging orphaned vectors anyway", e);
+        }
+        try {
+            int purged = purgeOrphans();
+            logger.info("Vector reconciliation re-indexed {} procedures and purged {} orphaned vectors", reindexed,
+                    purged);
+        } catch (DataAccessException e) {
+            logger.warn("Vector reconciliation failed, retrying next run", e);
+        }
+    }
+
+    /** Deletes orphaned rows batch by batch; returns how many were deleted. */
+    public int purgeOrphans() {
+        int purged = 0;
+        String after = FIRST_ID;
+        List<VectorRow> rows;
+        do {
+            rows = jdbcTemplate.query(scan, (rs, rowNum) -> new VectorRow(rs.getString("id"),
+                    parseId(rs.getString("procedure_id")), parseId(rs.getString("doc_id"))), after, batchSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+            List<String> orphans = orphans(rows, procedures(rows), documents(rows));
+            vectorWriter.delete(orphans);
+            purged += orphans.size();
+            after = rows.get(rows.size() - 1).id();
+        } while (rows.size() == batchSize);
+        return purged;
+    }
+
+    /** Rows of {@code batch} that no procedure or live document accounts for. */
+    static List<String> orphans(List<VectorRow> batch, Set<Long> procedureIds, Map<Long, KnowledgeDoc> documents) {
+        List<String> orphans = new ArrayList<>();
+        for (VectorRow row : batch) {
+            if (row.procedureId() != null) {
+                if (!procedureIds.contains(row.procedureId())
+                        || !ProcedureService.vectorId(row.procedureId()).equals(row.id())) {
+                    orphans.add(row.id());
+                }
+            } else if (row.docId() != null) {
+                KnowledgeDoc doc = documents.get(row.docId());
+                if (doc == null || doc.getStatus() == KnowledgeDoc.Status.FAILED) {
+                    orphans.add(row.id());
+                }
+            }
+        }
+        return orphans;
+    }
+
+    private Set<Long> procedures(List<VectorRow> rows) {
+        Set<Long> ids = rows.stream().map(VectorRow::procedureId).filter(id -> id != null).collect(Collectors.toSet());
+        Set<Long> existing = new HashSet<>();
+        for (Procedure procedure : procedureRepository.findAllById(ids)) {
+            existing.add(procedure.getId());
+        }
+        return existing;
+    }
+
+    private Map<Long, KnowledgeDoc> documents(List<VectorRow> rows) {
+        Set<Long> ids = rows.stream().map(VectorRow::docId).filter(id -> id != null).collect(Collectors.toSet());
+        return knowledgeDocRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(KnowledgeDoc::getId, Function.identity()));
+    }
+
+    private static Long parseId(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.hospomate.service;
+
+import com.hospomate.dto.WeeklyDashboardDTO;
+import com.hospomate.model.Store;
+import com.hospomate.repository.StoreRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DashboardSnapshotServiceTest {
+
+    private static final LocalDate WEEK = LocalDate.of(2025, 3, 3);
+
+    private final AtomicInteger computations = new AtomicInteger();
+    private final AtomicBoolean squareUp = new AtomicBoolean(true);
+    private final Queue<Runnable> pending = new ArrayDeque<>();
+
+    private final RevenueIntelligenceService intelligenceService = new RevenueIntelligenceService(null, null, null,
+            null, null, null) {
+        @Override
+        public WeeklyDashboardDTO getWeeklyDashboard(Long storeId, LocalDate weekStart) {
+            WeeklyDashboardDTO dto = new WeeklyDashboardDTO();
+            dto.setTotalRevenue(BigDecimal.valueOf(computations.incrementAndGet()));
+            dto.setComplete(squareUp.get());
+            dto.setComputedAt(Instant.now().minusSeconds(600));
+            return dto;
+        }
+    };
+
+    private final DashboardSnapshotService service = new DashboardSnapshotService(intelligenceService, null,
+            new ConcurrentMapCacheManager(DashboardSnapshotService.SNAPSHOT_CACHE), pending::add, 30);
+
+    @Test
+    public void testStaleDashboardIsServedWhileItRefreshes() {
+        // First computation, as the after-close precompute would do
+        service.refresh(1L, WEEK);
+        runPending();
+        WeeklyDashboardDTO first = service.get(1L, WEEK, Duration.ofMinutes(5)).dashboard();
+        assertEquals(BigDecimal.valueOf(1), first.getTotalRevenue());
+
+        // Ten minutes old: returned as is, with one refresh queued however often it is read
+        DashboardSnapshotService.Read read = service.get(1L, WEEK, Duration.ofMinutes(5));
+        service.get(1L, WEEK, Duration.ofMinutes(5));
+        assertSame(first, read.dashboard());
+        assertTrue(read.revalidating());
+        assertEquals(1, pending.size());
+
+        runPending();
+        assertEquals(BigDecimal.valueOf(2), service.get(1L, WEEK, Duration.ofHours(1)).dashboard().getTotalRevenue());
+        assertFalse(service.get(1L, WEEK, Duration.ofHours(1)).revalidating());
+    }
+
+    @Test
+    public void testIncompleteRefreshKeepsCompleteDashboard() {
+        service.refresh(1L, WEEK);
+        runPending();
+        squareUp.set(false);
+        service.refresh(1L, WEEK);
+        runPending();
+
+        WeeklyDashboardDTO served = service.get(1L, WEEK, Duration.ofHours(1)).dashboard();
+        assertTrue(served.isComplete());
+        assertEquals(BigDecimal.valueOf(1), served.getTotalRevenue());
+    }
+
+    @Test
+    public void testPrecomputeQueuesWeeksWithoutWaitingForThem() {
+        Store store = new Store();
+        store.setId(1L);
+        StoreRepository storeRepository = mock(StoreRepository.class);
+        when(storeRepository.findAll()).thenReturn(List.of(store));
+        DashboardSnapshotService precompute = new DashboardSnapshotService(intelligenceService, storeRepository,
+                new ConcurrentMapCacheManager(DashboardSnapshotService.SNAPSHOT_CACHE), pending::add, 30);
+
+        // Returns with the current week queued; a run while it is in flight adds nothing
+        precompute.precomputeAfterClose();
+        precompute.precomputeAfterClose();
+        assertEquals(0, computations.get());
+        assertEquals(1, pending.size());
+
+        // The previous week is queued behind the current one
+        pending.poll().run();
+        assertEquals(1, computations.get());
+        assertEquals(1, pending.size());
+        runPending();
+        assertEquals(2, computations.get());
+
+        // Done for this close
+        precompute.precomputeAfterClose();
+        assertTrue(pending.isEmpty());
+    }
+
+    @Test
+    public void testLastCloseIsTheMostRecentClosePlusDelay() {
+        Store store = new Store();
+        store.setClosingTime(LocalTime.of(22, 0));
+        Duration delay = Duration.ofMinutes(30);
+
+        assertEquals(LocalDateTime.of(2025, 3, 9, 22, 30), DashboardSnapshotService.lastClose(store,
+                LocalDateTime.of(2025, 3, 10, 8, 0), delay));
+        assertEquals(LocalDateTime.of(2025, 3, 10, 22, 30), DashboardSnapshotService.lastClose(store,
+                LocalDateTime.of(2025, 3, 10, 22, 30), delay));
+
+        // Closing after midnight: Sunday night's trade closes early on Monday
+        store.setClosingTime(LocalTime.of(1, 0));
+        assertEquals(LocalDateTime.of(2025, 3, 10, 1, 30), DashboardSnapshotService.lastClose(store,
+                LocalDateTime.of(2025, 3, 10, 8, 0), delay));
+        assertEquals(LocalDate.of(2025, 3, 10), DashboardSnapshotService.weekStartOf(LocalDate.of(2025, 3, 16)));
+    }
+
+    private void runPending() {
+        while (!pending.isEmpty()) {
+            pending.poll().run();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.hospomate.service;
+
+import com.hospomate.dto.DemandForecastDTO;
+import com.hospomate.dto.ForecastHourDTO;
+import com.hospomate.model.DemandForecastModel;
+import com.hospomate.model.HourlyCategoryRollup;
+import com.hospomate.model.Store;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DemandForecastServiceTest {
+
+    private static final ZoneId ZONE = ZoneOffset.UTC;
+    private static final LocalDate FIRST_MONDAY = LocalDate.of(2025, 1, 6);
+    private static final SeasonalSmoothing.Parameters PARAMETERS = new SeasonalSmoothing.Parameters(0.05, 0.001,
+            0.3, 0.98);
+
+    @Test
+    public void testForecastFollowsWeeklyPatternWithinInterval() {
+        DemandForecastService.Fitter fitter = new DemandForecastService.Fitter(PARAMETERS, null, null);
+        fitter.addHours(start(0), start(20), ZONE, history(0, 20));
+
+        DemandForecastDTO forecast = forecast(fitter, 20);
+
+        assertEquals(FIRST_MONDAY.plusWeeks(20), forecast.getWeekStart());
+        // Monday 12:00 trades about 600.00 and 60 items, 3:00 nothing
+        ForecastHourDTO lunch = forecast.getHours().get(12);
+        assertEquals(LocalDateTime.of(2025, 5, 26, 12, 0), lunch.getStartTime());
+        assertTrue(lunch.getRevenue().subtract(new BigDecimal("600.00")).abs().compareTo(new BigDecimal("30")) < 0,
+                "lunch revenue " + lunch.getRevenue());
+        assertTrue(lunch.getRevenueLow().compareTo(new BigDecimal("600.00")) < 0);
+        assertTrue(lunch.getRevenueHigh().compareTo(new BigDecimal("600.00")) > 0);
+        assertTrue(lunch.getItems().subtract(new BigDecimal("60")).abs().compareTo(new BigDecimal("3")) < 0,
+                "lunch items " + lunch.getItems());
+        assertTrue(forecast.getHours().get(3).getRevenue().compareTo(new BigDecimal("20")) < 0);
+        // Saturday is busier than Monday
+        assertTrue(forecast.getHours().get(5 * 24 + 12).getRevenue().compareTo(lunch.getRevenue()) > 0);
+    }
+
+    @Test
+    public void testIncrementalFitFromSavedStateMatchesOneShot() {
+        DemandForecastService.Fitter oneShot = new DemandForecastService.Fitter(PARAMETERS, null, null);
+        oneShot.addHours(start(0), start(12), ZONE, history(0, 12));
+
+        DemandForecastService.Fitter first = new DemandForecastService.Fitter(PARAMETERS, null, null);
+        first.addHours(start(0), start(9), ZONE, history(0, 9));
+        DemandForecastModel revenueModel = new DemandForecastModel(1L, DemandForecastService.REVENUE, "LOC1");
+        DemandForecastModel itemsModel = new DemandForecastModel(1L, DemandForecastService.ITEMS, "LOC1");
+        first.saveTo(revenueModel, itemsModel);
+
+        DemandForecastService.Fitter resumed = new DemandForecastService.Fitter(PARAMETERS,
+                SeasonalSmoothing.restore(PARAMETERS, revenueModel),
+                SeasonalSmoothing.restore(PARAMETERS, itemsModel));
+        for (int week = 9; week < 12; week++) {
+            resumed.addHours(start(week), start(week + 1), ZONE, history(week, week + 1));
+        }
+
+        List<ForecastHourDTO> expected = forecast(oneShot, 12).getHours();
+        List<ForecastHourDTO> actual = forecast(resumed, 12).getHours();
+        for (int slot = 0; slot < DemandProfile.SLOTS; slot++) {
+            assertEquals(expected.get(slot).getRevenue(), actual.get(slot).getRevenue());
+            assertEquals(expected.get(slot).getItemsHigh(), actual.get(slot).getItemsHigh());
+        }
+    }
+
+    @Test
+    public void testLastClosedDayFollowsClosingTime() {
+        Store store = new Store();
+        store.setOpeningTime(LocalTime.of(9, 0));
+        store.setClosingTime(LocalTime.of(22, 0));
+        LocalDateTime tuesdayMorning = LocalDateTime.of(2025, 3, 4, 1, 0);
+        assertEquals(LocalDate.of(2025, 3, 3),
+                DemandForecastService.lastClosedDay(store, tuesdayMorning, Duration.ofMinutes(30)));
+
+        // Closes at 2:00, so Monday is only done once Tuesday's 2:30 has passed
+        store.setClosingTime(LocalTime.of(2, 0));
+        assertEquals(LocalDate.of(2025, 3, 2),
+                DemandForecastService.lastClosedDay(store, tuesdayMorning, Duration.ofMinutes(30)));
+        assertEquals(LocalDate.of(2025, 3, 3), DemandForecastService.lastClosedDay(store,
+                LocalDateTime.of(2025, 3, 4, 3, 0), Duration.ofMinutes(30)));
+    }
+
+    private static DemandForecastDTO forecast(DemandForecastService.Fitter fitter, int week) {
+        DemandForecastModel revenueModel = new DemandForecastModel(1L, DemandForecastService.REVENUE, "LOC1");
+        DemandForecastModel itemsModel = new DemandForecastModel(1L, DemandForecastService.ITEMS, "LOC1");
+        assertTrue(fitter.initialised());
+        fitter.saveTo(revenueModel, itemsModel);
+        LocalDate weekStart = FIRST_MONDAY.plusWeeks(week);
+        return DemandForecastService.forecast(weekStart, weekStart, ZONE,
+                SeasonalSmoothing.restore(PARAMETERS, revenueModel),
+                SeasonalSmoothing.restore(PARAMETERS, itemsModel), 1.28);
+    }
+
+    private static Instant start(int week) {
+        return FIRST_MONDAY.plusWeeks(week).atStartOfDay(ZONE).toInstant();
+    }
+
+    /**
+     * Trade from 7:00 to 21:00 peaking at lunch, 50% up on weekends, with
+     * +/-10% noise. One category row per open hour.
+     */
+    private static List<HourlyCategoryRollup> history(int fromWeek, int toWeek) {
+        List<HourlyCategoryRollup> rows = new ArrayList<>();
+        for (int week = fromWeek; week < toWeek; week++) {
+            Random random = new Random(week);
+            for (int slot = 0; slot < DemandProfile.SLOTS; slot++) {
+                int day = slot / 24;
+                int hour = slot % 24;
+                if (hour < 7 || hour >= 21) {
+                    continue;
+                }
+                double base = (hour == 12 ? 60000 : 20000) * (day >= 5 ? 1.5 : 1.0);
+                double noise = 1 + (random.nextDouble() - 0.5) * 0.2;
+                HourlyCategoryRollup row = new HourlyCategoryRollup("LOC1",
+                        start(week).plusSeconds(slot * 3600L), "Coffee");
+                row.setRevenueCents(Math.round(base * noise));
+                row.setItemCount(Math.round(base * noise / 1000));
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,228 @@
+package com.hospomate.service;
+
+import com.hospomate.model.KnowledgeDoc;
+import com.hospomate.repository.EmbeddingCacheRepository;
+import com.hospomate.repository.KnowledgeDocRepository;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DocumentServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final KnowledgeDocRepository repository = mock(KnowledgeDocRepository.class);
+    private final EmbeddingModel embeddingModel = mock(EmbeddingModel.class);
+    private final EmbeddingCacheService embeddingCache = new EmbeddingCacheService(embeddingModel,
+            mock(EmbeddingCacheRepository.class), mock(JdbcTemplate.class), "test-model");
+    private final PgVectorWriter vectorWriter = mock(PgVectorWriter.class);
+    private final IngestPipelineStats stats = new IngestPipelineStats();
+    private final ExecutorService pipelineExecutor = Executors.newCachedThreadPool();
+    private final KnowledgeDoc doc = new KnowledgeDoc();
+
+    public DocumentServiceTest() {
+        doc.setId(7L);
+        doc.setFilename("manual.pdf");
+        doc.setStoreId(1L);
+        doc.setStatus(KnowledgeDoc.Status.PENDING);
+        when(repository.save(any(KnowledgeDoc.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(repository.findById(7L)).thenReturn(Optional.of(doc));
+        when(embeddingModel.embed(anyList())).thenAnswer(invocation -> {
+            List<List<Double>> embeddings = new ArrayList<>();
+            for (Object text : invocation.getArgument(0, List.class)) {
+                embeddings.add(List.of((double) text.toString().length()));
+            }
+            return embeddings;
+        });
+    }
+
+    @AfterEach
+    public void shutDown() {
+        pipelineExecutor.shutdownNow();
+    }
+
+    private DocumentService service(java.util.concurrent.Executor ingestExecutor) {
+        return new DocumentService(repository, embeddingCache, vectorWriter, stats, ingestExecutor,
+                pipelineExecutor, 4, 2, 30);
+    }
+
+    @Test
+    public void testPagesAreEmbeddedInBatchesWithProgress() throws IOException {
+        Path upload = Files.writeString(tempDir.resolve("manual.pdf"), "%PDF");
+        // Three 4000 character pages, a blank one and a repeat of the first: three chunks
+        // per distinct page at 2000/200
+        DocumentService service = new DocumentService(repository, embeddingCache, vectorWriter, stats,
+                Runnable::run, pipelineExecutor, 4, 2, 30) {
+            @Override
+            void readPages(Path path, Consumer<Document> pageSink) {
+                for (int p = 1; p <= 3; p++) {
+                    pageSink.accept(new Document(pageText(p, 4000), new HashMap<>(Map.of("page_number", p))));
+                }
+                pageSink.accept(new Document(" ", new HashMap<>()));
+                pageSink.accept(new Document(pageText(1, 4000), new HashMap<>(Map.of("page_number", 5))));
+            }
+        };
+
+        service.ingest(7L, upload);
+
+        assertEquals(KnowledgeDoc.Status.INDEXED, doc.getStatus());
+        assertEquals(4, doc.getPagesParsed());
+        assertEquals(9, doc.getChunksTotal());
+        assertEquals(9, doc.getChunksEmbedded());
+        // 4 + 4 + 1, each embedded and written once
+        verify(embeddingModel, times(3)).embed(anyList());
+        verify(vectorWriter, times(3)).write(anyList(), anyList());
+        assertEquals(4L, stage("parse").get("items"));
+        assertEquals(9L, stage("embed").get("items"));
+        assertEquals(9L, stage("write").get("items"));
+        assertNotNull(doc.getStartedAt());
+        assertNotNull(doc.getCompletedAt());
+        assertFalse(Files.exists(upload));
+    }
+
+    @Test
+    public void testUnreadableUploadFails() throws IOException {
+        Path upload = Files.writeString(tempDir.resolve("broken.pdf"), "not a pdf");
+        service(Runnable::run).ingest(7L, upload);
+
+        assertEquals(KnowledgeDoc.Status.FAILED, doc.getStatus());
+        assertNotNull(doc.getErrorMessage());
+        verify(vectorWriter, never()).write(anyList(), anyList());
+        assertFalse(Files.exists(upload));
+    }
+
+    @Test
+    public void testPdfPagesAreStreamedToTheWriter() throws IOException {
+        Path upload = tempDir.resolve("menu.pdf");
+        try (PDDocument pdf = new PDDocument()) {
+            for (int p = 1; p <= 2; p++) {
+                PDPage page = new PDPage();
+                pdf.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(pdf, page)) {
+                    content.beginText();
+                    content.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+                    content.newLineAtOffset(72, 700);
+                    content.showText("Page " + p + " closing checklist");
+                    content.endText();
+                }
+            }
+            pdf.save(upload.toFile());
+        }
+
+        service(Runnable::run).ingest(7L, upload);
+
+        assertEquals(KnowledgeDoc.Status.INDEXED, doc.getStatus());
+        assertEquals(2, doc.getPagesParsed());
+        assertEquals(2, doc.getChunksEmbedded());
+        verify(vectorWriter).write(org.mockito.ArgumentMatchers.argThat(chunks -> chunks.size() == 2
+                && chunks.get(0).getContent().contains("Page 1")
+                && "7".equals(chunks.get(0).getMetadata().get("docId"))
+                && Integer.valueOf(2).equals(chunks.get(1).getMetadata().get("page_number"))), anyList());
+    }
+
+    @Test
+    public void testWriteFailureStopsThePipeline() throws IOException {
+        Path upload = Files.writeString(tempDir.resolve("long.pdf"), "%PDF");
+        doThrow(new IllegalStateException("vector table is gone")).when(vectorWriter).write(anyList(), anyList());
+        // Far more pages than the queues hold, so the parser is blocked when the writer fails
+        DocumentService service = new DocumentService(repository, embeddingCache, vectorWriter, stats,
+                Runnable::run, pipelineExecutor, 4, 2, 30) {
+            @Override
+            void readPages(Path path, Consumer<Document> pageSink) {
+                for (int p = 0; p < 500; p++) {
+                    pageSink.accept(new Document(pageText(p, 1500), new HashMap<>()));
+                }
+            }
+        };
+
+        service.ingest(7L, upload);
+
+        assertEquals(KnowledgeDoc.Status.FAILED, doc.getStatus());
+        assertTrue(doc.getErrorMessage().contains("vector table is gone"));
+        assertEquals(0, doc.getChunksEmbedded());
+        assertTrue(doc.getPagesParsed() < 500);
+        assertFalse(Files.exists(upload));
+    }
+
+    @Test
+    public void testDuplicateUploadReturnsTheIndexedDocument() throws IOException {
+        byte[] content = "%PDF-1.7 same bytes".getBytes();
+        doc.setStatus(KnowledgeDoc.Status.INDEXED);
+        when(repository.findFirstByStoreIdAndFileHashAndStatusNotOrderByIdDesc(1L,
+                EmbeddingCacheService.sha256Hex(content), KnowledgeDoc.Status.FAILED)).thenReturn(Optional.of(doc));
+        DocumentService service = service(task -> {
+            throw new AssertionError("A duplicate must not be queued");
+        });
+
+        KnowledgeDoc result = service.submitDocument(
+                new MockMultipartFile("file", "copy.pdf", "application/pdf", content), 1L);
+
+        assertEquals(7L, result.getId());
+        verify(repository, never()).save(any(KnowledgeDoc.class));
+        verify(embeddingModel, never()).embed(anyList());
+    }
+
+    @Test
+    public void testFullQueueRefusesUpload() {
+        DocumentService service = service(task -> {
+            throw new RejectedExecutionException("queue full");
+        });
+        MockMultipartFile file = new MockMultipartFile("file", "manual.pdf", "application/pdf", new byte[] { 1 });
+
+        IngestQueueFullException e = assertThrows(IngestQueueFullException.class,
+                () -> service.submitDocument(file, 1L));
+
+        assertEquals(30, e.getRetryAfter().toSeconds());
+        verify(repository).delete(any(KnowledgeDoc.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> stage(String name) {
+        return (Map<String, Object>) stats.stats().get(name);
+    }
+
+    private static String pageText(int page, int length) {
+        StringBuilder text = new StringBuilder(length + 20);
+        for (int word = 0; text.length() < length; word++) {
+            text.append("page").append(page).append('w').append(word).append(' ');
+        }
+        return text.substring(0, length);
+    }
+}
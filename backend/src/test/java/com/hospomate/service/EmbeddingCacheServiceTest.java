@@ -0,0 +1,94 @@
+package com.hospomate.service;
+
+import com.hospomate.model.EmbeddingCacheEntry;
+import com.hospomate.repository.EmbeddingCacheRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class EmbeddingCacheServiceTest {
+
+    private final EmbeddingModel embeddingModel = mock(EmbeddingModel.class);
+    private final EmbeddingCacheRepository repository = mock(EmbeddingCacheRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final Map<String, EmbeddingCacheEntry> table = new HashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public EmbeddingCacheServiceTest() {
+        when(embeddingModel.embed(anyList())).thenAnswer(invocation -> {
+            List<List<Double>> embeddings = new ArrayList<>();
+            for (Object text : invocation.getArgument(0, List.class)) {
+                embeddings.add(List.of((double) text.toString().length(), 0.5));
+            }
+            return embeddings;
+        });
+        when(repository.findAllById(any())).thenAnswer(invocation -> {
+            List<EmbeddingCacheEntry> found = new ArrayList<>();
+            for (String hash : (Iterable<String>) invocation.getArgument(0)) {
+                if (table.containsKey(hash)) {
+                    found.add(table.get(hash));
+                }
+            }
+            return found;
+        });
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            assertTrue(invocation.getArgument(0, String.class).endsWith("ON CONFLICT (content_hash) DO NOTHING"));
+            List<Object[]> rows = invocation.getArgument(1);
+            for (Object[] row : rows) {
+                // Like the conflict clause, a key already present is left alone
+                table.putIfAbsent((String) row[0],
+                        new EmbeddingCacheEntry((String) row[0], (String) row[1], (Integer) row[2], (byte[]) row[3]));
+            }
+            return new int[rows.size()];
+        });
+    }
+
+    @Test
+    public void testRepeatedTextIsEmbeddedOnce() {
+        EmbeddingCacheService cache = new EmbeddingCacheService(embeddingModel, repository, jdbcTemplate, "model-a");
+
+        List<List<Double>> first = cache.embed(List.of("Close the  till", "Mop the floor", "Close the till\n"));
+        List<List<Double>> second = cache.embed(List.of("Mop the floor"));
+
+        // The first and third texts normalise to the same key
+        verify(embeddingModel, times(1)).embed(List.of("Close the till", "Mop the floor"));
+        verify(embeddingModel, times(1)).embed(anyList());
+        assertEquals(2, table.size());
+        assertEquals(first.get(0), first.get(2));
+        assertEquals(List.of(13.0, 0.5), second.get(0));
+        assertEquals(2L, cache.stats().get("hits"));
+        assertEquals(2L, cache.stats().get("misses"));
+    }
+
+    @Test
+    public void testKeysDependOnTheModel() {
+        EmbeddingCacheService modelA = new EmbeddingCacheService(embeddingModel, repository, jdbcTemplate, "model-a");
+        EmbeddingCacheService modelB = new EmbeddingCacheService(embeddingModel, repository, jdbcTemplate, "model-b");
+
+        assertEquals(modelA.contentHash("Wipe  benches"), modelA.contentHash(" Wipe benches "));
+        assertNotEquals(modelA.contentHash("Wipe benches"), modelB.contentHash("Wipe benches"));
+
+        modelA.embed(List.of("Wipe benches"));
+        verify(embeddingModel, times(1)).embed(anyList());
+        modelB.embed(List.of("Wipe benches"));
+        verify(embeddingModel, times(2)).embed(anyList());
+        verify(repository, never()).deleteAll();
+    }
+}
@@ -0,0 +1,84 @@
+package com.hospomate.service;
+
+import com.squareup.square.types.Order;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory stand-in for Square's SearchOrders, with small pages so cursor
+ * chains are exercised. Cursors are plain offsets into the filtered result.
+ */
+public class FakeSquareOrderFeed implements SquareOrderFeed {
+
+    private final Map<String, Order> orders = new LinkedHashMap<>();
+    private final int pageSize;
+    private int requests;
+    private int ordersReturned;
+
+    public FakeSquareOrderFeed(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public void put(Order order) {
+        orders.put(order.getId().orElseThrow(), order);
+    }
+
+    public int getRequests() {
+        return requests;
+    }
+
+    public int getOrdersReturned() {
+        return ordersReturned;
+    }
+
+    public void resetCounters() {
+        requests = 0;
+        ordersReturned = 0;
+    }
+
+    @Override
+    public Page ordersUpdatedSince(String locationId, Instant since, String cursor) {
+        List<Order> matching = new ArrayList<>();
+        for (Order order : orders.values()) {
+            Instant updatedAt = instant(order.getUpdatedAt().orElse(null));
+            if (order.getLocationId().equals(locationId) && updatedAt != null && !updatedAt.isBefore(since)) {
+                matching.add(order);
+            }
+        }
+        matching.sort(Comparator.comparing(o -> instant(o.getUpdatedAt().orElse(null))));
+        return page(matching, cursor);
+    }
+
+    @Override
+    public Page ordersClosedBetween(String locationId, Instant start, Instant end, String cursor) {
+        List<Order> matching = new ArrayList<>();
+        for (Order order : orders.values()) {
+            Instant closedAt = instant(order.getClosedAt().orElse(null));
+            if (order.getLocationId().equals(locationId) && closedAt != null && !closedAt.isBefore(start)
+                    && closedAt.isBefore(end)) {
+                matching.add(order);
+            }
+        }
+        matching.sort(Comparator.comparing(o -> instant(o.getClosedAt().orElse(null))));
+        return page(matching, cursor);
+    }
+
+    private Page page(List<Order> matching, String cursor) {
+        requests++;
+        int from = cursor != null ? Integer.parseInt(cursor) : 0;
+        int to = Math.min(from + pageSize, matching.size());
+        List<Order> page = new ArrayList<>(matching.subList(from, to));
+        ordersReturned += page.size();
+        return new Page(page, to < matching.size() ? String.valueOf(to) : null);
+    }
+
+    private static Instant instant(String isoDate) {
+        return isoDate != null ? OffsetDateTime.parse(isoDate).toInstant() : null;
+    }
+}
@@ -0,0 +1,58 @@
+package com.hospomate.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class HourlyBucketsTest {
+
+    private static final LocalDateTime WEEK_START = LocalDateTime.of(2025, 3, 3, 0, 0);
+    private static final int SLOTS = 7 * 24;
+
+    @Test
+    public void testBucketsMatchPerHourScan() {
+        Random random = new Random(42);
+        List<ParsedOrder> orders = new ArrayList<>();
+        List<ParsedShift> shifts = new ArrayList<>();
+
+        // Orders and shifts spread across the week plus a day either side, in whole
+        // minutes so plenty of them land exactly on hour boundaries
+        for (int i = 0; i < 2000; i++) {
+            LocalDateTime closedAt = WEEK_START.plusMinutes(random.nextInt(9 * 24 * 60) - 24 * 60);
+            orders.add(new ParsedOrder("o" + i, closedAt, List.of(), List.of(), 1000L, null));
+        }
+        for (int i = 0; i < 300; i++) {
+            LocalDateTime start = WEEK_START.plusMinutes(random.nextInt(9 * 24 * 60) - 24 * 60);
+            LocalDateTime end = start.plusMinutes(random.nextInt(12 * 60) - 30);
+            shifts.add(new ParsedShift("tm" + i, start, end));
+        }
+
+        HourlyBuckets buckets = HourlyBuckets.build(WEEK_START, SLOTS, orders, shifts);
+
+        for (int slot = 0; slot < SLOTS; slot++) {
+            LocalDateTime start = WEEK_START.plusHours(slot);
+            LocalDateTime end = start.plusHours(1);
+
+            List<ParsedOrder> expectedOrders = new ArrayList<>();
+            for (ParsedOrder order : orders) {
+                if (!order.closedAt().isBefore(start) && order.closedAt().isBefore(end)) {
+                    expectedOrders.add(order);
+                }
+            }
+            List<ParsedShift> expectedShifts = new ArrayList<>();
+            for (ParsedShift shift : shifts) {
+                if (shift.start().isBefore(end) && shift.end().isAfter(start)) {
+                    expectedShifts.add(shift);
+                }
+            }
+
+            assertEquals(expectedOrders, buckets.ordersAt(slot), "orders in slot " + slot);
+            assertEquals(expectedShifts, buckets.shiftsAt(slot), "shifts in slot " + slot);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.hospomate.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hospomate.config.InstrumentedCacheManager;
+import com.hospomate.dto.HourlyInsightDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class HourlyInsightCachePolicyTest {
+
+    // A Tuesday
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 11, 14, 30);
+    private static final Duration CURRENT = Duration.ofMinutes(5);
+    private static final Duration CLOSED = Duration.ofHours(24);
+
+    private final HourlyInsightCachePolicy policy = new HourlyInsightCachePolicy(CURRENT, CLOSED,
+            Duration.ofHours(6), () -> NOW);
+
+    @Test
+    public void testCurrentWeekExpiresSoonerThanClosedWeeks() {
+        assertEquals(CURRENT, policy.ttlFor(LocalDateTime.of(2025, 3, 10, 0, 0)));
+        assertEquals(CURRENT, policy.ttlFor(LocalDateTime.of(2025, 3, 11, 13, 0)));
+        assertEquals(CLOSED, policy.ttlFor(LocalDateTime.of(2025, 3, 9, 23, 0)));
+
+        // Early on Monday last week is still current, within the grace period
+        HourlyInsightCachePolicy monday = new HourlyInsightCachePolicy(CURRENT, CLOSED, Duration.ofHours(6),
+                () -> LocalDateTime.of(2025, 3, 10, 5, 0));
+        assertEquals(CURRENT, monday.ttlFor(LocalDateTime.of(2025, 3, 9, 23, 0)));
+        assertEquals(CLOSED, monday.ttlFor(LocalDateTime.of(2025, 3, 2, 23, 0)));
+    }
+
+    @Test
+    public void testEvictStoreDropsOnlyThatStoresHours() {
+        InstrumentedCacheManager cacheManager = new InstrumentedCacheManager(Caffeine::newBuilder);
+        cacheManager.registerCustomCache(RevenueIntelligenceService.HOURLY_CACHE,
+                cacheManager.instrument(RevenueIntelligenceService.HOURLY_CACHE, Caffeine.newBuilder()
+                        .executor(Runnable::run)
+                        .maximumWeight(1000)
+                        .weigher(HourlyInsightCachePolicy::weigh)
+                        .expireAfter(policy))
+                        .build());
+        RevenueIntelligenceService service = new RevenueIntelligenceService(null, null, null, null, null,
+                cacheManager);
+
+        Cache cache = cacheManager.getCache(RevenueIntelligenceService.HOURLY_CACHE);
+        LocalDateTime hour = LocalDateTime.of(2025, 3, 10, 9, 0);
+        cache.put(new RevenueIntelligenceService.HourKey(1L, hour), hour(hour));
+        cache.put(new RevenueIntelligenceService.HourKey(1L, hour.plusHours(1)), hour(hour.plusHours(1)));
+        cache.put(new RevenueIntelligenceService.HourKey(2L, hour), hour(hour));
+
+        service.onSettingsChanged(new InsightSettingsChangedEvent(1L));
+
+        assertNull(cache.get(new RevenueIntelligenceService.HourKey(1L, hour)));
+        assertNull(cache.get(new RevenueIntelligenceService.HourKey(1L, hour.plusHours(1))));
+        assertNotNull(cache.get(new RevenueIntelligenceService.HourKey(2L, hour)));
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> stats = (Map<String, Object>) cacheManager.stats()
+                .get(RevenueIntelligenceService.HOURLY_CACHE);
+        assertEquals(2L, stats.get("invalidated"));
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(2L, stats.get("misses"));
+        // The remaining hour has empty breakdowns, so weighs one
+        assertEquals(1L, stats.get("weight"));
+    }
+
+    private static HourlyInsightDTO hour(LocalDateTime start) {
+        HourlyInsightDTO dto = new HourlyInsightDTO();
+        dto.setStartTime(start);
+        dto.setRevenueByCategory(Map.of());
+        return dto;
+    }
+}
@@ -0,0 +1,24 @@
+package com.hospomate.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+public class KnowledgeSearchServiceTest {
+
+    @Test
+    public void testFilterIsScopedToTheStoreAndTypes() {
+        List<String> types = List.of("KNOWLEDGE_BASE", "PROCEDURE");
+
+        assertEquals("storeId == '12' && type in ['KNOWLEDGE_BASE', 'PROCEDURE']",
+                KnowledgeSearchService.filterExpression(12L, types));
+        assertEquals("type in ['KNOWLEDGE_BASE', 'PROCEDURE']", KnowledgeSearchService.filterExpression(null, types));
+        assertThrows(IllegalArgumentException.class,
+                () -> new KnowledgeSearchService(mock(VectorStore.class), 4, 0.0, List.of("X' || true")));
+    }
+}
@@ -0,0 +1,86 @@
+package com.hospomate.service;
+
+import com.hospomate.dto.LabourCostDTO;
+import com.hospomate.dto.LabourHourDTO;
+import com.hospomate.model.HourlyCategoryRollup;
+import com.hospomate.model.HourlyTeamMemberRollup;
+import com.hospomate.model.Staff;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LabourCostServiceTest {
+
+    private static final Instant MONDAY = Instant.parse("2025-03-03T00:00:00Z");
+
+    @Test
+    public void testShiftMinutesArePricedAtStaffRates() {
+        Staff barista = new Staff();
+        barista.setHourlyRate(new BigDecimal("30.00"));
+        Staff chef = new Staff();
+        chef.setHourlyRate(new BigDecimal("35.50"));
+        Map<String, Long> rates = LabourCostService.rateCentsByTeamMember(Map.of("TM-1", barista, "TM-2", chef,
+                "TM-4", new Staff()));
+
+        List<HourlyCategoryRollup> revenue = List.of(
+                category(9, 20000), category(9, 5000), category(10, 3000), category(12, 8000));
+        List<HourlyTeamMemberRollup> shifts = List.of(
+                // 9:00 two on all hour, one of them without a rate
+                member(9, "TM-1", 60), member(9, "TM-3", 60),
+                // 10:00 two on, half an hour each
+                member(10, "TM-1", 30), member(10, "TM-2", 30));
+
+        LabourCostDTO week = LabourCostService.compute(MONDAY, 168, ZoneOffset.UTC, revenue, shifts, rates,
+                new BigDecimal("50.00"), new BigDecimal("2.0"));
+
+        LabourHourDTO nine = week.getHours().get(9);
+        assertEquals(LocalDateTime.of(2025, 3, 3, 9, 0), nine.getStartTime());
+        assertEquals(new BigDecimal("250.00"), nine.getRevenue());
+        assertEquals(new BigDecimal("2.00"), nine.getLabourHours());
+        assertEquals(new BigDecimal("30.00"), nine.getLabourCost());
+        assertEquals(new BigDecimal("12.00"), nine.getLabourCostPercent());
+        assertEquals(new BigDecimal("125.00"), nine.getRevenuePerLabourHour());
+        assertTrue(nine.isUnderstaffed());
+
+        // 30.00 / 2 + 35.50 / 2 = 32.75 against 30.00 of revenue in one labour hour
+        LabourHourDTO ten = week.getHours().get(10);
+        assertEquals(new BigDecimal("32.75"), ten.getLabourCost());
+        assertEquals(new BigDecimal("109.17"), ten.getLabourCostPercent());
+        assertTrue(ten.isOverstaffed());
+        assertFalse(ten.isUnderstaffed());
+
+        // Revenue with nobody on
+        assertTrue(week.getHours().get(12).isUnderstaffed());
+        assertNull(week.getHours().get(13).getLabourCostPercent());
+
+        assertEquals(new BigDecimal("360.00"), week.getTotalRevenue());
+        assertEquals(new BigDecimal("62.75"), week.getLabourCost());
+        assertEquals(new BigDecimal("3.00"), week.getLabourHours());
+        assertEquals(new BigDecimal("1.00"), week.getUnpricedLabourHours());
+        assertEquals(1, week.getOverstaffedHours());
+        assertEquals(2, week.getUnderstaffedHours());
+    }
+
+    private static HourlyCategoryRollup category(int hour, long cents) {
+        HourlyCategoryRollup row = new HourlyCategoryRollup("LOC1", MONDAY.plusSeconds(hour * 3600L), "Coffee");
+        row.setRevenueCents(cents);
+        return row;
+    }
+
+    private static HourlyTeamMemberRollup member(int hour, String teamMemberId, long minutes) {
+        HourlyTeamMemberRollup row = new HourlyTeamMemberRollup("LOC1", MONDAY.plusSeconds(hour * 3600L),
+                teamMemberId);
+        row.setShiftMinutes(minutes);
+        return row;
+    }
+}
@@ -0,0 +1,159 @@
+package com.hospomate.service;
+
+import com.hospomate.model.SquareOrder;
+import com.hospomate.repository.SquareOrderRepository;
+import com.squareup.square.types.Money;
+import com.squareup.square.types.Order;
+import com.squareup.square.types.OrderLineItem;
+import com.squareup.square.types.OrderMoneyAmounts;
+import com.squareup.square.types.OrderServiceCharge;
+import com.squareup.square.types.OrderState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({ OrderWarehouseService.class, SquareLocations.class, OrderWarehouseServiceTest.FeedConfig.class })
+@TestPropertySource(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "square.location.id=LOC1" })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OrderWarehouseServiceTest {
+
+    private static final String LOCATION = "LOC1";
+
+    @TestConfiguration
+    static class FeedConfig {
+        @Bean
+        FakeSquareOrderFeed fakeSquareOrderFeed() {
+            return new FakeSquareOrderFeed(2);
+        }
+    }
+
+    @Autowired
+    private OrderWarehouseService warehouse;
+
+    @Autowired
+    private FakeSquareOrderFeed feed;
+
+    @Autowired
+    private SquareOrderRepository orderRepository;
+
+    private final Instant base = Instant.now().minus(2, ChronoUnit.DAYS).truncatedTo(ChronoUnit.HOURS);
+
+    @BeforeEach
+    public void setUp() {
+        feed.resetCounters();
+    }
+
+    @Test
+    public void testIncrementalSyncWithLateEditsAndRefunds() {
+        for (int i = 0; i < 5; i++) {
+            feed.put(order("order-" + i, 1, base.plusSeconds(i * 600), base.plusSeconds(i * 600), 1200L, 0L));
+        }
+
+        // Initial sync walks the whole cursor chain (5 orders, pages of 2)
+        assertEquals(5, warehouse.sync(LOCATION));
+        assertEquals(3, feed.getRequests());
+        assertEquals(5, orderRepository.count());
+
+        SquareOrder stored = orderRepository.findBySquareOrderId("order-0").orElseThrow();
+        assertEquals(1500L, stored.getTotalCents());
+        assertEquals(300L, stored.getTipCents());
+
+        // Nothing changed: only the watermark overlap is re-read and nothing is rewritten
+        feed.resetCounters();
+        assertEquals(0, warehouse.sync(LOCATION));
+        assertEquals(1, feed.getOrdersReturned());
+
+        // Late edit to an old order plus a refund on another: only the delta is pulled
+        Instant editedAt = base.plus(1, ChronoUnit.DAYS);
+        feed.put(order("order-1", 2, base.plusSeconds(600), editedAt, 2400L, 0L));
+        feed.put(order("order-2", 2, base.plusSeconds(1200), editedAt.plusSeconds(5), 1200L, 500L));
+        feed.resetCounters();
+        assertEquals(2, warehouse.sync(LOCATION));
+        assertEquals(3, feed.getOrdersReturned());
+
+        List<ParsedOrder> parsed = warehouse.loadWindow(LOCATION, local(base), local(base.plusSeconds(3600)), ZoneId.systemDefault())
+                .getOrders();
+        ParsedOrder edited = parsed.stream().filter(o -> o.orderId().equals("order-1")).findFirst().orElseThrow();
+        assertEquals(1, edited.lineItems().size());
+        assertEquals(2400L, edited.lineItems().get(0).amountCents());
+        assertEquals(List.of(300L), edited.serviceChargeCents());
+        assertEquals(500L, orderRepository.findBySquareOrderId("order-2").orElseThrow().getRefundedCents());
+
+        // A stale version delivered late must not overwrite the newer copy
+        feed.put(order("order-1", 1, base.plusSeconds(600), editedAt.plusSeconds(10), 999L, 0L));
+        warehouse.sync(LOCATION);
+        parsed = warehouse.loadWindow(LOCATION, local(base), local(base.plusSeconds(3600)), ZoneId.systemDefault())
+                .getOrders();
+        edited = parsed.stream().filter(o -> o.orderId().equals("order-1")).findFirst().orElseThrow();
+        assertEquals(2400L, edited.lineItems().get(0).amountCents());
+    }
+
+    @Test
+    public void testReadsOfOlderRangesBackfillByCloseTime() {
+        Instant old = Instant.now().minus(120, ChronoUnit.DAYS).truncatedTo(ChronoUnit.HOURS);
+        feed.put(order("old-order", 1, old, old, 1000L, 0L));
+        feed.put(order("new-order", 1, base, base, 1000L, 0L));
+
+        OrderWindow window = warehouse.loadWindow(LOCATION, local(old), local(old.plusSeconds(3600)),
+                ZoneId.systemDefault());
+        assertEquals(1, window.getOrders().size());
+        assertEquals("old-order", window.getOrders().get(0).orderId());
+        assertEquals(15.0, window.getDailySales().get(local(old).toLocalDate().toString()));
+        assertEquals(1500L, window.getSalesCentsByHour().get(local(old)));
+    }
+
+    private static LocalDateTime local(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+
+    private static Money cents(long amount) {
+        return Money.builder().amount(amount).build();
+    }
+
+    private static Order order(String id, int version, Instant closedAt, Instant updatedAt, long itemCents,
+            long refundCents) {
+        var builder = Order.builder()
+                .locationId(LOCATION)
+                .id(id)
+                .version(version)
+                .state(OrderState.COMPLETED)
+                .closedAt(closedAt.toString())
+                .updatedAt(updatedAt.toString())
+                .lineItems(List.of(OrderLineItem.builder()
+                        .quantity("1")
+                        .catalogObjectId("VAR-1")
+                        .grossSalesMoney(cents(itemCents))
+                        .build()))
+                .serviceCharges(List.of(OrderServiceCharge.builder()
+                        .amountMoney(cents(300L))
+                        .build()))
+                .totalMoney(cents(1500L))
+                .netAmounts(OrderMoneyAmounts.builder()
+                        .tipMoney(cents(300L))
+                        .build());
+        if (refundCents > 0) {
+            builder.returnAmounts(OrderMoneyAmounts.builder()
+                    .totalMoney(cents(refundCents))
+                    .build());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,111 @@
+package com.hospomate.service;
+
+import com.hospomate.dto.HourlyInsightDTO;
+import com.hospomate.dto.PortfolioDTO;
+import com.hospomate.dto.PortfolioStoreDTO;
+import com.hospomate.dto.WeeklyDashboardDTO;
+import com.hospomate.model.Store;
+import com.hospomate.repository.StoreRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PortfolioInsightServiceTest {
+
+    private static final LocalDate WEEK = LocalDate.of(2025, 3, 3);
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final CountDownLatch slowStore = new CountDownLatch(1);
+    private final StoreRepository storeRepository = mock(StoreRepository.class);
+
+    private final RevenueIntelligenceService intelligenceService = new RevenueIntelligenceService(null, null, null,
+            null, null, null) {
+        @Override
+        public WeeklyDashboardDTO getWeeklyDashboard(Long storeId, LocalDate weekStart) {
+            return switch (storeId.intValue()) {
+                case 1 -> dashboard("1000.00", 20, true);
+                case 2 -> dashboard("900.00", 10, false);
+                case 3 -> throw new SquareUnavailableException("Square unavailable", Duration.ofSeconds(30), null);
+                default -> {
+                    try {
+                        slowStore.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    yield dashboard("5000.00", 1, true);
+                }
+            };
+        }
+    };
+
+    @AfterEach
+    public void tearDown() {
+        slowStore.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSlowAndFailingStoresDoNotHoldUpTheRest() {
+        when(storeRepository.findByOwnerId(7L)).thenReturn(List.of(store(1L), store(2L), store(3L), store(4L)));
+        PortfolioInsightService service = new PortfolioInsightService(intelligenceService, storeRepository,
+                executor, 300);
+
+        PortfolioDTO portfolio = service.getPortfolio(7L, WEEK);
+
+        Map<Long, PortfolioStoreDTO> byStore = new java.util.HashMap<>();
+        portfolio.getStores().forEach(row -> byStore.put(row.getStoreId(), row));
+        assertEquals(PortfolioInsightService.OK, byStore.get(1L).getStatus());
+        assertEquals(PortfolioInsightService.INCOMPLETE, byStore.get(2L).getStatus());
+        assertEquals(PortfolioInsightService.FAILED, byStore.get(3L).getStatus());
+        assertEquals(PortfolioInsightService.TIMED_OUT, byStore.get(4L).getStatus());
+        assertFalse(portfolio.isComplete());
+
+        // Store 2 makes 90.00 per labour hour against store 1's 50.00
+        assertEquals(List.of(2L, 1L, 3L, 4L), portfolio.getStores().stream().map(PortfolioStoreDTO::getStoreId)
+                .toList());
+        assertEquals(1, byStore.get(2L).getRank());
+        assertEquals(2, byStore.get(1L).getRank());
+        assertNull(byStore.get(4L).getRank());
+
+        assertEquals(new BigDecimal("1900.00"), portfolio.getTotalRevenue());
+        assertEquals(new BigDecimal("63.33"), portfolio.getRevenuePerLabourHour());
+        assertEquals(new BigDecimal("1900.00"), portfolio.getRevenueByCategory().get("Coffee"));
+    }
+
+    private static Store store(Long id) {
+        Store store = new Store();
+        store.setId(id);
+        store.setName("Store " + id);
+        return store;
+    }
+
+    private static WeeklyDashboardDTO dashboard(String revenue, int staffHours, boolean complete) {
+        WeeklyDashboardDTO dto = new WeeklyDashboardDTO();
+        dto.setTotalRevenue(new BigDecimal(revenue));
+        dto.setRevenueByCategory(Map.of("Coffee", new BigDecimal(revenue)));
+        List<HourlyInsightDTO> hours = new ArrayList<>();
+        for (int i = 0; i < staffHours; i++) {
+            HourlyInsightDTO hour = new HourlyInsightDTO();
+            hour.setActiveStaffCount(1);
+            hours.add(hour);
+        }
+        dto.setHourlyInsights(hours);
+        dto.setComplete(complete);
+        return dto;
+    }
+}
@@ -0,0 +1,184 @@
+package com.hospomate.service;
+
+import com.hospomate.dto.RangeBucketDTO;
+import com.hospomate.dto.RangeInsightsDTO;
+import com.hospomate.model.HourlyCategoryRollup;
+import com.hospomate.model.HourlyTeamMemberRollup;
+import com.hospomate.model.JobRoleContribution;
+import com.hospomate.model.Staff;
+import com.hospomate.model.Store;
+import com.hospomate.repository.HourlyCategoryRollupRepository;
+import com.hospomate.repository.HourlyTeamMemberRollupRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RangeInsightServiceTest {
+
+    private static final String LOCATION = "LOC1";
+    private static final LocalDate MONDAY = LocalDate.of(2025, 3, 3);
+
+    private final List<HourlyCategoryRollup> categoryRows = new ArrayList<>();
+    private final List<HourlyTeamMemberRollup> staffRows = new ArrayList<>();
+    private final HourlyCategoryRollupRepository categoryRepository = mock(HourlyCategoryRollupRepository.class);
+    private final HourlyTeamMemberRollupRepository teamMemberRepository = mock(
+            HourlyTeamMemberRollupRepository.class);
+    private final SquareService squareService = mock(SquareService.class);
+    private final RevenueRollupService rollupService = mock(RevenueRollupService.class);
+
+    private final RevenueIntelligenceService intelligenceService = new RevenueIntelligenceService(null, null, null,
+            null, null, null) {
+        @Override
+        InsightContext loadContext(Long storeId, Map<String, String> squareStaffNames,
+                Map<String, String> variationToCategoryMap) {
+            Store store = new Store();
+            store.setRevenuePerLabourHourThreshold(new BigDecimal("50.00"));
+            Staff alice = new Staff();
+            alice.setName("Alice");
+            alice.setJobTitle("Barista");
+            JobRoleContribution coffee = new JobRoleContribution();
+            coffee.setCategoryName("Coffee");
+            coffee.setJobTitle("Barista");
+            coffee.setContributionPercentage(new BigDecimal("60"));
+            return new InsightContext(store, List.of(coffee), List.of(alice), Map.of("TM-1", alice),
+                    squareStaffNames, variationToCategoryMap);
+        }
+    };
+
+    // One day per query, so the range is read in two chunks
+    private final RangeInsightService service = new RangeInsightService(intelligenceService, categoryRepository,
+            teamMemberRepository, rollupService, squareService, 800, 1);
+
+    @Test
+    public void testBucketsAreSummedFromHourlyRollups() {
+        stubRollups();
+        category(MONDAY.atTime(9, 0), "Coffee", 1001, 1);
+        member(MONDAY.atTime(9, 0), "TM-1", 60);
+        member(MONDAY.atTime(10, 0), "TM-1", 30);
+        category(MONDAY.plusDays(1).atTime(12, 0), "Food", 2000, 2);
+
+        RangeInsightsDTO days = service.getRange(1L, MONDAY, MONDAY.plusDays(2), RangeInsightService.Granularity.DAY);
+
+        assertEquals(2, days.getBuckets().size());
+        RangeBucketDTO monday = days.getBuckets().get(0);
+        assertEquals(MONDAY.atStartOfDay(), monday.getStartTime());
+        assertEquals(new BigDecimal("10.01"), monday.getTotalRevenue());
+        assertEquals(1, monday.getStaffCount());
+        assertEquals(new BigDecimal("1.50"), monday.getLabourHours());
+        assertEquals(new BigDecimal("6.67"), monday.getRevenuePerLabourHour());
+        assertEquals(2, monday.getStaffedHours());
+        assertEquals(2, monday.getUnderutilisedHours());
+        assertEquals(Map.of("Barista", new BigDecimal("6.01")), monday.getRevenueByJobTitle());
+        assertEquals(BigDecimal.ZERO, days.getBuckets().get(1).getRevenuePerLabourHour());
+
+        assertEquals(new BigDecimal("30.01"), days.getTotalRevenue());
+        assertEquals(3L, days.getTotalItemsSold());
+        assertEquals(Map.of("Coffee", new BigDecimal("10.01"), "Food", new BigDecimal("20.00")),
+                days.getRevenueByCategory());
+        verify(categoryRepository, times(2)).findInRange(eq(LOCATION), any(), any());
+
+        // Hourly buckets, empty hours included, add up to the same totals
+        RangeInsightsDTO hours = service.getRange(1L, MONDAY, MONDAY.plusDays(2),
+                RangeInsightService.Granularity.HOUR);
+        assertEquals(48, hours.getBucketCount());
+        assertEquals(new BigDecimal("10.01"), hours.getBuckets().get(9).getTotalRevenue());
+        assertEquals(days.getTotalRevenue(), hours.getTotalRevenue());
+        assertEquals(days.getLabourHours(), hours.getLabourHours());
+        assertEquals(days.getRevenueByJobTitle(), hours.getRevenueByJobTitle());
+        assertTrue(hours.isComplete());
+    }
+
+    @Test
+    public void testRangeBeforeShiftSyncIsIncomplete() {
+        stubRollups();
+        category(MONDAY.atTime(9, 0), "Coffee", 1001, 1);
+        // Shifts are only rolled up from Tuesday, so Monday's hour shows nobody on
+        when(rollupService.teamMemberHoursFrom(LOCATION)).thenReturn(instant(MONDAY.plusDays(1).atStartOfDay()));
+
+        RangeInsightsDTO range = service.getRange(1L, MONDAY, MONDAY.plusDays(2),
+                RangeInsightService.Granularity.DAY);
+        assertFalse(range.isComplete());
+        assertEquals(0, range.getBuckets().get(0).getStaffCount());
+
+        assertTrue(service.getRange(1L, MONDAY.plusDays(1), MONDAY.plusDays(2),
+                RangeInsightService.Granularity.DAY).isComplete());
+
+        // Before the first sync nothing is known to be complete
+        when(rollupService.teamMemberHoursFrom(LOCATION)).thenReturn(null);
+        assertFalse(service.getRange(1L, MONDAY.plusDays(1), MONDAY.plusDays(2),
+                RangeInsightService.Granularity.DAY).isComplete());
+    }
+
+    @Test
+    public void testGranularityKeepsBucketCountWithinLimit() {
+        assertEquals(RangeInsightService.Granularity.HOUR,
+                service.resolveGranularity(MONDAY, MONDAY.plusDays(30), null));
+        assertEquals(RangeInsightService.Granularity.DAY,
+                service.resolveGranularity(MONDAY, MONDAY.plusDays(60), null));
+        assertEquals(RangeInsightService.Granularity.WEEK,
+                service.resolveGranularity(MONDAY, MONDAY.plusYears(3), null));
+        assertThrows(IllegalArgumentException.class, () -> service.resolveGranularity(MONDAY, MONDAY.plusDays(60),
+                RangeInsightService.Granularity.HOUR));
+        assertThrows(IllegalArgumentException.class, () -> service.resolveGranularity(MONDAY, MONDAY, null));
+
+        // Partial weeks and months at either end count as buckets
+        assertEquals(3, RangeInsightService.bucketCount(MONDAY.plusDays(2), MONDAY.plusDays(17),
+                RangeInsightService.Granularity.WEEK));
+        assertEquals(2, RangeInsightService.bucketCount(LocalDate.of(2025, 1, 31), LocalDate.of(2025, 2, 2),
+                RangeInsightService.Granularity.MONTH));
+    }
+
+    private void stubRollups() {
+        when(squareService.getLocationId(1L)).thenReturn(LOCATION);
+        when(squareService.fetchTeamMemberNames(LOCATION)).thenReturn(Map.of("TM-1", "Alice"));
+        when(rollupService.teamMemberHoursFrom(LOCATION)).thenReturn(Instant.EPOCH);
+        when(categoryRepository.findInRange(eq(LOCATION), any(), any())).thenAnswer(invocation -> categoryRows
+                .stream()
+                .filter(row -> inRange(row.getHourStart(), invocation.getArgument(1), invocation.getArgument(2)))
+                .toList());
+        when(teamMemberRepository.findInRange(eq(LOCATION), any(), any())).thenAnswer(invocation -> staffRows
+                .stream()
+                .filter(row -> inRange(row.getHourStart(), invocation.getArgument(1), invocation.getArgument(2)))
+                .toList());
+    }
+
+    private static boolean inRange(Instant hour, Instant start, Instant end) {
+        return !hour.isBefore(start) && hour.isBefore(end);
+    }
+
+    private void category(LocalDateTime hour, String category, long cents, long items) {
+        HourlyCategoryRollup row = new HourlyCategoryRollup(LOCATION, instant(hour), category);
+        row.setRevenueCents(cents);
+        row.setItemCount(items);
+        categoryRows.add(row);
+    }
+
+    private void member(LocalDateTime hour, String teamMemberId, long minutes) {
+        HourlyTeamMemberRollup row = new HourlyTeamMemberRollup(LOCATION, instant(hour), teamMemberId);
+        row.setShiftMinutes(minutes);
+        row.setShiftCount(1);
+        staffRows.add(row);
+    }
+
+    private static Instant instant(LocalDateTime hour) {
+        return hour.atZone(ZoneId.systemDefault()).toInstant();
+    }
+}
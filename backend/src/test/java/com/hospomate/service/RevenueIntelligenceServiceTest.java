@@ -0,0 +1,249 @@
+package com.hospomate.service;
+
+import com.hospomate.dto.HourlyInsightDTO;
+import com.hospomate.dto.WeeklyDashboardDTO;
+import com.hospomate.model.JobRoleContribution;
+import com.hospomate.model.SquareOrder;
+import com.hospomate.model.Staff;
+import com.hospomate.model.Store;
+import com.hospomate.repository.JobRoleContributionRepository;
+import com.hospomate.repository.StaffRepository;
+import com.hospomate.repository.StoreRepository;
+import com.squareup.square.types.Shift;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RevenueIntelligenceServiceTest {
+
+    private static final LocalDateTime HOUR = LocalDateTime.of(2025, 3, 3, 9, 0);
+
+    private final RevenueIntelligenceService service = new RevenueIntelligenceService(null, null, null, null,
+            null, null);
+
+    @Test
+    public void testRevenueIsSummedInExactCents() {
+        // Ten 10c items: summing 0.1 as a double ten times is not 1.0
+        List<ParsedOrder> orders = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            orders.add(order("o" + i, List.of(new ParsedOrder.LineItem("VAR-COFFEE", 1, 10L)), List.of()));
+        }
+        orders.add(order("sc", List.of(new ParsedOrder.LineItem("VAR-UNKNOWN", 2, 333L)), List.of(17L)));
+        orders.add(new ParsedOrder("custom", HOUR.plusMinutes(5), List.of(), List.of(), 1250L, 250L));
+
+        HourlyInsightDTO dto = service.calculateHourlyInsight(HOUR, HOUR.plusHours(1), orders, List.of(),
+                context(List.of(), Map.of(), List.of()));
+
+        assertEquals(new BigDecimal("14.50"), dto.getTotalRevenue());
+        assertEquals(13L, dto.getTotalItemsSold());
+        assertEquals(Map.of(
+                "Coffee", new BigDecimal("1.00"),
+                "Uncategorized", new BigDecimal("3.33"),
+                "Surcharges", new BigDecimal("0.17"),
+                "Custom Amount", new BigDecimal("10.00")), dto.getRevenueByCategory());
+        assertEquals(BigDecimal.ZERO, dto.getRevenuePerStaffMember());
+        assertFalse(dto.isUnderutilised());
+    }
+
+    @Test
+    public void testCategoryRevenueIsSharedByRolesOnShift() {
+        List<ParsedOrder> orders = List.of(
+                order("o1", List.of(new ParsedOrder.LineItem("VAR-COFFEE", 1, 1001L)), List.of()));
+        List<ParsedShift> shifts = List.of(
+                new ParsedShift("TM-1", HOUR, HOUR.plusHours(1)),
+                new ParsedShift("TM-2", HOUR, HOUR.plusHours(1)));
+        Staff alice = staff("Alice", "Barista");
+        Staff bob = staff("Bob", "Barista");
+        RevenueIntelligenceService.InsightContext context = context(List.of(alice, bob, staff("Chef", "Kitchen")),
+                Map.of("TM-1", alice, "TM-2", bob),
+                List.of(contribution("Coffee", "Barista", "60"), contribution("Coffee", "Kitchen", "40")));
+
+        HourlyInsightDTO dto = service.calculateHourlyInsight(HOUR, HOUR.plusHours(1), orders, shifts, context);
+
+        assertEquals(2, dto.getActiveStaffCount());
+        assertEquals(new BigDecimal("5.01"), dto.getRevenuePerStaffMember());
+        assertTrue(dto.isUnderutilised());
+        // Nobody from the kitchen is on, so only the barista share is attributed
+        assertEquals(Map.of("Barista", new BigDecimal("6.01")), dto.getRevenueByJobTitle());
+        assertEquals(Map.of(
+                "Alice Smith", new BigDecimal("3.00"),
+                "Bob Jones", new BigDecimal("3.00")), dto.getRevenueByStaffName());
+    }
+
+    @Test
+    public void testStreamedDashboardMatchesBufferedOne() {
+        LocalDate weekStart = LocalDate.of(2025, 3, 3);
+        LocalDateTime monday = weekStart.atStartOfDay();
+        // A day shift, and a late shift crossing into Tuesday that the per-day
+        // stream must still see from Tuesday's first hours
+        List<Shift> shifts = List.of(
+                shift("TM-1", monday.plusHours(9), monday.plusHours(17)),
+                shift("TM-2", monday.plusHours(21), monday.plusHours(26)));
+        List<SquareOrder> orders = new ArrayList<>();
+        for (int slot = 0; slot < 7 * 24; slot += 5) {
+            orders.add(customAmount("o" + slot, monday.plusHours(slot).plusMinutes(20), 1000L + slot));
+        }
+        // Both cold, so every hour is computed from Square
+        RevenueIntelligenceService buffering = squareBacked(
+                new ConcurrentMapCacheManager(RevenueIntelligenceService.HOURLY_CACHE), shifts, orders);
+        RevenueIntelligenceService streaming = squareBacked(
+                new ConcurrentMapCacheManager(RevenueIntelligenceService.HOURLY_CACHE), shifts, orders);
+
+        WeeklyDashboardDTO buffered = buffering.getWeeklyDashboard(1L, weekStart);
+        List<HourlyInsightDTO> streamedHours = new ArrayList<>();
+        WeeklyDashboardDTO streamed = streaming.streamWeeklyDashboard(1L, weekStart, streamedHours::add);
+
+        assertEquals(buffered.getHourlyInsights().stream().map(RevenueIntelligenceServiceTest::summary).toList(),
+                streamedHours.stream().map(RevenueIntelligenceServiceTest::summary).toList());
+        assertEquals(1, streamedHours.get(24).getActiveStaffCount());
+        assertEquals(1, streamedHours.get(25).getActiveStaffCount());
+        assertEquals(0, streamedHours.get(26).getActiveStaffCount());
+        assertNull(streamed.getHourlyInsights());
+        assertEquals(buffered.getTotalRevenue(), streamed.getTotalRevenue());
+        assertEquals(buffered.getRevenueByDay(), streamed.getRevenueByDay());
+        assertEquals(buffered.getRevenueByCategory(), streamed.getRevenueByCategory());
+        assertEquals(buffered.getRevenueByStaffName(), streamed.getRevenueByStaffName());
+        assertTrue(streamed.isComplete());
+    }
+
+    @Test
+    public void testRecomputedHourKeepsShiftsStartedBeforeIt() {
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(
+                RevenueIntelligenceService.HOURLY_CACHE);
+        RevenueIntelligenceService square = squareBacked(cacheManager,
+                List.of(shift("TM-1", HOUR, HOUR.plusHours(8))), List.of());
+        LocalDate weekStart = HOUR.toLocalDate();
+        square.getWeeklyDashboard(1L, weekStart);
+
+        // An update evicts just the 14:00 hour, which is then computed on its own
+        LocalDateTime two = HOUR.withHour(14);
+        cacheManager.getCache(RevenueIntelligenceService.HOURLY_CACHE)
+                .evict(new RevenueIntelligenceService.HourKey(1L, two));
+        WeeklyDashboardDTO dashboard = square.getWeeklyDashboard(1L, weekStart);
+
+        assertEquals(1, dashboard.getHourlyInsights().get(14).getActiveStaffCount());
+        assertEquals(0, dashboard.getHourlyInsights().get(17).getActiveStaffCount());
+    }
+
+    /**
+     * A Square-backed service over an empty hourly cache. Like Square, the
+     * shift search only returns shifts starting inside the requested range.
+     */
+    private static RevenueIntelligenceService squareBacked(ConcurrentMapCacheManager cacheManager,
+            List<Shift> shifts, List<SquareOrder> orders) {
+        SquareService squareService = new SquareService(null, null, null, Runnable::run, 60, 10, 200) {
+            @Override
+            public String getLocationId(Long storeId) {
+                return "LOC1";
+            }
+
+            @Override
+            public Map<String, String> fetchTeamMemberNames(String locationId) {
+                return Map.of("TM-1", "Alice Smith", "TM-2", "Bob Jones");
+            }
+
+            @Override
+            public List<Shift> fetchSquareShifts(String locationId, LocalDateTime start, LocalDateTime end) {
+                return shifts.stream().filter(shift -> {
+                    LocalDateTime startAt = ParsedShift.from(shift, end).start();
+                    return !startAt.isBefore(start) && startAt.isBefore(end);
+                }).toList();
+            }
+
+            @Override
+            public Map<String, String> fetchVariationToCategoryMap(String locationId) {
+                return Map.of();
+            }
+
+            @Override
+            public OrderWindow fetchOrderWindow(Long storeId, LocalDateTime start, LocalDateTime end) {
+                OrderWindow.Builder window = new OrderWindow.Builder("LOC1", start, end, ZoneId.systemDefault());
+                for (SquareOrder order : orders) {
+                    LocalDateTime closedAt = LocalDateTime.ofInstant(order.getClosedAt(), ZoneId.systemDefault());
+                    if (!closedAt.isBefore(start) && closedAt.isBefore(end)) {
+                        window.add(order);
+                    }
+                }
+                return window.build();
+            }
+        };
+        Store store = new Store();
+        store.setId(1L);
+        store.setRevenuePerLabourHourThreshold(new BigDecimal("50.00"));
+        StoreRepository storeRepository = mock(StoreRepository.class);
+        when(storeRepository.findById(anyLong())).thenReturn(Optional.of(store));
+        StaffIdentityService staffIdentityService = mock(StaffIdentityService.class);
+        when(staffIdentityService.staffByTeamMember(any(), any(), any())).thenReturn(Map.of());
+        return new RevenueIntelligenceService(mock(JobRoleContributionRepository.class), storeRepository,
+                mock(StaffRepository.class), staffIdentityService, squareService, cacheManager);
+    }
+
+    private static String summary(HourlyInsightDTO hour) {
+        return hour.getStartTime() + " " + hour.getTotalRevenue() + " " + hour.getActiveStaffCount() + " "
+                + hour.getRevenueByCategory() + " " + hour.getRevenueByStaffName();
+    }
+
+    private static SquareOrder customAmount(String id, LocalDateTime closedAt, long cents) {
+        SquareOrder order = new SquareOrder();
+        order.setSquareOrderId(id);
+        order.setLocationId("LOC1");
+        order.setState(OrderWarehouseService.COMPLETED);
+        order.setClosedAt(closedAt.atZone(ZoneId.systemDefault()).toInstant());
+        order.setVersion(1);
+        order.setTotalCents(cents);
+        return order;
+    }
+
+    private static Shift shift(String teamMemberId, LocalDateTime start, LocalDateTime end) {
+        return Shift.builder()
+                .locationId("LOC1")
+                .teamMemberId(teamMemberId)
+                .startAt(start.atZone(ZoneId.systemDefault()).toOffsetDateTime().toString())
+                .endAt(end.atZone(ZoneId.systemDefault()).toOffsetDateTime().toString())
+                .build();
+    }
+
+    private static RevenueIntelligenceService.InsightContext context(List<Staff> staff,
+            Map<String, Staff> staffByTeamMember, List<JobRoleContribution> contributions) {
+        Store store = new Store();
+        store.setRevenuePerLabourHourThreshold(new BigDecimal("50.00"));
+        return new RevenueIntelligenceService.InsightContext(store, contributions, staff, staffByTeamMember,
+                Map.of("TM-1", "Alice Smith", "TM-2", "Bob Jones"), Map.of("VAR-COFFEE", "Coffee"));
+    }
+
+    private static ParsedOrder order(String id, List<ParsedOrder.LineItem> lineItems, List<Long> serviceCharges) {
+        return new ParsedOrder(id, HOUR.plusMinutes(10), lineItems, serviceCharges, null, null);
+    }
+
+    private static Staff staff(String name, String jobTitle) {
+        Staff staff = new Staff();
+        staff.setName(name);
+        staff.setJobTitle(jobTitle);
+        return staff;
+    }
+
+    private static JobRoleContribution contribution(String category, String jobTitle, String percentage) {
+        JobRoleContribution contribution = new JobRoleContribution();
+        contribution.setCategoryName(category);
+        contribution.setJobTitle(jobTitle);
+        contribution.setContributionPercentage(new BigDecimal(percentage));
+        return contribution;
+    }
+}
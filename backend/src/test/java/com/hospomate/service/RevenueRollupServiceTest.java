@@ -0,0 +1,184 @@
+package com.hospomate.service;
+
+import com.hospomate.model.HourlyCategoryRollup;
+import com.hospomate.model.HourlyTeamMemberRollup;
+import com.hospomate.repository.HourlyCategoryRollupRepository;
+import com.hospomate.repository.HourlyTeamMemberRollupRepository;
+import com.squareup.square.types.Money;
+import com.squareup.square.types.Order;
+import com.squareup.square.types.OrderLineItem;
+import com.squareup.square.types.OrderServiceCharge;
+import com.squareup.square.types.OrderState;
+import com.squareup.square.types.Shift;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@Import({ OrderWarehouseService.class, SquareLocations.class, RevenueRollupService.class,
+        RevenueRollupServiceTest.FeedConfig.class })
+@TestPropertySource(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "square.location.id=LOC1" })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class RevenueRollupServiceTest {
+
+    private static final String LOCATION = "LOC1";
+
+    @TestConfiguration
+    static class FeedConfig {
+        @Bean
+        FakeSquareOrderFeed fakeSquareOrderFeed() {
+            return new FakeSquareOrderFeed(2);
+        }
+    }
+
+    @MockBean
+    private SquareService squareService;
+
+    @Autowired
+    private OrderWarehouseService warehouse;
+
+    @Autowired
+    private RevenueRollupService rollupService;
+
+    @Autowired
+    private HourlyCategoryRollupRepository categoryRollupRepository;
+
+    @Autowired
+    private HourlyTeamMemberRollupRepository teamMemberRollupRepository;
+
+    @Autowired
+    private FakeSquareOrderFeed feed;
+
+    private final Instant hour0 = RevenueRollupService.hourOf(Instant.now().minus(2, ChronoUnit.DAYS));
+    private final Instant hour1 = hour0.plus(1, ChronoUnit.HOURS);
+    private final Instant hour2 = hour0.plus(2, ChronoUnit.HOURS);
+
+    @Test
+    public void testRollupsFollowIngestedAndCorrectedOrders() {
+        when(squareService.fetchVariationToCategoryMap(LOCATION)).thenReturn(Map.of("VAR-1", "Coffee"));
+        when(squareService.fetchSquareShifts(eq(LOCATION), any(), any())).thenReturn(List.of(Shift.builder()
+                .locationId(LOCATION)
+                .startAt(hour0.plus(30, ChronoUnit.MINUTES).toString())
+                .teamMemberId("TM-1")
+                .endAt(hour1.plus(15, ChronoUnit.MINUTES).toString())
+                .build()));
+
+        feed.put(order("order-0", 1, hour0.plusSeconds(60), 1200L));
+        feed.put(order("order-1", 1, hour0.plusSeconds(120), 1200L));
+        feed.put(order("order-2", 1, hour0.plusSeconds(180), 1200L));
+        feed.put(order("order-3", 1, hour1.plusSeconds(60), 1200L));
+        warehouse.sync(LOCATION);
+
+        // Each order is 1200c of coffee plus a 300c surcharge
+        RevenueRollupService.Summary summary = rollupService.summarize(LOCATION, hour0, hour2);
+        assertEquals(6000L, summary.revenueCents());
+        assertEquals(4L, summary.itemCount());
+        assertEquals(4800L, summary.revenueCentsByCategory().get("Coffee"));
+        assertEquals(1200L, summary.revenueCentsByCategory().get("Surcharges"));
+
+        // A correction that changes the amount and moves the order to the next hour
+        feed.put(order("order-0", 2, hour1.plusSeconds(600), 2000L));
+        warehouse.sync(LOCATION);
+        assertEquals(2400L, coffeeCents(hour0));
+        assertEquals(3200L, coffeeCents(hour1));
+
+        // Orders are rolled up on ingest; shift time only after a rebuild
+        RevenueRollupService.CheckResult beforeRebuild = rollupService.check(LOCATION, hour0, hour2);
+        assertFalse(beforeRebuild.mismatches().isEmpty());
+        assertTrue(beforeRebuild.mismatches().stream().allMatch(m -> m.key().startsWith("teamMember:")));
+
+        rollupService.rebuild(LOCATION, hour0, hour2);
+        assertTrue(rollupService.check(LOCATION, hour0, hour2).mismatches().isEmpty());
+        assertEquals(6800L, rollupService.summarize(LOCATION, hour0, hour2).revenueCents());
+
+        // A drifted row is reported
+        HourlyCategoryRollup row = categoryRollupRepository.findInRange(LOCATION, hour0, hour1).stream()
+                .filter(r -> r.getCategory().equals("Coffee")).findFirst().orElseThrow();
+        row.setRevenueCents(row.getRevenueCents() + 1);
+        categoryRollupRepository.save(row);
+        List<RevenueRollupService.Mismatch> mismatches = rollupService.check(LOCATION, hour0, hour2).mismatches();
+        assertEquals(1, mismatches.size());
+        assertEquals("category:Coffee", mismatches.get(0).key());
+        assertEquals(hour0, mismatches.get(0).hourStart());
+    }
+
+    @Test
+    public void testShiftSyncBackfillsAndRecordsCoverage() {
+        when(squareService.fetchVariationToCategoryMap(LOCATION)).thenReturn(Map.of());
+        when(squareService.fetchSquareShifts(eq(LOCATION), any(), any())).thenReturn(List.of(Shift.builder()
+                .locationId(LOCATION)
+                .startAt(hour0.plus(30, ChronoUnit.MINUTES).toString())
+                .teamMemberId("TM-2")
+                .endAt(hour1.plus(15, ChronoUnit.MINUTES).toString())
+                .build()));
+        assertNull(rollupService.teamMemberHoursFrom(LOCATION));
+
+        // The first sync backfills without waiting for a webhook or a rebuild
+        rollupService.syncTeamMemberHours(LOCATION);
+        Instant coveredFrom = rollupService.teamMemberHoursFrom(LOCATION);
+        assertTrue(coveredFrom.isBefore(hour0.minus(Duration.ofDays(30))));
+        assertEquals(List.of(30L, 15L), teamMemberRollupRepository.findInRange(LOCATION, hour0, hour2).stream()
+                .filter(row -> row.getTeamMemberId().equals("TM-2"))
+                .map(HourlyTeamMemberRollup::getShiftMinutes)
+                .toList());
+
+        // Later syncs only re-read recent shifts; a rebuild reaching the covered range extends it
+        rollupService.syncTeamMemberHours(LOCATION);
+        assertEquals(coveredFrom, rollupService.teamMemberHoursFrom(LOCATION));
+        rollupService.rebuild(LOCATION, coveredFrom.minus(Duration.ofDays(14)), coveredFrom.minus(Duration.ofDays(7)));
+        assertEquals(coveredFrom, rollupService.teamMemberHoursFrom(LOCATION));
+        rollupService.rebuild(LOCATION, coveredFrom.minus(Duration.ofDays(7)), coveredFrom);
+        assertEquals(coveredFrom.minus(Duration.ofDays(7)), rollupService.teamMemberHoursFrom(LOCATION));
+    }
+
+    private long coffeeCents(Instant hour) {
+        return categoryRollupRepository.findInRange(LOCATION, hour, hour.plus(1, ChronoUnit.HOURS)).stream()
+                .filter(r -> r.getCategory().equals("Coffee"))
+                .mapToLong(HourlyCategoryRollup::getRevenueCents)
+                .sum();
+    }
+
+    private static Money cents(long amount) {
+        return Money.builder().amount(amount).build();
+    }
+
+    private static Order order(String id, int version, Instant closedAt, long itemCents) {
+        return Order.builder()
+                .locationId(LOCATION)
+                .id(id)
+                .version(version)
+                .state(OrderState.COMPLETED)
+                .closedAt(closedAt.toString())
+                .updatedAt(closedAt.plusSeconds(version).toString())
+                .lineItems(List.of(OrderLineItem.builder()
+                        .quantity("1")
+                        .catalogObjectId("VAR-1")
+                        .grossSalesMoney(cents(itemCents))
+                        .build()))
+                .serviceCharges(List.of(OrderServiceCharge.builder()
+                        .amountMoney(cents(300L))
+                        .build()))
+                .totalMoney(cents(itemCents + 300L))
+                .build();
+    }
+}
@@ -0,0 +1,129 @@
+package com.hospomate.service;
+
+import com.hospomate.dto.RosterSimulationDTO;
+import com.hospomate.dto.RosterSlotDTO;
+import com.hospomate.model.HourlyCategoryRollup;
+import com.hospomate.model.Shift;
+import com.hospomate.model.Staff;
+import com.hospomate.repository.HourlyCategoryRollupRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RosterSimulationServiceTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2025, 3, 3);
+
+    @Test
+    public void testProfileAveragesOnlyWeeksWithTrade() {
+        HourlyCategoryRollupRepository rollups = mock(HourlyCategoryRollupRepository.class);
+        SquareService squareService = mock(SquareService.class);
+        when(squareService.getLocationId(1L)).thenReturn("LOC1");
+        // Two of the four weeks traded: Monday 9:00 in both, Tuesday 12:00 in one
+        when(rollups.findInRange(eq("LOC1"), any(), any())).thenReturn(List.of(
+                rollup(MONDAY.minusWeeks(4).atTime(9, 0), 10000),
+                rollup(MONDAY.minusWeeks(4).atTime(9, 0), 2000),
+                rollup(MONDAY.minusWeeks(1).atTime(9, 15), 8000),
+                rollup(MONDAY.minusWeeks(1).plusDays(1).atTime(12, 0), 5000)));
+        RosterSimulationService service = new RosterSimulationService(null, null, rollups, squareService, null, 4);
+
+        DemandProfile profile = service.buildProfile(1L, MONDAY.plusDays(3));
+
+        assertEquals(2, profile.weeks());
+        assertEquals(10000, profile.revenueCents(9));
+        assertEquals(2500, profile.revenueCents(24 + 12));
+        assertEquals(0, profile.revenueCents(10));
+    }
+
+    @Test
+    public void testRosterIsPricedAgainstProfile() {
+        long[] revenue = new long[DemandProfile.SLOTS];
+        revenue[9] = 20000;
+        revenue[10] = 3000;
+        DemandProfile profile = new DemandProfile(revenue, 8);
+
+        Staff barista = staff(1L, "30.00");
+        Staff chef = staff(2L, "20.00");
+        List<Shift> roster = List.of(
+                shift(barista, MONDAY.atTime(9, 0), MONDAY.atTime(11, 0)),
+                shift(chef, MONDAY.atTime(9, 30), MONDAY.atTime(11, 0)),
+                // Runs past the end of the week and is cut off there
+                shift(chef, MONDAY.plusDays(6).atTime(23, 0), MONDAY.plusDays(7).atTime(3, 0)));
+
+        // The stored rate wins over the one sent with the roster
+        RosterSimulationDTO simulation = RosterSimulationService.simulate(MONDAY, roster, profile,
+                Map.of(2L, 3500L), new BigDecimal("50.00"));
+
+        RosterSlotDTO nine = simulation.getSlots().get(9);
+        assertEquals(LocalDateTime.of(2025, 3, 3, 9, 0), nine.getStartTime());
+        assertEquals(2, nine.getStaffCount());
+        assertEquals(new BigDecimal("1.50"), nine.getLabourHours());
+        // 30.00 + 35.00 / 2
+        assertEquals(new BigDecimal("47.50"), nine.getLabourCost());
+        assertEquals(new BigDecimal("23.75"), nine.getLabourCostPercent());
+        // 200.00 between the two on, however long each was on for
+        assertEquals(new BigDecimal("100.00"), nine.getRevenuePerStaff());
+        assertFalse(nine.isUnderutilised());
+
+        RosterSlotDTO ten = simulation.getSlots().get(10);
+        assertEquals(new BigDecimal("15.00"), ten.getRevenuePerStaff());
+        assertTrue(ten.isUnderutilised());
+
+        RosterSlotDTO lastHour = simulation.getSlots().get(167);
+        assertEquals(1, lastHour.getStaffCount());
+        assertNull(lastHour.getLabourCostPercent());
+        assertTrue(lastHour.isUnderutilised());
+
+        assertEquals(new BigDecimal("230.00"), simulation.getProjectedRevenue());
+        assertEquals(new BigDecimal("4.50"), simulation.getLabourHours());
+        assertEquals(new BigDecimal("147.50"), simulation.getLabourCost());
+        assertEquals(2, simulation.getUnderutilisedHours());
+        assertEquals(8, simulation.getWeeksOfHistory());
+    }
+
+    @Test
+    public void testShiftWithoutTimesIsRejected() {
+        DemandProfile profile = new DemandProfile(new long[DemandProfile.SLOTS], 0);
+        Shift shift = shift(staff(1L, "30.00"), MONDAY.atTime(11, 0), MONDAY.atTime(9, 0));
+
+        assertThrows(IllegalArgumentException.class, () -> RosterSimulationService.simulate(MONDAY,
+                List.of(shift), profile, Map.of(), new BigDecimal("50.00")));
+    }
+
+    private static HourlyCategoryRollup rollup(LocalDateTime hour, long cents) {
+        HourlyCategoryRollup row = new HourlyCategoryRollup("LOC1",
+                hour.withMinute(0).atZone(ZoneId.systemDefault()).toInstant(), "Coffee");
+        row.setRevenueCents(cents);
+        return row;
+    }
+
+    private static Staff staff(Long id, String rate) {
+        Staff staff = new Staff();
+        staff.setId(id);
+        staff.setHourlyRate(new BigDecimal(rate));
+        return staff;
+    }
+
+    private static Shift shift(Staff staff, LocalDateTime start, LocalDateTime end) {
+        Shift shift = new Shift();
+        shift.setStaff(staff);
+        shift.setStartTime(start);
+        shift.setEndTime(end);
+        return shift;
+    }
+}
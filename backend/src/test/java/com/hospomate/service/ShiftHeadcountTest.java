@@ -0,0 +1,82 @@
+package com.hospomate.service;
+
+import com.hospomate.model.Shift;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ShiftHeadcountTest {
+
+    private static final LocalDateTime WEEK_START = LocalDateTime.of(2025, 3, 3, 0, 0);
+
+    @Test
+    public void testHeadcountPerSlotMatchesPerSlotScan() {
+        List<Shift> shifts = randomShifts(new Random(3), 400);
+
+        for (Duration slot : List.of(Duration.ofHours(1), Duration.ofMinutes(15))) {
+            int slotCount = (int) (Duration.ofDays(7).toMinutes() / slot.toMinutes());
+            int[] headcount = ShiftHeadcount.perSlot(shifts, Shift::getClockInTime, Shift::getClockOutTime,
+                    WEEK_START, slotCount, slot);
+
+            for (int i = 0; i < slotCount; i++) {
+                LocalDateTime start = WEEK_START.plus(slot.multipliedBy(i));
+                LocalDateTime end = start.plus(slot);
+                int expected = 0;
+                for (Shift shift : shifts) {
+                    if (shift.getClockInTime() != null && shift.getClockInTime().isBefore(end)
+                            && (shift.getClockOutTime() == null || shift.getClockOutTime().isAfter(start))) {
+                        expected++;
+                    }
+                }
+                assertEquals(expected, headcount[i], slot + " slot " + i);
+            }
+        }
+    }
+
+    @Test
+    public void testParsedShiftsCountWhereTheyOverlap() {
+        List<ParsedShift> shifts = List.of(
+                new ParsedShift("tm1", WEEK_START.plusHours(9), WEEK_START.plusHours(17)),
+                new ParsedShift("tm2", WEEK_START.plusHours(17), WEEK_START.plusHours(22)),
+                new ParsedShift("tm3", WEEK_START.plusHours(12), WEEK_START.plusHours(12)));
+
+        int[] headcount = ShiftHeadcount.perSlot(shifts, ParsedShift::start, ParsedShift::end,
+                WEEK_START.plusHours(11), 3, Duration.ofHours(3));
+        assertArrayEquals(new int[] { 2, 1, 1 }, headcount);
+        for (int i = 0; i < headcount.length; i++) {
+            LocalDateTime start = WEEK_START.plusHours(11 + 3 * i);
+            assertEquals(shifts.stream().filter(shift -> shift.overlaps(start, start.plusHours(3))).count(),
+                    headcount[i]);
+        }
+    }
+
+    /**
+     * Whole-minute shifts across the week and a day either side, so many land
+     * on slot boundaries; some are open, some have no clock-in, and a few end
+     * at or before they start.
+     */
+    private static List<Shift> randomShifts(Random random, int count) {
+        List<Shift> shifts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Shift shift = new Shift();
+            shift.setId((long) i);
+            int kind = random.nextInt(20);
+            if (kind != 0) {
+                LocalDateTime clockIn = WEEK_START.plusMinutes(random.nextInt(9 * 24 * 60) - 24 * 60);
+                shift.setClockInTime(clockIn);
+                if (kind > 2) {
+                    shift.setClockOutTime(clockIn.plusMinutes(random.nextInt(12 * 60) - 30));
+                }
+            }
+            shifts.add(shift);
+        }
+        return shifts;
+    }
+}
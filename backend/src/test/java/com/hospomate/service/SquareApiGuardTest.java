@@ -0,0 +1,187 @@
+package com.hospomate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.squareup.square.core.SquareApiException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the real Square client against a local fake of the SearchOrders
+ * endpoint that can be told to fail specific pages.
+ */
+public class SquareApiGuardTest {
+
+    private static final String TOKEN = "test-token";
+    private static final Instant SINCE = Instant.parse("2025-03-01T00:00:00Z");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private HttpServer server;
+    // Cursor ("" for the first page) -> status codes to answer with before succeeding
+    private final Map<String, Deque<Integer>> failures = new ConcurrentHashMap<>();
+    private final List<String> requestedCursors = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handleSearchOrders);
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testRateLimitedPageIsRetriedFromItsCursor() {
+        failWith("c2", 429);
+        SquareApiOrderFeed feed = feed(settings(4, 5));
+
+        List<String> orderIds = new ArrayList<>();
+        String cursor = null;
+        do {
+            SquareOrderFeed.Page page = feed.ordersUpdatedSince("LOC1", SINCE, cursor);
+            page.orders().forEach(order -> orderIds.add(order.getId().orElse(null)));
+            cursor = page.cursor();
+        } while (cursor != null);
+
+        assertEquals(List.of("o1", "o2", "o3"), orderIds);
+        // Only the throttled page is requested twice; earlier pages are not re-read
+        assertEquals(List.of("", "c2", "c2", "c3"), requestedCursors);
+    }
+
+    @Test
+    public void testServerErrorsFailTheCallAfterMaxAttempts() {
+        failWith("", 503, 503, 503, 503);
+        SquareApiOrderFeed feed = feed(settings(3, 10));
+
+        SquareUnavailableException e = assertThrows(SquareUnavailableException.class,
+                () -> feed.ordersUpdatedSince("LOC1", SINCE, null));
+        assertTrue(e.getCause() instanceof SquareApiException);
+        assertEquals(3, requestedCursors.size());
+    }
+
+    @Test
+    public void testClientErrorIsNotRetried() {
+        failWith("", 400);
+        SquareApiOrderFeed feed = feed(settings(4, 5));
+
+        SquareApiException e = assertThrows(SquareApiException.class,
+                () -> feed.ordersUpdatedSince("LOC1", SINCE, null));
+        assertEquals(400, e.statusCode());
+        assertEquals(1, requestedCursors.size());
+    }
+
+    @Test
+    public void testCircuitBreakerOpensAndStopsCallingSquare() {
+        failWith("", 500, 500);
+        SquareApiOrderFeed feed = feed(settings(2, 2));
+
+        assertThrows(SquareUnavailableException.class, () -> feed.ordersUpdatedSince("LOC1", SINCE, null));
+        assertEquals(2, requestedCursors.size());
+
+        // Square has recovered, but the breaker is open so nothing is sent
+        SquareUnavailableException e = assertThrows(SquareUnavailableException.class,
+                () -> feed.ordersUpdatedSince("LOC1", SINCE, null));
+        assertTrue(e.getRetryAfter().compareTo(Duration.ZERO) > 0);
+        assertEquals(2, requestedCursors.size());
+    }
+
+    @Test
+    public void testHalfOpenTrialThatThrowsDoesNotWedgeTheBreaker() throws InterruptedException {
+        SquareApiGuard guard = new SquareApiGuard(new SquareApiGuard.Settings(1000, 100, 1, Duration.ofMillis(1),
+                Duration.ofMillis(5), 1, Duration.ofMillis(20)));
+        assertThrows(SquareUnavailableException.class, () -> guard.call(TOKEN, "test", () -> {
+            throw new SquareApiException("Service Unavailable", 503, null);
+        }));
+        Thread.sleep(40);
+
+        // The half-open trial fails in our own code, not in Square
+        assertThrows(IllegalStateException.class, () -> guard.call(TOKEN, "test", () -> {
+            throw new IllegalStateException("bad mapping");
+        }));
+        assertEquals("ok", guard.call(TOKEN, "test", () -> "ok"));
+    }
+
+    @Test
+    public void testTokenBucketSpacesRequests() {
+        SquareApiGuard.Settings settings = new SquareApiGuard.Settings(20, 1, 1, Duration.ofMillis(1),
+                Duration.ofMillis(5), 5, Duration.ofSeconds(30));
+        SquareApiOrderFeed feed = feed(settings);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            feed.ordersUpdatedSince("LOC1", SINCE, "c3");
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // One token up front, then one every 50 ms
+        assertTrue(elapsedMillis >= 150, "expected requests to be spaced out, took " + elapsedMillis + " ms");
+    }
+
+    private SquareApiOrderFeed feed(SquareApiGuard.Settings settings) {
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        return new SquareApiOrderFeed(new SquareClientProvider(TOKEN, "sandbox", baseUrl,
+                new SquareApiGuard(settings)), new SquareLocations(null, "LOC1", TOKEN));
+    }
+
+    private static SquareApiGuard.Settings settings(int maxAttempts, int failureThreshold) {
+        return new SquareApiGuard.Settings(1000, 100, maxAttempts, Duration.ofMillis(1), Duration.ofMillis(5),
+                failureThreshold, Duration.ofSeconds(30));
+    }
+
+    private void failWith(String cursor, Integer... statuses) {
+        failures.put(cursor, new ArrayDeque<>(List.of(statuses)));
+    }
+
+    // Three pages of one order each: "" -> c2 -> c3
+    private void handleSearchOrders(HttpExchange exchange) throws IOException {
+        String cursor = mapper.readTree(exchange.getRequestBody()).path("cursor").asText("");
+        requestedCursors.add(cursor);
+
+        Deque<Integer> pending = failures.get(cursor);
+        Integer failure = pending != null ? pending.poll() : null;
+        if (failure != null) {
+            respond(exchange, failure, "{\"errors\":[{\"category\":\"API_ERROR\",\"code\":\"FAILED\"}]}");
+            return;
+        }
+
+        String body = switch (cursor) {
+            case "" -> "{\"orders\":[{\"id\":\"o1\",\"location_id\":\"LOC1\"}],\"cursor\":\"c2\"}";
+            case "c2" -> "{\"orders\":[{\"id\":\"o2\",\"location_id\":\"LOC1\"}],\"cursor\":\"c3\"}";
+            default -> "{\"orders\":[{\"id\":\"o3\",\"location_id\":\"LOC1\"}]}";
+        };
+        respond(exchange, 200, body);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.hospomate.service;
+
+import com.hospomate.model.SquareStaffLink;
+import com.hospomate.model.Staff;
+import com.hospomate.repository.SquareStaffLinkRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StaffIdentityServiceTest {
+
+    private final Staff ann = staff("Ann");
+    private final Staff joanne = staff("Joanne Smith");
+    private final Staff sam = staff("Sam");
+    private final Staff samLee = staff("Sam Lee");
+    private final Staff zoe = staff("Zoë O'Brien");
+
+    @Test
+    public void testMatchesWholeWordsNotSubstrings() {
+        List<Staff> localStaff = List.of(ann, joanne);
+
+        assertSame(joanne, StaffIdentityService.matchByName("Joanne Smith", localStaff));
+        assertSame(ann, StaffIdentityService.matchByName("Ann Taylor", localStaff));
+        // "ann" is inside "joanne", but is not one of its words
+        assertNull(StaffIdentityService.matchByName("Joanne Taylor", localStaff));
+    }
+
+    @Test
+    public void testExactNameBeatsPartialAndTiesAreLeftToTheOwner() {
+        assertSame(samLee, StaffIdentityService.matchByName("sam  LEE", List.of(sam, samLee)));
+        assertNull(StaffIdentityService.matchByName("Sam Brown", List.of(sam, staff("Sam"))));
+    }
+
+    @Test
+    public void testIgnoresAccentsAndPunctuation() {
+        assertSame(zoe, StaffIdentityService.matchByName("ZOE O'BRIEN", List.of(zoe)));
+        assertSame(zoe, StaffIdentityService.matchByName("Zoë O\u2019Brien", List.of(zoe)));
+    }
+
+    @Test
+    public void testUnmatchedSuggestionsPickUpStaffAddedLater() {
+        SquareStaffLinkRepository links = mock(SquareStaffLinkRepository.class);
+        SquareStaffLink unmatched = link("TM-1", null, SquareStaffLink.Status.SUGGESTED);
+        // Linked to a staff row that has since been deleted
+        SquareStaffLink removed = link("TM-2", 99L, SquareStaffLink.Status.SUGGESTED);
+        // The owner said this one has no staff row; that stands
+        SquareStaffLink confirmedNobody = link("TM-3", null, SquareStaffLink.Status.CONFIRMED);
+        when(links.findByStoreId(1L)).thenReturn(List.of(unmatched, removed, confirmedNobody));
+        when(links.save(any(SquareStaffLink.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        Staff priya = staff("Priya");
+        priya.setId(5L);
+        Staff lee = staff("Lee Wong");
+        lee.setId(6L);
+        Staff kim = staff("Kim");
+        kim.setId(7L);
+
+        Map<String, Staff> resolved = new StaffIdentityService(links, null).staffByTeamMember(1L,
+                List.of(priya, lee, kim), Map.of("TM-1", "Priya Patel", "TM-2", "Lee Wong", "TM-3", "Kim"));
+
+        assertEquals(Map.of("TM-1", priya, "TM-2", lee), resolved);
+        assertEquals(5L, unmatched.getStaffId());
+        assertEquals(6L, removed.getStaffId());
+        assertEquals(SquareStaffLink.Status.SUGGESTED, unmatched.getStatus());
+        assertNull(confirmedNobody.getStaffId());
+        verify(links, never()).save(confirmedNobody);
+    }
+
+    private static SquareStaffLink link(String teamMemberId, Long staffId, SquareStaffLink.Status status) {
+        SquareStaffLink link = new SquareStaffLink(1L, teamMemberId);
+        link.setStaffId(staffId);
+        link.setStatus(status);
+        return link;
+    }
+
+    private static Staff staff(String name) {
+        Staff staff = new Staff();
+        staff.setName(name);
+        return staff;
+    }
+}
@@ -0,0 +1,67 @@
+package com.hospomate.service;
+
+import com.hospomate.model.KnowledgeDoc;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class VectorReconciliationServiceTest {
+
+    @Test
+    public void testOnlyUnbackedVectorsAreOrphans() {
+        KnowledgeDoc indexing = new KnowledgeDoc();
+        indexing.setStatus(KnowledgeDoc.Status.EMBEDDING);
+        KnowledgeDoc failed = new KnowledgeDoc();
+        failed.setStatus(KnowledgeDoc.Status.FAILED);
+
+        List<VectorReconciliationService.VectorRow> batch = List.of(
+                // Current vector of a live procedure
+                new VectorReconciliationService.VectorRow(ProcedureService.vectorId(1L), 1L, null),
+                // A random-ID copy of the same procedure from before IDs were deterministic
+                new VectorReconciliationService.VectorRow("legacy-copy", 1L, null),
+                // Deleted procedure
+                new VectorReconciliationService.VectorRow(ProcedureService.vectorId(2L), 2L, null),
+                new VectorReconciliationService.VectorRow("chunk-a", null, 10L),
+                new VectorReconciliationService.VectorRow("chunk-b", null, 11L),
+                new VectorReconciliationService.VectorRow("chunk-c", null, 12L),
+                // Neither: left alone
+                new VectorReconciliationService.VectorRow("other", null, null));
+
+        List<String> orphans = VectorReconciliationService.orphans(batch, Set.of(1L),
+                Map.of(10L, indexing, 11L, failed));
+
+        assertEquals(List.of("legacy-copy", ProcedureService.vectorId(2L), "chunk-b", "chunk-c"), orphans);
+    }
+
+    @Test
+    public void testOrphansArePurgedWhenReindexingFails() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        ProcedureService procedureService = mock(ProcedureService.class);
+        when(procedureService.reindexChangedProcedures())
+                .thenThrow(new DataAccessResourceFailureException("transaction aborted"));
+
+        new VectorReconciliationService(jdbcTemplate, null, procedureService, null, null, 500, "vector_store")
+                .reconcile();
+
+        verify(jdbcTemplate).query(anyString(), any(RowMapper.class), any(), any());
+    }
+
+    @Test
+    public void testProcedureVectorIdsAreStable() {
+        assertEquals(ProcedureService.vectorId(5L), ProcedureService.vectorId(5L));
+        assertNotEquals(ProcedureService.vectorId(5L), ProcedureService.vectorId(6L));
+    }
+}
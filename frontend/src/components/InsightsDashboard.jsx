@@ -66,7 +66,7 @@ const InsightsDashboard = ({ storeId }) => {
     const fetchInsights = async () => {
         setLoading(true);
         try {
-            const res = await fetch(`/api/insights/weekly/${storeId}?weekStart=${weekStart}`);
+            const res = await fetch(`/api/insights/weekly/${storeId}?weekStart=${weekStart}&allowStale=true`);
             if (res.ok) {
                 setDashboardData(await res.json());
             }
@@ -80,7 +80,7 @@ const InsightsDashboard = ({ storeId }) => {
     if (loading) return <div>Loading Intelligence Data...</div>;
     if (!dashboardData) return <div>No data available</div>;
 
-    const { totalRevenue, revenueByCategory, hourlyInsights, revenueByJobTitle, revenueByStaffName } = dashboardData;
+    const { totalRevenue, revenueByCategory, hourlyInsights, revenueByJobTitle, revenueByStaffName, computedAt } = dashboardData;
 
     const getHeatmapColor = (isUnderutilised, rawRevenue) => {
         if (isUnderutilised) return '#fee2e2'; // red background bg-red-100
@@ -93,7 +93,14 @@ const InsightsDashboard = ({ storeId }) => {
     return (
         <div className="animate-in" style={{ padding: '20px', maxWidth: '1280px', margin: '0 auto' }}>
             <div style={{ display: 'flex', justifyContent: 'space-between', alignItems: 'center', marginBottom: '32px' }}>
-                <h2 style={{ margin: 0 }}>Staff-to-Revenue Intelligence</h2>
+                <div>
+                    <h2 style={{ margin: 0 }}>Staff-to-Revenue Intelligence</h2>
+                    {computedAt && (
+                        <div style={{ fontSize: '0.8rem', color: 'var(--slate-500)' }}>
+                            Updated {new Date(computedAt).toLocaleString()}
+                        </div>
+                    )}
+                </div>
                 <div style={{ display: 'flex', alignItems: 'center', gap: '12px' }}>
                     <label className="label" style={{ marginBottom: 0, color: 'var(--slate-600)' }}>Select Week:</label>
                     <input
@@ -12,6 +12,14 @@ const KnowledgeBase = () => {
         if (user?.storeId) fetchDocuments();
     }, [user]);
 
+    // Ingestion runs in the background: poll while any document is still in progress
+    const inProgress = documents.some((doc) => doc.status !== 'INDEXED' && doc.status !== 'FAILED');
+    useEffect(() => {
+        if (!inProgress) return;
+        const timer = setInterval(fetchDocuments, 3000);
+        return () => clearInterval(timer);
+    }, [inProgress]);
+
     const fetchDocuments = async () => {
         try {
             const response = await api.get(`/documents?storeId=${user.storeId}`);
@@ -42,7 +50,7 @@ const KnowledgeBase = () => {
         formData.append('storeId', user.storeId);
 
         try {
-            await api.post('/documents', formData, {
+            const response = await api.post('/documents', formData, {
                 headers: {
                     'Content-Type': 'multipart/form-data',
                 },
@@ -50,7 +58,11 @@ const KnowledgeBase = () => {
             setFile(null);
             document.getElementById('fileInput').value = '';
             fetchDocuments();
-            alert('Document uploaded successfully!');
+            if (response.status === 200) {
+                alert(`This file is already in the knowledge base as ${response.data.filename}.`);
+            } else {
+                alert('Document uploaded. It will be ready for AI retrieval once indexing finishes.');
+            }
         } catch (error) {
             console.error('Error uploading document:', error);
             alert('Upload failed: ' + (error.response?.data?.message || error.message));
@@ -109,6 +121,11 @@ const KnowledgeBase = () => {
                                         }`}>
                                         {doc.status}
                                     </span>
+                                    {doc.status === 'EMBEDDING' && doc.chunksTotal > 0 && (
+                                        <span className="text-muted" style={{ marginLeft: '0.5rem', fontSize: '0.8rem' }}>
+                                            {doc.chunksEmbedded} / {doc.chunksTotal} chunks
+                                        </span>
+                                    )}
                                     {doc.status === 'FAILED' && doc.errorMessage && (
                                         <div style={{ fontSize: '0.8rem', color: 'var(--danger)', marginTop: '0.25rem' }}>
                                             {doc.errorMessage}